@@ -53,6 +53,12 @@ public class JavaMailWrapper extends Email {
 	private Multipart iBody = null;
 	
 	public JavaMailWrapper() {
+        iMailSession = createMailSession();
+        iMail = new MimeMessage(iMailSession);
+        iBody = new MimeMultipart();
+	}
+	
+	protected static javax.mail.Session createMailSession() {
         Properties p = ApplicationProperties.getProperties();
         if (p.getProperty("mail.smtp.host")==null && p.getProperty("tmtbl.smtp.host")!=null)
             p.setProperty("mail.smtp.host", p.getProperty("tmtbl.smtp.host"));
@@ -70,9 +76,7 @@ public class JavaMailWrapper extends Email {
             };
         }
 
-        iMailSession = javax.mail.Session.getDefaultInstance(p, a);
-        iMail = new MimeMessage(iMailSession);
-        iBody = new MimeMultipart();
+        return javax.mail.Session.getDefaultInstance(p, a);
 	}
 	
 	@Override
@@ -151,7 +155,10 @@ public class JavaMailWrapper extends Email {
 	        iMail.setSentDate(new Date());
 	        iMail.setContent(iBody);
 	        iMail.saveChanges();
-	        Transport.send(iMail);
+	        if (MailSpool.isEnabled())
+	        	MailSpool.getInstance(iMailSession).submit(iMail);
+	        else
+	        	Transport.send(iMail);
 		} finally {
 			long t = System.currentTimeMillis() - t0;
 			if (t > 30000)
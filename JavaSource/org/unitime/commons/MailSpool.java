@@ -0,0 +1,343 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.commons;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.defaults.ApplicationProperty;
+
+/**
+ * Persistent outbound mail spool. Messages are written into the mail folder of the UniTime data folder
+ * and sent by a small pool of threads, each keeping its own SMTP connection open while there is something to send.
+ * Messages that fail to send are retried with an exponential back-off, messages that are still in the spool
+ * when the application is stopped are sent after the next start.
+ */
+public class MailSpool {
+	private static Log sLog = LogFactory.getLog(MailSpool.class);
+	private static MailSpool sInstance = null;
+	private static AtomicInteger sMessageId = new AtomicInteger(0);
+	
+	private javax.mail.Session iSession;
+	private File iFolder, iFailedFolder;
+	private DelayQueue<SpooledMessage> iQueue = new DelayQueue<SpooledMessage>();
+	private List<SenderThread> iThreads = new ArrayList<SenderThread>();
+	private AtomicInteger iSending = new AtomicInteger(0);
+	private AtomicInteger iSent = new AtomicInteger(0), iFailed = new AtomicInteger(0), iRetried = new AtomicInteger(0);
+	private AtomicLong iSendTime = new AtomicLong(0), iMaxSendTime = new AtomicLong(0);
+	private int iMaxAttempts;
+	private long iRetryDelay, iIdleTimeout;
+	private volatile boolean iStopped = false;
+	
+	private MailSpool(javax.mail.Session session) {
+		iSession = session;
+		iFolder = new File(ApplicationProperties.getDataFolder(), "mail");
+		iFolder.mkdirs();
+		iFailedFolder = new File(iFolder, "failed");
+		iFailedFolder.mkdirs();
+		iMaxAttempts = Math.max(1, ApplicationProperty.EmailSpoolMaxAttempts.intValue());
+		iRetryDelay = 1000l * Math.max(1, ApplicationProperty.EmailSpoolRetryDelay.intValue());
+		iIdleTimeout = 1000l * Math.max(1, ApplicationProperty.EmailSpoolIdleTimeout.intValue());
+		
+		File[] files = iFolder.listFiles();
+		if (files != null) {
+			Arrays.sort(files);
+			for (File file: files) {
+				if (!file.isFile()) continue;
+				if (file.getName().endsWith(".tmp")) {
+					file.delete();
+				} else if (file.getName().endsWith(".eml")) {
+					SpooledMessage message = SpooledMessage.parse(file);
+					if (message != null) iQueue.add(message);
+				}
+			}
+			if (!iQueue.isEmpty())
+				sLog.info("Mail spool: " + iQueue.size() + " message(s) left from the previous run will be sent.");
+		}
+		
+		int nrThreads = Math.max(1, ApplicationProperty.EmailSpoolThreads.intValue());
+		for (int i = 1; i <= nrThreads; i++) {
+			SenderThread thread = new SenderThread("MailSpool-" + i);
+			iThreads.add(thread);
+			thread.start();
+		}
+	}
+	
+	/**
+	 * Is the spool enabled (see unitime.email.spool)
+	 */
+	public static boolean isEnabled() {
+		return ApplicationProperty.EmailSpoolEnabled.isTrue();
+	}
+	
+	/**
+	 * Returns the spool, it is started when called for the first time
+	 */
+	public static synchronized MailSpool getInstance(javax.mail.Session session) {
+		if (sInstance == null)
+			sInstance = new MailSpool(session);
+		return sInstance;
+	}
+	
+	/**
+	 * Start the spool (if not started yet), so that the messages left in the spool folder from the previous run are sent
+	 * without waiting for a new message to be sent
+	 */
+	public static void startSpool() {
+		getInstance(JavaMailWrapper.createMailSession());
+	}
+	
+	/**
+	 * Stop the spool (if it was started), messages that are not yet sent remain in the spool folder
+	 */
+	public static synchronized void stopSpool() {
+		if (sInstance != null) {
+			sInstance.stop();
+			sInstance = null;
+		}
+	}
+	
+	/**
+	 * Write the message into the spool, it will be sent by one of the spool threads.
+	 * The message must be complete (including {@link MimeMessage#saveChanges()}).
+	 */
+	public void submit(MimeMessage message) throws MessagingException {
+		String id = System.currentTimeMillis() + "-" + sMessageId.incrementAndGet();
+		File tmp = new File(iFolder, id + ".tmp");
+		try {
+			OutputStream out = new FileOutputStream(tmp);
+			try {
+				message.writeTo(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			throw new MessagingException("Failed to write email into the mail spool: " + e.getMessage(), e);
+		}
+		File file = new File(iFolder, id + ".0.eml");
+		if (!tmp.renameTo(file)) {
+			tmp.delete();
+			throw new MessagingException("Failed to write email into the mail spool: unable to create " + file);
+		}
+		iQueue.add(new SpooledMessage(file, id, 0, System.currentTimeMillis()));
+	}
+	
+	protected void stop() {
+		iStopped = true;
+		for (SenderThread thread: iThreads)
+			thread.interrupt();
+		for (SenderThread thread: iThreads) {
+			try {
+				thread.join(10000);
+			} catch (InterruptedException e) {}
+		}
+		if (!iQueue.isEmpty())
+			sLog.info("Mail spool: " + iQueue.size() + " message(s) will be sent after restart.");
+	}
+	
+	/**
+	 * Number of messages that are waiting to be sent or are being sent
+	 */
+	public int getSpoolDepth() { return iQueue.size() + iSending.get(); }
+	public int getSent() { return iSent.get(); }
+	public int getFailed() { return iFailed.get(); }
+	public int getRetried() { return iRetried.get(); }
+	public long getMaxSendTime() { return iMaxSendTime.get(); }
+	
+	/**
+	 * Average time (in milliseconds) needed to send a message
+	 */
+	public double getAverageSendTime() {
+		int sent = iSent.get();
+		return (sent == 0 ? 0.0 : ((double)iSendTime.get()) / sent);
+	}
+	
+	@Override
+	public String toString() {
+		DecimalFormat df = new DecimalFormat("0.0");
+		return "MailSpool{depth=" + getSpoolDepth() + ", sent=" + getSent() + ", failed=" + getFailed() + ", retried=" + getRetried() +
+				", avg=" + df.format(getAverageSendTime()) + " ms, max=" + getMaxSendTime() + " ms}";
+	}
+	
+	protected void sent(SpooledMessage message, long time) {
+		message.getFile().delete();
+		iSent.incrementAndGet();
+		iSendTime.addAndGet(time);
+		long max = iMaxSendTime.get();
+		while (time > max && !iMaxSendTime.compareAndSet(max, time))
+			max = iMaxSendTime.get();
+	}
+	
+	protected void failed(SpooledMessage message, Exception exception, boolean permanent) {
+		if (permanent || message.getAttempt() + 1 >= iMaxAttempts) {
+			sLog.error("Mail spool: failed to send " + message.getId() + " (attempt " + (1 + message.getAttempt()) + "), message moved to " + iFailedFolder + ": " + exception.getMessage(), exception);
+			message.getFile().renameTo(new File(iFailedFolder, message.getFile().getName()));
+			iFailed.incrementAndGet();
+		} else {
+			long delay = iRetryDelay << message.getAttempt();
+			sLog.warn("Mail spool: failed to send " + message.getId() + " (attempt " + (1 + message.getAttempt()) + "), next attempt in " + (delay / 1000) + " seconds: " + exception.getMessage());
+			SpooledMessage retry = new SpooledMessage(new File(iFolder, message.getId() + "." + (1 + message.getAttempt()) + ".eml"), message.getId(), 1 + message.getAttempt(), System.currentTimeMillis() + delay);
+			if (!message.getFile().renameTo(retry.getFile())) retry = new SpooledMessage(message.getFile(), message.getId(), retry.getAttempt(), retry.getTime());
+			iRetried.incrementAndGet();
+			iQueue.add(retry);
+		}
+	}
+	
+	protected class SenderThread extends Thread {
+		private Transport iTransport = null;
+		
+		SenderThread(String name) {
+			super(name);
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			while (!iStopped) {
+				SpooledMessage message = null;
+				try {
+					message = iQueue.poll(iIdleTimeout, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					break;
+				}
+				if (message == null) {
+					disconnect();
+					continue;
+				}
+				iSending.incrementAndGet();
+				try {
+					send(message);
+				} finally {
+					iSending.decrementAndGet();
+				}
+				if (iQueue.isEmpty() && iSending.get() == 0)
+					sLog.info("Mail spool drained: " + MailSpool.this);
+			}
+			disconnect();
+		}
+		
+		protected void send(SpooledMessage message) {
+			MimeMessage mail = null;
+			try {
+				InputStream in = new FileInputStream(message.getFile());
+				try {
+					mail = new MimeMessage(iSession, in);
+				} finally {
+					in.close();
+				}
+			} catch (Exception e) {
+				failed(message, e, true);
+				return;
+			}
+			long t0 = System.currentTimeMillis();
+			try {
+				Address[] recipients = mail.getAllRecipients();
+				if (recipients == null || recipients.length == 0)
+					throw new SendFailedException("No recipient addresses");
+				if (iTransport == null)
+					iTransport = iSession.getTransport(recipients[0]);
+				if (!iTransport.isConnected())
+					iTransport.connect();
+				iTransport.sendMessage(mail, recipients);
+				sent(message, System.currentTimeMillis() - t0);
+			} catch (SendFailedException e) {
+				failed(message, e, e.getValidSentAddresses() != null && e.getValidSentAddresses().length > 0 || e.getValidUnsentAddresses() == null || e.getValidUnsentAddresses().length == 0);
+			} catch (MessagingException e) {
+				disconnect();
+				failed(message, e, false);
+			}
+		}
+		
+		protected void disconnect() {
+			if (iTransport != null) {
+				try {
+					if (iTransport.isConnected()) iTransport.close();
+				} catch (MessagingException e) {}
+				iTransport = null;
+			}
+		}
+	}
+	
+	protected static class SpooledMessage implements Delayed {
+		private File iFile;
+		private String iId;
+		private int iAttempt;
+		private long iTime;
+		
+		SpooledMessage(File file, String id, int attempt, long time) {
+			iFile = file; iId = id; iAttempt = attempt; iTime = time;
+		}
+		
+		/** Spool file name is id.attempt.eml */
+		static SpooledMessage parse(File file) {
+			String name = file.getName().substring(0, file.getName().length() - 4);
+			int idx = name.lastIndexOf('.');
+			if (idx <= 0) return null;
+			try {
+				return new SpooledMessage(file, name.substring(0, idx), Integer.parseInt(name.substring(idx + 1)), System.currentTimeMillis());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		
+		public File getFile() { return iFile; }
+		public String getId() { return iId; }
+		public int getAttempt() { return iAttempt; }
+		public long getTime() { return iTime; }
+
+		@Override
+		public int compareTo(Delayed o) {
+			if (o instanceof SpooledMessage) {
+				SpooledMessage m = (SpooledMessage)o;
+				int cmp = Long.compare(getTime(), m.getTime());
+				return (cmp != 0 ? cmp : getId().compareTo(m.getId()));
+			}
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(iTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+}
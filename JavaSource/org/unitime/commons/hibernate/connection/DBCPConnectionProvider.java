@@ -253,6 +253,16 @@ public class DBCPConnectionProvider implements DisposableConnectionProvider {
         }
     }
     
+    /** Number of connections currently borrowed from the pool, -1 when the pool is not initialized */
+    public int getNumActive() {
+    	return (ds == null ? -1 : ds.getNumActive());
+    }
+    
+    /** Number of idle connections in the pool, -1 when the pool is not initialized */
+    public int getNumIdle() {
+    	return (ds == null ? -1 : ds.getNumIdle());
+    }
+    
     public boolean supportsAggressiveRelease() {
     	return false;
     }
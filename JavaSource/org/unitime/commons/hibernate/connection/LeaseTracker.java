@@ -0,0 +1,428 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.commons.hibernate.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cpsolver.ifs.util.ToolBox;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.unitime.commons.hibernate.stats.RequestStatistics;
+import org.unitime.timetable.defaults.ApplicationProperty;
+
+/**
+ * Keeps track of the database connections leased from a connection provider and collects connection pool telemetry
+ * (leases, wait times, longest lease, slow statements). Leases are kept in an identity-keyed concurrent map, so that
+ * leasing and releasing a connection does not need any lock.
+ * When {@link ApplicationProperty#ConnectionSlowStatementThreshold} is set, leased connections are wrapped so that
+ * all statements that take longer than the threshold are logged. When {@link ApplicationProperty#QueryLogRequestStatisticsTiming}
+ * is enabled, connections leased while {@link RequestStatistics} are being collected are wrapped as well, so that the statement
+ * times can be attributed to the request.
+ */
+public class LeaseTracker {
+	private static final Log sLog = LogFactory.getLog(LeaseTracker.class);
+	private static final DecimalFormat sDF = new DecimalFormat("#,##0.00");
+	private static final long[] sWaitLimits = new long[] { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+	private static final int sMaxSlowStatements = 20;
+	private static LeaseTracker sInstance = null;
+	
+	private ConnectionProvider iProvider;
+	private ConcurrentHashMap<IdentityKey, Lease> iLeases = new ConcurrentHashMap<IdentityKey, Lease>();
+	private AtomicLong iLeaseCount = new AtomicLong(0), iReleaseCount = new AtomicLong(0), iLeaseTime = new AtomicLong(0);
+	private AtomicLong iWaitTime = new AtomicLong(0), iMaxWaitTime = new AtomicLong(0);
+	private AtomicLongArray iWaitHistogram = new AtomicLongArray(sWaitLimits.length + 1);
+	private AtomicLong iStatementCount = new AtomicLong(0), iSlowStatementCount = new AtomicLong(0);
+	private AtomicInteger iMaxActive = new AtomicInteger(0);
+	private ConcurrentLinkedDeque<SlowStatement> iSlowStatements = new ConcurrentLinkedDeque<SlowStatement>();
+	private volatile long iSlowStatementThreshold = 0;
+	private volatile boolean iRequestStatementTiming = false;
+	private volatile long iLeaseWarning = 60000;
+	private LeaseLogger iLogger = null;
+	private String iName;
+	
+	public LeaseTracker(ConnectionProvider provider, String name) {
+		iProvider = provider;
+		iName = name;
+		sInstance = this;
+	}
+	
+	/**
+	 * Lease tracker of the last connection provider that was created, null if lease tracking is not enabled
+	 */
+	public static LeaseTracker getInstance() { return sInstance; }
+	
+	/** Start the lease logger thread */
+	public void start() {
+		if (iLogger == null) {
+			iLogger = new LeaseLogger();
+			iLogger.start();
+		}
+	}
+	
+	/** Stop the lease logger thread */
+	public void stop() {
+		if (iLogger != null) {
+			iLogger.interrupt();
+			iLogger = null;
+		}
+		if (sInstance == this) sInstance = null;
+	}
+	
+	/**
+	 * Register a newly leased connection.
+	 * @param connection connection returned by the underlying connection provider
+	 * @param waitNanos time it took to get the connection (in nanoseconds)
+	 * @return connection to be used by the caller (it is wrapped when slow statement detection or request statement timing are enabled)
+	 */
+	public Connection lease(Connection connection, long waitNanos) {
+		long waitMillis = waitNanos / 1000000l;
+		int bucket = 0;
+		while (bucket < sWaitLimits.length && waitMillis >= sWaitLimits[bucket]) bucket++;
+		iWaitHistogram.incrementAndGet(bucket);
+		iWaitTime.addAndGet(waitMillis);
+		long max = iMaxWaitTime.get();
+		while (waitMillis > max && !iMaxWaitTime.compareAndSet(max, waitMillis))
+			max = iMaxWaitTime.get();
+		
+		Connection leased = (iSlowStatementThreshold > 0 || (iRequestStatementTiming && RequestStatistics.current() != null) ? wrap(connection) : connection);
+		iLeases.put(new IdentityKey(leased), new Lease(connection, leased));
+		iLeaseCount.incrementAndGet();
+		int active = iLeases.size(), maxActive = iMaxActive.get();
+		while (active > maxActive && !iMaxActive.compareAndSet(maxActive, active))
+			maxActive = iMaxActive.get();
+		return leased;
+	}
+	
+	/**
+	 * Unregister a connection that is being released.
+	 * @param connection connection as returned by {@link LeaseTracker#lease(Connection, long)}
+	 * @return underlying connection that is to be returned to the connection provider
+	 */
+	public Connection release(Connection connection) {
+		Lease lease = iLeases.remove(new IdentityKey(connection));
+		if (lease == null) return connection;
+		iReleaseCount.incrementAndGet();
+		iLeaseTime.addAndGet(System.currentTimeMillis() - lease.iTimeStamp);
+		return lease.getConnection();
+	}
+	
+	public String getName() { return iName; }
+	/** Number of currently leased connections */
+	public int getActive() { return iLeases.size(); }
+	/** Highest number of connections leased at the same time */
+	public int getMaxActive() { return iMaxActive.get(); }
+	/** Number of idle connections in the pool, -1 if not known */
+	public int getIdle() {
+		return (iProvider instanceof DBCPConnectionProvider ? ((DBCPConnectionProvider)iProvider).getNumIdle() : -1);
+	}
+	public long getLeaseCount() { return iLeaseCount.get(); }
+	public long getReleaseCount() { return iReleaseCount.get(); }
+	/** Average lease time of the released connections in milliseconds */
+	public double getAverageLeaseTime() {
+		long released = iReleaseCount.get();
+		return (released == 0 ? 0.0 : ((double)iLeaseTime.get()) / released);
+	}
+	/** Average time to get a connection in milliseconds */
+	public double getAverageWaitTime() {
+		long leased = iLeaseCount.get();
+		return (leased == 0 ? 0.0 : ((double)iWaitTime.get()) / leased);
+	}
+	/** Longest time to get a connection in milliseconds */
+	public long getMaxWaitTime() { return iMaxWaitTime.get(); }
+	public long getStatementCount() { return iStatementCount.get(); }
+	public long getSlowStatementCount() { return iSlowStatementCount.get(); }
+	/** Most recent slow statements, the latest first */
+	public Collection<SlowStatement> getSlowStatements() { return new ArrayList<SlowStatement>(iSlowStatements); }
+	public long getSlowStatementThreshold() { return iSlowStatementThreshold; }
+	
+	/** Wait time histogram: bucket labels and counts */
+	public String[] getWaitHistogramLabels() {
+		String[] labels = new String[sWaitLimits.length + 1];
+		for (int i = 0; i < sWaitLimits.length; i++)
+			labels[i] = "< " + sWaitLimits[i] + " ms";
+		labels[sWaitLimits.length] = ">= " + sWaitLimits[sWaitLimits.length - 1] + " ms";
+		return labels;
+	}
+	public long[] getWaitHistogram() {
+		long[] counts = new long[iWaitHistogram.length()];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = iWaitHistogram.get(i);
+		return counts;
+	}
+	
+	/** Currently active leases */
+	public Collection<Lease> getLeases() { return new ArrayList<Lease>(iLeases.values()); }
+	
+	/** The oldest active lease, null if there is none */
+	public Lease getLongestLease() {
+		Lease longest = null;
+		for (Lease lease: iLeases.values())
+			if (longest == null || lease.iTimeStamp < longest.iTimeStamp) longest = lease;
+		return longest;
+	}
+	
+	protected void refreshSettings() {
+		iSlowStatementThreshold = ApplicationProperty.ConnectionSlowStatementThreshold.intValue();
+		iRequestStatementTiming = ApplicationProperty.QueryLogRequestStatisticsTiming.isTrue();
+		iLeaseWarning = 1000l * ApplicationProperty.ConnectionLeaseWarning.intValue();
+	}
+	
+	@Override
+	public String toString() {
+		Lease longest = getLongestLease();
+		return "active: " + getActive() + " (max: " + getMaxActive() + ")  idle: " + getIdle() +
+				"  leases: " + getLeaseCount() + "  avg lease: " + sDF.format(getAverageLeaseTime()) + " ms" +
+				"  avg wait: " + sDF.format(getAverageWaitTime()) + " ms (max: " + getMaxWaitTime() + " ms)" +
+				"  statements: " + getStatementCount() + " (slow: " + getSlowStatementCount() + ")" +
+				(longest == null ? "" : "  longest lease: " + longest);
+	}
+	
+	protected Connection wrap(Connection connection) {
+		return (Connection)Proxy.newProxyInstance(LeaseTracker.class.getClassLoader(), new Class[] { Connection.class }, new ConnectionHandler(connection));
+	}
+	
+	protected void executed(String sql, long nanos) {
+		iStatementCount.incrementAndGet();
+		RequestStatistics.executed(sql, nanos);
+		long millis = nanos / 1000000l;
+		long threshold = iSlowStatementThreshold;
+		if (threshold <= 0 || millis < threshold) return;
+		iSlowStatementCount.incrementAndGet();
+		SlowStatement statement = new SlowStatement(sql, millis);
+		iSlowStatements.addFirst(statement);
+		while (iSlowStatements.size() > sMaxSlowStatements)
+			iSlowStatements.pollLast();
+		sLog.warn("Slow statement (" + millis + " ms): " + sql + statement.getStackTrace());
+	}
+	
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+	
+	private class ConnectionHandler implements InvocationHandler {
+		private Connection iConnection;
+		
+		ConnectionHandler(Connection connection) { iConnection = connection; }
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("equals".equals(name) && args != null && args.length == 1) return proxy == args[0];
+			if ("hashCode".equals(name) && (args == null || args.length == 0)) return System.identityHashCode(proxy);
+			Object ret = LeaseTracker.invoke(iConnection, method, args);
+			if (ret instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType()))
+				return Proxy.newProxyInstance(LeaseTracker.class.getClassLoader(), new Class[] { method.getReturnType() },
+						new StatementHandler((Statement)ret, args != null && args.length > 0 && args[0] instanceof String ? (String)args[0] : null));
+			return ret;
+		}
+	}
+	
+	private class StatementHandler implements InvocationHandler {
+		private Statement iStatement;
+		private String iSql;
+		
+		StatementHandler(Statement statement, String sql) { iStatement = statement; iSql = sql; }
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("equals".equals(name) && args != null && args.length == 1) return proxy == args[0];
+			if ("hashCode".equals(name) && (args == null || args.length == 0)) return System.identityHashCode(proxy);
+			if (!name.startsWith("execute")) return LeaseTracker.invoke(iStatement, method, args);
+			long t0 = System.nanoTime();
+			try {
+				return LeaseTracker.invoke(iStatement, method, args);
+			} finally {
+				executed(args != null && args.length > 0 && args[0] instanceof String ? (String)args[0] : iSql, System.nanoTime() - t0);
+			}
+		}
+	}
+	
+	private static class IdentityKey {
+		private Object iObject;
+		
+		IdentityKey(Object object) { iObject = object; }
+		
+		@Override
+		public int hashCode() { return System.identityHashCode(iObject); }
+		
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IdentityKey && ((IdentityKey)o).iObject == iObject;
+		}
+	}
+	
+	private static String trace(StackTraceElement[] trace, boolean full) {
+		int first = -1, tracker = 0;
+		while (tracker < trace.length && trace[tracker].getClassName().startsWith(LeaseTracker.class.getPackage().getName() + ".")) tracker++;
+		for (int i = tracker; i < trace.length; i++)
+			if (trace[i].getClassName().startsWith("org.unitime.") && !trace[i].getClassName().endsWith("._BaseRootDAO")) { first = i; break; }
+		if (first < 0) first = tracker;
+		if (!full) return (first < trace.length ? trace[first].toString() : null);
+		StringBuffer ret = new StringBuffer();
+		for (int i = first; i < trace.length; i++)
+			ret.append("\n  " + trace[i]);
+		return ret.toString();
+	}
+	
+	public static class Lease {
+		private Connection iConnection, iLeased;
+		private Thread iThread;
+		private Throwable iTrace;
+		private long iTimeStamp;
+		
+		Lease(Connection connection, Connection leased) {
+			iConnection = connection;
+			iLeased = leased;
+			iThread = Thread.currentThread();
+			iTrace = new Throwable();
+			iTimeStamp = System.currentTimeMillis();
+		}
+		
+		/** Underlying connection */
+		public Connection getConnection() { return iConnection; }
+		
+		/** Connection as it was given to the caller */
+		public Connection getLeasedConnection() { return iLeased; }
+		
+		public Date getLeaseDate() { return new Date(iTimeStamp); }
+		
+		public double getLeaseTime() {
+			return (System.currentTimeMillis() - iTimeStamp) / 1000.0;
+		}
+		
+		public Thread.State getState() {
+			return iThread.getState();
+		}
+		
+		public String getName() {
+			return iThread.getName();
+		}
+		
+		public String getStackTrace() {
+			return trace(iTrace.getStackTrace(), true);
+		}
+		
+		public String toString() {
+			return sDF.format(getLeaseTime()) + " " + getState() + " " + getName() + " " + trace(iTrace.getStackTrace(), false);
+		}
+	}
+	
+	public static class SlowStatement {
+		private String iSql;
+		private long iTime;
+		private Date iDate;
+		private String iThread;
+		private Throwable iTrace;
+		
+		SlowStatement(String sql, long time) {
+			iSql = sql; iTime = time; iDate = new Date();
+			iThread = Thread.currentThread().getName();
+			iTrace = new Throwable();
+		}
+		
+		public String getSql() { return iSql; }
+		/** Execution time in milliseconds */
+		public long getTime() { return iTime; }
+		public Date getDate() { return iDate; }
+		public String getThreadName() { return iThread; }
+		public String getStackTrace() { return trace(iTrace.getStackTrace(), true); }
+		public String getOrigin() { return trace(iTrace.getStackTrace(), false); }
+		
+		public String toString() {
+			return iTime + " ms " + iThread + " " + getOrigin() + ": " + iSql;
+		}
+	}
+	
+	public class LeaseLogger extends Thread {
+		private boolean iActive = true;
+		
+		public LeaseLogger() {
+			super(iName);
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			sLog.info("Database connection pool logging is enabled.");
+			while (iActive) {
+				try {
+					refreshSettings();
+				} catch (Exception e) {
+					sLog.debug("Failed to refresh settings: " + e.getMessage());
+				}
+				try {
+					try {
+						sleep(60000);
+					} catch (InterruptedException e) {}
+					if (!iActive) break;
+					List<Lease> suspicious = new ArrayList<Lease>();
+					for (Lease lease: iLeases.values())
+						if (1000.0 * lease.getLeaseTime() > iLeaseWarning || lease.getState() == State.TERMINATED)
+							suspicious.add(lease);
+					if (!suspicious.isEmpty())
+						sLog.warn("Suspicious leases:" + ToolBox.col2string(suspicious, 2));
+					for (Iterator<Lease> i = suspicious.iterator(); i.hasNext(); ) {
+						Lease lease = i.next();
+						if (lease.getState() == State.TERMINATED) {
+							sLog.fatal("Releasing connection of a terminated thread " + lease.getName() + "." + lease.getStackTrace());
+							iProvider.closeConnection(lease.getLeasedConnection());
+						}
+					}
+					if (sLog.isDebugEnabled())
+						sLog.debug("Connection pool: " + LeaseTracker.this);
+				} catch (SQLException e) {
+					sLog.warn("Failed to release a connection: " + e.getMessage(), e);
+				} catch (Exception e) {
+					sLog.warn("Logging failed: " + e.getMessage(), e);
+				}
+			}
+		}
+		
+		@Override
+		public void interrupt() {
+			iActive = false;
+			super.interrupt();
+			try { join(); } catch (InterruptedException e) {}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.commons.hibernate.id;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Properties;
+import java.util.Queue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.SequenceGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence generator that reserves a block of identifiers from the database sequence in a single round trip
+ * (the block size is given by the {@link SequenceBlockGenerator#BLOCK_SIZE} parameter).<br>
+ * Unlike a hi/lo generator, the identifiers are still the values of the sequence (the block is a multi-row select of the next values),
+ * so the generator is safe when multiple servers share the same database and it can be combined with the plain {@link SequenceGenerator}
+ * or SQL scripts using the same sequence. Identifiers that are reserved but not used (e.g., when the server is stopped) are skipped.<br>
+ * Blocks are supported on Oracle and PostgreSQL, on other databases the identifiers are taken from the sequence one by one.
+ */
+public class SequenceBlockGenerator extends SequenceGenerator {
+	private static Log sLog = LogFactory.getLog(SequenceBlockGenerator.class);
+	public static final String BLOCK_SIZE = "block_size";
+	
+	private int iBlockSize = 1;
+	private String iBlockSql = null;
+	private Queue<Serializable> iBlock = new ArrayDeque<Serializable>();
+	
+	@Override
+	public void configure(Type type, Properties params, Dialect dialect) throws MappingException {
+		super.configure(type, params, dialect);
+		iBlockSize = ConfigurationHelper.getInt(BLOCK_SIZE, params, 1);
+		if (iBlockSize > 1) {
+			iBlockSql = getBlockSql(dialect, getSequenceName(), iBlockSize);
+			if (iBlockSql == null) {
+				sLog.debug("Dialect " + dialect.getClass().getSimpleName() + " does not support blocks, " + getSequenceName() + " values are taken one by one.");
+				iBlockSize = 1;
+			}
+		}
+	}
+	
+	/**
+	 * Select returning the next given number of values of the sequence, null if not supported by the dialect
+	 */
+	protected static String getBlockSql(Dialect dialect, String sequenceName, int blockSize) {
+		if (dialect instanceof Oracle8iDialect)
+			return "select " + sequenceName + ".nextval from dual connect by level <= " + blockSize;
+		if (dialect instanceof PostgreSQL81Dialect)
+			return "select nextval('" + sequenceName + "') from generate_series(1, " + blockSize + ")";
+		return null;
+	}
+	
+	public int getBlockSize() { return iBlockSize; }
+	
+	@Override
+	public synchronized Serializable generate(SessionImplementor session, Object object) throws HibernateException {
+		if (iBlockSql == null)
+			return super.generate(session, object);
+		if (iBlock.isEmpty())
+			reserve(session);
+		return iBlock.poll();
+	}
+	
+	protected void reserve(SessionImplementor session) throws HibernateException {
+		try {
+			PreparedStatement st = session.getTransactionCoordinator().getJdbcCoordinator().getStatementPreparer().prepareStatement(iBlockSql);
+			try {
+				ResultSet rs = session.getTransactionCoordinator().getJdbcCoordinator().getResultSetReturn().extract(st);
+				try {
+					while (rs.next()) {
+						IntegralDataTypeHolder holder = IdentifierGeneratorHelper.getIntegralDataTypeHolder(getIdentifierType().getReturnedClass());
+						holder.initialize(rs, 1);
+						iBlock.add(holder.makeValue());
+					}
+				} finally {
+					session.getTransactionCoordinator().getJdbcCoordinator().release(rs, st);
+				}
+			} finally {
+				session.getTransactionCoordinator().getJdbcCoordinator().release(st);
+			}
+		} catch (SQLException e) {
+			throw session.getFactory().getSQLExceptionHelper().convert(e, "could not reserve a block of sequence values", iBlockSql);
+		}
+		if (iBlock.isEmpty())
+			throw new HibernateException("Sequence " + getSequenceName() + " returned no values.");
+		if (sLog.isTraceEnabled())
+			sLog.trace("Reserved " + iBlock.size() + " values of " + getSequenceName() + ", starting with " + iBlock.peek());
+	}
+}
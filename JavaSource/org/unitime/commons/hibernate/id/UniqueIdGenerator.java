@@ -30,7 +30,9 @@ import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.id.Configurable;
 import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.SequenceGenerator;
 import org.hibernate.type.Type;
+import org.unitime.timetable.defaults.ApplicationProperty;
 
 /**
  * @author Tomas Muller
@@ -40,12 +42,34 @@ public class UniqueIdGenerator implements IdentifierGenerator, Configurable {
     private static String sGenClass = null;
     private static String sDefaultSchema = null;
     private static ObjectNameNormalizer sNormalizer = null;
+    private static Properties sProperties = null;
     
     public static void configure(Configuration config) {
         sGenClass = config.getProperty("tmtbl.uniqueid.generator");
         if (sGenClass==null) sGenClass = "org.hibernate.id.SequenceGenerator";
         sDefaultSchema = config.getProperty("default_schema");
         sNormalizer = config.createMappings().getObjectNameNormalizer();
+        sProperties = config.getProperties();
+    }
+    
+    /**
+     * Number of identifiers reserved at once for the given entity: block_size parameter of the mapping,
+     * tmtbl.uniqueid.blockSize.[entity] (simple name of the root entity), or tmtbl.uniqueid.blockSize
+     */
+    public static int getBlockSize(Properties params) {
+    	String blockSize = params.getProperty(SequenceBlockGenerator.BLOCK_SIZE);
+    	String entity = params.getProperty(IdentifierGenerator.ENTITY_NAME);
+    	if (blockSize == null && entity != null && sProperties != null)
+    		blockSize = sProperties.getProperty(ApplicationProperty.DatabaseUniqueIdBlockSizeEntity.key().replace("%", entity.substring(entity.lastIndexOf('.') + 1)));
+    	if (blockSize == null && sProperties != null)
+    		blockSize = sProperties.getProperty(ApplicationProperty.DatabaseUniqueIdBlockSize.key());
+    	if (blockSize == null)
+    		blockSize = ApplicationProperty.DatabaseUniqueIdBlockSize.defaultValue();
+    	try {
+    		return Integer.parseInt(blockSize);
+    	} catch (NumberFormatException e) {
+    		return 1;
+    	}
     }
     
     public IdentifierGenerator getGenerator() throws HibernateException {
@@ -66,6 +90,13 @@ public class UniqueIdGenerator implements IdentifierGenerator, Configurable {
     }
     
     public void configure(Type type, Properties params, Dialect d) throws MappingException {
+        if (SequenceGenerator.class.getName().equals(sGenClass) || SequenceBlockGenerator.class.getName().equals(sGenClass)) {
+        	// sequence values are reserved in blocks, unless the block size is one
+        	int blockSize = getBlockSize(params);
+        	params.setProperty(SequenceBlockGenerator.BLOCK_SIZE, String.valueOf(blockSize));
+        	if (iGenerator == null && blockSize > 1)
+        		iGenerator = new SequenceBlockGenerator();
+        }
         if (getGenerator() instanceof Configurable) {
             if (params.getProperty("schema") == null && sDefaultSchema != null)
                 params.setProperty("schema", sDefaultSchema);
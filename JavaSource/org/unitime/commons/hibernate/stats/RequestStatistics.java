@@ -0,0 +1,297 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.commons.hibernate.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Per-request statement statistics. A collector is bound to the current thread between {@link RequestStatistics#begin()}
+ * and {@link RequestStatistics#end()}; statements are counted by {@link RequestStatisticsInterceptor} and timed by the
+ * {@link org.unitime.commons.hibernate.connection.LeaseTracker} (when statements are wrapped).
+ * Statements are grouped by their shape (literals replaced by parameters), so that repeated selects of the same
+ * shape (N+1 selects) can be detected. Finished requests are aggregated by URI, see {@link RequestStatistics#getTopOffenders(int)}.
+ */
+public class RequestStatistics {
+	private static final Log sLog = LogFactory.getLog(RequestStatistics.class);
+	private static final ThreadLocal<RequestStatistics> sCurrent = new ThreadLocal<RequestStatistics>();
+	private static final ConcurrentHashMap<String, UriStatistics> sUris = new ConcurrentHashMap<String, UriStatistics>();
+	private static final Pattern sList = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+	private static final int sMaxShapes = 1000;
+	private static final int sMaxUris = 1000;
+	
+	private Map<String, Shape> iShapes = new HashMap<String, Shape>();
+	private long iCount = 0, iTime = 0;
+	private boolean iTimed = false;
+	private String iLastSql = null, iLastShape = null;
+	
+	private RequestStatistics() {}
+	
+	/**
+	 * Start collecting statistics for the current thread.
+	 * @return false if there already is a collector bound to the current thread
+	 */
+	public static boolean begin() {
+		if (sCurrent.get() != null) return false;
+		sCurrent.set(new RequestStatistics());
+		return true;
+	}
+	
+	/** Stop collecting statistics for the current thread */
+	public static void end() {
+		sCurrent.remove();
+	}
+	
+	/** Statistics of the current thread, null when not collected */
+	public static RequestStatistics current() {
+		return sCurrent.get();
+	}
+	
+	/** A statement is being prepared by the current thread */
+	public static void prepared(String sql) {
+		RequestStatistics stats = sCurrent.get();
+		if (stats != null && sql != null) {
+			stats.iCount ++;
+			Shape shape = stats.getShape(sql);
+			if (shape != null) shape.iCount ++;
+		}
+	}
+	
+	/** A statement was executed by the current thread */
+	public static void executed(String sql, long nanos) {
+		RequestStatistics stats = sCurrent.get();
+		if (stats != null && sql != null) {
+			stats.iTimed = true;
+			stats.iTime += nanos;
+			Shape shape = stats.getShape(sql);
+			if (shape != null) shape.iTime += nanos;
+		}
+	}
+	
+	private Shape getShape(String sql) {
+		String key = (sql == iLastSql ? iLastShape : shape(sql));
+		iLastSql = sql; iLastShape = key;
+		Shape shape = iShapes.get(key);
+		if (shape == null && iShapes.size() < sMaxShapes) {
+			shape = new Shape(key);
+			iShapes.put(key, shape);
+		}
+		return shape;
+	}
+	
+	/**
+	 * Add statistics collected by another thread on behalf of the same request (e.g., by a worker thread)
+	 */
+	public void merge(RequestStatistics other) {
+		if (other == null || other == this) return;
+		iCount += other.iCount;
+		iTime += other.iTime;
+		iTimed = iTimed || other.iTimed;
+		for (Shape s: other.iShapes.values()) {
+			Shape shape = iShapes.get(s.getSql());
+			if (shape == null && iShapes.size() < sMaxShapes) {
+				shape = new Shape(s.getSql());
+				iShapes.put(s.getSql(), shape);
+			}
+			if (shape != null) {
+				shape.iCount += s.iCount;
+				shape.iTime += s.iTime;
+			}
+		}
+	}
+	
+	/** Number of statements prepared during the request */
+	public long getStatementCount() { return iCount; }
+	
+	/** Time spent executing statements in milliseconds, only available when {@link RequestStatistics#isTimed()} */
+	public double getStatementTime() { return iTime / 1000000.0; }
+	
+	/** True if statement execution times are known */
+	public boolean isTimed() { return iTimed; }
+	
+	/** Statement shapes that were prepared at least the given number of times, the most repeated first */
+	public List<Shape> getRepeatedStatements(int threshold) {
+		List<Shape> ret = new ArrayList<Shape>();
+		if (threshold <= 0) return ret;
+		for (Shape shape: iShapes.values())
+			if (shape.getCount() >= threshold) ret.add(shape);
+		Collections.sort(ret);
+		return ret;
+	}
+	
+	/**
+	 * Aggregate statistics of a finished request.
+	 * @param uri request URI (as recorded in the query log)
+	 * @param threshold number of repetitions of a statement shape that is reported as an N+1 select
+	 * @return repeated statement shapes
+	 */
+	public List<Shape> record(String uri, int threshold) {
+		List<Shape> repeated = getRepeatedStatements(threshold);
+		if (uri == null) return repeated;
+		UriStatistics stats = sUris.get(uri);
+		if (stats == null) {
+			if (sUris.size() >= sMaxUris) return repeated;
+			stats = new UriStatistics(uri);
+			UriStatistics old = sUris.putIfAbsent(uri, stats);
+			if (old != null) stats = old;
+		}
+		stats.add(this, repeated);
+		if (!repeated.isEmpty() && sLog.isInfoEnabled())
+			sLog.info("Repeated statements in " + uri + " (" + iCount + " statements): " + repeated);
+		return repeated;
+	}
+	
+	/** Per-URI statistics, the requests with the most N+1 selects and statements first */
+	public static List<UriStatistics> getTopOffenders(int limit) {
+		List<UriStatistics> ret = new ArrayList<UriStatistics>(sUris.values());
+		Collections.sort(ret, new Comparator<UriStatistics>() {
+			@Override
+			public int compare(UriStatistics u1, UriStatistics u2) {
+				int cmp = Long.compare(u2.getRepeatedRequests(), u1.getRepeatedRequests());
+				if (cmp != 0) return cmp;
+				cmp = Double.compare(u2.getAverageStatements(), u1.getAverageStatements());
+				if (cmp != 0) return cmp;
+				return u1.getUri().compareTo(u2.getUri());
+			}
+		});
+		return (limit > 0 && ret.size() > limit ? ret.subList(0, limit) : ret);
+	}
+	
+	/** Forget all aggregated statistics */
+	public static void reset() {
+		sUris.clear();
+	}
+	
+	/**
+	 * Statement shape: the SQL with string and numeric literals replaced by parameters,
+	 * lists of parameters collapsed into one, and white spaces normalized.
+	 */
+	public static String shape(String sql) {
+		int n = sql.length();
+		StringBuilder sb = new StringBuilder(n);
+		for (int i = 0; i < n; i++) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				for (i++; i < n; i++) {
+					if (sql.charAt(i) == '\'') {
+						if (i + 1 < n && sql.charAt(i + 1) == '\'') i++;
+						else break;
+					}
+				}
+				sb.append('?');
+			} else if (Character.isDigit(c) && (sb.length() == 0 || !isIdentifierPart(sb.charAt(sb.length() - 1)))) {
+				while (i + 1 < n && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) i++;
+				sb.append('?');
+			} else if (Character.isWhitespace(c)) {
+				if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+			} else {
+				sb.append(c);
+			}
+		}
+		if (sb.length() > 0 && sb.charAt(sb.length() - 1) == ' ') sb.setLength(sb.length() - 1);
+		String shape = sb.toString();
+		if (shape.indexOf(',') >= 0 && shape.indexOf('(') >= 0)
+			shape = sList.matcher(shape).replaceAll("(?)");
+		return shape;
+	}
+	
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '?';
+	}
+	
+	public static class Shape implements Comparable<Shape> {
+		private String iSql;
+		private int iCount = 0;
+		private long iTime = 0;
+		
+		Shape(String sql) { iSql = sql; }
+		
+		public String getSql() { return iSql; }
+		public int getCount() { return iCount; }
+		/** Time spent executing the statement in milliseconds */
+		public double getTime() { return iTime / 1000000.0; }
+		
+		@Override
+		public int compareTo(Shape s) {
+			int cmp = Integer.compare(s.getCount(), getCount());
+			if (cmp != 0) return cmp;
+			return getSql().compareTo(s.getSql());
+		}
+		
+		@Override
+		public String toString() {
+			return getCount() + "x " + getSql();
+		}
+	}
+	
+	public static class UriStatistics {
+		private String iUri;
+		private long iRequests = 0, iStatements = 0, iMaxStatements = 0, iTime = 0, iTimedRequests = 0, iRepeatedRequests = 0;
+		private String iWorstStatement = null;
+		private int iWorstCount = 0;
+		
+		UriStatistics(String uri) { iUri = uri; }
+		
+		synchronized void add(RequestStatistics stats, List<Shape> repeated) {
+			iRequests ++;
+			iStatements += stats.getStatementCount();
+			if (stats.getStatementCount() > iMaxStatements) iMaxStatements = stats.getStatementCount();
+			if (stats.isTimed()) {
+				iTimedRequests ++;
+				iTime += stats.iTime;
+			}
+			if (!repeated.isEmpty()) {
+				iRepeatedRequests ++;
+				Shape worst = repeated.get(0);
+				if (worst.getCount() > iWorstCount) {
+					iWorstCount = worst.getCount();
+					iWorstStatement = worst.getSql();
+				}
+			}
+		}
+		
+		public String getUri() { return iUri; }
+		public synchronized long getRequests() { return iRequests; }
+		public synchronized long getMaxStatements() { return iMaxStatements; }
+		public synchronized double getAverageStatements() { return iRequests == 0 ? 0.0 : ((double)iStatements) / iRequests; }
+		/** Average statement time per request in milliseconds, null when statements are not timed */
+		public synchronized Double getAverageStatementTime() { return iTimedRequests == 0 ? null : iTime / 1000000.0 / iTimedRequests; }
+		/** Number of requests with at least one repeated statement (N+1 select) */
+		public synchronized long getRepeatedRequests() { return iRepeatedRequests; }
+		/** The most repeated statement shape so far */
+		public synchronized String getWorstStatement() { return iWorstStatement; }
+		public synchronized int getWorstStatementCount() { return iWorstCount; }
+		
+		@Override
+		public synchronized String toString() {
+			return getUri() + " (requests: " + iRequests + ", avg statements: " + getAverageStatements() + ", max: " + iMaxStatements +
+					", N+1: " + iRepeatedRequests + (iWorstStatement == null ? "" : ", worst: " + iWorstCount + "x " + iWorstStatement) + ")";
+		}
+	}
+}
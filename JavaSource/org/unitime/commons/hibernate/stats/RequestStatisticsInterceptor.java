@@ -0,0 +1,35 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.commons.hibernate.stats;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Session factory interceptor that passes all prepared statements to {@link RequestStatistics}.
+ */
+public class RequestStatisticsInterceptor extends EmptyInterceptor {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String onPrepareStatement(String sql) {
+		RequestStatistics.prepared(sql);
+		return sql;
+	}
+}
@@ -19,7 +19,9 @@
 */
 package org.unitime.commons.hibernate.stats;
 
+import java.text.DecimalFormat;
 import java.util.Date;
+import java.util.List;
 
 import org.hibernate.SessionFactory;
 import org.hibernate.stat.CollectionStatistics;
@@ -27,11 +29,15 @@ import org.hibernate.stat.EntityStatistics;
 import org.hibernate.stat.QueryStatistics;
 import org.hibernate.stat.SecondLevelCacheStatistics;
 import org.hibernate.stat.Statistics;
+import org.unitime.commons.hibernate.connection.LeaseTracker;
 import org.unitime.commons.web.htmlgen.Table;
 import org.unitime.commons.web.htmlgen.TableCell;
 import org.unitime.commons.web.htmlgen.TableHeaderCell;
 import org.unitime.commons.web.htmlgen.TableRow;
 import org.unitime.timetable.model.dao._RootDAO;
+import org.unitime.timetable.security.evaluation.PermissionCache;
+import org.unitime.timetable.solver.jgroups.RemoteSolverStatistics;
+import org.unitime.timetable.util.CalendarFeedCache;
 
 
 /**
@@ -92,6 +98,14 @@ public class StatsProvider {
             if(!summaryOnly)
                 links.append(" - <A class=\"l7\" href=\"#SecondLevelCacheDetail\">Detail</A>");
 
+            LeaseTracker tracker = LeaseTracker.getInstance();
+            if (tracker != null)
+            	links.append(" | <A class=\"l7\" href=\"#ConnectionPool\">Connection Pool</A>");
+
+            List<RequestStatistics.UriStatistics> offenders = RequestStatistics.getTopOffenders(summaryOnly ? 10 : 50);
+            if (!offenders.isEmpty())
+            	links.append(" | <A class=\"l7\" href=\"#Requests\">Requests</A>");
+
             links.append(" | <A class=\"l7\" href=\"#Query\">Query</A>");
             if(!summaryOnly)
                 links.append(" - <A class=\"l7\" href=\"#QueryDetail\">Detail</A>");
@@ -161,11 +175,169 @@ public class StatsProvider {
             row.addContent(cell(stats.getOptimisticFailureCount()+"", 1, 1, false));
             table.addContent(row);
 
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Permission Cache Hits (Request / User)", 1, 1, true));
+            row.addContent(cell(PermissionCache.getRequestHits() + " / " + PermissionCache.getUserHits(), 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Permission Cache Misses", 1, 1, true));
+            row.addContent(cell(PermissionCache.getMisses()+"", 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Permission Cache Hit Ratio", 1, 1, true));
+            row.addContent(cell(new DecimalFormat("0.0%").format(PermissionCache.getHitRatio()), 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Remote Solver Calls (Methods / Cache Hits)", 1, 1, true));
+            row.addContent(cell(RemoteSolverStatistics.getCalls() + " (" + RemoteSolverStatistics.getBatchedCalls() + " / " + RemoteSolverStatistics.getCacheHits() + ")", 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Remote Solver Call Latency", 1, 1, true));
+            row.addContent(cell(new DecimalFormat("0.00").format(RemoteSolverStatistics.getAverageLatency()) + " ms", 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Calendar Feed Cache Hits / Misses (Not Modified)", 1, 1, true));
+            row.addContent(cell(CalendarFeedCache.getHits() + " / " + CalendarFeedCache.getMisses() + " (" + CalendarFeedCache.getNotModified() + ")", 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Calendar Feed Cache Hit Ratio", 1, 1, true));
+            row.addContent(cell(new DecimalFormat("0.0%").format(CalendarFeedCache.getHitRatio()), 1, 1, false));
+            table.addContent(row);
+
+            row = new TableRow();
+            row.addContent(cell(" &nbsp; Calendar Feed Cache Size (Invalidated / Evicted)", 1, 1, true));
+            row.addContent(cell(CalendarFeedCache.getCount() + " feeds, " + new DecimalFormat("0.0").format(CalendarFeedCache.getSize() / 1024.0) + " kB (" + CalendarFeedCache.getInvalidated() + " / " + CalendarFeedCache.getEvicted() + ")", 1, 1, false));
+            table.addContent(row);
+
             row = new TableRow();
             row.addContent(cell("<hr>", 1, 2, false));
             table.addContent(row);
 
  
+            // ---------------------- Connection Pool Stats ------------------------
+            if (tracker != null) {
+                row = new TableRow();
+                row.addContent(headerCell("<A name=\"ConnectionPool\">Connection Pool</A>:", 1, 2));
+                table.addContent(row);
+
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Active Connections (Max)", 1, 1, true));
+                row.addContent(cell(tracker.getActive() + " (" + tracker.getMaxActive() + ")", 1, 1, false));
+                table.addContent(row);
+
+                if (tracker.getIdle() >= 0) {
+                    row = new TableRow();
+                    row.addContent(cell(" &nbsp; Idle Connections", 1, 1, true));
+                    row.addContent(cell(tracker.getIdle()+"", 1, 1, false));
+                    table.addContent(row);
+                }
+
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Lease Count (Released)", 1, 1, true));
+                row.addContent(cell(tracker.getLeaseCount() + " (" + tracker.getReleaseCount() + ")", 1, 1, false));
+                table.addContent(row);
+
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Average Lease Time", 1, 1, true));
+                row.addContent(cell(new DecimalFormat("0.00").format(tracker.getAverageLeaseTime()) + " ms", 1, 1, false));
+                table.addContent(row);
+
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Wait Time (Average / Max)", 1, 1, true));
+                row.addContent(cell(new DecimalFormat("0.00").format(tracker.getAverageWaitTime()) + " ms / " + tracker.getMaxWaitTime() + " ms", 1, 1, false));
+                table.addContent(row);
+
+                String[] labels = tracker.getWaitHistogramLabels();
+                long[] counts = tracker.getWaitHistogram();
+                StringBuffer histogram = new StringBuffer();
+                for (int i = 0; i < counts.length; i++)
+                	if (counts[i] > 0)
+                		histogram.append((histogram.length() == 0 ? "" : ", ") + labels[i].replace("<", "&lt;").replace(">", "&gt;") + ": " + counts[i]);
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Wait Time Histogram", 1, 1, true));
+                row.addContent(cell(histogram.toString(), 1, 1, false));
+                table.addContent(row);
+
+                LeaseTracker.Lease longest = tracker.getLongestLease();
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Longest Lease", 1, 1, true));
+                row.addContent(cell(longest == null ? "" : escape(longest.toString()) + (summaryOnly ? "" : "<pre>" + escape(longest.getStackTrace()) + "</pre>"), 1, 1, false));
+                table.addContent(row);
+
+                row = new TableRow();
+                row.addContent(cell(" &nbsp; Statements (Slow)", 1, 1, true));
+                row.addContent(cell(tracker.getSlowStatementThreshold() <= 0 ? "Slow statement detection is disabled." :
+                	tracker.getStatementCount() + " (" + tracker.getSlowStatementCount() + " over " + tracker.getSlowStatementThreshold() + " ms)", 1, 1, false));
+                table.addContent(row);
+
+                if (!summaryOnly) {
+                	for (LeaseTracker.SlowStatement statement: tracker.getSlowStatements()) {
+                        row = new TableRow();
+                        row.addContent(cell(" &nbsp; &nbsp; " + statement.getTime() + " ms", 1, 1, true));
+                        row.addContent(cell(escape(statement.getSql()) + "<br><i>" + escape(statement.getThreadName() + " " + statement.getOrigin()) + "</i>", 1, 1, false));
+                        table.addContent(row);
+                	}
+                }
+
+                row = new TableRow();
+                row.addContent(cell("<hr>", 1, 2, false));
+                table.addContent(row);
+            }
+
+            // ---------------------- Request Stats ------------------------
+            if (!offenders.isEmpty()) {
+                row = new TableRow();
+                row.addContent(headerCell("<A name=\"Requests\">Requests (Top Offenders)</A>:", 1, 2));
+                table.addContent(row);
+
+                Table subTable = new Table();
+                subTable.setCellSpacing(1);
+                subTable.setCellPadding(3);
+
+                row = new TableRow();
+                row.addContent(headerCell(" URI ", 1, 1));
+                row.addContent(headerCell(" Requests ", 1, 1));
+                row.addContent(headerCell(" Avg Statements ", 1, 1));
+                row.addContent(headerCell(" Max Statements ", 1, 1));
+                row.addContent(headerCell(" Avg Statement Time ", 1, 1));
+                row.addContent(headerCell(" N+1 Requests ", 1, 1));
+                row.addContent(headerCell(" Most Repeated Statement ", 1, 1));
+                subTable.addContent(row);
+
+                int i = 0;
+                for (RequestStatistics.UriStatistics uri: offenders) {
+                    Double time = uri.getAverageStatementTime();
+                    String worst = uri.getWorstStatement();
+                    if (worst != null && summaryOnly && worst.length() > 200)
+                    	worst = worst.substring(0, 197) + "...";
+                    row = new TableRow();
+                    if (i++ % 2 == 0)
+                        row.setBgColor(evenRowColor);
+                    row.addContent(cell(escape(uri.getUri()), 1, 1, false));
+                    row.addContent(cell(uri.getRequests() + "", 1, 1, false));
+                    row.addContent(cell(new DecimalFormat("0.0").format(uri.getAverageStatements()), 1, 1, false));
+                    row.addContent(cell(uri.getMaxStatements() + "", 1, 1, false));
+                    row.addContent(cell(time == null ? "" : new DecimalFormat("0.00").format(time) + " ms", 1, 1, false));
+                    row.addContent(cell(uri.getRepeatedRequests() + "", 1, 1, false));
+                    row.addContent(cell(worst == null ? "" : uri.getWorstStatementCount() + "&times; " + escape(worst), 1, 1, false));
+                    subTable.addContent(row);
+                }
+
+                row = new TableRow();
+                row.addContent(cell(subTable.toHtml(), 1, 2, true));
+                table.addContent(row);
+
+                row = new TableRow();
+                row.addContent(cell("<hr>", 1, 2, false));
+                table.addContent(row);
+            }
+
             // ---------------------- Entity Stats ------------------------
             row = new TableRow();
             row.addContent(headerCell("<A name=\"Entity\">Entity</A>:", 1, 2));
@@ -573,6 +745,11 @@ public class StatsProvider {
         return hibStats.toString();
     }
     
+    private static String escape(String text) {
+    	if (text == null) return "";
+    	return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
     /**
      * Generate header cell
      * @param content Content of cell
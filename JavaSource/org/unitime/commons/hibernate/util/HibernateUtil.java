@@ -56,10 +56,12 @@ import org.hibernate.type.IntegerType;
 import org.unitime.commons.LocalContext;
 import org.unitime.commons.hibernate.connection.DisposableConnectionProvider;
 import org.unitime.commons.hibernate.id.UniqueIdGenerator;
+import org.unitime.commons.hibernate.stats.RequestStatisticsInterceptor;
 import org.unitime.timetable.ApplicationProperties;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.model.base._BaseRootDAO;
 import org.unitime.timetable.model.dao._RootDAO;
+import org.unitime.timetable.security.evaluation.PermissionCacheInterceptor;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
@@ -214,7 +216,7 @@ public class HibernateUtil {
 
         for (Enumeration e=properties.propertyNames();e.hasMoreElements();) {
             String name = (String)e.nextElement();
-            if (name.startsWith("hibernate.") || name.startsWith("connection.") || name.startsWith("tmtbl.hibernate.")) {
+            if (name.startsWith("hibernate.") || name.startsWith("connection.") || name.startsWith("tmtbl.hibernate.") || name.startsWith("tmtbl.uniqueid.")) {
 				String value = properties.getProperty(name);
                 if ("NULL".equals(value))
                     removeProperty(document, name);
@@ -259,6 +261,9 @@ public class HibernateUtil {
         
         UniqueIdGenerator.configure(cfg);
         
+        cfg.setInterceptor(new PermissionCacheInterceptor(new RequestStatisticsInterceptor()));
+        sLog.debug("  -- permission cache and request statistics interceptors set");
+        
         (new _BaseRootDAO() {
     		void setConf(Configuration cfg) {
     			_BaseRootDAO.sConfiguration = cfg;
@@ -344,7 +349,7 @@ public class HibernateUtil {
             
             for (Enumeration e=ApplicationProperties.getProperties().propertyNames();e.hasMoreElements();) {
                 String name = (String)e.nextElement();
-                if (name.startsWith("hibernate.") || name.startsWith("connection.") || name.startsWith("tmtbl.hibernate.")) {
+                if (name.startsWith("hibernate.") || name.startsWith("connection.") || name.startsWith("tmtbl.hibernate.") || name.startsWith("tmtbl.uniqueid.")) {
 					String value = ApplicationProperties.getProperty(name);
                     if ("NULL".equals(value))
                         removeProperty(document, name);
@@ -30,10 +30,11 @@ import java.net.URLDecoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.unitime.commons.Debug;
 import org.unitime.timetable.defaults.ApplicationProperty;
@@ -50,11 +51,12 @@ import org.unitime.timetable.util.Constants;
  */
 public class ApplicationProperties {
 	private static DateFormat sTempFileDateFormat = new SimpleDateFormat("yy-MM-dd_HHmmssSSS", Locale.US);
-	private static Properties props = new Properties();
+	private static AtomicLong sVersion = new AtomicLong(0);
+	private static Properties props = new VersionedProperties();
     private static long appPropertiesLastModified = -1, custPropertiesLastModified = -1;  
     private static PropertyFileChangeListener pfc=null;
     private static Properties configProps = null;
-    private static Map<Long, Properties> sSessionProperties = new HashMap<Long, Properties>();
+    private static Map<Long, Properties> sSessionProperties = new ConcurrentHashMap<Long, Properties>();
     
     private static final ThreadLocal<Long> sAcademicSession = new ThreadLocal<Long>() {
 		 @Override
@@ -181,13 +183,18 @@ public class ApplicationProperties {
 	}
 	
 	public static Properties getConfigProperties() {
-	    if (configProps==null && _RootDAO.isConfigured())
-	        configProps = ApplicationConfig.toProperties();
+	    if (configProps==null && _RootDAO.isConfigured()) {
+	    	Properties properties = new VersionedProperties();
+	    	properties.putAll(ApplicationConfig.toProperties());
+	        configProps = properties;
+	        changed();
+	    }
 	    return (configProps==null?new Properties():configProps);
 	}
 	
 	public static void clearConfigProperties() {
 	    configProps = null;
+	    changed();
 	}
 	
 	public static Properties getSessionProperties(Long sessionId) {
@@ -196,8 +203,10 @@ public class ApplicationProperties {
 		
 		Properties properties = sSessionProperties.get(sessionId);
 		if (properties == null) {
-			properties = SessionConfig.toProperties(sessionId);
+			properties = new VersionedProperties();
+			properties.putAll(SessionConfig.toProperties(sessionId));
 			sSessionProperties.put(sessionId, properties);
+			changed();
 		}
 		return properties;
 	}
@@ -207,6 +216,19 @@ public class ApplicationProperties {
 			sSessionProperties.clear();
 		else
 			sSessionProperties.remove(sessionId);
+		changed();
+	}
+	
+	/**
+	 * Incremented on every change of the properties (application properties, application and session configuration),
+	 * used by {@link ApplicationProperty} to tell whether the resolved values are still valid
+	 */
+	public static long getVersion() {
+		return sVersion.get();
+	}
+	
+	protected static void changed() {
+		sVersion.incrementAndGet();
 	}
 	
 	/**
@@ -256,7 +278,8 @@ public class ApplicationProperties {
 	 * @return Properties object
 	 */
 	public static Properties getProperties() {
-        Properties ret = (Properties)props.clone();
+        Properties ret = new Properties();
+        ret.putAll(props);
         ret.putAll(getConfigProperties());
         
 	    Long sessionId = ApplicationProperties.getSessionId();
@@ -381,6 +404,33 @@ public class ApplicationProperties {
      * Thread to check if property file has changed
      * and reload the properties on the fly. Interval = 1 minute
      */
+    /**
+     * Properties that increment the properties version on every change
+     */
+    static class VersionedProperties extends Properties {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public synchronized Object put(Object key, Object value) {
+			Object ret = super.put(key, value);
+			changed();
+			return ret;
+		}
+		
+		@Override
+		public synchronized Object remove(Object key) {
+			Object ret = super.remove(key);
+			changed();
+			return ret;
+		}
+		
+		@Override
+		public synchronized void clear() {
+			super.clear();
+			changed();
+		}
+    }
+    
     static class PropertyFileChangeListener extends Thread {
 
         public PropertyFileChangeListener() {
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
+import org.unitime.commons.MailSpool;
 import org.unitime.commons.hibernate.connection.DisposableConnectionProvider;
 import org.unitime.timetable.events.EventExpirationService;
 import org.unitime.timetable.model.ApplicationConfig;
@@ -81,6 +82,11 @@ public class StartupService implements InitializingBean, DisposableBean {
 			Debug.info(" - Starting Event Expiration Service ...");
 			EventExpirationService.getInstance().start();
 			
+			if (MailSpool.isEnabled()) {
+				Debug.info(" - Starting Mail Spool ...");
+				MailSpool.startSpool();
+			}
+			
 			Debug.info("******* UniTime " + Constants.getVersion() +
 					" build on " + Constants.getReleaseDate() + " initialized successfully *******");
 
@@ -117,6 +123,9 @@ public class StartupService implements InitializingBean, DisposableBean {
 	         
 	         LocalQueueProcessor.stopProcessor();
 	         
+	         Debug.info(" - Stopping Mail Spool ... ");
+	         MailSpool.stopSpool();
+	         
 	         Debug.info(" - Removing Message Log Appender ... ");
 	         Logger.getRootLogger().removeAppender(iMessageLogAppender);
 	         iMessageLogAppender.close();
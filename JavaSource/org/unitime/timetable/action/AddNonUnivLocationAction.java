@@ -41,6 +41,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.defaults.SessionAttribute;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.NonUnivLocationForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -212,6 +213,7 @@ public class AddNonUnivLocationAction extends Action {
                     d);
             
 			tx.commit();
+			RoomFilterIndex.invalidate();
 			
 			hibSession.refresh(d);
 		} catch (Exception e) {
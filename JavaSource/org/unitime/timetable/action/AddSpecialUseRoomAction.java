@@ -41,6 +41,7 @@ import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.timetable.defaults.SessionAttribute;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.SpecialUseRoomForm;
 import org.unitime.timetable.model.Building;
 import org.unitime.timetable.model.ChangeLog;
@@ -257,6 +258,7 @@ public class AddSpecialUseRoomAction extends Action {
                 ChangeLog.Source.ROOM_EDIT, ChangeLog.Operation.CREATE, null, dept);
 
             tx.commit();
+            RoomFilterIndex.invalidate();
 				
 			if (dept != null) {
 				hibSession.refresh(dept);
@@ -38,6 +38,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
 import org.unitime.commons.hibernate.util.HibernateUtil;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.BuildingEditForm;
 import org.unitime.timetable.model.Assignment;
 import org.unitime.timetable.model.Building;
@@ -105,6 +106,8 @@ public class BuildingEditAction extends Action {
                 	saveOrUpdate(myForm, hibSession);
                 	
         			if (tx!=null) tx.commit();
+        			
+        			RoomFilterIndex.invalidate(sessionContext.getUser().getCurrentAcademicSessionId());
         	    } catch (Exception e) {
         	    	if (tx!=null) tx.rollback();
         	    	throw e;
@@ -151,6 +154,7 @@ public class BuildingEditAction extends Action {
     			tx.commit();
     			
     			HibernateUtil.clearCache();
+    			RoomFilterIndex.invalidate(sessionContext.getUser().getCurrentAcademicSessionId());
     	    } catch (Exception e) {
     	    	if (tx!=null) tx.rollback();
     	    	throw e;
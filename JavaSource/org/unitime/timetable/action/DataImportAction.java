@@ -41,7 +41,6 @@ import org.apache.struts.action.ActionMessages;
 import org.cpsolver.ifs.util.Progress;
 import org.dom4j.Document;
 import org.dom4j.io.OutputFormat;
-import org.dom4j.io.SAXReader;
 import org.dom4j.io.XMLWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -316,7 +315,7 @@ public class DataImportAction extends Action {
 				gzipInput.close();
 			} else if (iForm.getFile().getFileName().toLowerCase().endsWith(".xml.gz") || iForm.getFile().getFileName().toLowerCase().endsWith(".zxml")) {
 				GZIPInputStream gzipInput = new GZIPInputStream(iForm.getFile().getInputStream());
-				DataExchangeHelper.importDocument((new SAXReader()).read(gzipInput), getOwnerId(), this);
+				DataExchangeHelper.importDocument(gzipInput, getOwnerId(), this);
 				gzipInput.close();
 			} else if (iForm.getFile().getFileName().toLowerCase().endsWith(".zip")) {
 				ZipInputStream zipInput = new ZipInputStream(iForm.getFile().getInputStream());
@@ -328,12 +327,12 @@ public class DataImportAction extends Action {
 						SessionRestoreInterface restore = (SessionRestoreInterface)Class.forName(ApplicationProperty.SessionRestoreInterface.value()).getConstructor().newInstance();
 						restore.restore(zipInput, this);
 					} else {
-						DataExchangeHelper.importDocument((new SAXReader()).read(new NotClosingInputStream(zipInput)), getOwnerId(), this);
+						DataExchangeHelper.importDocument(new NotClosingInputStream(zipInput), getOwnerId(), this);
 					}
 				}
 				zipInput.close();
 			} else {
-				DataExchangeHelper.importDocument((new SAXReader()).read(iForm.getFile().getInputStream()), getOwnerId(), this);
+				DataExchangeHelper.importDocument(iForm.getFile().getInputStream(), getOwnerId(), this);
 			}
 		}
 
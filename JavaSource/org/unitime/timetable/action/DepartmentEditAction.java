@@ -43,6 +43,7 @@ import org.unitime.timetable.model.Department;
 import org.unitime.timetable.model.TimePref;
 import org.unitime.timetable.model.dao.DepartmentDAO;
 import org.unitime.timetable.security.SessionContext;
+import org.unitime.timetable.security.evaluation.PermissionCache;
 import org.unitime.timetable.security.rights.Right;
 import org.unitime.timetable.util.Constants;
 
@@ -114,6 +115,7 @@ public class DepartmentEditAction extends Action {
 	            	else
 	            		sessionContext.checkPermission(myForm.getId(), "Department", Right.DepartmentEdit);
 	            	myForm.save(sessionContext);
+	            	PermissionCache.invalidate();
 	            }
 	        }
 	        
@@ -204,6 +206,7 @@ public class DepartmentEditAction extends Action {
                     null);
             hibSession.delete(department);
             tx.commit();
+            PermissionCache.invalidate();
             HibernateUtil.clearCache();
         } catch (HibernateException e) {
             try {
@@ -40,6 +40,7 @@ import org.unitime.timetable.form.DeptStatusTypeEditForm;
 import org.unitime.timetable.model.DepartmentStatusType;
 import org.unitime.timetable.model.dao.DepartmentStatusTypeDAO;
 import org.unitime.timetable.security.SessionContext;
+import org.unitime.timetable.security.evaluation.PermissionCache;
 import org.unitime.timetable.security.rights.Right;
 
 
@@ -94,6 +95,7 @@ public class DeptStatusTypeEditAction extends Action {
                 	myForm.saveOrUpdate(hibSession);
                 	
         			if (tx!=null) tx.commit();
+        			PermissionCache.invalidate();
         	    } catch (Exception e) {
         	    	if (tx!=null) tx.rollback();
         	    	throw e;
@@ -134,6 +136,7 @@ public class DeptStatusTypeEditAction extends Action {
             	myForm.delete(hibSession);
             	
     			tx.commit();
+    			PermissionCache.invalidate();
     	    } catch (Exception e) {
     	    	if (tx!=null) tx.rollback();
     	    	throw e;
@@ -186,6 +189,7 @@ public class DeptStatusTypeEditAction extends Action {
                 }
                 
                 if (tx!=null) tx.commit();
+                PermissionCache.invalidate();
             } catch (Exception e) {
                 if (tx!=null) tx.rollback();
                 Debug.error(e);
@@ -46,6 +46,7 @@ import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.defaults.CommonValues;
 import org.unitime.timetable.defaults.SessionAttribute;
 import org.unitime.timetable.defaults.UserProperty;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.EditRoomForm;
 import org.unitime.timetable.model.Building;
 import org.unitime.timetable.model.ChangeLog;
@@ -405,6 +406,7 @@ public class EditRoomAction extends Action {
 
             hibSession.flush();
 			tx.commit();
+			RoomFilterIndex.invalidate();
 		} catch (Exception e) {
 			if (tx!=null) tx.rollback();
 			throw e;
@@ -474,6 +476,7 @@ public class EditRoomAction extends Action {
 
             hibSession.flush();
             tx.commit();
+            RoomFilterIndex.invalidate();
             
             editRoomForm.setId(room.getUniqueId().toString());
         } catch (Exception e) {
@@ -42,6 +42,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.timetable.defaults.CommonValues;
 import org.unitime.timetable.defaults.UserProperty;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.EditRoomDeptForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -256,6 +257,7 @@ public class EditRoomDeptAction extends Action {
                     location.getControllingDepartment());
 
             tx.commit();
+            RoomFilterIndex.invalidate();
 			
 			ldao.getSession().refresh(location);
 		} catch (Exception e) {
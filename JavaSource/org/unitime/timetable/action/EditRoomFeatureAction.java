@@ -37,6 +37,7 @@ import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.EditRoomFeatureForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -259,6 +260,7 @@ public class EditRoomFeatureAction extends Action {
 	                location.getControllingDepartment());
 	        
 			tx.commit();
+			RoomFilterIndex.invalidate();
 			hibSession.refresh(location);
 			
 		} catch (Exception e) {
@@ -37,6 +37,7 @@ import org.hibernate.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.EditRoomGroupForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -253,6 +254,7 @@ public class EditRoomGroupAction extends Action {
 	                location.getControllingDepartment());
 	        
 			tx.commit();
+			RoomFilterIndex.invalidate();
 			hibSession.refresh(location);
 
 		} catch (Exception e) {
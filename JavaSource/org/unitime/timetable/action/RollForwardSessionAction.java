@@ -19,6 +19,7 @@
 */
 package org.unitime.timetable.action;
 
+import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -39,6 +40,7 @@ import org.apache.struts.util.MessageResources;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
+import org.unitime.commons.hibernate.stats.RequestStatistics;
 import org.unitime.commons.web.WebTable;
 import org.unitime.commons.web.WebTable.WebTableLine;
 import org.unitime.timetable.form.RollForwardSessionForm;
@@ -209,6 +211,8 @@ public class RollForwardSessionAction extends Action {
 		private RollForwardSessionForm iForm;
 		private int iProgress = 0;
 		private ActionErrors iErrors = new ActionErrors();
+		private String iPhase = null;
+		private long iPhaseStart = 0, iPhaseStatements = 0;
 		
 		public RollForwardQueueItem(Session session, UserContext owner, RollForwardSessionForm form) {
 			super(session, owner);
@@ -223,8 +227,45 @@ public class RollForwardSessionAction extends Action {
 			return iForm;
 		}
 		
+		@Override
+		public void setStatus(String status, double maxProgress) {
+			phaseDone();
+			super.setStatus(status, maxProgress);
+			iPhase = status.replace(" ...", "");
+			iPhaseStart = System.currentTimeMillis();
+			RequestStatistics stats = RequestStatistics.current();
+			iPhaseStatements = (stats == null ? 0 : stats.getStatementCount());
+		}
+		
+		/**
+		 * Log how long the current roll forward phase took and how many SQL statements (per second) it needed
+		 */
+		protected void phaseDone() {
+			if (iPhase == null) return;
+			long time = System.currentTimeMillis() - iPhaseStart;
+			RequestStatistics stats = RequestStatistics.current();
+			if (stats == null) {
+				info(iPhase + " done in " + new DecimalFormat("0.00").format(time / 1000.0) + " s.");
+			} else {
+				long statements = stats.getStatementCount() - iPhaseStatements;
+				info(iPhase + " done in " + new DecimalFormat("0.00").format(time / 1000.0) + " s (" + statements + " statements, " +
+						new DecimalFormat("0.0").format(time <= 0 ? 0.0 : 1000.0 * statements / time) + " statements/s).");
+			}
+			iPhase = null;
+		}
+		
 		@Override
 		protected void execute() throws Exception {
+			boolean stats = RequestStatistics.begin();
+			try {
+				rollForward();
+			} finally {
+				phaseDone();
+				if (stats) RequestStatistics.end();
+			}
+		}
+		
+		protected void rollForward() throws Exception {
 	        SessionRollForward sessionRollForward = new SessionRollForward(this);
 	        Session toAcadSession = Session.getSessionById(iForm.getSessionToRollForwardTo());
 			if (toAcadSession == null){
@@ -386,6 +427,7 @@ public class RollForwardSessionAction extends Action {
         	    sessionRollForward.rollPeriodicTasksForward(iErrors, iForm);
         	}
 	        iProgress++;
+	        phaseDone();
 	        if (!iErrors.isEmpty()) {
 	        	setError(new Exception(((ActionMessage)iErrors.get().next()).getValues()[0].toString()));
 	        } else {
@@ -35,6 +35,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.web.WebTable;
 import org.unitime.timetable.defaults.SessionAttribute;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.RoomDeptEditForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -184,6 +185,7 @@ public class RoomDeptEditAction extends Action {
                     
                     if (d!=null) hibSession.saveOrUpdate(d);
                     tx.commit();
+                    RoomFilterIndex.invalidate();
                     if (d!=null) hibSession.refresh(d);
                     
                     return mapping.findForward("back");
@@ -48,6 +48,7 @@ import org.springframework.stereotype.Service;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.defaults.CommonValues;
 import org.unitime.timetable.defaults.UserProperty;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.RoomDetailForm;
 import org.unitime.timetable.model.Assignment;
 import org.unitime.timetable.model.ChangeLog;
@@ -410,6 +411,7 @@ public class RoomDetailAction extends Action {
                 hibSession.delete(location);
 			}
 			tx.commit();
+			RoomFilterIndex.invalidate();
 		} catch (Exception e) {
 			if (tx!=null && tx.isActive()) tx.rollback();
 			throw e;
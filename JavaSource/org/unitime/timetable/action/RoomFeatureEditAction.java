@@ -43,6 +43,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
 import org.unitime.timetable.defaults.SessionAttribute;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.RoomFeatureEditForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -223,6 +224,7 @@ public class RoomFeatureEditAction extends SpringAwareLookupDispatchAction {
 			}
             
 			tx.commit();
+			RoomFilterIndex.invalidate();
 		} catch (Exception e) {
 			if (tx!=null && tx.isActive()) tx.rollback();
 			throw e;
@@ -379,6 +381,7 @@ public class RoomFeatureEditAction extends SpringAwareLookupDispatchAction {
                     (roomFeature instanceof DepartmentRoomFeature?((DepartmentRoomFeature)roomFeature).getDepartment():null));
 
             tx.commit();
+            RoomFilterIndex.invalidate();
 		} catch (Exception e) {
             Debug.error(e);
             try {
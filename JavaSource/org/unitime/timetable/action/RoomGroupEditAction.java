@@ -43,6 +43,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.unitime.commons.Debug;
 import org.unitime.timetable.defaults.SessionAttribute;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.form.RoomGroupEditForm;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Department;
@@ -243,6 +244,7 @@ public class RoomGroupEditAction extends SpringAwareLookupDispatchAction {
 			}
 			
 			tx.commit();
+			RoomFilterIndex.invalidate();
 		} catch (Exception e) {
 			Debug.error(e);
 			try {
@@ -397,6 +399,7 @@ public class RoomGroupEditAction extends SpringAwareLookupDispatchAction {
                     rg.getDepartment());
 
 			tx.commit();
+			RoomFilterIndex.invalidate();
 			
 			hibSession.refresh(rg);
 		} catch (Exception e) {
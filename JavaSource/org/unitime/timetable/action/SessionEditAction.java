@@ -55,6 +55,7 @@ import org.unitime.timetable.model.dao.InstructionalMethodDAO;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.StudentSectioningStatusDAO;
 import org.unitime.timetable.security.SessionContext;
+import org.unitime.timetable.security.evaluation.PermissionCache;
 import org.unitime.timetable.security.rights.Right;
 import org.unitime.timetable.spring.struts.SpringAwareLookupDispatchAction;
 import org.unitime.timetable.util.Constants;
@@ -342,6 +343,7 @@ public class SessionEditAction extends SpringAwareLookupDispatchAction {
             }
             
             tx.commit() ;
+            PermissionCache.invalidate();
         } catch (Exception e) {
             if (tx!=null) tx.rollback();
             throw e;
@@ -20,7 +20,9 @@
 package org.unitime.timetable.api;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -148,6 +150,19 @@ public abstract class AbstractApiHelper implements ApiHelper {
 	@Override
 	public void close() {}
 	
+	@Override
+	public <R> void setStreamingResponse(Iterator<R> response) throws IOException {
+		List<R> list = new ArrayList<R>();
+		while (response.hasNext())
+			list.add(response.next());
+		setResponse(list);
+	}
+	
+	@Override
+	public void setResponseHeader(String name, String value) {
+		iResponse.setHeader(name, value);
+	}
+	
 	@Override
 	public String getOptinalParameter(String name, String defaultValue) {
 		String ret = getParameter(name);
@@ -22,6 +22,7 @@ package org.unitime.timetable.api;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Enumeration;
+import java.util.Iterator;
 
 import org.unitime.timetable.security.SessionContext;
 
@@ -37,6 +38,13 @@ public interface ApiHelper {
 	
 	public <R> void setResponse(R response) throws IOException;
 	
+	/**
+	 * Write a collection response, one item at a time (the items do not need to be all held in memory)
+	 */
+	public <R> void setStreamingResponse(Iterator<R> response) throws IOException;
+	
+	public void setResponseHeader(String name, String value);
+	
 	public void sendError(int code) throws IOException;
 	
 	public void sendError(int code, String message) throws IOException;
@@ -20,28 +20,34 @@
 package org.unitime.timetable.api;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.hibernate.CacheMode;
+import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.security.SessionContext;
 
 import com.google.gson.FieldNamingStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * @author Tomas Muller
@@ -98,9 +104,10 @@ public class JsonApiHelper extends AbstractApiHelper {
 		}
 	}
 	
-	@Override
-	public <R> void setResponse(R response) throws IOException {
-		if (iGson == null) iGson = createGson();
+	/**
+	 * Set the response headers and return the response writer, gzip compressed when the client accepts it
+	 */
+	protected Writer getResponseWriter() throws IOException {
 		iResponse.setContentType("application/json");
 		iResponse.setCharacterEncoding("UTF-8");
 		iResponse.setHeader("Pragma", "no-cache" );
@@ -110,9 +117,52 @@ public class JsonApiHelper extends AbstractApiHelper {
 		iResponse.setDateHeader("Date", new Date().getTime());
 		iResponse.setDateHeader("Expires", 0);
 		iResponse.setHeader("Content-Disposition", "attachment; filename=\"response.json\"" );
-		Writer writer = iResponse.getWriter();
+		String acceptEncoding = iRequest.getHeader("Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip") && ApplicationProperty.ApiResponseGzip.isTrue()) {
+			iResponse.setHeader("Content-Encoding", "gzip");
+			return new OutputStreamWriter(new GZIPOutputStream(iResponse.getOutputStream()), "UTF-8");
+		}
+		return iResponse.getWriter();
+	}
+	
+	protected JsonWriter createJsonWriter(Writer writer) {
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.setIndent("  ");
+		return jsonWriter;
+	}
+	
+	protected void writeValue(Object value, JsonWriter writer) {
+		if (value == null)
+			iGson.toJson(JsonNull.INSTANCE, writer);
+		else
+			iGson.toJson(value, value.getClass(), writer);
+	}
+	
+	@Override
+	public <R> void setResponse(R response) throws IOException {
+		if (iGson == null) iGson = createGson();
+		Writer writer = getResponseWriter();
+		try {
+			JsonWriter jsonWriter = createJsonWriter(writer);
+			writeValue(response, jsonWriter);
+			jsonWriter.flush();
+		} finally {
+			writer.flush();
+			writer.close();
+		}
+	}
+	
+	@Override
+	public <R> void setStreamingResponse(Iterator<R> response) throws IOException {
+		if (iGson == null) iGson = createGson();
+		Writer writer = getResponseWriter();
 		try {
-			writer.write(iGson.toJson(response));
+			JsonWriter jsonWriter = createJsonWriter(writer);
+			jsonWriter.beginArray();
+			while (response.hasNext())
+				writeValue(response.next(), jsonWriter);
+			jsonWriter.endArray();
+			jsonWriter.flush();
 		} finally {
 			writer.flush();
 			writer.close();
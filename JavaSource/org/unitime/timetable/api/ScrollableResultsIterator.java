@@ -0,0 +1,84 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.unitime.timetable.defaults.ApplicationProperty;
+
+/**
+ * Iterates over the results of a query using a forward-only database cursor, converting each row as it is read.
+ * The hibernate session is cleared every {@link ApplicationProperty#ApiStreamingBatchSize} rows,
+ * so that the loaded entities do not accumulate in the session cache. To be used with {@link ApiHelper#setStreamingResponse(Iterator)}.
+ */
+public abstract class ScrollableResultsIterator<T, R> implements Iterator<R> {
+	private org.hibernate.Session iHibSession;
+	private ScrollableResults iResults;
+	private int iBatchSize;
+	private int iCount = 0;
+	private Boolean iHasNext = null;
+
+	public ScrollableResultsIterator(org.hibernate.Session hibSession, Query query) {
+		iHibSession = hibSession;
+		iBatchSize = ApplicationProperty.ApiStreamingBatchSize.intValue();
+		iResults = query.setFetchSize(Math.min(iBatchSize, 1000)).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY);
+	}
+
+	protected abstract R convert(T row);
+
+	@Override
+	public boolean hasNext() {
+		if (iHasNext == null) {
+			iHasNext = iResults.next();
+			if (!iHasNext) iResults.close();
+		}
+		return iHasNext;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public R next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		iHasNext = null;
+		R ret = convert((T)iResults.get(0));
+		if (iBatchSize > 0 && ++iCount % iBatchSize == 0)
+			iHibSession.clear();
+		return ret;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Release the underlying cursor when the iteration was not finished
+	 */
+	public void close() {
+		if (iHasNext == null || iHasNext) {
+			iHasNext = false;
+			iResults.close();
+		}
+	}
+}
@@ -25,9 +25,11 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import org.hibernate.Query;
 import org.springframework.stereotype.Service;
 import org.unitime.timetable.api.ApiConnector;
 import org.unitime.timetable.api.ApiHelper;
+import org.unitime.timetable.api.ScrollableResultsIterator;
 import org.unitime.timetable.model.Class_;
 import org.unitime.timetable.model.CourseOffering;
 import org.unitime.timetable.model.Event;
@@ -93,9 +95,7 @@ public class EnrollmentsConnector extends ApiConnector {
 			
 			helper.getSessionContext().checkPermissionAnyAuthority(course.getInstructionalOffering().getSession(), Right.ApiRetrieveEnrollments);
 
-			helper.setResponse(convert(CourseOfferingDAO.getInstance().getSession().createQuery(
-					"from StudentClassEnrollment e where e.courseOffering.uniqueId = :courseId"
-					).setLong("courseId", course.getUniqueId()).list()));
+			streamEnrollments(helper, "e.courseOffering.uniqueId = :id", course.getUniqueId());
 		}
 		String offeringId = helper.getParameter("offeringId");
 		if (offeringId != null) {
@@ -105,9 +105,7 @@ public class EnrollmentsConnector extends ApiConnector {
 			
 			helper.getSessionContext().checkPermissionAnyAuthority(offering.getSession(), Right.ApiRetrieveEnrollments);
 
-			helper.setResponse(convert(CourseOfferingDAO.getInstance().getSession().createQuery(
-					"from StudentClassEnrollment e where e.courseOffering.instructionalOffering.uniqueId = :offeringId"
-					).setLong("offeringId", offering.getUniqueId()).list()));
+			streamEnrollments(helper, "e.courseOffering.instructionalOffering.uniqueId = :id", offering.getUniqueId());
 		}
 		String configurationId = helper.getParameter("configurationId");
 		if (configurationId != null) {
@@ -117,9 +115,47 @@ public class EnrollmentsConnector extends ApiConnector {
 			
 			helper.getSessionContext().checkPermissionAnyAuthority(config.getInstructionalOffering().getSession(), Right.ApiRetrieveEnrollments);
 
-			helper.setResponse(convert(CourseOfferingDAO.getInstance().getSession().createQuery(
-					"from StudentClassEnrollment e where e.clazz.schedulingSubpart.instrOfferingConfig.uniqueId = :configId"
-					).setLong("configId", config.getUniqueId()).list()));
+			streamEnrollments(helper, "e.clazz.schedulingSubpart.instrOfferingConfig.uniqueId = :id", config.getUniqueId());
+		}
+	}
+	
+	/**
+	 * Stream enrollments matching the given condition, ordered by their unique id. When the limit parameter is set,
+	 * only the given number of enrollments is returned and the cursor of the following page (if any) is set
+	 * in the X-Next-Cursor header; pass it in the cursor parameter to retrieve the next page.
+	 */
+	protected void streamEnrollments(ApiHelper helper, String condition, Long id) throws IOException {
+		org.hibernate.Session hibSession = helper.getHibSession();
+		Long cursor = helper.getOptinalParameterLong("cursor", null);
+		Integer limit = helper.getOptinalParameterInteger("limit", null);
+		Long next = null;
+		if (limit != null && limit > 0) {
+			Query q = hibSession.createQuery(
+					"select e.uniqueId from StudentClassEnrollment e where " + condition +
+					(cursor == null ? "" : " and e.uniqueId >= :cursor") + " order by e.uniqueId"
+					).setLong("id", id).setFirstResult(limit).setMaxResults(1);
+			if (cursor != null) q.setLong("cursor", cursor);
+			next = (Long)q.uniqueResult();
+			if (next != null)
+				helper.setResponseHeader("X-Next-Cursor", next.toString());
+		}
+		Query q = hibSession.createQuery(
+				"select e from StudentClassEnrollment e where " + condition +
+				(cursor == null ? "" : " and e.uniqueId >= :cursor") +
+				(next == null ? "" : " and e.uniqueId < :next") + " order by e.uniqueId"
+				).setLong("id", id);
+		if (cursor != null) q.setLong("cursor", cursor);
+		if (next != null) q.setLong("next", next);
+		ScrollableResultsIterator<StudentClassEnrollment, ClassEnrollmentInfo> enrollments = new ScrollableResultsIterator<StudentClassEnrollment, ClassEnrollmentInfo>(hibSession, q) {
+			@Override
+			protected ClassEnrollmentInfo convert(StudentClassEnrollment enrollment) {
+				return new ClassEnrollmentInfo(enrollment);
+			}
+		};
+		try {
+			helper.setStreamingResponse(enrollments);
+		} finally {
+			enrollments.close();
 		}
 	}
 	
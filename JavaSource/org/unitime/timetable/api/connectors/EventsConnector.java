@@ -20,8 +20,9 @@
 package org.unitime.timetable.api.connectors;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Enumeration;
-import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
 
@@ -163,14 +164,37 @@ public class EventsConnector extends ApiConnector {
     	
     	List<EventInterface> events = new EventLookupBackend().findEvents(request, context);
     	
-    	if (!"1".equals(helper.getParameter("ua"))) {
-    		for (Iterator<EventInterface> i = events.iterator(); i.hasNext();) {
-    			EventInterface event = i.next();
-    			if (event.getType() == EventType.Unavailabile) i.remove();
+    	boolean unavailabilities = "1".equals(helper.getParameter("ua"));
+    	Integer limit = helper.getOptinalParameterInteger("limit", null);
+    	if (limit != null && limit > 0) {
+    		// cursor based paging: events ordered by their unique id, next page starts with the event id returned in the X-Next-Cursor header
+    		Long cursor = helper.getOptinalParameterLong("cursor", null);
+    		TreeSet<EventInterface> page = new TreeSet<EventInterface>(new Comparator<EventInterface>() {
+    			@Override
+    			public int compare(EventInterface e1, EventInterface e2) {
+    				return e1.getId().compareTo(e2.getId());
+    			}
+    		});
+    		for (EventInterface event: events) {
+    			if (event.getId() == null || (cursor != null && event.getId() < cursor)) continue;
+    			if (!unavailabilities && event.getType() == EventType.Unavailabile) continue;
+    			page.add(event);
+    			if (page.size() > limit + 1) page.pollLast();
     		}
+    		if (page.size() > limit)
+    			helper.setResponseHeader("X-Next-Cursor", page.pollLast().getId().toString());
+    		helper.setStreamingResponse(page.iterator());
+    		return;
     	}
     	
-    	helper.setResponse(events);
+    	if (!unavailabilities) {
+    		List<EventInterface> available = new ArrayList<EventInterface>(events.size());
+    		for (EventInterface event: events)
+    			if (event.getType() != EventType.Unavailabile) available.add(event);
+    		events = available;
+    	}
+    	
+    	helper.setStreamingResponse(events.iterator());
 	}
 	
 	public void fixContact(Long sessionId, ContactInterface c) {
@@ -23,12 +23,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
 import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.unitime.timetable.model.TimetableManager;
 
 /**
@@ -62,16 +61,27 @@ public abstract class BaseImport extends DataExchangeHelper {
     }
     
     public void loadXml(InputStream inputStream) throws Exception {
+        XmlRecordReader reader = null;
         try {
-            Document document = (new SAXReader()).read(inputStream);
-            loadXml(document.getRootElement());
-        } catch (DocumentException e) {
+            reader = new XmlRecordReader(inputStream);
+            loadXml(reader);
+        } catch (XMLStreamException e) {
             fatal("Unable to parse given XML, reason:"+e.getMessage(), e);
+        } finally {
+            if (reader != null) reader.close();
         }
     }    
     
     public abstract void loadXml(Element rootElement) throws Exception;
     
+    /**
+     * Streaming import, the records are read from the given reader as they are imported.
+     * Imports that do not support streaming read the whole document first.
+     */
+    public void loadXml(XmlRecordReader reader) throws Exception {
+        loadXml(reader.readDocument());
+    }
+    
     protected String getRequiredStringAttribute(Element element, String attributeName, String elementName) throws Exception{		
 		String attributeValue = element.attributeValue(attributeName);
 		if (attributeValue == null || attributeValue.trim().length() == 0){
@@ -31,6 +31,7 @@ import org.cpsolver.ifs.util.ToolBox;
 import org.dom4j.Element;
 import org.unitime.commons.hibernate.util.HibernateUtil;
 import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache;
 import org.unitime.timetable.model.AcademicArea;
 import org.unitime.timetable.model.AcademicClassification;
 import org.unitime.timetable.model.ChangeLog;
@@ -324,6 +325,8 @@ public class CurriculaImport extends BaseImport {
         	info("All done.");
         	
             commitTransaction();
+            
+            CurriculaProjectionCache.invalidate(session.getUniqueId());
         } catch (Exception e) {
             fatal("Exception: " + e.getMessage(), e);
             rollbackTransaction();
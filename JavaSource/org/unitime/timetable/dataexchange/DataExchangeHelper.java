@@ -19,6 +19,8 @@
 */
 package org.unitime.timetable.dataexchange;
 
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Properties;
 
@@ -217,6 +219,25 @@ public class DataExchangeHelper {
         }
     }
     
+    /**
+     * Flush the session and evict the given objects (and their cascaded associations) from it, other objects stay in the session
+     */
+    public boolean flushAndEvict(Collection<?> objects, boolean commit) {
+        try {
+            getHibSession().flush();
+            for (Object o: objects)
+            	getHibSession().evict(o);
+            if (commit && iTx!=null) {
+                iTx.commit();
+                iTx = getHibSession().beginTransaction();
+            }
+            return true;
+        } catch (Exception e) {
+            fatal("Unable to flush current session, reason: "+e.getMessage(),e);
+            return false;
+        }
+    }
+    
     public boolean flushIfNeeded(boolean commit) {
         iFlushIfNeededCounter++;
         if (iFlushIfNeededCounter>=sBatchSize) {
@@ -270,6 +291,22 @@ public class DataExchangeHelper {
         imp.loadXml(document.getRootElement());
     }
     
+    /**
+     * Import the given XML without reading it into a document first when the import supports it (see {@link BaseImport#loadXml(XmlRecordReader)})
+     */
+    public static void importDocument(InputStream input, String userId, Log log) throws Exception {
+        XmlRecordReader reader = new XmlRecordReader(input);
+        try {
+            BaseImport imp = createImportBase(reader.getRootElement().getName());
+            imp.setLog(log);
+            if (userId != null)
+            	imp.setManager(TimetableManager.findByExternalId(userId));
+            imp.loadXml(reader);
+        } finally {
+        	reader.close();
+        }
+    }
+    
     public static Document exportDocument(String rootName, Session session, Properties parameters, Log log) throws Exception {
         BaseExport exp = createExportBase(rootName);
         exp.setLog(log);
@@ -0,0 +1,88 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.dataexchange;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.dom4j.Element;
+
+/**
+ * Iterates over the given elements in batches: the elements of the next batch are read when the first one of them is returned,
+ * so that the import can load the data of the whole batch at once (see {@link #isNewBatch()} and {@link #getBatch()}).
+ */
+public class ElementBatchIterator implements Iterator<Element> {
+	private Iterator<Element> iElements;
+	private int iBatchSize;
+	private List<Element> iBatch = new ArrayList<Element>();
+	private int iIndex = 0;
+	private int iBatchNumber = 0;
+
+	public ElementBatchIterator(Iterator<Element> elements, int batchSize) {
+		iElements = elements;
+		iBatchSize = batchSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return iIndex < iBatch.size() || iElements.hasNext();
+	}
+
+	@Override
+	public Element next() {
+		if (iIndex >= iBatch.size()) {
+			iBatch = new ArrayList<Element>(iBatchSize);
+			while (iBatch.size() < iBatchSize && iElements.hasNext())
+				iBatch.add(iElements.next());
+			if (iBatch.isEmpty()) throw new NoSuchElementException();
+			iIndex = 0;
+			iBatchNumber ++;
+		}
+		return iBatch.get(iIndex++);
+	}
+
+	/**
+	 * True if the element returned by the last call of {@link #next()} is the first element of a new batch
+	 */
+	public boolean isNewBatch() {
+		return iIndex == 1;
+	}
+
+	/**
+	 * Elements of the current batch
+	 */
+	public List<Element> getBatch() {
+		return iBatch;
+	}
+
+	/**
+	 * Number of batches read so far
+	 */
+	public int getBatchNumber() {
+		return iBatchNumber;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -32,6 +32,7 @@ import java.util.TreeSet;
 
 import org.dom4j.Element;
 import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache;
 import org.unitime.timetable.model.ChangeLog;
 import org.unitime.timetable.model.Class_;
 import org.unitime.timetable.model.CourseDemand;
@@ -57,6 +58,19 @@ public class StudentEnrollmentImport extends BaseImport {
 
 	@Override
 	public void loadXml(Element rootElement) throws Exception {
+		loadXml(rootElement, rootElement.elementIterator("student"));
+	}
+	
+	@Override
+	public void loadXml(XmlRecordReader reader) throws Exception {
+		reader.setReadAhead(2 * sBatchSize);
+		loadXml(reader.getRootElement(), reader.elementIterator("student"));
+	}
+	
+	/**
+	 * Import the given student elements, students are loaded, updated, and committed in batches of {@link DataExchangeHelper#sBatchSize}.
+	 */
+	protected void loadXml(Element rootElement, Iterator<Element> studentElements) throws Exception {
 		boolean trimLeadingZerosFromExternalId = ApplicationProperty.DataExchangeTrimLeadingZerosFromExternalIds.isTrue();
 
         if (!rootElement.getName().equalsIgnoreCase("studentEnrollments"))
@@ -131,26 +145,26 @@ public class StudentEnrollmentImport extends BaseImport {
 	        if (created != null)
 				ChangeLog.addChange(getHibSession(), getManager(), session, session, created, ChangeLog.Source.DATA_IMPORT_STUDENT_ENROLLMENTS, ChangeLog.Operation.UPDATE, null, null);
          
-	        info("Loading students...");
-	        Hashtable<String, Student> students = new Hashtable<String, Student>();
-	        for (Student student: (List<Student>)getHibSession().createQuery(
-                    "select distinct s from Student s " +
-                    "left join fetch s.courseDemands as cd " +
-                    "left join fetch cd.courseRequests as cr " +
-                    "left join fetch s.classEnrollments as e " +
-                    "where s.session.uniqueId=:sessionId and s.externalUniqueId is not null").
-                    setLong("sessionId",session.getUniqueId()).list()) { 
-	        	students.put(student.getExternalUniqueId(), student);
-	        }
-	        
 	        info("Importing enrollments...");
 	        Date ts = new Date();
-	        for (Iterator i = rootElement.elementIterator("student"); i.hasNext(); ) {
-	            Element studentElement = (Element) i.next();
+	        Map<String, Student> students = null;
+	        List<Student> batchStudents = new ArrayList<Student>();
+	        Set<String> importedStudents = new HashSet<String>();
+	        for (ElementBatchIterator i = new ElementBatchIterator(studentElements, sBatchSize); i.hasNext(); ) {
+	            Element studentElement = i.next();
+	            if (i.isNewBatch()) {
+	            	if (!batchStudents.isEmpty()) {
+	            		flushAndEvict(batchStudents, true);
+	            		batchStudents.clear();
+	            	}
+	            	students = loadStudents(session.getUniqueId(), i.getBatch(), trimLeadingZerosFromExternalId);
+	            	batchStudents.addAll(students.values());
+	            }
 	            
 	            String externalId = studentElement.attributeValue("externalId");
 	            if (externalId == null) continue;
 	            while (trimLeadingZerosFromExternalId && externalId.startsWith("0")) externalId = externalId.substring(1);
+	            importedStudents.add(externalId);
 	            
 	            boolean fixCourseDemands = false;
 	 	        
@@ -167,6 +181,7 @@ public class StudentEnrollmentImport extends BaseImport {
 		            student.setSchedulePreference(0);
 		            student.setClassEnrollments(new HashSet<StudentClassEnrollment>());
 		            student.setCourseDemands(new HashSet<CourseDemand>());
+		            batchStudents.add(student);
             	}
             	
             	Hashtable<Pair, StudentClassEnrollment> enrollments = new Hashtable<Pair, StudentClassEnrollment>();
@@ -394,17 +409,37 @@ public class StudentEnrollmentImport extends BaseImport {
             	}
 
 	        }
+	        if (!batchStudents.isEmpty()) {
+	        	flushAndEvict(batchStudents, true);
+	        	batchStudents.clear();
+	        }
  	        
-	        if (!incremental)
-	 	        for (Student student: students.values()) {
-	        		for (Iterator<StudentClassEnrollment> i = student.getClassEnrollments().iterator(); i.hasNext(); ) {
-	        			StudentClassEnrollment enrollment = i.next();
-	        			getHibSession().delete(enrollment);
-	        			i.remove();
-	     	        	updatedStudents.add(student.getUniqueId());
+	        if (!incremental) {
+	        	// students that are not in the file
+	        	List<Long> studentIds = new ArrayList<Long>();
+	        	for (Object[] o: (List<Object[]>)getHibSession().createQuery(
+	        			"select distinct s.uniqueId, s.externalUniqueId from Student s inner join s.classEnrollments e " +
+	        			"where s.session.uniqueId=:sessionId and s.externalUniqueId is not null")
+	        			.setLong("sessionId", session.getUniqueId()).list()) {
+	        		if (!importedStudents.contains((String)o[1]))
+	        			studentIds.add((Long)o[0]);
+	        	}
+	        	for (int idx = 0; idx < studentIds.size(); idx += sBatchSize) {
+	        		List<Student> batch = (List<Student>)getHibSession().createQuery(
+	        				"select distinct s from Student s left join fetch s.classEnrollments as e where s.uniqueId in (:studentIds)")
+	        				.setParameterList("studentIds", studentIds.subList(idx, Math.min(idx + sBatchSize, studentIds.size()))).list();
+	        		for (Student student: batch) {
+		        		for (Iterator<StudentClassEnrollment> i = student.getClassEnrollments().iterator(); i.hasNext(); ) {
+		        			StudentClassEnrollment enrollment = i.next();
+		        			getHibSession().delete(enrollment);
+		        			i.remove();
+		     	        	updatedStudents.add(student.getUniqueId());
+		        		}
+		        		getHibSession().update(student);
 	        		}
-	        		getHibSession().update(student);
-	 	        }
+	        		flushAndEvict(batch, true);
+	        	}
+	        }
  	        
             info(updatedStudents.size() + " students changed");
 
@@ -412,6 +447,8 @@ public class StudentEnrollmentImport extends BaseImport {
  	 	        StudentSectioningQueue.studentChanged(getHibSession(), null, session.getUniqueId(), updatedStudents);
             
             commitTransaction();
+            
+            CurriculaProjectionCache.invalidate(session.getUniqueId());
 		} catch (Exception e) {
 			fatal("Exception: " + e.getMessage(), e);
 			rollbackTransaction();
@@ -459,6 +496,28 @@ public class StudentEnrollmentImport extends BaseImport {
         */
 	}
 	
+	private Map<String, Student> loadStudents(Long sessionId, List<Element> studentElements, boolean trimLeadingZerosFromExternalId) {
+		Set<String> externalIds = new HashSet<String>();
+		for (Element studentElement: studentElements) {
+            String externalId = studentElement.attributeValue("externalId");
+            if (externalId == null) continue;
+            while (trimLeadingZerosFromExternalId && externalId.startsWith("0")) externalId = externalId.substring(1);
+            externalIds.add(externalId);
+		}
+		Map<String, Student> students = new HashMap<String, Student>();
+		if (externalIds.isEmpty()) return students;
+        for (Student student: (List<Student>)getHibSession().createQuery(
+                "select distinct s from Student s " +
+                "left join fetch s.courseDemands as cd " +
+                "left join fetch cd.courseRequests as cr " +
+                "left join fetch s.classEnrollments as e " +
+                "where s.session.uniqueId=:sessionId and s.externalUniqueId in (:externalIds)").
+                setLong("sessionId", sessionId).setParameterList("externalIds", externalIds).list()) { 
+        	students.put(student.getExternalUniqueId(), student);
+        }
+        return students;
+	}
+	
 	public static class Pair {
 		private Long iCourseId, iClassId;
 		public Pair(Long courseId, Long classId) {
@@ -19,6 +19,7 @@
 */
 package org.unitime.timetable.dataexchange;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
@@ -30,6 +31,7 @@ import java.util.TreeSet;
 
 import org.dom4j.Element;
 import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache;
 import org.unitime.timetable.model.AcademicArea;
 import org.unitime.timetable.model.AcademicClassification;
 import org.unitime.timetable.model.CourseDemand;
@@ -55,6 +57,19 @@ public class StudentImport extends BaseImport {
 
 	@Override
 	public void loadXml(Element rootElement) throws Exception {
+		loadXml(rootElement, rootElement.elementIterator());
+	}
+	
+	@Override
+	public void loadXml(XmlRecordReader reader) throws Exception {
+		reader.setReadAhead(2 * sBatchSize);
+		loadXml(reader.getRootElement(), reader.elementIterator(null));
+	}
+	
+	/**
+	 * Import the given student elements, students are loaded, updated, and committed in batches of {@link DataExchangeHelper#sBatchSize}.
+	 */
+	protected void loadXml(Element rootElement, Iterator<Element> studentElements) throws Exception {
 		try {
 			boolean trimLeadingZerosFromExternalId = ApplicationProperty.DataExchangeTrimLeadingZerosFromExternalIds.isTrue();
 			
@@ -75,13 +90,6 @@ public class StudentImport extends BaseImport {
 
 			beginTransaction();
             
-	        Hashtable<String, Student> students = new Hashtable<String, Student>();
-	        for (Student student: (List<Student>)getHibSession().createQuery(
-	        		"from Student s where s.session.uniqueId=:sessionId and s.externalUniqueId is not null").
-                    setLong("sessionId",session.getUniqueId()).list()) { 
-	        	students.put(student.getExternalUniqueId(), student);
-	        }
-	        
             Map<String, AcademicArea> abbv2area = new Hashtable<String, AcademicArea>();
             for (AcademicArea area: (List<AcademicArea>)getHibSession().createQuery(
             		"from AcademicArea where session.uniqueId=:sessionId").setLong("sessionId", session.getUniqueId()).list()) {
@@ -122,22 +130,53 @@ public class StudentImport extends BaseImport {
 	        
 	        Set<Long> updatedStudents = new HashSet<Long>(); 
 	        
-	        for (Iterator i1 = rootElement.elementIterator(); i1.hasNext(); ) {
-	            Element element = (Element) i1.next();
+	        Hashtable<String, Student> students = null;
+	        List<Student> batchStudents = new ArrayList<Student>();
+	        Set<String> importedStudents = new HashSet<String>();
+	        for (ElementBatchIterator i1 = new ElementBatchIterator(studentElements, sBatchSize); i1.hasNext(); ) {
+	            Element element = i1.next();
+	            if (i1.isNewBatch()) {
+	            	if (!batchStudents.isEmpty()) {
+	            		flushAndEvict(batchStudents, true);
+	            		batchStudents.clear();
+	            	}
+	            	students = loadStudents(session.getUniqueId(), i1.getBatch(), trimLeadingZerosFromExternalId);
+	            }
 
 	            String externalId = element.attributeValue("externalId");
 	            if (externalId == null) continue;
 	            while (trimLeadingZerosFromExternalId && externalId.startsWith("0")) externalId = externalId.substring(1);
+	            importedStudents.add(externalId);
 
-	            importStudent(element, externalId, students, session, updatedStudents,
+	            Student student = importStudent(element, externalId, students, session, updatedStudents,
 	            		abbv2area, code2clasf, code2major, code2minor, code2group, code2accomodation);
+	            if (student != null) batchStudents.add(student);
+	        }
+	        if (!batchStudents.isEmpty()) {
+	        	flushAndEvict(batchStudents, true);
+	        	batchStudents.clear();
 	        }
 
-	        if (!incremental)
-	 	        for (Student student: students.values()) {
-	        		updatedStudents.add(student.getUniqueId());
-	        		getHibSession().delete(student);
-	 	        }
+	        if (!incremental) {
+	        	// students that are not in the file
+	        	List<Long> studentIds = new ArrayList<Long>();
+	        	for (Object[] o: (List<Object[]>)getHibSession().createQuery(
+	        			"select s.uniqueId, s.externalUniqueId from Student s where s.session.uniqueId=:sessionId and s.externalUniqueId is not null")
+	        			.setLong("sessionId", session.getUniqueId()).list()) {
+	        		if (!importedStudents.contains((String)o[1]))
+	        			studentIds.add((Long)o[0]);
+	        	}
+	        	for (int idx = 0; idx < studentIds.size(); idx += sBatchSize) {
+	        		List<Student> batch = (List<Student>)getHibSession().createQuery(
+	        				"from Student s where s.uniqueId in (:studentIds)")
+	        				.setParameterList("studentIds", studentIds.subList(idx, Math.min(idx + sBatchSize, studentIds.size()))).list();
+	        		for (Student student: batch) {
+		        		updatedStudents.add(student.getUniqueId());
+		        		getHibSession().delete(student);
+	        		}
+	        		flushAndEvict(batch, true);
+	        	}
+	        }
 	        
             info(updatedStudents.size() + " students changed");
 
@@ -145,6 +184,8 @@ public class StudentImport extends BaseImport {
  	 	        StudentSectioningQueue.studentChanged(getHibSession(), null, session.getUniqueId(), updatedStudents);
             
             commitTransaction();
+            
+            CurriculaProjectionCache.invalidate(session.getUniqueId());
 		} catch (Exception e) {
 			fatal("Exception: " + e.getMessage(), e);
 			rollbackTransaction();
@@ -152,6 +193,24 @@ public class StudentImport extends BaseImport {
 		}
 	}
 	
+	private Hashtable<String, Student> loadStudents(Long sessionId, List<Element> studentElements, boolean trimLeadingZerosFromExternalId) {
+		Set<String> externalIds = new HashSet<String>();
+		for (Element element: studentElements) {
+            String externalId = element.attributeValue("externalId");
+            if (externalId == null) continue;
+            while (trimLeadingZerosFromExternalId && externalId.startsWith("0")) externalId = externalId.substring(1);
+            externalIds.add(externalId);
+		}
+		Hashtable<String, Student> students = new Hashtable<String, Student>();
+		if (externalIds.isEmpty()) return students;
+        for (Student student: (List<Student>)getHibSession().createQuery(
+        		"from Student s where s.session.uniqueId=:sessionId and s.externalUniqueId in (:externalIds)").
+                setLong("sessionId", sessionId).setParameterList("externalIds", externalIds).list()) { 
+        	students.put(student.getExternalUniqueId(), student);
+        }
+        return students;
+	}
+	
 	protected Student importStudent(Element element, String externalId, Hashtable<String, Student> students, Session session, Set<Long> updatedStudents,
 			Map<String, AcademicArea> abbv2area, Map<String, AcademicClassification> code2clasf, Map<String, PosMajor> code2major, Map<String, PosMinor> code2minor,
 			Map<String, StudentGroup> code2group, Map<String, StudentAccomodation> code2accomodation) {
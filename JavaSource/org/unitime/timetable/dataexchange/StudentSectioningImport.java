@@ -36,6 +36,7 @@ import org.cpsolver.coursett.model.TimeLocation;
 import org.dom4j.Element;
 import org.unitime.timetable.dataexchange.StudentEnrollmentImport.Pair;
 import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache;
 import org.unitime.timetable.model.AcademicArea;
 import org.unitime.timetable.model.AcademicClassification;
 import org.unitime.timetable.model.AdvisorClassPref;
@@ -90,6 +91,24 @@ public class StudentSectioningImport extends BaseImport {
     }
     
     public void loadXml(Element rootElement) {
+    	loadXml(rootElement, rootElement.elementIterator("student"));
+    }
+    
+    @Override
+    public void loadXml(XmlRecordReader reader) throws Exception {
+    	if (reader.getRootElement().attributeValue("enrollments") == null) {
+    		// enrollment mode is to be detected from the student records, read the whole document first
+    		loadXml(reader.readDocument());
+    	} else {
+    		reader.setReadAhead(2 * sBatchSize);
+    		loadXml(reader.getRootElement(), reader.elementIterator("student"));
+    	}
+    }
+    
+    /**
+     * Import the given student elements, students are loaded, updated, and committed in batches of {@link DataExchangeHelper#sBatchSize}.
+     */
+    protected void loadXml(Element rootElement, Iterator<Element> studentElements) {
         try {
             beginTransaction();
             
@@ -136,13 +155,6 @@ public class StudentSectioningImport extends BaseImport {
 	        if(session == null)
 	           	throw new Exception("No session found for the given campus, year, and term.");
 
-            Hashtable<String, Student> students = new Hashtable<String, Student>();
-            for (Student student: (List<Student>)getHibSession().createQuery(
-            		"from Student s where s.session.uniqueId=:sessionId and s.externalUniqueId is not null").
-                    setLong("sessionId",session.getUniqueId()).list()) { 
-            	students.put(student.getExternalUniqueId(), student);
-            }
-            
             Map<String, AcademicArea> abbv2area = new Hashtable<String, AcademicArea>();
             for (AcademicArea area: (List<AcademicArea>)getHibSession().createQuery(
             		"from AcademicArea where session.uniqueId=:sessionId").setLong("sessionId", session.getUniqueId()).list()) {
@@ -234,8 +246,18 @@ public class StudentSectioningImport extends BaseImport {
             
             Set<Long> updatedStudents = new HashSet<Long>();
             
-            for (Iterator i1 = rootElement.elementIterator("student"); i1.hasNext(); ) {
-                Element studentElement = (Element) i1.next();
+            Map<String, Student> students = null;
+            List<Student> batchStudents = new ArrayList<Student>();
+            for (ElementBatchIterator i1 = new ElementBatchIterator(studentElements, sBatchSize); i1.hasNext(); ) {
+                Element studentElement = i1.next();
+                if (i1.isNewBatch()) {
+                	if (!batchStudents.isEmpty()) {
+                		flushAndEvict(batchStudents, true);
+                		batchStudents.clear();
+                	}
+                	students = loadStudents(session.getUniqueId(), i1.getBatch(), trimLeadingZerosFromExternalId);
+                	batchStudents.addAll(students.values());
+                }
                 
 	            String externalId = studentElement.attributeValue("key");
 	            if (externalId == null) continue;
@@ -288,6 +310,7 @@ public class StudentSectioningImport extends BaseImport {
 		            student.setClassEnrollments(new HashSet<StudentClassEnrollment>());
 		            student.setCourseDemands(new HashSet<CourseDemand>());
 		            student.setAdvisorCourseRequests(new HashSet<AdvisorCourseRequest>());
+		            batchStudents.add(student);
 		            Element name = demographicsElement.element("name");
 		            if (name != null) {
 		                student.setFirstName(name.attributeValue("first"));
@@ -1135,6 +1158,10 @@ public class StudentSectioningImport extends BaseImport {
             	
             	getHibSession().update(student);
 	        }
+            if (!batchStudents.isEmpty()) {
+            	flushAndEvict(batchStudents, true);
+            	batchStudents.clear();
+            }
 	            
             info(updatedStudents.size() + " students changed");
             
@@ -1142,6 +1169,8 @@ public class StudentSectioningImport extends BaseImport {
  	 	        StudentSectioningQueue.studentChanged(getHibSession(), null, session.getUniqueId(), updatedStudents);
  	        
             commitTransaction();
+            
+            CurriculaProjectionCache.invalidate(session.getUniqueId());
         } catch (Exception e) {
             fatal("Exception: "+e.getMessage(),e);
             rollbackTransaction();
@@ -1149,6 +1178,24 @@ public class StudentSectioningImport extends BaseImport {
     }
     
     
+    private Map<String, Student> loadStudents(Long sessionId, List<Element> studentElements, boolean trimLeadingZerosFromExternalId) {
+    	Set<String> externalIds = new HashSet<String>();
+    	for (Element studentElement: studentElements) {
+            String externalId = studentElement.attributeValue("key");
+            if (externalId == null) continue;
+            while (trimLeadingZerosFromExternalId && externalId.startsWith("0")) externalId = externalId.substring(1);
+            externalIds.add(externalId);
+    	}
+    	Map<String, Student> students = new HashMap<String, Student>();
+    	if (externalIds.isEmpty()) return students;
+        for (Student student: (List<Student>)getHibSession().createQuery(
+        		"from Student s where s.session.uniqueId=:sessionId and s.externalUniqueId in (:externalIds)").
+                setLong("sessionId", sessionId).setParameterList("externalIds", externalIds).list()) { 
+        	students.put(student.getExternalUniqueId(), student);
+        }
+        return students;
+    }
+    
     private TimeLocation makeTime(DatePattern dp, String days, String startTime, String endTime, String length) {
         int dayCode = 0;
         if (days.contains("Th")) {
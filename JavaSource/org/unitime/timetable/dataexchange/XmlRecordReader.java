@@ -0,0 +1,207 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.dataexchange;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.STAXEventReader;
+
+/**
+ * Streaming XML reader: the root element is read first (with its attributes only), the records (children of the root element)
+ * are then read one by one, each into its own element, so that the whole document does not need to be kept in memory.<br>
+ * <br>
+ * With read ahead enabled (see {@link #setReadAhead(int)}), the records are parsed on a separate thread while the
+ * previous records are being imported.
+ */
+public class XmlRecordReader {
+	private static AtomicInteger sReaderId = new AtomicInteger(0);
+	private static final Object sEndOfDocument = new Object();
+	private XMLEventReader iEventReader;
+	private STAXEventReader iElementReader;
+	private Element iRootElement;
+	private boolean iEndOfDocument = false, iEndOfParsing = false;
+	private int iReadAhead = 0;
+	private Thread iReadAheadThread = null;
+	private BlockingQueue<Object> iQueue = null;
+	private volatile Throwable iError = null;
+
+	public XmlRecordReader(InputStream input) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		iEventReader = factory.createXMLEventReader(input);
+		iElementReader = new STAXEventReader();
+		while (iEventReader.hasNext()) {
+			XMLEvent event = iEventReader.nextEvent();
+			if (event.isStartElement()) {
+				iRootElement = iElementReader.createElement(event.asStartElement());
+				Document document = DocumentHelper.createDocument();
+				document.setRootElement(iRootElement);
+				break;
+			}
+		}
+		if (iRootElement == null)
+			throw new XMLStreamException("No root element found.");
+	}
+
+	/**
+	 * Root element, with attributes but without the records that have not been read yet
+	 */
+	public Element getRootElement() { return iRootElement; }
+
+	/**
+	 * Parse the given number of records ahead on a separate thread, must be called before the first record is read
+	 */
+	public void setReadAhead(int nrRecords) { iReadAhead = nrRecords; }
+
+	/**
+	 * Next record (child element of the root element), null when there are no more records
+	 */
+	public Element next() throws XMLStreamException {
+		if (iReadAhead > 0 && iReadAheadThread == null && !iEndOfParsing)
+			startReadAhead();
+		if (iQueue == null) {
+			Element element = readElement();
+			if (element == null) iEndOfDocument = true;
+			return element;
+		}
+		if (iEndOfDocument) return null;
+		try {
+			Object next = iQueue.take();
+			if (next == sEndOfDocument) {
+				iEndOfDocument = true;
+				if (iError != null) {
+					if (iError instanceof XMLStreamException) throw (XMLStreamException)iError;
+					throw new XMLStreamException(iError.getMessage(), iError);
+				}
+				return null;
+			}
+			return (Element)next;
+		} catch (InterruptedException e) {
+			throw new XMLStreamException("Interrupted while reading the XML.", e);
+		}
+	}
+
+	private Element readElement() throws XMLStreamException {
+		if (iEndOfParsing) return null;
+		while (iEventReader.hasNext()) {
+			XMLEvent event = iEventReader.peek();
+			if (event.isStartElement())
+				return iElementReader.readElement(iEventReader);
+			iEventReader.nextEvent();
+			if (event.isEndElement()) break;
+		}
+		iEndOfParsing = true;
+		return null;
+	}
+
+	private void startReadAhead() {
+		iQueue = new ArrayBlockingQueue<Object>(iReadAhead);
+		iReadAheadThread = new Thread("XmlReader-" + sReaderId.incrementAndGet()) {
+			@Override
+			public void run() {
+				try {
+					Element element = null;
+					while ((element = readElement()) != null)
+						iQueue.put(element);
+				} catch (InterruptedException e) {
+					return; // reader closed
+				} catch (Throwable t) {
+					iError = t;
+				}
+				try {
+					iQueue.put(sEndOfDocument);
+				} catch (InterruptedException e) {}
+			}
+		};
+		iReadAheadThread.setDaemon(true);
+		iReadAheadThread.start();
+	}
+
+	/**
+	 * Iterate over the remaining records with the given name, records with a different name are skipped
+	 */
+	public Iterator<Element> elementIterator(final String name) {
+		return new Iterator<Element>() {
+			private Element iNext = null;
+
+			@Override
+			public boolean hasNext() {
+				try {
+					while (iNext == null) {
+						Element element = XmlRecordReader.this.next();
+						if (element == null) return false;
+						if (name == null || name.equals(element.getName())) iNext = element;
+					}
+					return true;
+				} catch (XMLStreamException e) {
+					throw new IllegalStateException("Unable to parse given XML, reason: " + e.getMessage(), e);
+				}
+			}
+
+			@Override
+			public Element next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				Element element = iNext;
+				iNext = null;
+				return element;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Read all the remaining records into the root element, for imports that need the whole document
+	 */
+	public Element readDocument() throws XMLStreamException {
+		Element element = null;
+		while ((element = next()) != null)
+			iRootElement.add(element);
+		return iRootElement;
+	}
+
+	/**
+	 * Stop reading, the input stream is not closed
+	 */
+	public void close() {
+		if (iReadAheadThread != null && iReadAheadThread.isAlive())
+			iReadAheadThread.interrupt();
+		try {
+			iEventReader.close();
+		} catch (XMLStreamException e) {}
+	}
+}
@@ -25,6 +25,9 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.sql.Driver;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -107,6 +110,18 @@ public enum ApplicationProperty {
 	@Description("Database: connection logging")
 	ConnectionLogging("connection.logging"),
 
+	@Type(Integer.class)
+	@DefaultValue("0")
+	@Description("Database: log SQL statements that take longer than the given number of milliseconds (0 to disable slow statement detection)")
+	@Since(4.5)
+	ConnectionSlowStatementThreshold("connection.slowStatement"),
+
+	@Type(Integer.class)
+	@DefaultValue("60")
+	@Description("Database: report connections that are leased for more than the given number of seconds")
+	@Since(4.5)
+	ConnectionLeaseWarning("connection.leaseWarning"),
+
 	@DefaultValue("timetable")
 	@Description("Database: schema (e.g., timetable)")
 	@ReadOnly
@@ -118,6 +133,20 @@ public enum ApplicationProperty {
 	@ReadOnly
 	DatabaseUniqueIdGenerator("tmtbl.uniqueid.generator"),
 
+	@Type(Integer.class)
+	@DefaultValue("50")
+	@Description("Database: number of unique ids reserved from a sequence at once (sequence based unique id generator on Oracle or PostgreSQL, 1 to take the ids one by one)")
+	@ReadOnly
+	@Since(4.5)
+	DatabaseUniqueIdBlockSize("tmtbl.uniqueid.blockSize"),
+
+	@Type(Integer.class)
+	@Description("Database: number of unique ids reserved from a sequence at once for the given entity (e.g., tmtbl.uniqueid.blockSize.Meeting), defaults to tmtbl.uniqueid.blockSize")
+	@Parameter("entity")
+	@ReadOnly
+	@Since(4.5)
+	DatabaseUniqueIdBlockSizeEntity("tmtbl.uniqueid.blockSize.%"),
+
 	@Type(Integer.class)
 	@Description("Database: schema version (DO NOT EDIT!)")
 	@ReadOnly
@@ -394,6 +423,12 @@ public enum ApplicationProperty {
 	@Description("Room Filter: distance limit (in meters) for nearby locations")
 	EventNearByDistance("tmtbl.events.nearByDistance"),
 
+	@Type(Integer.class)
+	@DefaultValue("900")
+	@Description("Room Filter: time to live (in seconds) of the in-memory room index of an academic session, the index is also dropped when rooms, features, groups, or buildings are changed (-1 for no expiration)")
+	@Since(4.5)
+	EventRoomIndexTimeToLive("unitime.events.roomIndex.ttl"),
+
 	@Type(Integer.class)
 	@DefaultValue("0")
 	@Description("Rooms: default break time for a room of type % (% is the room type reference)")
@@ -938,6 +973,24 @@ public enum ApplicationProperty {
 	@DefaultValue("true")
 	@Description("Examination PDF Reports: use class event to compute class meeting time")
 	ExaminationPdfReportsUseEventsForMeetingTimes("tmtbl.exam.report.meeting_time.use_events"),
+
+	@Type(Integer.class)
+	@DefaultValue("4")
+	@Description("Examination PDF Reports: number of worker threads writing the individual student / instructor reports (0 to write them one after another on the report thread)")
+	@Since(4.5)
+	ExaminationPdfReportsWorkers("tmtbl.exam.pdfReports.workers"),
+
+	@Type(Integer.class)
+	@DefaultValue("4")
+	@Description("Examination PDF Reports: number of threads sending the individual student / instructor emails (0 to send them one after another)")
+	@Since(4.5)
+	ExaminationPdfReportsEmailThreads("tmtbl.exam.pdfReports.email.threads"),
+
+	@Type(Integer.class)
+	@DefaultValue("100")
+	@Description("Examination PDF Reports: maximal number of individual emails waiting to be sent (the report waits when the limit is reached)")
+	@Since(4.5)
+	ExaminationPdfReportsEmailQueueSize("tmtbl.exam.pdfReports.email.queueSize"),
 	
 	@DefaultValue("none")
 	@Description("Examination Reports: include different subject sections (set to none if disabled, "
@@ -977,6 +1030,12 @@ public enum ApplicationProperty {
 	@Description("Examinations: cache examination conflicts with solution")
 	ExaminationCacheConflicts("tmtbl.exams.conflicts.cache"),
 
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("Examinations: compute student conflicts of examination reports and pages from an in-memory conflict index (kept until student enrollments or examination owners change)")
+	@Since(4.5)
+	ExaminationConflictIndex("tmtbl.exams.conflicts.index"),
+
 	/**
 	 * Required minimal travel time between class event and an exam (in the number of 5-minute long time slots).
 	 */
@@ -1293,6 +1352,24 @@ public enum ApplicationProperty {
 	@DefaultValue("true")
 	@Description("Event ICS Calendar: set main contact as organizer")
 	EventCalendarSetOrganizer("unitime.events.ics_set_organizer"),
+
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("Event Export: support conditional GET (ETag and Last-Modified validators), so that calendar clients that poll an export get a 304 Not Modified response when the exported events did not change")
+	@Since(4.5)
+	EventExportConditionalGet("unitime.events.export.conditionalGet"),
+
+	@Type(Integer.class)
+	@DefaultValue("60")
+	@Description("Event Export: time window (in minutes) after which the ETag and Last-Modified validators of an event export change even when no meeting or event note was changed (0 for no time window)")
+	@Since(4.5)
+	EventExportValidatorTimeWindow("unitime.events.export.validatorWindow"),
+
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("Events: read the meetings of an unlimited room timetable lookup (e.g., a room calendar export) through a forward-only cursor, converting them into events as they are read instead of loading them all first")
+	@Since(4.5)
+	EventLookupScrollMeetings("unitime.events.lookup.scroll"),
 	
 	@Type(Boolean.class)
 	@DefaultValue("false")
@@ -1351,6 +1428,36 @@ public enum ApplicationProperty {
 	@Description("Email Configuration: enable SSL if needed. Other mail.smtp.ssl properties may need to be set")
 	EmailSmtpSSL("mail.smtp.ssl.enable"),
 
+	@Type(Boolean.class)
+	@DefaultValue("false")
+	@Description("Email Configuration: when enabled, emails are written into a spool folder (mail in the UniTime data folder) and sent by a pool of background threads instead of the calling thread")
+	@Since(4.5)
+	EmailSpoolEnabled("unitime.email.spool"),
+
+	@Type(Integer.class)
+	@DefaultValue("2")
+	@Description("Email Configuration: number of threads sending the spooled emails (each thread keeps its own SMTP connection)")
+	@Since(4.5)
+	EmailSpoolThreads("unitime.email.spool.threads"),
+
+	@Type(Integer.class)
+	@DefaultValue("5")
+	@Description("Email Configuration: number of attempts to send a spooled email before it is moved into the failed folder")
+	@Since(4.5)
+	EmailSpoolMaxAttempts("unitime.email.spool.attempts"),
+
+	@Type(Integer.class)
+	@DefaultValue("60")
+	@Description("Email Configuration: delay in seconds before a spooled email that failed to send is retried (doubled with each failed attempt)")
+	@Since(4.5)
+	EmailSpoolRetryDelay("unitime.email.spool.retryDelay"),
+
+	@Type(Integer.class)
+	@DefaultValue("60")
+	@Description("Email Configuration: number of seconds an idle SMTP connection of a spool thread is kept open")
+	@Since(4.5)
+	EmailSpoolIdleTimeout("unitime.email.spool.idleTimeout"),
+
 	@DefaultValue("noreply@unitime.org")
 	@Description("Email Configuration: sender email address")
 	EmailSenderAddress("unitime.email.sender"),
@@ -1543,6 +1650,24 @@ public enum ApplicationProperty {
 	@Description("Query Log: record request object/parameters as JSON message")
 	QueryLogJSON("unitime.query.log.json"),
 
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("Query Log: collect per-request statement statistics (number of statements, repeated statements) and show the top offenders on the Hibernate Statistics page")
+	@Since(4.5)
+	QueryLogRequestStatistics("unitime.query.log.requestStats"),
+
+	@Type(Boolean.class)
+	@DefaultValue("false")
+	@Description("Query Log: also measure statement times of the per-request statement statistics (database connections and statements of such requests are wrapped in timing proxies)")
+	@Since(4.5)
+	QueryLogRequestStatisticsTiming("unitime.query.log.requestStats.timing"),
+
+	@Type(Integer.class)
+	@DefaultValue("20")
+	@Description("Query Log: a request that executes a statement of the same shape (SQL with literals replaced by parameters) at least this many times is reported as an N+1 select")
+	@Since(4.5)
+	QueryLogRepeatedStatementThreshold("unitime.query.log.repeatedStatements"),
+
 	@Type(Boolean.class)
 	@DefaultValue("false")
 	@Description("Classes: if there are two or more scheduling subparts in a parent-child relation with the same instructional type (e.g., Lec - Lec a - Lec b stacked underneath), inherit preferences and the date pattern from the parent subpart whenever possible")
@@ -2059,6 +2184,12 @@ public enum ApplicationProperty {
 	@DefaultValue("false")
 	@Description("Session Roll Forward: reset class suffixes and external ids")
 	RollForwardResetClassSuffix("unitime.rollforward.resetClassSufix"),
+	
+	@Type(Integer.class)
+	@DefaultValue("1")
+	@Description("Session Roll Forward: number of threads rolling course offerings forward (subject areas that share a distribution preference are always rolled by the same thread, 1 to roll one subject area after another)")
+	@Since(4.5)
+	RollForwardThreads("unitime.rollforward.threads"),
 
 	@Type(Boolean.class)
 	@DefaultValue("false")
@@ -2606,7 +2737,19 @@ public enum ApplicationProperty {
 	@Description("Calendar: Time zone URL, where {id} is the time zone id, e.g., Europe/Prague")
 	@DefaultValue("http://www.tzurl.org/zoneinfo/{id}.ics")
 	CalendarVTimeZone("unitime.calendar.timezone"),
-	
+
+	@Type(Integer.class)
+	@DefaultValue("3600")
+	@Description("Calendar: time to live (in seconds) of a cached iCalendar feed; cached feeds are also dropped when the underlying enrollments, class assignments, events, or the academic session change, other changes (e.g., of instructor assignments) show up in a cached feed once it expires (0 to disable the cache)")
+	@Since(4.5)
+	CalendarFeedCacheTimeToLive("unitime.calendar.cache.ttl"),
+
+	@Type(Integer.class)
+	@DefaultValue("64")
+	@Description("Calendar: maximal size (in megabytes) of the cached iCalendar feeds, the least recently used feeds are dropped first")
+	@Since(4.5)
+	CalendarFeedCacheMaxSize("unitime.calendar.cache.maxSize"),
+
 	@Type(Double.class)
 	@DefaultValue("17.0")
 	@Description("Time Grid XLS Export: row height")
@@ -2722,6 +2865,54 @@ public enum ApplicationProperty {
 	@Description("Advisor Course Recommendations: advisors can only change status if the student is in a status that they can use (both current and the new status is available to advisors)")
 	@Since(4.5)
 	AdvisorCourseRequestsRestrictedStatusChange("unitime.acrf.restrictedStatusChange"),
+	
+	@Type(Integer.class)
+	@DefaultValue("60")
+	@Description("Curricula: how often (in seconds) are the cached enrollments, course requests, and last-like demands of an academic area checked for changes")
+	@Since(4.5)
+	CurriculaProjectionCacheCheckInterval("unitime.curriculum.projectionCache.checkInterval"),
+	
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("API: compress JSON responses using gzip when the client accepts it")
+	@Since(4.5)
+	ApiResponseGzip("unitime.api.gzip"),
+	
+	@Type(Integer.class)
+	@DefaultValue("1000")
+	@Description("API: number of rows after which the hibernate session is cleared while streaming a large collection response")
+	@Since(4.5)
+	ApiStreamingBatchSize("unitime.api.streaming.batchSize"),
+	
+	@Type(Integer.class)
+	@DefaultValue("0")
+	@Description("Permissions: how long (in seconds) are permission check results of a user cached across requests (0 to cache only within a single request)")
+	@Since(4.5)
+	PermissionCacheTimeToLive("unitime.permissions.cache.timeToLive"),
+	
+	@Type(Integer.class)
+	@DefaultValue("15")
+	@Description("Solver: how often (in minutes) is the estimated memory footprint of a loaded solver recomputed (used to place new solvers on the solver servers)")
+	@Since(4.5)
+	SolverPlacementFootprintRefresh("unitime.solver.placement.footprintRefresh"),
+	
+	@Type(Integer.class)
+	@DefaultValue("0")
+	@Description("Solver: how often (in minutes) are passivated solvers moved from the most loaded to the least loaded solver server (0 to disable rebalancing)")
+	@Since(4.5)
+	SolverPlacementRebalanceInterval("unitime.solver.placement.rebalanceInterval"),
+	
+	@Type(Integer.class)
+	@DefaultValue("20")
+	@Description("Solver: minimal difference in the expected heap usage (in percent) between two solver servers for a passivated solver to be moved between them")
+	@Since(4.5)
+	SolverPlacementRebalanceThreshold("unitime.solver.placement.rebalanceThreshold"),
+
+	@Type(Boolean.class)
+	@DefaultValue("true")
+	@Description("Course Timetabling Solver: keep the academic session data that do not depend on the loaded solver groups (travel times, room features and groups, date pattern sets) in memory between solver loads (checked for changes on each load)")
+	@Since(4.5)
+	SolverStaticDataCache("unitime.solver.staticData.cache"),
 	;
 
 	String iKey;
@@ -2797,37 +2988,29 @@ public enum ApplicationProperty {
 	}
 	
 	public String value() {
-		return value(null, null);
+		return resolve(null).getValue();
 	}
 	
 	public String value(String reference) {
-		return value(reference, null);
+		return resolve(reference).getValue();
 	}
 	
 	public String value(String reference, String defaultValueOverride) {
-		String value = ApplicationProperties.getProperty(key(reference));
-		if (value != null) return value;
-		
-		String[] oldKeys = replaces();
-		if (oldKeys != null)
-			for (String key: oldKeys) {
-				value = ApplicationProperties.getProperty(reference == null ? key : key.replace("%", reference));
-				if (value != null) return value;
-			}
-		
-		return defaultValueOverride != null ? defaultValueOverride : defaultValue();
+		Value value = resolve(reference);
+		return (value.isSet() || defaultValueOverride == null ? value.getValue() : defaultValueOverride);
 	}
 	
 	public boolean isTrue() {
-		return "true".equalsIgnoreCase(value());
+		return resolve(null).isTrue();
 	}
 	
 	public boolean isTrue(String reference) {
-		return "true".equalsIgnoreCase(value(reference));
+		return resolve(reference).isTrue();
 	}
 	
 	public boolean isTrue(String reference, boolean defaultValueOverride) {
-		return "true".equalsIgnoreCase(value(reference, defaultValueOverride ? "true": "false"));
+		Value value = resolve(reference);
+		return (value.isSet() ? value.isTrue() : defaultValueOverride);
 	}
 	
 	public boolean isFalse() {
@@ -2835,35 +3018,42 @@ public enum ApplicationProperty {
 	}
 	
 	public Integer intValue() {
-		try {
-			return Integer.valueOf(value());
-		} catch (Exception e) {
-			return null;
-		}
+		return resolve(null).getInteger();
 	}
 	
 	public Integer intValue(String reference) {
-		try {
-			return Integer.valueOf(value(reference));
-		} catch (Exception e) {
-			return null;
-		}
+		return resolve(reference).getInteger();
 	}
 	
 	public Float floatValue() {
-		try {
-			return Float.valueOf(value());
-		} catch (Exception e) {
-			return null;
-		}
+		return resolve(null).getFloat();
 	}
 	
 	public Double doubleValue() {
-		try {
-			return Double.valueOf(value());
-		} catch (Exception e) {
-			return null;
+		return resolve(null).getDouble();
+	}
+	
+	/**
+	 * Resolved value from the properties snapshot of the current academic session
+	 */
+	protected Value resolve(String reference) {
+		return Snapshot.getInstance().get(this, reference);
+	}
+	
+	/**
+	 * Look the value up in the application properties (checking the old keys as well)
+	 */
+	protected Value lookup(String reference) {
+		String value = ApplicationProperties.getProperty(key(reference));
+		if (value == null) {
+			String[] oldKeys = replaces();
+			if (oldKeys != null)
+				for (String key: oldKeys) {
+					value = ApplicationProperties.getProperty(reference == null ? key : key.replace("%", reference));
+					if (value != null) break;
+				}
 		}
+		return new Value(value, defaultValue());
 	}
 	
 	private String[] replaces() {
@@ -3066,6 +3256,96 @@ public enum ApplicationProperty {
 		Class value();
 	}
 	
+	/**
+	 * Resolved value of an application property, parsed into the supported types.
+	 */
+	protected static class Value {
+		private final String iValue;
+		private final boolean iSet, iTrue;
+		private final Integer iInteger;
+		private final Float iFloat;
+		private final Double iDouble;
+		
+		Value(String value, String defaultValue) {
+			iSet = (value != null);
+			iValue = (value != null ? value : defaultValue);
+			iTrue = "true".equalsIgnoreCase(iValue);
+			Integer i = null; Float f = null; Double d = null;
+			if (iValue != null && !iValue.isEmpty()) {
+				try { i = Integer.valueOf(iValue); } catch (NumberFormatException e) {}
+				try { f = Float.valueOf(iValue); } catch (NumberFormatException e) {}
+				try { d = Double.valueOf(iValue); } catch (NumberFormatException e) {}
+			}
+			iInteger = i; iFloat = f; iDouble = d;
+		}
+		
+		/** Value is set (not using the default) */
+		public boolean isSet() { return iSet; }
+		public String getValue() { return iValue; }
+		public boolean isTrue() { return iTrue; }
+		public Integer getInteger() { return iInteger; }
+		public Float getFloat() { return iFloat; }
+		public Double getDouble() { return iDouble; }
+	}
+	
+	/**
+	 * Resolved application properties of an academic session (or of no session). Values are resolved when used for the first time and
+	 * the snapshot is replaced by a new one when any of the properties change (see {@link ApplicationProperties#getVersion()}).
+	 */
+	protected static class Snapshot {
+		private static volatile Snapshot sDefault = null;
+		private static Map<Long, Snapshot> sSessions = new ConcurrentHashMap<Long, Snapshot>();
+		
+		private final long iVersion;
+		private final Value[] iValues;
+		private final AtomicReferenceArray<Map<String, Value>> iReferences;
+		
+		Snapshot(long version) {
+			iVersion = version;
+			int size = ApplicationProperty.values().length;
+			iValues = new Value[size];
+			iReferences = new AtomicReferenceArray<Map<String, Value>>(size);
+		}
+		
+		static Snapshot getInstance() {
+			long version = ApplicationProperties.getVersion();
+			Long sessionId = ApplicationProperties.getSessionId();
+			Snapshot snapshot = (sessionId == null ? sDefault : sSessions.get(sessionId));
+			if (snapshot == null || snapshot.iVersion != version) {
+				snapshot = new Snapshot(version);
+				if (sessionId == null)
+					sDefault = snapshot;
+				else
+					sSessions.put(sessionId, snapshot);
+			}
+			return snapshot;
+		}
+		
+		Value get(ApplicationProperty property, String reference) {
+			int index = property.ordinal();
+			if (reference == null) {
+				// values are immutable, a concurrent lookup of the same property is harmless
+				Value value = iValues[index];
+				if (value == null) {
+					value = property.lookup(null);
+					iValues[index] = value;
+				}
+				return value;
+			}
+			Map<String, Value> values = iReferences.get(index);
+			if (values == null) {
+				iReferences.compareAndSet(index, null, new ConcurrentHashMap<String, Value>());
+				values = iReferences.get(index);
+			}
+			Value value = values.get(reference);
+			if (value == null) {
+				value = property.lookup(reference);
+				values.put(reference, value);
+			}
+			return value;
+		}
+	}
+	
 	@Override
 	public String toString() {
 		String description = description();
@@ -19,6 +19,7 @@
 */
 package org.unitime.timetable.events;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -44,6 +45,7 @@ import org.unitime.timetable.model.Session;
 import org.unitime.timetable.model.dao.EventDAO;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.security.rights.Right;
+import org.unitime.timetable.util.CalendarFeedCache;
 import org.unitime.timetable.util.Formats;
 
 /**
@@ -207,6 +209,8 @@ public class ApproveEventBackend extends EventAction<ApproveEventRpcRequest, Sav
 			
 			tx.commit(); tx = null;
 			
+			CalendarFeedCache.invalidateEvents(Collections.singleton(event.getUniqueId()));
+			
 			new EventEmail(request, response).send(context);
 			
 			return response;
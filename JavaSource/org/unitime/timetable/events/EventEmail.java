@@ -71,6 +71,7 @@ import org.unitime.timetable.security.SessionContext;
 import org.unitime.timetable.security.rights.Right;
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.NameFormat;
+import org.unitime.timetable.util.TemplateCache;
 
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
@@ -78,7 +79,6 @@ import biweekly.io.text.ICalWriter;
 import biweekly.property.CalendarScale;
 import biweekly.property.Method;
 import biweekly.property.Status;
-import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
@@ -330,11 +330,7 @@ public class EventEmail {
 	}
 	
 	private String message() throws IOException, TemplateException {
-		Configuration cfg = new Configuration(Configuration.VERSION_2_3_0);
-		cfg.setClassForTemplateLoading(EventEmail.class, "");
-		cfg.setLocale(Localization.getJavaLocale());
-		cfg.setOutputEncoding("utf-8");
-		Template template = cfg.getTemplate("confirmation.ftl");
+		Template template = TemplateCache.getTemplate(EventEmail.class, "", "confirmation.ftl");
 		Map<String, Object> input = new HashMap<String, Object>();
 		input.put("msg", MESSAGES);
 		input.put("const", CONSTANTS);
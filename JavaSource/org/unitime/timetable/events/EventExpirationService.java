@@ -19,6 +19,7 @@
 */
 package org.unitime.timetable.events;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
@@ -35,6 +36,7 @@ import org.unitime.timetable.model.Event;
 import org.unitime.timetable.model.EventNote;
 import org.unitime.timetable.model.Meeting;
 import org.unitime.timetable.model.dao.EventDAO;
+import org.unitime.timetable.util.CalendarFeedCache;
 
 /**
  * @author Tomas Muller
@@ -76,6 +78,7 @@ public class EventExpirationService extends Thread {
 			Transaction tx = hibSession.beginTransaction();
 			try {
 				Date now = new Date();
+				List<Long> expiredEventIds = new ArrayList<Long>();
 				for (Event event: (List<Event>)hibSession.createQuery(
 						"select distinct e from Event e inner join e.meetings m " +
 						"where e.expirationDate is not null and m.approvalStatus = 0 and e.expirationDate < " + HibernateUtil.date(new Date())).list()) {
@@ -106,6 +109,7 @@ public class EventExpirationService extends Thread {
 					hibSession.saveOrUpdate(note);
 				
 					hibSession.update(event);
+					expiredEventIds.add(event.getUniqueId());
 					
 					try {
 						EventEmail.eventExpired(event, affectedMeetings);
@@ -115,6 +119,8 @@ public class EventExpirationService extends Thread {
 				}
 				
 				tx.commit(); tx = null;
+				
+				CalendarFeedCache.invalidateEvents(expiredEventIds);
 			} catch (Exception e) {
 				if (tx != null) tx.rollback();
 				sLog.error("Failed to expire some events: " + e.getMessage(), e);
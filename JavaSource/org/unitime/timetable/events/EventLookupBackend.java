@@ -29,10 +29,13 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.defaults.UserProperty;
 import org.unitime.timetable.events.EventFilterBackend.EventQuery.EventInstance;
@@ -213,6 +216,7 @@ public class EventLookupBackend extends EventAction<EventLookupRpcRequest, GwtRp
 				String nameFormat = context.getUser().getProperty(UserProperty.NameFormat);
 				
 				List<Meeting> meetings = null;
+				ScrollableResults cursor = null;
 				Map<Long, Set<Long>[]> restrictions = null;
 				Session session = SessionDAO.getInstance().get(request.getSessionId(), hibSession);
 				Curriculum curriculum = null;
@@ -226,22 +230,25 @@ public class EventLookupBackend extends EventAction<EventLookupRpcRequest, GwtRp
 				
 				switch (request.getResourceType()) {
 				case ROOM:
+					EventInstance roomQuery = null;
 					if (request.getResourceId() != null)
-						meetings = (List<Meeting>)query.select("distinct m")
+						roomQuery = query.select("distinct m")
 						.joinWithLocation()
 						.where("l.uniqueId = :resourceId")
 						.set("resourceId", request.getResourceId())
-						.limit(1 + limit)
-						.query(hibSession).list();
+						.limit(1 + limit);
 					else if (request.getResourceExternalId() != null)
-						meetings = (List<Meeting>)query.select("distinct m")
+						roomQuery = query.select("distinct m")
 						.joinWithLocation()
 						.where("l.externalUniqueId = :externalId")
 						.set("externalId", request.getResourceExternalId())
-						.limit(1 + limit)
-						.query(hibSession).list();
+						.limit(1 + limit);
 					else
-						meetings = (List<Meeting>)query.select("distinct m").limit(1 + limit).query(hibSession).list();
+						roomQuery = query.select("distinct m").limit(1 + limit);
+					if (limit <= 0 && ApplicationProperty.EventLookupScrollMeetings.isTrue())
+						cursor = roomQuery.query(hibSession).setReadOnly(true).setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY);
+					else
+						meetings = (List<Meeting>)roomQuery.query(hibSession).list();
 					break;
 				case SUBJECT:
 				case COURSE:
@@ -1511,7 +1518,8 @@ public class EventLookupBackend extends EventAction<EventLookupRpcRequest, GwtRp
 				GwtRpcResponseList<EventInterface> ret = new GwtRpcResponseList<EventInterface>();
 				Hashtable<Long, EventInterface> events = new Hashtable<Long, EventInterface>();
 				Map<Long, Set<Location>> unavailableLocations = new Hashtable<Long, Set<Location>>();
-				for (Meeting m: meetings) {
+				for (Iterator<Meeting> mi = (cursor == null ? meetings.iterator() : new MeetingCursor(cursor, hibSession)); mi.hasNext(); ) {
+					Meeting m = mi.next();
 					if (locationMap != null && m.getLocationPermanentId() != null) {
 						Location location = locationMap.get(m.getLocationPermanentId());
 						if (location != null) m.setLocation(location);
@@ -2846,6 +2854,44 @@ public class EventLookupBackend extends EventAction<EventLookupRpcRequest, GwtRp
 		}
 	}
 	
+	/**
+	 * Iterates over meetings read through a forward-only cursor. A meeting is evicted from the hibernate session
+	 * when the next one is read, so that the meetings of a large timetable do not accumulate in the session.
+	 */
+	private static class MeetingCursor implements Iterator<Meeting> {
+		private ScrollableResults iCursor;
+		private org.hibernate.Session iHibSession;
+		private Meeting iLast = null;
+		private Boolean iHasNext = null;
+		
+		MeetingCursor(ScrollableResults cursor, org.hibernate.Session hibSession) {
+			iCursor = cursor; iHibSession = hibSession;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if (iHasNext == null) {
+				if (iLast != null) { iHibSession.evict(iLast); iLast = null; }
+				iHasNext = iCursor.next();
+				if (!iHasNext) iCursor.close();
+			}
+			return iHasNext;
+		}
+		
+		@Override
+		public Meeting next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			iHasNext = null;
+			iLast = (Meeting)iCursor.get(0);
+			return iLast;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
 	public static EventInterface generateUnavailabilityEvent(Location location, EventInterface parent) {
 		TreeSet<MeetingInterface> meetings = generateUnavailabilityMeetings(location, false);
 		if (meetings == null || meetings.isEmpty()) return null;
@@ -19,9 +19,13 @@
 */
 package org.unitime.timetable.events;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,163 +81,57 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 		
 		Session session = SessionDAO.getInstance().get(request.getSessionId());
 		String nameFormat = context.getUser().getProperty(UserProperty.NameFormat);
+		org.hibernate.Session hibSession = EventDAO.getInstance().getSession();
+		ConflictFactory factory = new ConflictFactory(session, nameFormat, context.hasPermission(Right.EventCanViewMeetingContacts));
 		
 		if (request.hasDates() && request.hasLocations()) {
+			List<Location> locations = new ArrayList<Location>(request.getLocations().size());
 			for (int idx = 0; idx < request.getLocations().size(); idx += 1000) {
+				locations.addAll((List<Location>)hibSession.createQuery(
+						"from Location where session.uniqueId = :sessionId and permanentId in (:permIds)")
+						.setParameterList("permIds", request.getLocations().subList(idx, Math.min(idx + 1000, request.getLocations().size())))
+						.setLong("sessionId", request.getSessionId()).setCacheable(true).list());
+			}
 			
-				String dates = "";
-				for (int i = 0; i < request.getDates().size(); i++)
-					dates += (dates.isEmpty() ? "" : ",") + ":d" + i;
-				
-				String locations = "";
-				for (int i = 0; i + idx < request.getLocations().size() && i < 1000; i++)
-					locations += (locations.isEmpty() ? "" : ",") + ":l" + i;
-				
-				Query query = EventDAO.getInstance().getSession().createQuery(
-						"select m from Meeting m, Location l " +
-						"where m.startPeriod<:stopTime and m.stopPeriod>:startTime and m.approvalStatus <= 1 and " +
-						"l.session.uniqueId = :sessionId and l.permanentId in (" + locations + ") and l.ignoreRoomCheck = false and " +
-						"m.locationPermanentId = l.permanentId and m.meetingDate in ("+dates+")");
-				
-				query.setInteger("startTime", request.getStartSlot());
-				query.setInteger("stopTime", request.getEndSlot());
-				query.setLong("sessionId", request.getSessionId());
-				for (int i = 0; i < request.getDates().size(); i++) {
-					Date date = CalendarUtils.dateOfYear2date(session.getSessionStartYear(), request.getDates().get(i));
-					query.setDate("d" + i, date);
-				}
-				for (int i = 0; i + idx < request.getLocations().size() && i < 1000; i++)
-					query.setLong("l" + i, request.getLocations().get(idx + i));
-				
-				for (Meeting m: (List<Meeting>)query.list()) {
-					MeetingConflictInterface conflict = new MeetingConflictInterface();
-
-					if (request.hasEventId() && m.getEvent().getUniqueId().equals(request.getEventId())) continue;
-
-					conflict.setEventId(m.getEvent().getUniqueId());
-					conflict.setName(m.getEvent().getEventName());
-					conflict.setType(EventInterface.EventType.values()[m.getEvent().getEventType()]);
-					conflict.setLimit(m.getEvent().getMaxCapacity());
-					
-					if (m.getEvent().getSponsoringOrganization() != null) {
-						SponsoringOrganizationInterface sponsor = new SponsoringOrganizationInterface();
-						sponsor.setEmail(m.getEvent().getSponsoringOrganization().getEmail());
-						sponsor.setName(m.getEvent().getSponsoringOrganization().getName());
-						sponsor.setUniqueId(m.getEvent().getSponsoringOrganization().getUniqueId());
-						conflict.setSponsor(sponsor);
-					}
-					
-					if (Event.sEventTypeClass == m.getEvent().getEventType()) {
-			    		ClassEvent ce = (m.getEvent() instanceof ClassEvent ? (ClassEvent)m.getEvent() : ClassEventDAO.getInstance().get(m.getEvent().getUniqueId()));
-			    		Class_ clazz = ce.getClazz();
-			    		conflict.setEnrollment(clazz.getEnrollment());
-			    		if (clazz.getDisplayInstructor()) {
-			    			for (ClassInstructor i: clazz.getClassInstructors()) {
-			    				if (i.getResponsibility() != null && i.getResponsibility().hasOption(TeachingResponsibility.Option.noevents)) continue;
-								ContactInterface instructor = new ContactInterface();
-								instructor.setFirstName(i.getInstructor().getFirstName());
-								instructor.setMiddleName(i.getInstructor().getMiddleName());
-								instructor.setLastName(i.getInstructor().getLastName());
-								instructor.setAcademicTitle(i.getInstructor().getAcademicTitle());
-								instructor.setEmail(i.getInstructor().getEmail());
-								instructor.setFormattedName(i.getInstructor().getName(nameFormat));
-								if (i.getResponsibility() != null) {
-									instructor.setResponsibility(i.getResponsibility().getLabel());
-									instructor.setResponsibilityAbbreviation(i.getResponsibility().getAbbreviation());
-			    				}
-								conflict.addInstructor(instructor);
-			    			}
-			    		}
-					} else if (Event.sEventTypeFinalExam == m.getEvent().getEventType() || Event.sEventTypeMidtermExam == m.getEvent().getEventType()) {
-			    		ExamEvent xe = (m.getEvent() instanceof ExamEvent ? (ExamEvent)m.getEvent() : ExamEventDAO.getInstance().get(m.getEvent().getUniqueId()));
-			    		conflict.setEnrollment(xe.getExam().countStudents());
-		    			for (DepartmentalInstructor i: xe.getExam().getInstructors()) {
-							ContactInterface instructor = new ContactInterface();
-							instructor.setFirstName(i.getFirstName());
-							instructor.setMiddleName(i.getMiddleName());
-							instructor.setLastName(i.getLastName());
-							instructor.setAcademicTitle(i.getAcademicTitle());
-							instructor.setEmail(i.getEmail());
-							instructor.setFormattedName(i.getName(nameFormat));
-							conflict.addInstructor(instructor);
-		    			}
-					} else if (Event.sEventTypeCourse == m.getEvent().getEventType()) {
-			    		CourseEvent ce = (m.getEvent() instanceof CourseEvent ? (CourseEvent)m.getEvent() : CourseEventDAO.getInstance().get(m.getEvent().getUniqueId()));
-			    		int enrl = 0;
-						for (RelatedCourseInfo owner: ce.getRelatedCourses()) {
-							enrl += owner.countStudents();
-		    			}
-						conflict.setEnrollment(enrl);
-					}
-					
-					conflict.setId(m.getUniqueId());
-					conflict.setMeetingDate(m.getMeetingDate());
-					conflict.setDayOfYear(CalendarUtils.date2dayOfYear(session.getSessionStartYear(), m.getMeetingDate()));
-					conflict.setStartOffset(m.getStartOffset() == null ? 0 : m.getStartOffset());
-					conflict.setEndOffset(m.getStopOffset() == null ? 0 : m.getStopOffset());
-					conflict.setStartSlot(m.getStartPeriod());
-					conflict.setEndSlot(m.getStopPeriod());
-					conflict.setApprovalDate(m.getApprovalDate());
-					conflict.setApprovalStatus(m.getApprovalStatus());
-
-					if (context.hasPermission(Right.EventCanViewMeetingContacts)) {
-						Map<Long, ContactInterface> contacts = new HashMap<Long, ContactInterface>();
-						for (EventContact c: m.getMeetingContacts()) {
-							ContactInterface contact = contacts.get(c.getUniqueId());
-							if (contact == null) {
-								contact = new ContactInterface();
-								contact.setFirstName(c.getFirstName());
-								contact.setMiddleName(c.getMiddleName());
-								contact.setLastName(c.getLastName());
-								contact.setAcademicTitle(c.getAcademicTitle());
-								contact.setExternalId(c.getExternalUniqueId());
-								contact.setPhone(c.getPhone());
-								contact.setEmail(c.getEmailAddress());
-								contact.setFormattedName(c.getName(nameFormat));
-								contacts.put(c.getUniqueId(), contact);
+			Set<Long> permIds = new HashSet<Long>();
+			for (Location location: locations)
+				if (!location.isIgnoreRoomCheck()) permIds.add(location.getPermanentId());
+			
+			if (!permIds.isEmpty()) {
+				RoomAvailabilityIndex index = new RoomAvailabilityIndex(hibSession, session, permIds, request.getDates(), request.getStartSlot(), request.getEndSlot(), request.getEventId());
+				for (Meeting m: index.loadMeetings(hibSession, index.getMeetingIds()).values())
+					response.addOverlap(CalendarUtils.date2dayOfYear(session.getSessionStartYear(), m.getMeetingDate()), m.getLocationPermanentId(), factory.createConflict(m));
+			}
+			
+			for (Location location: locations) {
+				if (context.hasPermission(location, request.getEventType() == EventType.Unavailabile ? Right.EventLocationUnavailable : Right.EventLocation)) {
+					Set<MeetingConflictInterface> conflicts = generateUnavailabilityMeetings(location, request.getDates(), request.getStartSlot(), request.getEndSlot());
+					if (conflicts != null && !conflicts.isEmpty())
+						for (MeetingConflictInterface conflict: conflicts)
+							response.addOverlap(conflict.getDayOfYear(), location.getPermanentId(), conflict);
+				} else {
+					for (Integer date: request.getDates()) {
+						MeetingConflictInterface conflict = new MeetingConflictInterface();
+						if (location == null || location.getEventDepartment() == null || !location.getEventDepartment().isAllowEvents())
+							conflict.setName(MESSAGES.conflictNotEventRoom(location.getLabel()));
+						else if (request.getEventType() == EventType.Unavailabile)
+							conflict.setName(MESSAGES.conflictCannotMakeUnavailable(location.getLabel()));
+						else
+							conflict.setName(MESSAGES.conflictRoomDenied(location.getLabel()));
+						if (location.getEventDepartment() != null && location.getEventDepartment().isAllowEvents()) {
+							String message = location.getEventMessage();
+							if (message != null && !message.isEmpty()) {
+								conflict.setName(message);
 							}
-							conflict.addMeetingContact(contact);
-						}
-					}
-					
-					response.addOverlap(CalendarUtils.date2dayOfYear(session.getSessionStartYear(), m.getMeetingDate()), m.getLocationPermanentId(), conflict);
-				}
-				
-				query = EventDAO.getInstance().getSession().createQuery(
-						"from Location where session.uniqueId = :sessionId and permanentId in (" + locations + ")");
-				for (int i = 0; i + idx < request.getLocations().size() && i < 1000; i++)
-					query.setLong("l" + i, request.getLocations().get(idx + i));
-
-				for (Location location: (List<Location>)query.setLong("sessionId", request.getSessionId()).setCacheable(true).list()) {
-					if (context.hasPermission(location, request.getEventType() == EventType.Unavailabile ? Right.EventLocationUnavailable : Right.EventLocation)) {
-						Set<MeetingConflictInterface> conflicts = generateUnavailabilityMeetings(location, request.getDates(), request.getStartSlot(), request.getEndSlot());
-						if (conflicts != null && !conflicts.isEmpty())
-							for (MeetingConflictInterface conflict: conflicts)
-								response.addOverlap(conflict.getDayOfYear(), location.getPermanentId(), conflict);
-					} else {
-						for (Integer date: request.getDates()) {
-							MeetingConflictInterface conflict = new MeetingConflictInterface();
-							if (location == null || location.getEventDepartment() == null || !location.getEventDepartment().isAllowEvents())
-								conflict.setName(MESSAGES.conflictNotEventRoom(location.getLabel()));
-							else if (request.getEventType() == EventType.Unavailabile)
-								conflict.setName(MESSAGES.conflictCannotMakeUnavailable(location.getLabel()));
-							else
-								conflict.setName(MESSAGES.conflictRoomDenied(location.getLabel()));
-							if (location.getEventDepartment() != null && location.getEventDepartment().isAllowEvents()) {
-								String message = location.getEventMessage();
-								if (message != null && !message.isEmpty()) {
-									conflict.setName(message);
-								}
-							}
-							conflict.setType(EventInterface.EventType.Unavailabile);
-							conflict.setMeetingDate(CalendarUtils.dateOfYear2date(session.getSessionStartYear(), date));
-							conflict.setDayOfYear(date);
-							conflict.setStartOffset(0);
-							conflict.setEndOffset(0);
-							conflict.setStartSlot(0);
-							conflict.setEndSlot(288);
-							response.addOverlap(date, location.getPermanentId(), conflict);
 						}
+						conflict.setType(EventInterface.EventType.Unavailabile);
+						conflict.setMeetingDate(CalendarUtils.dateOfYear2date(session.getSessionStartYear(), date));
+						conflict.setDayOfYear(date);
+						conflict.setStartOffset(0);
+						conflict.setEndOffset(0);
+						conflict.setStartSlot(0);
+						conflict.setEndSlot(288);
+						response.addOverlap(date, location.getPermanentId(), conflict);
 					}
 				}
 			}
@@ -242,6 +140,39 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 		if (request.hasMeetings()) {
 			response.setMeetings(request.getMeetings());
 			
+			// resolve locations and index the existing meetings of all the rooms and dates at once
+			Map<Long, Location> locations = new HashMap<Long, Location>();
+			Set<Long> permIds = new HashSet<Long>();
+			Set<Integer> dates = new HashSet<Integer>();
+			int startSlot = Constants.SLOTS_PER_DAY, endSlot = 0;
+			for (MeetingInterface meeting: response.getMeetings()) {
+				if (!meeting.hasLocation() || isDeleted(meeting)) continue;
+				Location location = locations.get(meeting.getLocation().getId());
+				if (location == null) {
+					location = LocationDAO.getInstance().get(meeting.getLocation().getId());
+					if (location == null) continue;
+					locations.put(location.getUniqueId(), location);
+				}
+				if (location.isIgnoreRoomCheck()) continue;
+				permIds.add(location.getPermanentId());
+				dates.add(meeting.getDayOfYear());
+				startSlot = Math.min(startSlot, meeting.getStartSlot());
+				endSlot = Math.max(endSlot, meeting.getEndSlot());
+			}
+			RoomAvailabilityIndex index = null;
+			Map<Long, Meeting> overlaps = null;
+			if (!permIds.isEmpty()) {
+				index = new RoomAvailabilityIndex(hibSession, session, permIds, dates, startSlot, endSlot, request.getEventId());
+				Set<Long> meetingIds = new HashSet<Long>();
+				for (MeetingInterface meeting: response.getMeetings()) {
+					if (!meeting.hasLocation() || isDeleted(meeting)) continue;
+					Location location = locations.get(meeting.getLocation().getId());
+					if (location == null || location.isIgnoreRoomCheck()) continue;
+					meetingIds.addAll(index.getOverlaps(location.getPermanentId(), meeting.getDayOfYear(), meeting.getStartSlot(), meeting.getEndSlot(), meeting.getId()));
+				}
+				overlaps = index.loadMeetings(hibSession, meetingIds);
+			}
+			
 			for (MeetingInterface meeting: response.getMeetings()) {
 				if (meeting.hasConflicts()) meeting.getConflicts().clear();
 				
@@ -250,7 +181,7 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 					meeting.setDayOfWeek(Constants.getDayOfWeek(meeting.getMeetingDate()));
 				}
 				
-				if (meeting.getApprovalStatus() == ApprovalStatus.Deleted || meeting.getApprovalStatus() == ApprovalStatus.Cancelled || meeting.getApprovalStatus() == ApprovalStatus.Rejected) continue;
+				if (isDeleted(meeting)) continue;
 				
 				if (context.isPastOrOutside(meeting.getMeetingDate())) {
 					MeetingConflictInterface conflict = new MeetingConflictInterface();
@@ -270,7 +201,7 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 				
 				meeting.setCanApprove(context.hasPermission(meeting.getLocation().getId(), "Location", Right.EventLocationApprove));
 				
-				Location location = LocationDAO.getInstance().get(meeting.getLocation().getId());
+				Location location = locations.get(meeting.getLocation().getId());
 				boolean available = true;
 				
 				meeting.setAutomaticallyApproved(location != null && location.getEffectiveEventStatus().isAutomaticApproval());
@@ -313,67 +244,16 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 					available = false;
 				}
 				
-				if (!location.isIgnoreRoomCheck())
-					for (Meeting m: (List<Meeting>)EventDAO.getInstance().getSession().createQuery(
-							"select m from Meeting m, Location l "+
-							"where m.startPeriod < :stopTime and m.stopPeriod > :startTime and m.approvalStatus <= 1 and " +
-							"m.locationPermanentId = l.permanentId and l.uniqueId = :locationdId and m.meetingDate = :meetingDate and m.uniqueId != :meetingId")
-							.setInteger("startTime", meeting.getStartSlot())
-							.setInteger("stopTime", meeting.getEndSlot())
-							.setDate("meetingDate", meeting.getMeetingDate())
-							.setLong("locationdId", meeting.getLocation().getId())
-							.setLong("meetingId", meeting.getId() == null ? -1 : meeting.getId())
-							.list()) {
-						
-						MeetingConflictInterface conflict = new MeetingConflictInterface();
-						
-						if (request.hasEventId() && m.getEvent().getUniqueId().equals(request.getEventId())) continue;
-
-						conflict.setEventId(m.getEvent().getUniqueId());
-						conflict.setName(m.getEvent().getEventName());
-						conflict.setType(EventInterface.EventType.values()[m.getEvent().getEventType()]);
-						
-						conflict.setId(m.getUniqueId());
-						conflict.setMeetingDate(m.getMeetingDate());
-						conflict.setDayOfYear(meeting.getDayOfYear());
-						conflict.setStartSlot(m.getStartPeriod());
-						conflict.setEndSlot(m.getStopPeriod());
-						conflict.setStartOffset(m.getStartOffset() == null ? 0 : m.getStartOffset());
-						conflict.setEndOffset(m.getStopOffset() == null ? 0 : m.getStopOffset());
-						conflict.setApprovalDate(m.getApprovalDate());
-						conflict.setApprovalStatus(m.getApprovalStatus());
-						
-						if (context.hasPermission(Right.EventCanViewMeetingContacts)) {
-							Map<Long, ContactInterface> contacts = new HashMap<Long, ContactInterface>();
-							for (EventContact c: m.getMeetingContacts()) {
-								ContactInterface contact = contacts.get(c.getUniqueId());
-								if (contact == null) {
-									contact = new ContactInterface();
-									contact.setFirstName(c.getFirstName());
-									contact.setMiddleName(c.getMiddleName());
-									contact.setLastName(c.getLastName());
-									contact.setAcademicTitle(c.getAcademicTitle());
-									contact.setExternalId(c.getExternalUniqueId());
-									contact.setPhone(c.getPhone());
-									contact.setEmail(c.getEmailAddress());
-									contact.setFormattedName(c.getName(nameFormat));
-									contacts.put(c.getUniqueId(), contact);
-								}
-								conflict.addMeetingContact(contact);
-							}
-						}
-						
-						meeting.addConflict(conflict);
+				if (location != null && !location.isIgnoreRoomCheck() && index != null)
+					for (Long meetingId: index.getOverlaps(location.getPermanentId(), meeting.getDayOfYear(), meeting.getStartSlot(), meeting.getEndSlot(), meeting.getId())) {
+						Meeting m = overlaps.get(meetingId);
+						if (m != null)
+							meeting.addConflict(factory.createConflict(m, meeting.getDayOfYear()));
 					}
 				
-				if (location != null && location.getEventAvailability() != null && location.getEventAvailability().length() == Constants.SLOTS_PER_DAY * Constants.DAY_CODES.length) {
-					check: for (int slot = meeting.getStartSlot(); slot < meeting.getEndSlot(); slot++) {
-						if (location.getEventAvailability().charAt(meeting.getDayOfWeek() * Constants.SLOTS_PER_DAY + slot) == '1') {
-							for (MeetingConflictInterface conflict: generateUnavailabilityMeetings(location, meeting))
-								meeting.addConflict(conflict);
-							break check;
-						}
-					}
+				if (location != null && factory.isUnavailable(location, meeting.getDayOfWeek(), meeting.getStartSlot(), meeting.getEndSlot())) {
+					for (MeetingConflictInterface conflict: generateUnavailabilityMeetings(location, meeting))
+						meeting.addConflict(conflict);
 				}
 				
 				if (available) {
@@ -424,6 +304,265 @@ public class EventRoomAvailabilityBackend extends EventAction<EventRoomAvailabil
 		return response;
 	}
 	
+	protected static boolean isDeleted(MeetingInterface meeting) {
+		return meeting.getApprovalStatus() == ApprovalStatus.Deleted || meeting.getApprovalStatus() == ApprovalStatus.Cancelled || meeting.getApprovalStatus() == ApprovalStatus.Rejected;
+	}
+	
+	/**
+	 * Availability index of the given rooms and dates: for each room (permanent id) and date (day of year) a bit set of the
+	 * time slots that are taken by an approved or pending meeting. The meetings are loaded by a single query (for each 1000 rooms)
+	 * that only returns the meeting ids and times; the meetings themselves are only loaded for the overlaps that need to be displayed.
+	 */
+	protected static class RoomAvailabilityIndex {
+		private Map<Long, Map<Integer, RoomDate>> iRoomDates = new HashMap<Long, Map<Integer, RoomDate>>();
+		private Set<Long> iMeetingIds = new HashSet<Long>();
+		
+		public RoomAvailabilityIndex(org.hibernate.Session hibSession, Session session, Set<Long> permIds, Collection<Integer> dates, int startSlot, int endSlot, Long excludeEventId) {
+			String datesParam = "";
+			for (int i = 0; i < dates.size(); i++)
+				datesParam += (datesParam.isEmpty() ? "" : ",") + ":d" + i;
+			// rooms are queried in chunks of 1000 (the limit of the in clause on some databases)
+			List<Long> rooms = new ArrayList<Long>(permIds);
+			for (int idx = 0; idx < rooms.size(); idx += 1000) {
+				Query query = hibSession.createQuery(
+						"select m.uniqueId, m.locationPermanentId, m.meetingDate, m.startPeriod, m.stopPeriod from Meeting m " +
+						"where m.startPeriod < :stopTime and m.stopPeriod > :startTime and m.approvalStatus <= 1 and m.meetingDate in (" + datesParam + ")" +
+						" and m.locationPermanentId in (:permIds)" +
+						(excludeEventId == null ? "" : " and m.event.uniqueId != :eventId"));
+				query.setInteger("startTime", startSlot);
+				query.setInteger("stopTime", endSlot);
+				int i = 0;
+				for (Integer date: dates)
+					query.setDate("d" + (i++), CalendarUtils.dateOfYear2date(session.getSessionStartYear(), date));
+				query.setParameterList("permIds", rooms.subList(idx, Math.min(idx + 1000, rooms.size())));
+				if (excludeEventId != null) query.setLong("eventId", excludeEventId);
+				
+				for (Object[] o: (List<Object[]>)query.list()) {
+					Long meetingId = (Long)o[0];
+					Long permId = (Long)o[1];
+					int dayOfYear = CalendarUtils.date2dayOfYear(session.getSessionStartYear(), (Date)o[2]);
+					Map<Integer, RoomDate> roomDates = iRoomDates.get(permId);
+					if (roomDates == null) {
+						roomDates = new HashMap<Integer, RoomDate>();
+						iRoomDates.put(permId, roomDates);
+					}
+					RoomDate roomDate = roomDates.get(dayOfYear);
+					if (roomDate == null) {
+						roomDate = new RoomDate();
+						roomDates.put(dayOfYear, roomDate);
+					}
+					roomDate.add(meetingId, (Integer)o[3], (Integer)o[4]);
+					iMeetingIds.add(meetingId);
+				}
+			}
+		}
+		
+		/** Ids of all the indexed meetings */
+		public Set<Long> getMeetingIds() { return iMeetingIds; }
+		
+		/** Ids of the indexed meetings of the given room and date that overlap with the given time */
+		public List<Long> getOverlaps(Long permId, int dayOfYear, int startSlot, int endSlot, Long excludeMeetingId) {
+			Map<Integer, RoomDate> roomDates = iRoomDates.get(permId);
+			RoomDate roomDate = (roomDates == null ? null : roomDates.get(dayOfYear));
+			if (roomDate == null) return new ArrayList<Long>();
+			return roomDate.getOverlaps(startSlot, endSlot, excludeMeetingId);
+		}
+		
+		/** Load the given meetings (together with their events) */
+		public Map<Long, Meeting> loadMeetings(org.hibernate.Session hibSession, Collection<Long> meetingIds) {
+			Map<Long, Meeting> meetings = new HashMap<Long, Meeting>();
+			if (meetingIds.isEmpty()) return meetings;
+			List<Long> ids = new ArrayList<Long>(meetingIds);
+			for (int idx = 0; idx < ids.size(); idx += 1000) {
+				for (Meeting m: (List<Meeting>)hibSession.createQuery(
+						"select m from Meeting m inner join fetch m.event where m.uniqueId in (:meetingIds)")
+						.setParameterList("meetingIds", ids.subList(idx, Math.min(idx + 1000, ids.size()))).list())
+					meetings.put(m.getUniqueId(), m);
+			}
+			return meetings;
+		}
+	}
+	
+	protected static class RoomDate {
+		private BitSet iSlots = new BitSet(Constants.SLOTS_PER_DAY);
+		private List<Long> iMeetingIds = new ArrayList<Long>();
+		private List<int[]> iTimes = new ArrayList<int[]>();
+		
+		public void add(Long meetingId, int startSlot, int endSlot) {
+			iSlots.set(startSlot, endSlot);
+			iMeetingIds.add(meetingId);
+			iTimes.add(new int[] {startSlot, endSlot});
+		}
+		
+		public List<Long> getOverlaps(int startSlot, int endSlot, Long excludeMeetingId) {
+			List<Long> ret = new ArrayList<Long>();
+			int slot = iSlots.nextSetBit(startSlot);
+			if (slot < 0 || slot >= endSlot) return ret;
+			for (int i = 0; i < iMeetingIds.size(); i++) {
+				int[] time = iTimes.get(i);
+				if (time[0] < endSlot && startSlot < time[1] && !iMeetingIds.get(i).equals(excludeMeetingId))
+					ret.add(iMeetingIds.get(i));
+			}
+			return ret;
+		}
+	}
+	
+	/**
+	 * Creates the meeting conflicts. Event details (instructors, enrollments, sponsor) are computed only once per event,
+	 * contacts only once per contact, and the room unavailabilities once per room.
+	 */
+	protected static class ConflictFactory {
+		private Session iSession;
+		private String iNameFormat;
+		private boolean iCanViewContacts;
+		private Map<Long, MeetingConflictInterface> iEvents = new HashMap<Long, MeetingConflictInterface>();
+		private Map<Long, ContactInterface> iContacts = new HashMap<Long, ContactInterface>();
+		private Map<Long, BitSet> iUnavailabilities = new HashMap<Long, BitSet>();
+		
+		public ConflictFactory(Session session, String nameFormat, boolean canViewContacts) {
+			iSession = session;
+			iNameFormat = nameFormat;
+			iCanViewContacts = canViewContacts;
+		}
+		
+		protected MeetingConflictInterface getEvent(Event event) {
+			MeetingConflictInterface conflict = iEvents.get(event.getUniqueId());
+			if (conflict != null) return conflict;
+			conflict = new MeetingConflictInterface();
+			conflict.setEventId(event.getUniqueId());
+			conflict.setName(event.getEventName());
+			conflict.setType(EventInterface.EventType.values()[event.getEventType()]);
+			conflict.setLimit(event.getMaxCapacity());
+			
+			if (event.getSponsoringOrganization() != null) {
+				SponsoringOrganizationInterface sponsor = new SponsoringOrganizationInterface();
+				sponsor.setEmail(event.getSponsoringOrganization().getEmail());
+				sponsor.setName(event.getSponsoringOrganization().getName());
+				sponsor.setUniqueId(event.getSponsoringOrganization().getUniqueId());
+				conflict.setSponsor(sponsor);
+			}
+			
+			if (Event.sEventTypeClass == event.getEventType()) {
+	    		ClassEvent ce = (event instanceof ClassEvent ? (ClassEvent)event : ClassEventDAO.getInstance().get(event.getUniqueId()));
+	    		Class_ clazz = ce.getClazz();
+	    		conflict.setEnrollment(clazz.getEnrollment());
+	    		if (clazz.getDisplayInstructor()) {
+	    			for (ClassInstructor i: clazz.getClassInstructors()) {
+	    				if (i.getResponsibility() != null && i.getResponsibility().hasOption(TeachingResponsibility.Option.noevents)) continue;
+						ContactInterface instructor = new ContactInterface();
+						instructor.setFirstName(i.getInstructor().getFirstName());
+						instructor.setMiddleName(i.getInstructor().getMiddleName());
+						instructor.setLastName(i.getInstructor().getLastName());
+						instructor.setAcademicTitle(i.getInstructor().getAcademicTitle());
+						instructor.setEmail(i.getInstructor().getEmail());
+						instructor.setFormattedName(i.getInstructor().getName(iNameFormat));
+						if (i.getResponsibility() != null) {
+							instructor.setResponsibility(i.getResponsibility().getLabel());
+							instructor.setResponsibilityAbbreviation(i.getResponsibility().getAbbreviation());
+	    				}
+						conflict.addInstructor(instructor);
+	    			}
+	    		}
+			} else if (Event.sEventTypeFinalExam == event.getEventType() || Event.sEventTypeMidtermExam == event.getEventType()) {
+	    		ExamEvent xe = (event instanceof ExamEvent ? (ExamEvent)event : ExamEventDAO.getInstance().get(event.getUniqueId()));
+	    		conflict.setEnrollment(xe.getExam().countStudents());
+    			for (DepartmentalInstructor i: xe.getExam().getInstructors()) {
+					ContactInterface instructor = new ContactInterface();
+					instructor.setFirstName(i.getFirstName());
+					instructor.setMiddleName(i.getMiddleName());
+					instructor.setLastName(i.getLastName());
+					instructor.setAcademicTitle(i.getAcademicTitle());
+					instructor.setEmail(i.getEmail());
+					instructor.setFormattedName(i.getName(iNameFormat));
+					conflict.addInstructor(instructor);
+    			}
+			} else if (Event.sEventTypeCourse == event.getEventType()) {
+	    		CourseEvent ce = (event instanceof CourseEvent ? (CourseEvent)event : CourseEventDAO.getInstance().get(event.getUniqueId()));
+	    		int enrl = 0;
+				for (RelatedCourseInfo owner: ce.getRelatedCourses()) {
+					enrl += owner.countStudents();
+    			}
+				conflict.setEnrollment(enrl);
+			}
+			
+			iEvents.put(event.getUniqueId(), conflict);
+			return conflict;
+		}
+		
+		protected void setMeeting(MeetingConflictInterface conflict, Meeting m, int dayOfYear) {
+			conflict.setId(m.getUniqueId());
+			conflict.setMeetingDate(m.getMeetingDate());
+			conflict.setDayOfYear(dayOfYear);
+			conflict.setStartOffset(m.getStartOffset() == null ? 0 : m.getStartOffset());
+			conflict.setEndOffset(m.getStopOffset() == null ? 0 : m.getStopOffset());
+			conflict.setStartSlot(m.getStartPeriod());
+			conflict.setEndSlot(m.getStopPeriod());
+			conflict.setApprovalDate(m.getApprovalDate());
+			conflict.setApprovalStatus(m.getApprovalStatus());
+			
+			if (iCanViewContacts) {
+				for (EventContact c: m.getMeetingContacts()) {
+					ContactInterface contact = iContacts.get(c.getUniqueId());
+					if (contact == null) {
+						contact = new ContactInterface();
+						contact.setFirstName(c.getFirstName());
+						contact.setMiddleName(c.getMiddleName());
+						contact.setLastName(c.getLastName());
+						contact.setAcademicTitle(c.getAcademicTitle());
+						contact.setExternalId(c.getExternalUniqueId());
+						contact.setPhone(c.getPhone());
+						contact.setEmail(c.getEmailAddress());
+						contact.setFormattedName(c.getName(iNameFormat));
+						iContacts.put(c.getUniqueId(), contact);
+					}
+					conflict.addMeetingContact(contact);
+				}
+			}
+		}
+		
+		/** Conflict with all the event details (room availability) */
+		public MeetingConflictInterface createConflict(Meeting m) {
+			MeetingConflictInterface event = getEvent(m.getEvent());
+			MeetingConflictInterface conflict = new MeetingConflictInterface();
+			conflict.setEventId(event.getEventId());
+			conflict.setName(event.getName());
+			conflict.setType(event.getType());
+			conflict.setLimit(event.getLimit());
+			conflict.setSponsor(event.getSponsor());
+			conflict.setEnrollment(event.getEnrollment());
+			if (event.hasInstructors())
+				for (ContactInterface instructor: event.getInstructors())
+					conflict.addInstructor(instructor);
+			setMeeting(conflict, m, CalendarUtils.date2dayOfYear(iSession.getSessionStartYear(), m.getMeetingDate()));
+			return conflict;
+		}
+		
+		/** Conflict of a meeting that is being checked */
+		public MeetingConflictInterface createConflict(Meeting m, int dayOfYear) {
+			MeetingConflictInterface conflict = new MeetingConflictInterface();
+			conflict.setEventId(m.getEvent().getUniqueId());
+			conflict.setName(m.getEvent().getEventName());
+			conflict.setType(EventInterface.EventType.values()[m.getEvent().getEventType()]);
+			setMeeting(conflict, m, dayOfYear);
+			return conflict;
+		}
+		
+		/** True if the room is not available for events at some time of the given day and times */
+		public boolean isUnavailable(Location location, int dayOfWeek, int startSlot, int endSlot) {
+			BitSet unavailable = iUnavailabilities.get(location.getUniqueId());
+			if (unavailable == null) {
+				unavailable = new BitSet(Constants.SLOTS_PER_DAY * Constants.DAY_CODES.length);
+				String availability = location.getEventAvailability();
+				if (availability != null && availability.length() == Constants.SLOTS_PER_DAY * Constants.DAY_CODES.length)
+					for (int i = availability.indexOf('1'); i >= 0; i = availability.indexOf('1', i + 1))
+						unavailable.set(i);
+				iUnavailabilities.put(location.getUniqueId(), unavailable);
+			}
+			int slot = unavailable.nextSetBit(dayOfWeek * Constants.SLOTS_PER_DAY + startSlot);
+			return slot >= 0 && slot < dayOfWeek * Constants.SLOTS_PER_DAY + endSlot;
+		}
+	}
+	
 	public static TreeSet<MeetingConflictInterface> generateUnavailabilityMeetings(Location location, List<Integer> dates, int startSlot, int endSlot) {
 		if (location.getEventAvailability() == null || location.getEventAvailability().length() != Constants.SLOTS_PER_DAY * Constants.DAY_CODES.length) return null;
 
@@ -21,6 +21,7 @@ package org.unitime.timetable.events;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -46,8 +47,6 @@ import org.unitime.timetable.gwt.shared.EventInterface.FilterRpcResponse;
 import org.unitime.timetable.gwt.shared.EventInterface.FilterRpcResponse.Entity;
 import org.unitime.timetable.gwt.shared.EventInterface.RoomFilterRpcRequest;
 import org.unitime.timetable.model.Building;
-import org.unitime.timetable.model.Department;
-import org.unitime.timetable.model.DepartmentRoomFeature;
 import org.unitime.timetable.model.DepartmentStatusType;
 import org.unitime.timetable.model.ExamType;
 import org.unitime.timetable.model.GlobalRoomFeature;
@@ -63,6 +62,7 @@ import org.unitime.timetable.model.dao.RoomDAO;
 import org.unitime.timetable.model.dao.RoomFeatureTypeDAO;
 import org.unitime.timetable.model.dao.TimetableManagerDAO;
 import org.unitime.timetable.security.UserAuthority;
+import org.unitime.timetable.security.qualifiers.SimpleQualifier;
 import org.unitime.timetable.security.rights.Right;
 
 /**
@@ -98,70 +98,68 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		
 		fixRoomFeatureTypes(request);
 		
-		Map<Long, Entity> types = new HashMap<Long, Entity>();
-		for (Location location: locations(request.getSessionId(), request.getOptions(), null, -1, null, "type", context)) {
-			Entity type = types.get(location.getRoomType().getUniqueId());
-			if (type == null) {
-				type = new Entity(location.getRoomType().getUniqueId(), location.getRoomType().getReference(), location.getRoomType().getLabel(), "order", sNF.format(location.getRoomType().getOrd()), "translated-value", location.getRoomType().getLabel());
-				types.put(type.getUniqueId(), type);
-			}
-			type.incCount();
-		}
-		response.add("type", new TreeSet<Entity>(types.values()));
-		
-		Map<String, Map<Long, Entity>> featuresByType = new HashMap<String, Map<Long, Entity>>();
-		for (Location location: locations(request.getSessionId(), request.getOptions(), null, -1, null, null, context)) {
-			for (RoomFeature rf: location.getFeatures()) {
-				if (rf instanceof GlobalRoomFeature || (rf instanceof DepartmentRoomFeature && departments != null && departments.contains(((DepartmentRoomFeature)rf).getDepartment().getDeptCode()))) {
-					if (showRoomFeature(rf.getFeatureType())) {
-						String type = (rf.getFeatureType() == null ? "feature" : rf.getFeatureType().getReference());
-						Map<Long, Entity> features = featuresByType.get(type);
-						if (features == null) {
-							features = new HashMap<Long, Entity>();
-							featuresByType.put(type, features);
-						}
-						Entity feature = features.get(rf.getUniqueId());
-						if (feature == null) {
-							feature = new Entity(rf.getUniqueId(), rf.getAbbv(), rf.getLabel(), "translated-value", rf.getLabel(), "hint", rf.getDescription());
-							features.put(feature.getUniqueId(), feature);
-						}
-						feature.incCount();
-					}
-				}
+		org.hibernate.Session hibSession = RoomDAO.getInstance().getSession();
+		RoomFilterIndex index = RoomFilterIndex.getInstance(request.getSessionId(), hibSession);
+		Map<String, BitSet> filters = filters(index, getQuery(request.getSessionId(), request.getOptions(), context), request.getOptions(), hibSession);
+		
+		BitSet locations = locations(index, filters, request.getSessionId(), request.getOptions(), "type", hibSession);
+		Set<Entity> types = new TreeSet<Entity>();
+		for (RoomFilterIndex.Attribute t: index.getRoomTypes()) {
+			int count = count(t.getLocations(), locations);
+			if (count == 0) continue;
+			Entity type = new Entity(t.getId(), t.getReference(), t.getLabel(), "order", sNF.format(t.getOrder()), "translated-value", t.getLabel());
+			type.setCount(count);
+			types.add(type);
+		}
+		response.add("type", types);
+		
+		locations = locations(index, filters, request.getSessionId(), request.getOptions(), null, hibSession);
+		Map<Long, RoomFeatureType> featureTypes = new HashMap<Long, RoomFeatureType>();
+		for (RoomFeatureType type: RoomFeatureTypeDAO.getInstance().findAll())
+			featureTypes.put(type.getUniqueId(), type);
+		Map<String, Set<Entity>> featuresByType = new HashMap<String, Set<Entity>>();
+		for (RoomFilterIndex.Attribute rf: index.getFeatures()) {
+			if (!rf.isGlobal() && (departments == null || !departments.contains(rf.getDepartment()))) continue;
+			RoomFeatureType featureType = (rf.getTypeId() == null ? null : featureTypes.get(rf.getTypeId()));
+			if (!showRoomFeature(featureType)) continue;
+			int count = count(rf.getLocations(), locations);
+			if (count == 0) continue;
+			String type = (featureType == null ? "feature" : featureType.getReference());
+			Set<Entity> features = featuresByType.get(type);
+			if (features == null) {
+				features = new TreeSet<Entity>();
+				featuresByType.put(type, features);
 			}
+			Entity feature = new Entity(rf.getId(), rf.getReference(), rf.getLabel(), "translated-value", rf.getLabel(), "hint", rf.getDescription());
+			feature.setCount(count);
+			features.add(feature);
 		}
 		for (String type: new TreeSet<String>(featuresByType.keySet())) {
-			response.add(type.replace(' ', '_'), new TreeSet<Entity>(featuresByType.get(type).values()));
-		}
-		
-		Map<Long, Entity> groups = new HashMap<Long, Entity>();
-		for (Location location: locations(request.getSessionId(), request.getOptions(), null, -1, null, "group", context)) {
-			for (RoomGroup rg: location.getRoomGroups()) {
-				if (rg.isGlobal() || (departments != null && departments.contains(rg.getDepartment().getDeptCode()))) {
-					Entity group = groups.get(rg.getUniqueId());
-					if (group == null) {
-						group = new Entity(rg.getUniqueId(), rg.getAbbv(), rg.getName(), "translated-value", rg.getName(), "hint", rg.getDescription());
-						groups.put(group.getUniqueId(), group);
-					}
-					group.incCount();
-				}
-			}
-		}
-		response.add("group", new TreeSet<Entity>(groups.values()));
-		
-		Map<Long, Entity> buildings = new HashMap<Long, Entity>();
-		for (Location location: locations(request.getSessionId(), request.getOptions(), null, -1, null, "building", context)) {
-			if (location instanceof Room) {
-				Room room = (Room)location;
-				Entity building = buildings.get(room.getBuilding().getUniqueId());
-				if (building == null) {
-					building = new Entity(room.getBuilding().getUniqueId(), room.getBuilding().getAbbreviation(), room.getBuilding().getAbbrName());
-					buildings.put(building.getUniqueId(), building);
-				}
-				building.incCount();
-			}
-		}
-		response.add("building", new TreeSet<Entity>(buildings.values()));
+			response.add(type.replace(' ', '_'), featuresByType.get(type));
+		}
+		
+		locations = locations(index, filters, request.getSessionId(), request.getOptions(), "group", hibSession);
+		Set<Entity> groups = new TreeSet<Entity>();
+		for (RoomFilterIndex.Attribute rg: index.getGroups()) {
+			if (!rg.isGlobal() && (departments == null || !departments.contains(rg.getDepartment()))) continue;
+			int count = count(rg.getLocations(), locations);
+			if (count == 0) continue;
+			Entity group = new Entity(rg.getId(), rg.getReference(), rg.getLabel(), "translated-value", rg.getLabel(), "hint", rg.getDescription());
+			group.setCount(count);
+			groups.add(group);
+		}
+		response.add("group", groups);
+		
+		locations = locations(index, filters, request.getSessionId(), request.getOptions(), "building", hibSession);
+		Set<Entity> buildings = new TreeSet<Entity>();
+		for (RoomFilterIndex.Attribute b: index.getBuildings()) {
+			int count = count(b.getLocations(), locations);
+			if (count == 0) continue;
+			Entity building = new Entity(b.getId(), b.getReference(), b.getLabel());
+			building.setCount(count);
+			buildings.add(building);
+		}
+		response.add("building", buildings);
 
 		Entity managed = new Entity(0l, "Managed", MESSAGES.labelDepartmentManagedRooms(), "translated-value", MESSAGES.attrDepartmentManagedRooms());
 		Map<Long, Entity> exams = null;
@@ -177,53 +175,55 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		boolean allRooms = (request.hasOptions("flag") && (request.getOptions("flag").contains("all") || request.getOptions("flag").contains("All")));
 		boolean deptIndep = context.hasPermission(Right.DepartmentIndependent);
 		UserAuthority autority = (context.getUser() == null ? null : context.getUser().getCurrentAuthority());
-		for (Location location: locations(request.getSessionId(), request.getOptions(), null, -1, null, "department", context)) {
-			Department evtDept = (location.getEventDepartment() != null && location.getEventDepartment().isAllowEvents() ? location.getEventDepartment() : null);
+		locations = locations(index, filters, request.getSessionId(), request.getOptions(), "department", hibSession);
+		for (int i = locations.nextSetBit(0); i >= 0; i = locations.nextSetBit(i + 1)) {
+			RoomFilterIndex.Attribute evtDept = index.getDepartment(index.getEventDepartmentId(i));
 			boolean isManaged = false;
 			if (eventRooms) {
-				Entity department = depts.get(location.getEventDepartment().getUniqueId());
+				if (evtDept == null) continue;
+				Entity department = depts.get(evtDept.getId());
 				if (department == null) {
-					department = new Entity(location.getEventDepartment().getUniqueId(), location.getEventDepartment().getDeptCode(), location.getEventDepartment().getDeptCode() + " - " + location.getEventDepartment().getName());
+					department = new Entity(evtDept.getId(), evtDept.getReference(), evtDept.getReference() + " - " + evtDept.getLabel());
 					depts.put(department.getUniqueId(), department);
 				}
 				department.incCount();
-				if (deptIndep || (userDepts != null && userDepts.contains(location.getEventDepartment().getUniqueId()))) isManaged = true;
+				if (deptIndep || (userDepts != null && userDepts.contains(evtDept.getId()))) isManaged = true;
 			} else {
-				for (RoomDept rd: location.getRoomDepts()) {
-					if (!deptIndep && !allRooms && (userDepts == null || !(userDepts.contains(rd.getDepartment().getUniqueId())))
-							&& (autority == null || !autority.hasQualifier(rd.getDepartment()))) continue;
-					if (evtDept != null && rd.getDepartment().equals(evtDept)) evtDept = null;
-					Entity department = depts.get(rd.getDepartment().getUniqueId());
+				if (evtDept != null && !evtDept.isAllowEvents()) evtDept = null;
+				for (long deptId: index.getDepartmentIds(i)) {
+					RoomFilterIndex.Attribute rd = index.getDepartment(deptId);
+					if (rd == null) continue;
+					if (!deptIndep && !allRooms && (userDepts == null || !(userDepts.contains(rd.getId())))
+							&& (autority == null || !autority.hasQualifier(new SimpleQualifier("Department", rd.getId())))) continue;
+					if (evtDept != null && rd.getId().equals(evtDept.getId())) evtDept = null;
+					Entity department = depts.get(rd.getId());
 					if (department == null) {
-						department = new Entity(rd.getDepartment().getUniqueId(), rd.getDepartment().getDeptCode(),
-								rd.getDepartment().getDeptCode() + " - " + rd.getDepartment().getName() + (rd.getDepartment().isExternalManager() ? " (" + rd.getDepartment().getExternalMgrLabel() + ")" : ""));
+						department = new Entity(rd.getId(), rd.getReference(),
+								rd.getReference() + " - " + rd.getLabel() + (rd.isExternalManager() ? " (" + rd.getExternalLabel() + ")" : ""));
 						depts.put(department.getUniqueId(), department);
 					}
 					department.incCount();
-					if (deptIndep || (userDepts != null && userDepts.contains(rd.getDepartment().getUniqueId()))) isManaged = true;
+					if (deptIndep || (userDepts != null && userDepts.contains(rd.getId()))) isManaged = true;
 				}
 				if (evtDept != null && allRooms) {
-					Entity department = depts.get(evtDept.getUniqueId());
+					Entity department = depts.get(evtDept.getId());
 					if (department == null) {
-						department = new Entity(evtDept.getUniqueId(), evtDept.getDeptCode(),
-								evtDept.getDeptCode() + " - " + evtDept.getName() + (evtDept.isExternalManager() ? " (" + evtDept.getExternalMgrLabel() + ")" : ""));
+						department = new Entity(evtDept.getId(), evtDept.getReference(),
+								evtDept.getReference() + " - " + evtDept.getLabel() + (evtDept.isExternalManager() ? " (" + evtDept.getExternalLabel() + ")" : ""));
 						depts.put(department.getUniqueId(), department);
 					}
-					if (deptIndep || (userDepts != null && userDepts.contains(evtDept.getUniqueId()))) isManaged = true;
+					if (deptIndep || (userDepts != null && userDepts.contains(evtDept.getId()))) isManaged = true;
 					department.incCount();					
 				}
 			}
-			if (exams != null && !exams.isEmpty()) {
-				for (ExamType type: location.getExamTypes()) {
-					Entity e = exams.get(type.getUniqueId());
-					if (e != null) e.incCount();
-				}
-			}
 			if (isManaged)
 				managed.incCount();
 		}
 		if (managed.getCount() > 0)
 			response.add("department",managed);
+		if (exams != null && !exams.isEmpty())
+			for (Map.Entry<Long, Entity> e: exams.entrySet())
+				e.getValue().setCount(count(index.getExamTypeLocations(e.getKey()), locations));
 		if (exams != null && !exams.isEmpty())
 			for (Entity e: new TreeSet<Entity>(exams.values()))
 				if (e.getCount() > 0)
@@ -231,6 +231,112 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		response.add("department", new TreeSet<Entity>(depts.values()));
 	}
 	
+	private static int count(BitSet attribute, BitSet locations) {
+		BitSet both = (BitSet)attribute.clone();
+		both.and(locations);
+		return both.cardinality();
+	}
+	
+	/**
+	 * Evaluates the conditions of the room query one by one, so that the facet counts in {@link RoomFilterBackend#load(RoomFilterRpcRequest, FilterRpcResponse, EventContext)}
+	 * can be computed by leaving one of them out. Room type, feature, group, size, building, and id conditions are evaluated on the room index,
+	 * the remaining ones (e.g., department or event rooms) using the location query restricted to the one condition.
+	 */
+	protected Map<String, BitSet> filters(RoomFilterIndex index, RoomQuery query, Map<String, Set<String>> options, org.hibernate.Session hibSession) {
+		Set<String> departments = (options == null ? null : options.get("department"));
+		String department = (departments == null || departments.isEmpty() ? null : departments.iterator().next());
+		Map<String, BitSet> filters = new HashMap<String, BitSet>();
+		for (String option: query.getOptions()) {
+			Set<String> terms = (options == null ? null : options.get(option));
+			BitSet filter = null;
+			if ("type".equals(option) && terms != null) {
+				filter = new BitSet(index.size());
+				for (RoomFilterIndex.Attribute t: index.getRoomTypes())
+					for (String term: terms)
+						if (t.matches(term)) { filter.or(t.getLocations()); break; }
+			} else if ("feature".equals(option) && terms != null) {
+				filter = index.getAll();
+				for (String term: terms) {
+					BitSet locations = new BitSet(index.size());
+					for (RoomFilterIndex.Attribute f: index.getFeatures())
+						if (f.matches(term) && (f.isGlobal() || (department != null && department.equalsIgnoreCase(f.getDepartment()))))
+							locations.or(f.getLocations());
+					filter.and(locations);
+				}
+			} else if ("group".equals(option) && terms != null) {
+				filter = new BitSet(index.size());
+				for (RoomFilterIndex.Attribute g: index.getGroups())
+					if (g.isGlobal() || (department != null && department.equalsIgnoreCase(g.getDepartment())))
+						for (String term: terms)
+							if (g.matches(term)) { filter.or(g.getLocations()); break; }
+			} else if ("building".equals(option) && terms != null) {
+				filter = new BitSet(index.size());
+				for (RoomFilterIndex.Attribute b: index.getBuildings())
+					for (String term: terms)
+						if (term.equalsIgnoreCase(b.getReference())) { filter.or(b.getLocations()); break; }
+			} else if ("size".equals(option) && terms != null && !terms.isEmpty()) {
+				int[] minMax = parseSize(terms.iterator().next());
+				filter = new BitSet(index.size());
+				for (int i = 0; i < index.size(); i++) {
+					Integer capacity = index.getCapacity(i);
+					if (capacity != null && (minMax[0] <= 0 || capacity >= minMax[0]) && (minMax[1] == Integer.MAX_VALUE || capacity <= minMax[1]))
+						filter.set(i);
+				}
+			} else if ("id".equals(option) && terms != null) {
+				List<Long> ids = new ArrayList<Long>();
+				for (String id: terms) ids.add(Long.valueOf(id));
+				filter = index.getLocations(ids);
+			} else if (query.isRestricting(option)) {
+				filter = index.getLocations((List<Long>)query.select("distinct l.uniqueId").only(option).query(hibSession).list());
+			}
+			if (filter != null) filters.put(option, filter);
+		}
+		return filters;
+	}
+	
+	/**
+	 * Locations matching all the filters but the ignored one, including the nearby locations when requested
+	 */
+	protected BitSet locations(RoomFilterIndex index, Map<String, BitSet> filters, Long sessionId, Map<String, Set<String>> options, String ignoreCommand, org.hibernate.Session hibSession) {
+		BitSet ret = index.getAll();
+		for (Map.Entry<String, BitSet> filter: filters.entrySet())
+			if (!filter.getKey().equals(ignoreCommand)) ret.and(filter.getValue());
+		
+		Set<String> building = (options == null || "building".equals(ignoreCommand) ? null : options.get("building"));
+		Set<String> flag = (options == null || "flag".equals(ignoreCommand) ? null : options.get("flag"));
+		boolean nearby = (flag != null && (flag.contains("nearby") || flag.contains("Nearby")));
+		if (nearby && building != null && !building.isEmpty()) {
+			BitSet inBuildings = new BitSet(index.size());
+			for (RoomFilterIndex.Attribute b: index.getBuildings())
+				if (building.contains(b.getReference())) inBuildings.or(b.getLocations());
+			BitSet candidates = (BitSet)ret.clone();
+			candidates.andNot(inBuildings);
+			ret.and(inBuildings);
+			
+			Set<Coordinates> coord = new HashSet<Coordinates>();
+			for (int i = ret.nextSetBit(0); i >= 0; i = ret.nextSetBit(i + 1))
+				coord.add(new Coordinates(index.getId(i), index.getX(i), index.getY(i)));
+			if (coord.isEmpty())
+				coord.addAll(getBuildingCoordinates(sessionId, building, hibSession));
+			if (!coord.isEmpty())
+				for (Integer i: index.getNearbyLocations(candidates, coord, ApplicationProperty.EventNearByDistance.doubleValue(), getDistanceMetric()).keySet())
+					ret.set(i);
+		}
+		return ret;
+	}
+	
+	protected Set<Coordinates> getBuildingCoordinates(Long sessionId, Set<String> building, org.hibernate.Session hibSession) {
+		Set<Coordinates> coord = new HashSet<Coordinates>();
+		for (Building b: (List<Building>)hibSession.createQuery("select b from Building b where" +
+				" b.session.uniqueId = :sessionId and b.abbreviation in :building")
+				.setLong("sessionId", sessionId)
+				.setParameterList("building", building, new StringType())
+				.list()) {
+			coord.add(new Coordinates(-b.getUniqueId(), b.getCoordinateX(), b.getCoordinateY()));
+		}
+		return coord;
+	}
+	
 	protected void fixRoomFeatureTypes(RoomFilterRpcRequest request) {
 		for (RoomFeatureType type: RoomFeatureTypeDAO.getInstance().findAll())
 			if (showRoomFeature(type) && request.hasOptions(type.getReference().replace(' ', '_')))
@@ -273,20 +379,23 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 			for (Location location: ret)
 				coord.add(new Coordinates(location));
 
-			if (coord.isEmpty()) {
-				for (Building b: (List<Building>)hibSession.createQuery("select b from Building b where" +
-						" b.session.uniqueId = :sessionId and b.abbreviation in :building")
-						.setLong("sessionId", sessionId)
-						.setParameterList("building", building, new StringType())
-						.list()) {
-					coord.add(new Coordinates(-b.getUniqueId(), b.getCoordinateX(), b.getCoordinateY()));
-				}
-			}
+			if (coord.isEmpty())
+				coord.addAll(getBuildingCoordinates(sessionId, building, hibSession));
 			
 			if (!coord.isEmpty()) {
+				RoomFilterIndex index = RoomFilterIndex.getInstance(sessionId, hibSession);
+				BitSet candidates = new BitSet(index.size());
+				Map<Integer, Location> positions = new HashMap<Integer, Location>();
 				for (Location location: locations) {
 					if (building != null && !building.isEmpty() && (location instanceof Room) && building.contains(((Room)location).getBuilding().getAbbreviation())) continue;
 					if (query != null && !query.match(new LocationMatcher(location, featureTypes))) continue;
+					Integer position = index.getPosition(location.getUniqueId());
+					if (position != null) {
+						candidates.set(position);
+						positions.put(position, location);
+						continue;
+					}
+					// not indexed yet, check the distance directly
 					Coordinates c = new Coordinates(location);
 					Double distance = null;
 					for (Coordinates x: coord) {
@@ -298,6 +407,11 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 						if (distances != null) distances.put(location.getUniqueId(), distance);
 					}
 				}
+				for (Map.Entry<Integer, Double> near: index.getNearbyLocations(candidates, coord, allowedDistance, getDistanceMetric()).entrySet()) {
+					Location location = positions.get(near.getKey());
+					ret.add(location);
+					if (distances != null) distances.put(location.getUniqueId(), near.getValue());
+				}
 			}
 		}
 		
@@ -458,32 +572,8 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 				}
 				return false;
 			} else if ("size".equals(attr)) {
-				int min = 0, max = Integer.MAX_VALUE;
-				Size prefix = Size.eq;
-				String number = term;
-				if (number.startsWith("<=")) { prefix = Size.le; number = number.substring(2); }
-				else if (number.startsWith(">=")) { prefix = Size.ge; number = number.substring(2); }
-				else if (number.startsWith("<")) { prefix = Size.lt; number = number.substring(1); }
-				else if (number.startsWith(">")) { prefix = Size.gt; number = number.substring(1); }
-				else if (number.startsWith("=")) { prefix = Size.eq; number = number.substring(1); }
-				try {
-					int a = Integer.parseInt(number);
-					switch (prefix) {
-						case eq: min = max = a; break; // = a
-						case le: max = a; break; // <= a
-						case ge: min = a; break; // >= a
-						case lt: max = a - 1; break; // < a
-						case gt: min = a + 1; break; // > a
-					}
-				} catch (NumberFormatException e) {}
-				if (term.contains("..")) {
-					try {
-						String a = term.substring(0, term.indexOf('.'));
-						String b = term.substring(term.indexOf("..") + 2);
-						min = Integer.parseInt(a); max = Integer.parseInt(b);
-					} catch (NumberFormatException e) {}
-				}
-				return min <= getLocation().getCapacity() && getLocation().getCapacity() <= max;
+				int[] minMax = parseSize(term);
+				return minMax[0] <= getLocation().getCapacity() && getLocation().getCapacity() <= minMax[1];
 			} else if ("flag".equals(attr) && "event".equalsIgnoreCase(term)) {
 				return getLocation().getEventDepartment() != null && getLocation().getEventDepartment().isAllowEvents() && getLocation().getEffectiveEventStatus() != RoomTypeOption.Status.NoEventManagement;
 			} else if ("department".equals(attr) || "dept".equals(attr) || "event".equals(attr) || "control".equals(attr)) {
@@ -537,6 +627,38 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		
 	}
 	
+	/**
+	 * Parses size term (e.g., 10..20, &gt;=50, &lt;100, or 30), returns minimal and maximal size
+	 */
+	protected static int[] parseSize(String term) {
+		int min = 0, max = Integer.MAX_VALUE;
+		Size prefix = Size.eq;
+		String number = term;
+		if (number.startsWith("<=")) { prefix = Size.le; number = number.substring(2); }
+		else if (number.startsWith(">=")) { prefix = Size.ge; number = number.substring(2); }
+		else if (number.startsWith("<")) { prefix = Size.lt; number = number.substring(1); }
+		else if (number.startsWith(">")) { prefix = Size.gt; number = number.substring(1); }
+		else if (number.startsWith("=")) { prefix = Size.eq; number = number.substring(1); }
+		try {
+			int a = Integer.parseInt(number);
+			switch (prefix) {
+				case eq: min = max = a; break; // = a
+				case le: max = a; break; // <= a
+				case ge: min = a; break; // >= a
+				case lt: max = a - 1; break; // < a
+				case gt: min = a + 1; break; // > a
+			}
+		} catch (NumberFormatException e) {}
+		if (term.contains("..")) {
+			try {
+				String a = term.substring(0, term.indexOf('.'));
+				String b = term.substring(term.indexOf("..") + 2);
+				min = Integer.parseInt(a); max = Integer.parseInt(b);
+			} catch (NumberFormatException e) {}
+		}
+		return new int[] { min, max };
+	}
+	
 	public static String toCommand(String label) {
 		String ret = "";
 		for (String word: label.toLowerCase().split(" ")) {
@@ -613,32 +735,8 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		
 		Set<String> size = (options == null ? null : options.get("size"));
 		if (size != null && !size.isEmpty()) {
-			String term = size.iterator().next();
-			int min = 0, max = Integer.MAX_VALUE;
-			Size prefix = Size.eq;
-			String number = term;
-			if (number.startsWith("<=")) { prefix = Size.le; number = number.substring(2); }
-			else if (number.startsWith(">=")) { prefix = Size.ge; number = number.substring(2); }
-			else if (number.startsWith("<")) { prefix = Size.lt; number = number.substring(1); }
-			else if (number.startsWith(">")) { prefix = Size.gt; number = number.substring(1); }
-			else if (number.startsWith("=")) { prefix = Size.eq; number = number.substring(1); }
-			try {
-				int a = Integer.parseInt(number);
-				switch (prefix) {
-					case eq: min = max = a; break; // = a
-					case le: max = a; break; // <= a
-					case ge: min = a; break; // >= a
-					case lt: max = a - 1; break; // < a
-					case gt: min = a + 1; break; // > a
-				}
-			} catch (NumberFormatException e) {}
-			if (term.contains("..")) {
-				try {
-					String a = term.substring(0, term.indexOf('.'));
-					String b = term.substring(term.indexOf("..") + 2);
-					min = Integer.parseInt(a); max = Integer.parseInt(b);
-				} catch (NumberFormatException e) {}
-			}
+			int[] minMax = parseSize(size.iterator().next());
+			int min = minMax[0], max = minMax[1];
 			if (min > 0) {
 				if (max < Integer.MAX_VALUE) {
 					query.addWhere("size", "l.capacity >= :Xmin and l.capacity <= :Xmax");
@@ -744,6 +842,22 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 		
 		public void addFrom(String option, String from) { iFrom.put(option, from); }
 		public void addWhere(String option, String where) { iWhere.put(option, where); }
+		
+		public Set<String> getOptions() {
+			Set<String> options = new HashSet<String>(iFrom.keySet());
+			options.addAll(iWhere.keySet());
+			return options;
+		}
+		
+		/**
+		 * True if the option restricts the returned locations (it has a where condition or an inner join),
+		 * e.g., a join fetch does not
+		 */
+		public boolean isRestricting(String option) {
+			if (iWhere.containsKey(option)) return true;
+			String from = iFrom.get(option);
+			return from != null && !from.startsWith("left outer join") && !from.startsWith("left join");
+		}
 
 		protected void addParameter(String option, String name, Object value) {
 			Map<String, Object> params = iParams.get(option);
@@ -824,6 +938,11 @@ public class RoomFilterBackend extends FilterBoxBackend<RoomFilterRpcRequest> {
 				if (excludeOption != null && !excludeOption.isEmpty()) iExclude.add(excludeOption);
 				return this;
 			}
+			public RoomInstance only(String option) {
+				for (String other: getOptions())
+					if (!other.equals(option)) iExclude.add(other);
+				return this;
+			}
 			public RoomInstance set(String param, Object value) { iParams.put(param, value); return this; }
 			public RoomInstance limit(Integer limit) { iLimit = (limit == null || limit <= 0 ? null : limit); return this; }
 			
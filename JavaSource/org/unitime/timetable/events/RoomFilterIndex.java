@@ -0,0 +1,394 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.events;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.util.DistanceMetric;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.events.RoomFilterBackend.Coordinates;
+import org.unitime.timetable.model.Building;
+import org.unitime.timetable.model.Department;
+import org.unitime.timetable.model.DepartmentRoomFeature;
+import org.unitime.timetable.model.RoomFeature;
+import org.unitime.timetable.model.RoomGroup;
+import org.unitime.timetable.model.RoomType;
+
+/**
+ * In-memory index of the locations of an academic session, used by the room filter.
+ * Locations are identified by their position in the index, room types, features, groups,
+ * buildings and examination types keep the locations they apply to in a bit set, and room
+ * coordinates are bucketed into a spatial grid for the nearby room lookups.
+ * The index is dropped by {@link RoomFilterIndex#invalidate(Long)} when rooms are changed,
+ * or once it is older than {@link ApplicationProperty#EventRoomIndexTimeToLive}.
+ */
+public class RoomFilterIndex {
+	private static Logger sLog = Logger.getLogger(RoomFilterIndex.class);
+	private static Map<Long, RoomFilterIndex> sIndexes = new ConcurrentHashMap<Long, RoomFilterIndex>();
+	
+	private Long iSessionId;
+	private long iCreated;
+	private Long[] iIds;
+	private Map<Long, Integer> iPositions = new HashMap<Long, Integer>();
+	private Integer[] iCapacity;
+	private Double[] iX, iY;
+	private Long[] iRoomTypeId, iEventDepartmentId;
+	private long[][] iDepartmentIds;
+	private Map<Long, Attribute> iRoomTypes = new HashMap<Long, Attribute>();
+	private Map<Long, Attribute> iFeatures = new HashMap<Long, Attribute>();
+	private Map<Long, Attribute> iGroups = new HashMap<Long, Attribute>();
+	private Map<Long, Attribute> iBuildings = new HashMap<Long, Attribute>();
+	private Map<Long, Attribute> iDepartments = new HashMap<Long, Attribute>();
+	private Map<Long, BitSet> iExamTypes = new HashMap<Long, BitSet>();
+	private volatile Grid iGrid = null;
+	
+	/**
+	 * Returns the index of the given academic session, (re)building it when it is missing or expired
+	 */
+	public static RoomFilterIndex getInstance(Long sessionId, org.hibernate.Session hibSession) {
+		RoomFilterIndex index = sIndexes.get(sessionId);
+		if (index == null || index.isExpired()) {
+			index = new RoomFilterIndex(sessionId, hibSession);
+			sIndexes.put(sessionId, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Drops the index of the given academic session
+	 */
+	public static void invalidate(Long sessionId) {
+		if (sessionId != null) sIndexes.remove(sessionId);
+	}
+	
+	/**
+	 * Drops all indexes (e.g., when a change may have been propagated to future academic sessions)
+	 */
+	public static void invalidate() {
+		sIndexes.clear();
+	}
+	
+	protected RoomFilterIndex(Long sessionId, org.hibernate.Session hibSession) {
+		long t0 = System.currentTimeMillis();
+		iSessionId = sessionId;
+		iCreated = t0;
+		
+		List<Object[]> locations = (List<Object[]>)hibSession.createQuery(
+				"select l.uniqueId, l.capacity, l.coordinateX, l.coordinateY, l.roomType.uniqueId, ed.uniqueId " +
+				"from Location l left outer join l.eventDepartment ed where l.session.uniqueId = :sessionId order by l.uniqueId"
+				).setLong("sessionId", sessionId).list();
+		int size = locations.size();
+		iIds = new Long[size]; iCapacity = new Integer[size]; iX = new Double[size]; iY = new Double[size];
+		iRoomTypeId = new Long[size]; iEventDepartmentId = new Long[size]; iDepartmentIds = new long[size][];
+		for (int i = 0; i < size; i++) {
+			Object[] o = locations.get(i);
+			iIds[i] = (Long)o[0];
+			iCapacity[i] = (Integer)o[1];
+			iX[i] = (Double)o[2]; iY[i] = (Double)o[3];
+			iRoomTypeId[i] = (Long)o[4];
+			iEventDepartmentId[i] = (Long)o[5];
+			iPositions.put(iIds[i], i);
+		}
+		
+		for (Department d: (List<Department>)hibSession.createQuery(
+				"from Department d where d.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			Attribute a = new Attribute(d.getUniqueId(), d.getDeptCode(), d.getName(), null);
+			a.iExternal = (d.isExternalManager() != null && d.isExternalManager());
+			a.iExternalLabel = d.getExternalMgrLabel();
+			a.iAllowEvents = (d.isAllowEvents() != null && d.isAllowEvents());
+			iDepartments.put(a.getId(), a);
+		}
+		
+		for (RoomType t: (List<RoomType>)hibSession.createQuery(
+				"select distinct t from Location l inner join l.roomType t where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			Attribute a = new Attribute(t.getUniqueId(), t.getReference(), t.getLabel(), null);
+			a.iOrder = (t.getOrd() == null ? 0 : t.getOrd());
+			iRoomTypes.put(a.getId(), a);
+		}
+		for (int i = 0; i < size; i++) {
+			Attribute a = iRoomTypes.get(iRoomTypeId[i]);
+			if (a != null) a.getLocations().set(i);
+		}
+		
+		for (RoomFeature f: (List<RoomFeature>)hibSession.createQuery(
+				"select distinct f from Location l inner join l.features f where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			Attribute a = new Attribute(f.getUniqueId(), f.getAbbv(), f.getLabel(), f.getDescription());
+			if (f instanceof DepartmentRoomFeature) {
+				a.iGlobal = false;
+				a.iDepartment = ((DepartmentRoomFeature)f).getDepartment().getDeptCode();
+			}
+			a.iTypeId = (f.getFeatureType() == null ? null : f.getFeatureType().getUniqueId());
+			iFeatures.put(a.getId(), a);
+		}
+		fill(iFeatures, hibSession.createQuery(
+				"select l.uniqueId, f.uniqueId from Location l inner join l.features f where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list());
+		
+		for (RoomGroup g: (List<RoomGroup>)hibSession.createQuery(
+				"select distinct g from Location l inner join l.roomGroups g where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			Attribute a = new Attribute(g.getUniqueId(), g.getAbbv(), g.getName(), g.getDescription());
+			a.iGlobal = (g.isGlobal() != null && g.isGlobal());
+			a.iDepartment = (g.getDepartment() == null ? null : g.getDepartment().getDeptCode());
+			iGroups.put(a.getId(), a);
+		}
+		fill(iGroups, hibSession.createQuery(
+				"select l.uniqueId, g.uniqueId from Location l inner join l.roomGroups g where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list());
+		
+		for (Building b: (List<Building>)hibSession.createQuery(
+				"from Building b where b.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			iBuildings.put(b.getUniqueId(), new Attribute(b.getUniqueId(), b.getAbbreviation(), b.getAbbrName(), null));
+		}
+		fill(iBuildings, hibSession.createQuery(
+				"select r.uniqueId, r.building.uniqueId from Room r where r.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list());
+		
+		fill(iDepartments, hibSession.createQuery(
+				"select l.uniqueId, rd.department.uniqueId from Location l inner join l.roomDepts rd where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list());
+		Map<Integer, List<Long>> departments = new HashMap<Integer, List<Long>>();
+		for (Attribute d: iDepartments.values()) {
+			for (int i = d.getLocations().nextSetBit(0); i >= 0; i = d.getLocations().nextSetBit(i + 1)) {
+				List<Long> ids = departments.get(i);
+				if (ids == null) { ids = new ArrayList<Long>(); departments.put(i, ids); }
+				ids.add(d.getId());
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			List<Long> ids = departments.get(i);
+			iDepartmentIds[i] = new long[ids == null ? 0 : ids.size()];
+			for (int j = 0; j < iDepartmentIds[i].length; j++)
+				iDepartmentIds[i][j] = ids.get(j);
+		}
+		
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select l.uniqueId, x.uniqueId from Location l inner join l.examTypes x where l.session.uniqueId = :sessionId").setLong("sessionId", sessionId).list()) {
+			Integer position = iPositions.get((Long)o[0]);
+			if (position == null) continue;
+			BitSet locs = iExamTypes.get((Long)o[1]);
+			if (locs == null) { locs = new BitSet(size); iExamTypes.put((Long)o[1], locs); }
+			locs.set(position);
+		}
+		
+		sLog.debug("Room index for session " + sessionId + " created in " + (System.currentTimeMillis() - t0) + " ms (" + size + " locations)");
+	}
+	
+	private void fill(Map<Long, Attribute> attributes, List<Object[]> pairs) {
+		for (Object[] o: pairs) {
+			Integer position = iPositions.get((Long)o[0]);
+			Attribute a = attributes.get((Long)o[1]);
+			if (position != null && a != null) a.getLocations().set(position);
+		}
+	}
+	
+	public Long getSessionId() { return iSessionId; }
+	
+	public boolean isExpired() {
+		int ttl = ApplicationProperty.EventRoomIndexTimeToLive.intValue();
+		return ttl >= 0 && System.currentTimeMillis() - iCreated > 1000l * ttl;
+	}
+	
+	public int size() { return iIds.length; }
+	public Long getId(int position) { return iIds[position]; }
+	public Integer getPosition(Long locationId) { return iPositions.get(locationId); }
+	public Integer getCapacity(int position) { return iCapacity[position]; }
+	public Double getX(int position) { return iX[position]; }
+	public Double getY(int position) { return iY[position]; }
+	public boolean hasCoordinates(int position) { return iX[position] != null && iY[position] != null; }
+	public Long getRoomTypeId(int position) { return iRoomTypeId[position]; }
+	public Long getEventDepartmentId(int position) { return iEventDepartmentId[position]; }
+	public long[] getDepartmentIds(int position) { return iDepartmentIds[position]; }
+	
+	/** All locations of the academic session */
+	public BitSet getAll() {
+		BitSet all = new BitSet(size());
+		all.set(0, size());
+		return all;
+	}
+	
+	/** Locations of the given unique ids, ids that are not in the index are ignored */
+	public BitSet getLocations(Collection<Long> locationIds) {
+		BitSet ret = new BitSet(size());
+		for (Long id: locationIds) {
+			Integer position = iPositions.get(id);
+			if (position != null) ret.set(position);
+		}
+		return ret;
+	}
+	
+	public Collection<Attribute> getRoomTypes() { return iRoomTypes.values(); }
+	public Attribute getRoomType(Long id) { return iRoomTypes.get(id); }
+	public Collection<Attribute> getFeatures() { return iFeatures.values(); }
+	public Collection<Attribute> getGroups() { return iGroups.values(); }
+	public Collection<Attribute> getBuildings() { return iBuildings.values(); }
+	public Attribute getDepartment(Long id) { return iDepartments.get(id); }
+	
+	/** Locations of the given examination type */
+	public BitSet getExamTypeLocations(Long examTypeId) {
+		BitSet locs = iExamTypes.get(examTypeId);
+		return (locs == null ? new BitSet() : locs);
+	}
+	
+	/**
+	 * Computes the distances of the candidate locations that are within the given distance of any of the given coordinates.
+	 * Only the candidates in the neighbouring grid cells (and the locations with a travel time set) are checked using the distance metric.
+	 * @return map of position in the index to the distance in meters
+	 */
+	public Map<Integer, Double> getNearbyLocations(BitSet candidates, Collection<Coordinates> coordinates, double maxDistance, DistanceMetric metric) {
+		BitSet check = null;
+		Grid grid = getGrid(maxDistance, metric);
+		if (grid != null) {
+			check = new BitSet(size());
+			for (Coordinates c: coordinates)
+				if (c.hasCoordinates()) grid.neighbours(c.x(), c.y(), check);
+			Map<Long, Map<Long, Integer>> travelTimes = metric.getTravelTimes();
+			if (travelTimes != null)
+				for (Map.Entry<Long, Map<Long, Integer>> e: travelTimes.entrySet()) {
+					Integer position = iPositions.get(e.getKey());
+					if (position != null) check.set(position);
+					for (Long id: e.getValue().keySet()) {
+						position = iPositions.get(id);
+						if (position != null) check.set(position);
+					}
+				}
+			check.and(candidates);
+		} else {
+			check = candidates;
+		}
+		Map<Integer, Double> distances = new HashMap<Integer, Double>();
+		for (int i = check.nextSetBit(0); i >= 0; i = check.nextSetBit(i + 1)) {
+			if (!hasCoordinates(i)) continue;
+			Double distance = null;
+			for (Coordinates c: coordinates) {
+				double d = (c.hasCoordinates() ? metric.getDistanceInMeters(iIds[i], iX[i], iY[i], c.id(), c.x(), c.y()) : Double.POSITIVE_INFINITY);
+				if (distance == null || distance > d) distance = d;
+			}
+			if (distance != null && distance <= maxDistance) distances.put(i, distance);
+		}
+		return distances;
+	}
+	
+	/**
+	 * Spatial grid for the given distance: cells are at least the given distance wide, so all locations within
+	 * the distance of a point are in the cell of the point or in one of the eight neighbouring cells.
+	 * Returns null when the grid cannot be used (no coordinates, unusable metric, or too fine a grid).
+	 */
+	protected Grid getGrid(double maxDistance, DistanceMetric metric) {
+		double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY, minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < size(); i++) {
+			if (!hasCoordinates(i)) continue;
+			minX = Math.min(minX, iX[i]); maxX = Math.max(maxX, iX[i]);
+			minY = Math.min(minY, iY[i]); maxY = Math.max(maxY, iY[i]);
+		}
+		if (minX > maxX || maxDistance <= 0.0) return null;
+		
+		// smallest number of meters per coordinate unit within the bounding box, with some slack
+		double step = 0.01, metersX = Double.POSITIVE_INFINITY, metersY = Double.POSITIVE_INFINITY;
+		for (double x: new double[] {minX, (minX + maxX) / 2, maxX})
+			for (double y: new double[] {minY, (minY + maxY) / 2, maxY}) {
+				metersX = Math.min(metersX, metric.getDistanceInMeters(x, y, x + step, y) / step);
+				metersY = Math.min(metersY, metric.getDistanceInMeters(x, y, x, y + step) / step);
+			}
+		if (!(metersX > 0.0) || !(metersY > 0.0) || Double.isInfinite(metersX) || Double.isInfinite(metersY)) return null;
+		double cellX = 1.1 * maxDistance / metersX, cellY = 1.1 * maxDistance / metersY;
+		if ((maxX - minX) / cellX > 100000 || (maxY - minY) / cellY > 100000) return null;
+		
+		Grid grid = iGrid;
+		if (grid != null && grid.iCellX == cellX && grid.iCellY == cellY) return grid;
+		grid = new Grid(cellX, cellY);
+		for (int i = 0; i < size(); i++)
+			if (hasCoordinates(i)) grid.add(i, iX[i], iY[i]);
+		iGrid = grid;
+		return grid;
+	}
+	
+	protected static class Grid {
+		private double iCellX, iCellY;
+		private Map<Long, List<Integer>> iCells = new HashMap<Long, List<Integer>>();
+		
+		Grid(double cellX, double cellY) {
+			iCellX = cellX; iCellY = cellY;
+		}
+		
+		private static long key(long cx, long cy) {
+			return (cx << 32) ^ (cy & 0xffffffffl);
+		}
+		
+		void add(int position, double x, double y) {
+			long key = key((long)Math.floor(x / iCellX), (long)Math.floor(y / iCellY));
+			List<Integer> cell = iCells.get(key);
+			if (cell == null) { cell = new ArrayList<Integer>(); iCells.put(key, cell); }
+			cell.add(position);
+		}
+		
+		void neighbours(double x, double y, BitSet ret) {
+			long cx = (long)Math.floor(x / iCellX), cy = (long)Math.floor(y / iCellY);
+			for (long dx = -1; dx <= 1; dx++)
+				for (long dy = -1; dy <= 1; dy++) {
+					List<Integer> cell = iCells.get(key(cx + dx, cy + dy));
+					if (cell != null)
+						for (Integer position: cell) ret.set(position);
+				}
+		}
+	}
+	
+	/**
+	 * Room type, feature, group, building, or department with the locations it applies to
+	 */
+	public static class Attribute {
+		private Long iId;
+		private String iReference, iLabel, iDescription;
+		private String iDepartment = null, iExternalLabel = null;
+		private Long iTypeId = null;
+		private boolean iGlobal = true, iAllowEvents = false, iExternal = false;
+		private int iOrder = 0;
+		private BitSet iLocations = new BitSet();
+		
+		Attribute(Long id, String reference, String label, String description) {
+			iId = id; iReference = reference; iLabel = label; iDescription = description;
+		}
+		
+		public Long getId() { return iId; }
+		/** Reference, abbreviation, or department code */
+		public String getReference() { return iReference; }
+		/** Label or name */
+		public String getLabel() { return iLabel; }
+		public String getDescription() { return iDescription; }
+		/** Department code of a departmental feature or group */
+		public String getDepartment() { return iDepartment; }
+		public boolean isGlobal() { return iGlobal; }
+		/** Room feature type id */
+		public Long getTypeId() { return iTypeId; }
+		/** Room type order */
+		public int getOrder() { return iOrder; }
+		/** External manager label of an external department */
+		public String getExternalLabel() { return iExternalLabel; }
+		public boolean isExternalManager() { return iExternal; }
+		public boolean isAllowEvents() { return iAllowEvents; }
+		public BitSet getLocations() { return iLocations; }
+		
+		public boolean matches(String term) {
+			return term != null && (term.equalsIgnoreCase(iReference) || term.equalsIgnoreCase(iLabel));
+		}
+	}
+}
@@ -20,6 +20,7 @@
 package org.unitime.timetable.events;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -71,6 +72,7 @@ import org.unitime.timetable.model.dao.LocationDAO;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.SponsoringOrganizationDAO;
 import org.unitime.timetable.security.rights.Right;
+import org.unitime.timetable.util.CalendarFeedCache;
 import org.unitime.timetable.util.CalendarUtils;
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.Formats;
@@ -661,6 +663,9 @@ public class SaveEventBackend extends EventAction<SaveEventRpcRequest, SaveOrApp
 			
 			tx.commit();
 			
+			if (event.getUniqueId() != null)
+				CalendarFeedCache.invalidateEvents(Collections.singleton(event.getUniqueId()));
+			
 			new EventEmail(request, response).send(context);
 			
 			return response;
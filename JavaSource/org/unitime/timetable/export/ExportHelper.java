@@ -22,6 +22,7 @@ package org.unitime.timetable.export;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.Date;
 
 import org.unitime.timetable.security.SessionContext;
 
@@ -40,4 +41,13 @@ public interface ExportHelper extends Exporter.Params {
 	public SessionContext getSessionContext();
 	
 	public boolean isRequestEncoded();
+	
+	/**
+	 * Set the validators of the response (to be called before {@link ExportHelper#setup(String, String, boolean)})
+	 * and check them against the If-None-Match and If-Modified-Since headers of the request.
+	 * @param etag entity tag of the exported content (without quotes), null if not known
+	 * @param lastModified last modification of the exported content, null if not known
+	 * @return true if the client already has the current content, a 304 Not Modified response was sent and nothing else should be written
+	 */
+	public boolean isNotModified(String etag, Date lastModified);
 }
\ No newline at end of file
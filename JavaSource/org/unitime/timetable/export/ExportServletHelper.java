@@ -54,11 +54,14 @@ import org.unitime.timetable.spring.SpringApplicationContextHolder;
 public class ExportServletHelper implements ExportHelper {
 	private SessionContext iContext;
 	private Exporter.Params iParams;
+	private HttpServletRequest iRequest;
 	private HttpServletResponse iResponse;
+	private boolean iValidated = false;
 	private PrintWriter iWriter = null;
 	private OutputStream iOutputStream = null;
 	
 	public ExportServletHelper(HttpServletRequest request, HttpServletResponse response, SessionContext context) throws UnsupportedEncodingException {
+		iRequest = request;
 		iResponse = response;
 		iContext = context;
 		String q = request.getParameter("q");
@@ -101,16 +104,53 @@ public class ExportServletHelper implements ExportHelper {
 		iResponse.setContentType("text/calendar".equalsIgnoreCase(content) ? content : content + "; charset=UTF-8");
 		iResponse.setCharacterEncoding("UTF-8");
 		
-		iResponse.setHeader("Pragma", "no-cache" );
-		iResponse.addHeader("Cache-Control", "must-revalidate" );
-		iResponse.addHeader("Cache-Control", "no-cache" );
-		iResponse.addHeader("Cache-Control", "no-store" );
-		iResponse.setDateHeader("Date", new Date().getTime());
-		iResponse.setDateHeader("Expires", 0);
+		if (iValidated) {
+			// the client may keep the content, but it must always revalidate it using the ETag / Last-Modified validators
+			iResponse.setHeader("Cache-Control", "private, no-cache");
+			iResponse.setDateHeader("Date", new Date().getTime());
+		} else {
+			iResponse.setHeader("Pragma", "no-cache" );
+			iResponse.addHeader("Cache-Control", "must-revalidate" );
+			iResponse.addHeader("Cache-Control", "no-cache" );
+			iResponse.addHeader("Cache-Control", "no-store" );
+			iResponse.setDateHeader("Date", new Date().getTime());
+			iResponse.setDateHeader("Expires", 0);
+		}
 		
 		iResponse.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"" );
 	}
 	
+	@Override
+	public boolean isNotModified(String etag, Date lastModified) {
+		iValidated = true;
+		String tag = (etag == null ? null : "\"" + etag + "\"");
+		if (tag != null)
+			iResponse.setHeader("ETag", tag);
+		if (lastModified != null)
+			iResponse.setDateHeader("Last-Modified", lastModified.getTime());
+		boolean notModified = false;
+		String ifNoneMatch = iRequest.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			// If-None-Match takes precedence over If-Modified-Since
+			if (tag != null)
+				for (String match: ifNoneMatch.split(",")) {
+					match = match.trim();
+					if (match.startsWith("W/")) match = match.substring(2);
+					if (match.equals(tag) || match.equals("*")) { notModified = true; break; }
+				}
+		} else if (lastModified != null) {
+			try {
+				long since = iRequest.getDateHeader("If-Modified-Since");
+				if (since >= 0 && lastModified.getTime() / 1000 <= since / 1000) notModified = true;
+			} catch (IllegalArgumentException e) {}
+		}
+		if (notModified) {
+			iResponse.setHeader("Cache-Control", "private, no-cache");
+			iResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		}
+		return notModified;
+	}
+	
 	@Override
 	public String getParameter(String name) {
 		return iParams.getParameter(name);
@@ -20,8 +20,12 @@
 package org.unitime.timetable.export.events;
 
 import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -29,7 +33,10 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.unitime.localization.impl.Localization;
+import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.events.EventLookupBackend;
 import org.unitime.timetable.events.ResourceLookupBackend;
 import org.unitime.timetable.events.EventAction.EventContext;
@@ -49,6 +56,7 @@ import org.unitime.timetable.gwt.shared.EventInterface.ResourceInterface;
 import org.unitime.timetable.gwt.shared.EventInterface.ResourceType;
 import org.unitime.timetable.gwt.shared.EventInterface.RoomFilterRpcRequest;
 import org.unitime.timetable.model.Session;
+import org.unitime.timetable.model.dao.EventDAO;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.security.rights.Right;
 
@@ -56,6 +64,7 @@ import org.unitime.timetable.security.rights.Right;
  * @author Tomas Muller
  */
 public abstract class EventsExporter implements Exporter {
+	private static Log sLog = LogFactory.getLog(EventsExporter.class);
 	protected static final GwtMessages MESSAGES = Localization.create(GwtMessages.class);
 	protected static final GwtConstants CONSTANTS = Localization.create(GwtConstants.class);
 
@@ -142,6 +151,11 @@ public abstract class EventsExporter implements Exporter {
 			}
 		}
     	
+    	if (ApplicationProperty.EventExportConditionalGet.isTrue()) {
+    		Validator validator = getValidator(helper, request, context);
+    		if (validator != null && helper.isNotModified(validator.getETag(), validator.getLastModified())) return;
+    	}
+    	
     	List<EventInterface> events = new EventLookupBackend().findEvents(request, context);
     	
     	String sortBy = helper.getParameter("sort");
@@ -182,6 +196,90 @@ public abstract class EventsExporter implements Exporter {
 	
 	protected abstract void print(ExportHelper helper, EventLookupRpcRequest request, List<EventInterface> events, int eventCookieFlags, EventMeetingSortBy sort, boolean asc) throws IOException;
 	
+	/**
+	 * Compute the validators of the export. The entity tag is a hash of the exporter, the request parameters, the user and his/her role,
+	 * and a fingerprint of the event data of the academic session (number and sum of the ids of the meetings and of the event notes, last approval,
+	 * last event note, and for a personal schedule also the enrollments). Only notes of the events with a meeting within the academic session are counted.
+	 * Sums are used instead of the largest ids, since unique ids are allocated in blocks and are not increasing. Changes made on the event pages add
+	 * an event note. Class events are updated in place when a solution is committed: added or removed meetings change the meeting fingerprint and
+	 * only the class events that have changed are given a new note (see {@link org.unitime.timetable.model.Assignment#generateCommittedEvent(org.unitime.timetable.model.ClassEvent, boolean, org.unitime.timetable.model.Solution.CommitChanges)}).
+	 * Both validators also change every {@link ApplicationProperty#EventExportValidatorTimeWindow} minutes, so that changes that are not
+	 * covered by the fingerprint (e.g., a room or an instructor name change) show up eventually.
+	 * @return null if the validators cannot be computed
+	 */
+	protected Validator getValidator(ExportHelper helper, EventLookupRpcRequest request, EventContext context) {
+		try {
+			org.hibernate.Session hibSession = EventDAO.getInstance().getSession();
+			StringBuffer key = new StringBuffer(reference());
+			List<String> names = new ArrayList<String>();
+			for (Enumeration<String> e = helper.getParameterNames(); e.hasMoreElements(); )
+				names.add(e.nextElement());
+			Collections.sort(names);
+			for (String name: names) {
+				String[] values = helper.getParameterValues(name);
+				if (values != null)
+					for (String value: values)
+						key.append("&" + name + "=" + value);
+			}
+			if (context.isAuthenticated()) {
+				key.append("|" + context.getUser().getExternalUserId());
+				if (context.getUser().getCurrentAuthority() != null)
+					key.append("|" + context.getUser().getCurrentAuthority().getAuthority());
+			}
+			
+			Object[] meetings = (Object[])hibSession.createQuery(
+					"select count(m.uniqueId), sum(m.uniqueId), max(m.approvalDate) from Meeting m, Session s where s.uniqueId = :sessionId and " +
+					"m.meetingDate >= s.eventBeginDate and m.meetingDate <= s.eventEndDate")
+					.setLong("sessionId", request.getSessionId()).uniqueResult();
+			Object[] notes = (Object[])hibSession.createQuery(
+					"select count(n.uniqueId), sum(n.uniqueId), max(n.timeStamp) from EventNote n where n.event.uniqueId in (" +
+					"select m.event.uniqueId from Meeting m, Session s where s.uniqueId = :sessionId and " +
+					"m.meetingDate >= s.eventBeginDate and m.meetingDate <= s.eventEndDate)")
+					.setLong("sessionId", request.getSessionId()).uniqueResult();
+			key.append("|" + meetings[0] + "|" + meetings[1] + "|" + notes[0] + "|" + notes[1] + "|" + (notes[2] == null ? null : ((Date)notes[2]).getTime()));
+			Date lastModified = max((Date)meetings[2], (Date)notes[2]);
+			if (request.getResourceType() == ResourceType.PERSON && request.getResourceExternalId() != null) {
+				Object[] enrollments = (Object[])hibSession.createQuery(
+						"select count(e.uniqueId), sum(e.uniqueId), max(e.timestamp) from StudentClassEnrollment e where " +
+						"e.student.session.uniqueId = :sessionId and e.student.externalUniqueId = :externalId")
+						.setLong("sessionId", request.getSessionId()).setString("externalId", request.getResourceExternalId()).uniqueResult();
+				key.append("|" + enrollments[0] + "|" + enrollments[1] + "|" + (enrollments[2] == null ? null : ((Date)enrollments[2]).getTime()));
+				lastModified = max(lastModified, (Date)enrollments[2]);
+			}
+			
+			int window = ApplicationProperty.EventExportValidatorTimeWindow.intValue();
+			if (window > 0) {
+				long start = System.currentTimeMillis() / (60000l * window) * (60000l * window);
+				key.append("|" + start);
+				lastModified = max(lastModified, new Date(start));
+			}
+			
+			MessageDigest md5 = MessageDigest.getInstance("MD5");
+			return new Validator(new BigInteger(1, md5.digest(key.toString().getBytes("UTF-8"))).toString(36), lastModified);
+		} catch (Exception e) {
+			sLog.warn("Failed to compute export validators: " + e.getMessage(), e);
+			return null;
+		}
+	}
+	
+	private static Date max(Date d1, Date d2) {
+		if (d1 == null) return d2;
+		if (d2 == null) return d1;
+		return (d1.compareTo(d2) >= 0 ? d1 : d2);
+	}
+	
+	public static class Validator {
+		private String iETag;
+		private Date iLastModified;
+		
+		public Validator(String etag, Date lastModified) {
+			iETag = etag; iLastModified = lastModified;
+		}
+		
+		public String getETag() { return iETag; }
+		public Date getLastModified() { return iLastModified; }
+	}
+	
 	protected void hideColumns(Printer out, List<EventInterface> events, int eventCookieFlags) {
 		for (EventFlag flag: EventFlag.values()) {
 			if (!flag.in(eventCookieFlags)) hideColumn(out, events, flag);
@@ -30,6 +30,8 @@ import javax.servlet.ServletResponse;
 
 import org.cpsolver.ifs.util.JProf;
 import org.unitime.commons.Debug;
+import org.unitime.commons.hibernate.stats.RequestStatistics;
+import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.model.base._BaseRootDAO;
 
 
@@ -65,6 +67,7 @@ public class HibSessionFilter implements Filter {
 		if (request.getAttribute("TimeStamp")==null)
 			request.setAttribute("TimeStamp", new Double(JProf.currentTimeSec()));
 		
+		boolean stats = (ApplicationProperty.QueryLogRequestStatistics.isTrue() && RequestStatistics.begin());
 		try {
 			// Process request
 			chain.doFilter(request,response);
@@ -79,6 +82,8 @@ public class HibSessionFilter implements Filter {
 
             // Let others handle it... maybe another interceptor for exceptions?
             throw new ServletException(ex);
+        } finally {
+        	if (stats) RequestStatistics.end();
         }
  		
 	}
@@ -46,6 +46,7 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.unitime.commons.hibernate.stats.RequestStatistics;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.model.QueryLog;
 import org.unitime.timetable.model.dao.QueryLogDAO;
@@ -181,6 +182,14 @@ public class QueryLogFilter implements Filter {
 				if (!ex.isEmpty())
 					q.setException(ex);
 			}
+			RequestStatistics stats = RequestStatistics.current();
+			if (stats != null) {
+				try {
+					stats.record(q.getUri(), ApplicationProperty.QueryLogRepeatedStatementThreshold.intValue());
+				} catch (Throwable t) {
+					sLog.debug("Failed to record request statistics: " + t.getMessage());
+				}
+			}
 			if (!iExclude.contains(q.getUri()) || q.getException() != null) {
 				if (iSaver != null) iSaver.add(q);
 			}
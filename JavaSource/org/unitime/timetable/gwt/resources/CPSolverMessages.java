@@ -65,6 +65,12 @@ public interface CPSolverMessages extends Messages, Constants {
 	@DefaultMessage("Model successfully loaded.")
 	String infoModelLoaded();
 	
+	@DefaultMessage("Phase \"{0}\" took {1} ms.")
+	String infoLoadPhaseTime(String phase, long time);
+	
+	@DefaultMessage("Phase \"{0}\": data fetched in {1} ms on a separate session (waited {2} ms for the data).")
+	String infoLoadFetchTime(String phase, long time, long wait);
+	
 	@DefaultMessage("Using room availability that was updated on {0}.")
 	String infoUsingRoomAvailability(String timeStamp);
 	
@@ -74,6 +80,9 @@ public interface CPSolverMessages extends Messages, Constants {
 	@DefaultMessage("Solution successfully saved.")
 	String infoSolutionSaved();
 	
+	@DefaultMessage("Solution committed, {0} rows touched (events: {1} created, {2} updated, {3} deleted, {4} unchanged; meetings: {5} added, {6} removed, {7} kept).")
+	String infoSolutionCommitChanges(int rows, int eventsCreated, int eventsUpdated, int eventsDeleted, int eventsUnchanged, int meetingsAdded, int meetingsRemoved, int meetingsKept);
+	
 	@DefaultMessage("Class {0} is cancelled (class not loaded).")
 	String warnCancelledClass(String className);
 	
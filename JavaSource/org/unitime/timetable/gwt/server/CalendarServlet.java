@@ -20,7 +20,8 @@
 package org.unitime.timetable.gwt.server;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLDecoder;
@@ -31,10 +32,12 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
 
@@ -82,6 +85,7 @@ import org.unitime.timetable.security.SessionContext;
 import org.unitime.timetable.security.UserContext;
 import org.unitime.timetable.server.CourseDetailsBackend;
 import org.unitime.timetable.solver.service.SolverServerService;
+import org.unitime.timetable.util.CalendarFeedCache;
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.DateUtils;
 
@@ -172,6 +176,18 @@ public class CalendarServlet extends HttpServlet {
 		response.setContentType("text/calendar; charset=UTF-8");
 		response.setCharacterEncoding("UTF-8");
 		response.setHeader( "Content-Disposition", "attachment; filename=\"schedule.ics\"" );
+		
+		String cacheKey = (CalendarFeedCache.isEnabled() ? CalendarFeedCache.getKey(sessionId, classIds, fts, examIds, eventIds, userId) : null);
+		if (cacheKey != null) {
+			CalendarFeedCache.Feed feed = CalendarFeedCache.get(cacheKey);
+			if (feed != null) {
+				writeFeed(request, response, feed);
+				return;
+			}
+		}
+		long version = CalendarFeedCache.getVersion();
+		Set<String> dependencies = new HashSet<String>();
+		dependencies.add(CalendarFeedCache.session(sessionId));
         
 		ICalendar ical = new ICalendar();
 		ical.setVersion(ICalVersion.V2_0);
@@ -192,6 +208,7 @@ public class CalendarServlet extends HttpServlet {
     				CourseOffering course = CourseOfferingDAO.getInstance().get(Long.valueOf(courseAndClassId[0]), hibSession);
     				Class_ clazz = Class_DAO.getInstance().get(Long.valueOf(courseAndClassId[1]), hibSession);
     				if (course == null || clazz == null) continue;
+    				dependencies.add(CalendarFeedCache.clazz(clazz.getUniqueId()));
             		printClass(course, clazz, ical);
         		}
         	}
@@ -220,6 +237,7 @@ public class CalendarServlet extends HttpServlet {
             		if (eventId.isEmpty()) continue;
             		try {
             			Event event = EventDAO.getInstance().get(Long.valueOf(eventId), hibSession);
+            			dependencies.add(CalendarFeedCache.event(Long.valueOf(eventId)));
             			if (event != null)
             				exporter.print(ical, EventDetailBackend.getEventDetail(session, event, null));
             		} catch (NumberFormatException e) {}
@@ -243,6 +261,7 @@ public class CalendarServlet extends HttpServlet {
                 	}
                     if (instructor.getDepartment().getSession().getStatusType().canNoRoleReportClass()) {
                         for (ClassInstructor ci: instructor.getClasses()) {
+                        	dependencies.add(CalendarFeedCache.clazz(ci.getClassInstructing().getUniqueId()));
                             printClass(ci.getClassInstructing().getSchedulingSubpart().getInstrOfferingConfig().getControllingCourseOffering(), ci.getClassInstructing(), ical);
                         }
                     }
@@ -251,6 +270,7 @@ public class CalendarServlet extends HttpServlet {
                 		"s.externalUniqueId=:externalId and s.session.uniqueId = :sessionId").
                 		setLong("sessionId", sessionId).setString("externalId", userId).list()) {
                 	if (!PersonalizedExamReportAction.canDisplay(student.getSession())) continue;
+                	dependencies.add(CalendarFeedCache.student(student.getUniqueId()));
                 	for (ExamType t: ExamType.findAll(hibSession)) {
                 		ExamStatus status = ExamStatus.findStatus(hibSession, student.getSession().getUniqueId(), t.getUniqueId());
                 		DepartmentStatusType type = (status == null || status.getStatus() == null ? student.getSession().getStatusType() : status.getStatus());
@@ -265,6 +285,7 @@ public class CalendarServlet extends HttpServlet {
                     if (student.getSession().getStatusType().canNoRoleReportClass()) {
                         for (Iterator i=student.getClassEnrollments().iterator();i.hasNext();) {
                             StudentClassEnrollment sce = (StudentClassEnrollment)i.next();
+                            dependencies.add(CalendarFeedCache.clazz(sce.getClazz().getUniqueId()));
                             printClass(sce.getCourseOffering(), sce.getClazz(), ical);
                         }
                     }
@@ -273,9 +294,10 @@ public class CalendarServlet extends HttpServlet {
         } catch (Exception e) {
         	Debug.error(e.getMessage(), e);
         	response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        	return;
         }
 		
-		PrintWriter out = response.getWriter();
+		StringWriter out = new StringWriter();
         ICalWriter writer = new ICalWriter(out, ICalVersion.V2_0);
 		try {
 			try {
@@ -286,11 +308,55 @@ public class CalendarServlet extends HttpServlet {
 	        }
         	writer.write(ical);
         	writer.flush();
-        	out.flush();
 		} finally {
-			out.close();
 			writer.close();
 		}
+		byte[] content = out.toString().getBytes("UTF-8");
+		
+		if (cacheKey != null) {
+			writeFeed(request, response, CalendarFeedCache.put(cacheKey, content, dependencies, version));
+		} else {
+			writeContent(response, content);
+		}
+	}
+	
+	private void writeFeed(HttpServletRequest request, HttpServletResponse response, CalendarFeedCache.Feed feed) throws IOException {
+		String tag = "\"" + feed.getETag() + "\"";
+		response.setHeader("ETag", tag);
+		response.setDateHeader("Last-Modified", feed.getCreated().getTime());
+		response.setHeader("Cache-Control", "private, no-cache");
+		boolean notModified = false;
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			// If-None-Match takes precedence over If-Modified-Since
+			for (String match: ifNoneMatch.split(",")) {
+				match = match.trim();
+				if (match.startsWith("W/")) match = match.substring(2);
+				if (match.equals(tag) || match.equals("*")) { notModified = true; break; }
+			}
+		} else {
+			try {
+				long since = request.getDateHeader("If-Modified-Since");
+				if (since >= 0 && feed.getCreated().getTime() / 1000 <= since / 1000) notModified = true;
+			} catch (IllegalArgumentException e) {}
+		}
+		if (notModified) {
+			CalendarFeedCache.notModified();
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		} else {
+			writeContent(response, feed.getContent());
+		}
+	}
+	
+	private void writeContent(HttpServletResponse response, byte[] content) throws IOException {
+		response.setContentLength(content.length);
+		OutputStream out = response.getOutputStream();
+		try {
+			out.write(content);
+			out.flush();
+		} finally {
+			out.close();
+		}
 	}
 
 	private void printExam(Exam exam, ICalendar ical) throws IOException {
@@ -0,0 +1,457 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+*/
+package org.unitime.timetable.gwt.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.gwt.shared.CurriculumInterface.CourseInterface;
+
+/**
+ * Per academic session cache of the student data that are needed to compute curriculum enrollments, course requests,
+ * and last-like (and thus projected) numbers. The data are kept per academic area and loaded in a few bulk queries,
+ * all the classification / major / course break-downs are then computed in memory.<br>
+ * <br>
+ * Each cached academic area has a stamp (number and sum of the ids of its student classifications, enrollments, course demands,
+ * and last-like demands, the last change of its enrollments and course demands) that is checked at most every
+ * {@link ApplicationProperty#CurriculaProjectionCacheCheckInterval} seconds. Only the areas with a changed stamp are reloaded.
+ * Last-like demands are matched by the academic area abbreviation. Student, last-like demand, and curricula imports drop
+ * the cached data of their academic session right away (see {@link #invalidate(Long)}).
+ */
+public class CurriculaProjectionCache {
+	private static Logger sLog = Logger.getLogger(CurriculaProjectionCache.class);
+	private static Map<Long, SessionData> sSessions = new HashMap<Long, SessionData>();
+
+	private CurriculaProjectionCache() {}
+
+	/**
+	 * Returns student data of the given academic area, (re)loading them if needed.
+	 */
+	public static AreaData getAreaData(org.hibernate.Session hibSession, Long sessionId, Long areaId) {
+		SessionData session = null;
+		synchronized (sSessions) {
+			session = sSessions.get(sessionId);
+			if (session == null) {
+				session = new SessionData(sessionId);
+				sSessions.put(sessionId, session);
+			}
+		}
+		return session.getAreaData(hibSession, areaId);
+	}
+
+	/**
+	 * Drop all cached data of the given academic session (all sessions when null).
+	 */
+	public static void invalidate(Long sessionId) {
+		synchronized (sSessions) {
+			if (sessionId == null)
+				sSessions.clear();
+			else
+				sSessions.remove(sessionId);
+		}
+	}
+
+	static class SessionData {
+		private Long iSessionId;
+		private long iLastCheck = 0;
+		private Map<Long, String> iStamps = new HashMap<Long, String>();
+		private Map<Long, AreaData> iAreas = new HashMap<Long, AreaData>();
+
+		SessionData(Long sessionId) {
+			iSessionId = sessionId;
+		}
+
+		synchronized AreaData getAreaData(org.hibernate.Session hibSession, Long areaId) {
+			long interval = 1000l * ApplicationProperty.CurriculaProjectionCacheCheckInterval.intValue();
+			if (System.currentTimeMillis() - iLastCheck >= interval) {
+				if (!iAreas.isEmpty()) {
+					Map<Long, String> stamps = computeStamps(hibSession, iAreas.keySet());
+					for (Iterator<Map.Entry<Long, AreaData>> i = iAreas.entrySet().iterator(); i.hasNext(); ) {
+						Map.Entry<Long, AreaData> e = i.next();
+						String oldStamp = iStamps.get(e.getKey());
+						String newStamp = stamps.get(e.getKey());
+						if (oldStamp == null ? newStamp != null : !oldStamp.equals(newStamp)) {
+							sLog.debug("Academic area " + e.getValue().getAcademicAreaAbbreviation() + " has changed, the cached projections will be reloaded.");
+							i.remove();
+							iStamps.remove(e.getKey());
+						}
+					}
+				}
+				iLastCheck = System.currentTimeMillis();
+			}
+			AreaData area = iAreas.get(areaId);
+			if (area == null) {
+				// the stamp is computed before the data are loaded, a change made in the meantime is picked up by the next check
+				String stamp = computeStamps(hibSession, Collections.singleton(areaId)).get(areaId);
+				area = new AreaData(iSessionId, areaId);
+				area.load(hibSession);
+				iAreas.put(areaId, area);
+				if (stamp != null) iStamps.put(areaId, stamp);
+			}
+			return area;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Map<Long, String> computeStamps(org.hibernate.Session hibSession, Collection<Long> areaIds) {
+			Map<Long, StringBuffer> stamps = new HashMap<Long, StringBuffer>();
+			String[] queries = new String[] {
+					"select a.academicArea.uniqueId, count(a), sum(a.uniqueId), sum(a.academicClassification.uniqueId), sum(a.major.uniqueId) " +
+					"from StudentAreaClassificationMajor a where a.student.session.uniqueId = :sessionId and a.academicArea.uniqueId in (:areaIds) group by a.academicArea.uniqueId",
+					"select a.academicArea.uniqueId, count(e), sum(e.uniqueId), max(e.timestamp) from StudentClassEnrollment e inner join e.student s inner join s.areaClasfMajors a " +
+					"where s.session.uniqueId = :sessionId and a.academicArea.uniqueId in (:areaIds) group by a.academicArea.uniqueId",
+					"select a.academicArea.uniqueId, count(d), sum(d.uniqueId), max(d.timestamp) from CourseDemand d inner join d.student s inner join s.areaClasfMajors a " +
+					"where s.session.uniqueId = :sessionId and a.academicArea.uniqueId in (:areaIds) group by a.academicArea.uniqueId",
+			};
+			List<Long> ids = new ArrayList<Long>(areaIds);
+			for (int idx = 0; idx < ids.size(); idx += 1000) {
+				List<Long> chunk = ids.subList(idx, Math.min(idx + 1000, ids.size()));
+				for (int i = 0; i < queries.length; i++) {
+					for (Object[] o: (List<Object[]>)hibSession.createQuery(queries[i]).setLong("sessionId", iSessionId).setParameterList("areaIds", chunk).list())
+						addStamp(stamps, (Long)o[0], i, o);
+				}
+				// last-like demands are matched by the academic area abbreviation (their students may have the area of another session)
+				Map<String, Long> abbv2area = new HashMap<String, Long>();
+				for (Object[] o: (List<Object[]>)hibSession.createQuery(
+						"select a.uniqueId, a.academicAreaAbbreviation from AcademicArea a where a.uniqueId in (:areaIds)")
+						.setParameterList("areaIds", chunk).list())
+					abbv2area.put((String)o[1], (Long)o[0]);
+				if (abbv2area.isEmpty()) continue;
+				for (Object[] o: (List<Object[]>)hibSession.createQuery(
+						"select a.academicArea.academicAreaAbbreviation, count(x), sum(x.uniqueId), sum(a.uniqueId), sum(a.academicClassification.uniqueId), sum(a.major.uniqueId) " +
+						"from LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a " +
+						"where x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation in (:abbvs) group by a.academicArea.academicAreaAbbreviation")
+						.setLong("sessionId", iSessionId).setParameterList("abbvs", abbv2area.keySet()).list())
+					addStamp(stamps, abbv2area.get((String)o[0]), queries.length, o);
+			}
+			Map<Long, String> ret = new HashMap<Long, String>();
+			for (Map.Entry<Long, StringBuffer> e: stamps.entrySet())
+				ret.put(e.getKey(), e.getValue().toString());
+			return ret;
+		}
+		
+		private static void addStamp(Map<Long, StringBuffer> stamps, Long areaId, int query, Object[] line) {
+			if (areaId == null) return;
+			StringBuffer stamp = stamps.get(areaId);
+			if (stamp == null) {
+				stamp = new StringBuffer();
+				stamps.put(areaId, stamp);
+			}
+			stamp.append(query);
+			for (int i = 1; i < line.length; i++)
+				stamp.append(":").append(line[i] instanceof Date ? ((Date)line[i]).getTime() : line[i]);
+			stamp.append(";");
+		}
+	}
+
+	/**
+	 * Student academic area, classification, and major combination
+	 */
+	public static class StudentAreaClasfMajor {
+		private Long iStudentId, iClassificationId, iMajorId;
+		private String iClassificationCode, iMajorCode;
+
+		StudentAreaClasfMajor(Long studentId, Long classificationId, String classificationCode, Long majorId, String majorCode) {
+			iStudentId = studentId;
+			iClassificationId = classificationId; iClassificationCode = classificationCode;
+			iMajorId = majorId; iMajorCode = majorCode;
+		}
+
+		public Long getStudentId() { return iStudentId; }
+		public Long getClassificationId() { return iClassificationId; }
+		public String getClassificationCode() { return iClassificationCode; }
+		public Long getMajorId() { return iMajorId; }
+		public String getMajorCode() { return iMajorCode; }
+
+		boolean hasMajor(Collection<Long> majorIds, Collection<String> majorCodes) {
+			return (majorIds != null ? majorIds.contains(iMajorId) : majorCodes.contains(iMajorCode));
+		}
+	}
+
+	/**
+	 * Student data of one academic area
+	 */
+	public static class AreaData {
+		private Long iSessionId, iAreaId;
+		private String iAreaAbbv;
+		private Map<Long, List<StudentAreaClasfMajor>> iStudents = new HashMap<Long, List<StudentAreaClasfMajor>>();
+		private Map<Long, Set<CourseInterface>> iEnrollments = new HashMap<Long, Set<CourseInterface>>();
+		private Map<Long, Set<CourseInterface>> iRequests = new HashMap<Long, Set<CourseInterface>>();
+		private Map<Long, Set<CourseInterface>> iLastLikes = new HashMap<Long, Set<CourseInterface>>();
+		private Map<Long, List<StudentAreaClasfMajor>> iLastLikeStudents = new HashMap<Long, List<StudentAreaClasfMajor>>();
+		private Map<Long, CourseInterface> iCourses = new HashMap<Long, CourseInterface>();
+
+		AreaData(Long sessionId, Long areaId) {
+			iSessionId = sessionId; iAreaId = areaId;
+		}
+
+		public Long getAcademicAreaId() { return iAreaId; }
+		public String getAcademicAreaAbbreviation() { return iAreaAbbv; }
+
+		private CourseInterface getCourse(Long courseId, String courseName) {
+			CourseInterface course = iCourses.get(courseId);
+			if (course == null) {
+				course = new CourseInterface();
+				course.setId(courseId);
+				course.setCourseName(courseName);
+				iCourses.put(courseId, course);
+			}
+			return course;
+		}
+
+		private void addStudents(Map<Long, List<StudentAreaClasfMajor>> students, List<Object[]> lines) {
+			for (Object[] o: lines) {
+				Long studentId = (Long)o[0];
+				List<StudentAreaClasfMajor> acms = students.get(studentId);
+				if (acms == null) {
+					acms = new ArrayList<StudentAreaClasfMajor>();
+					students.put(studentId, acms);
+				}
+				acms.add(new StudentAreaClasfMajor(studentId, (Long)o[1], (String)o[2], (Long)o[3], (String)o[4]));
+			}
+		}
+
+		private void addCourses(Map<Long, Set<CourseInterface>> student2courses, List<Object[]> lines) {
+			for (Object[] o: lines) {
+				Long studentId = (Long)o[0];
+				Set<CourseInterface> courses = student2courses.get(studentId);
+				if (courses == null) {
+					courses = new HashSet<CourseInterface>();
+					student2courses.put(studentId, courses);
+				}
+				courses.add(getCourse((Long)o[1], (String)o[2]));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void load(org.hibernate.Session hibSession) {
+			long t0 = System.currentTimeMillis();
+			iAreaAbbv = (String)hibSession.createQuery("select a.academicAreaAbbreviation from AcademicArea a where a.uniqueId = :areaId")
+					.setLong("areaId", iAreaId).uniqueResult();
+
+			addStudents(iStudents, (List<Object[]>)hibSession.createQuery(
+					"select s.uniqueId, f.uniqueId, f.code, m.uniqueId, m.code from StudentAreaClassificationMajor a " +
+					"inner join a.student s inner join a.academicClassification f inner join a.major m " +
+					"where s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId")
+					.setLong("sessionId", iSessionId).setLong("areaId", iAreaId).list());
+
+			addCourses(iEnrollments, (List<Object[]>)hibSession.createQuery(
+					"select distinct s.uniqueId, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr " +
+					"from StudentClassEnrollment e inner join e.courseOffering co inner join e.student s inner join s.areaClasfMajors a " +
+					"where s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId")
+					.setLong("sessionId", iSessionId).setLong("areaId", iAreaId).list());
+
+			addCourses(iRequests, (List<Object[]>)hibSession.createQuery(
+					"select distinct s.uniqueId, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr " +
+					"from CourseRequest r inner join r.courseOffering co inner join r.courseDemand.student s inner join s.areaClasfMajors a " +
+					"where s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId")
+					.setLong("sessionId", iSessionId).setLong("areaId", iAreaId).list());
+
+			addStudents(iLastLikeStudents, (List<Object[]>)hibSession.createQuery(
+					"select distinct s.uniqueId, f.uniqueId, f.code, m.uniqueId, m.code from LastLikeCourseDemand x " +
+					"inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f inner join a.major m " +
+					"where x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv")
+					.setLong("sessionId", iSessionId).setString("acadAbbv", iAreaAbbv).list());
+
+			String[] checks = new String[] {
+					"co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.permId=x.coursePermId",
+					"co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.courseNbr=x.courseNbr",
+					"co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.demandOffering.permId=x.coursePermId",
+					"co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.demandOffering.courseNbr=x.courseNbr"
+			};
+			for (String check: checks)
+				addCourses(iLastLikes, (List<Object[]>)hibSession.createQuery(
+						"select distinct s.uniqueId, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr " +
+						"from CourseOffering co, LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a " +
+						"where x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and " + check)
+						.setLong("sessionId", iSessionId).setString("acadAbbv", iAreaAbbv).list());
+
+			sLog.debug("Loaded curriculum projections of " + iAreaAbbv + " (" + iStudents.size() + " students, took " + (System.currentTimeMillis() - t0) + " ms).");
+		}
+
+		/**
+		 * Student academic area, classification, and major combinations matching the given majors (either major ids or major codes are given).
+		 * When there are no majors, all students of the academic area are matching (none when multiple majors are required).
+		 * When multiple majors are required, a student must have all the majors and the combination with the first major is returned.
+		 */
+		public List<StudentAreaClasfMajor> getMatchingStudents(Collection<Long> majorIds, Collection<String> majorCodes, boolean multipleMajors) {
+			return getMatchingStudents(iStudents, majorIds, majorCodes, multipleMajors);
+		}
+		
+		protected List<StudentAreaClasfMajor> getMatchingStudents(Map<Long, List<StudentAreaClasfMajor>> students, Collection<Long> majorIds, Collection<String> majorCodes, boolean multipleMajors) {
+			int nrMajors = (majorIds != null ? majorIds.size() : majorCodes == null ? 0 : majorCodes.size());
+			List<StudentAreaClasfMajor> ret = new ArrayList<StudentAreaClasfMajor>();
+			if (nrMajors == 0) {
+				if (multipleMajors) return ret;
+				for (List<StudentAreaClasfMajor> acms: students.values())
+					ret.addAll(acms);
+			} else if (!multipleMajors || nrMajors == 1) {
+				for (List<StudentAreaClasfMajor> acms: students.values())
+					for (StudentAreaClasfMajor acm: acms)
+						if (acm.hasMajor(majorIds, majorCodes)) ret.add(acm);
+			} else {
+				Object first = (majorIds != null ? majorIds.iterator().next() : majorCodes.iterator().next());
+				students: for (List<StudentAreaClasfMajor> acms: students.values()) {
+					if (acms.size() < nrMajors) continue;
+					for (Object major: (majorIds != null ? majorIds : majorCodes)) {
+						boolean found = false;
+						for (StudentAreaClasfMajor acm: acms)
+							if (major.equals(majorIds != null ? acm.getMajorId() : acm.getMajorCode())) { found = true; break; }
+						if (!found) continue students;
+					}
+					for (StudentAreaClasfMajor acm: acms)
+						if (first.equals(majorIds != null ? acm.getMajorId() : acm.getMajorCode())) ret.add(acm);
+				}
+			}
+			return ret;
+		}
+
+		protected Map<Long, Set<Long>> getClasf2Students(Collection<Long> majorIds, boolean multipleMajors, Map<Long, Set<CourseInterface>> student2courses) {
+			Map<Long, Set<Long>> clasf2students = new HashMap<Long, Set<Long>>();
+			for (StudentAreaClasfMajor acm: getMatchingStudents(majorIds, null, multipleMajors)) {
+				if (!student2courses.containsKey(acm.getStudentId())) continue;
+				Set<Long> students = clasf2students.get(acm.getClassificationId());
+				if (students == null) {
+					students = new HashSet<Long>();
+					clasf2students.put(acm.getClassificationId(), students);
+				}
+				students.add(acm.getStudentId());
+			}
+			return clasf2students;
+		}
+
+		protected Map<Long, Map<CourseInterface, Set<Long>>> getClasf2Course2Students(Collection<Long> majorIds, boolean multipleMajors, Map<Long, Set<CourseInterface>> student2courses) {
+			Map<Long, Map<CourseInterface, Set<Long>>> clasf2course2students = new HashMap<Long, Map<CourseInterface, Set<Long>>>();
+			for (StudentAreaClasfMajor acm: getMatchingStudents(majorIds, null, multipleMajors)) {
+				Set<CourseInterface> courses = student2courses.get(acm.getStudentId());
+				if (courses == null) continue;
+				Map<CourseInterface, Set<Long>> course2students = clasf2course2students.get(acm.getClassificationId());
+				if (course2students == null) {
+					course2students = new HashMap<CourseInterface, Set<Long>>();
+					clasf2course2students.put(acm.getClassificationId(), course2students);
+				}
+				for (CourseInterface course: courses) {
+					Set<Long> students = course2students.get(course);
+					if (students == null) {
+						students = new HashSet<Long>();
+						course2students.put(course, students);
+					}
+					students.add(acm.getStudentId());
+				}
+			}
+			return clasf2course2students;
+		}
+
+		/** Enrolled students by academic classification id */
+		public Map<Long, Set<Long>> getClasf2Enrollment(Collection<Long> majorIds, boolean multipleMajors) {
+			return getClasf2Students(majorIds, multipleMajors, iEnrollments);
+		}
+
+		/** Students with course requests by academic classification id */
+		public Map<Long, Set<Long>> getClasf2Requested(Collection<Long> majorIds, boolean multipleMajors) {
+			return getClasf2Students(majorIds, multipleMajors, iRequests);
+		}
+
+		/** Enrolled students by academic classification id and course */
+		public Map<Long, Map<CourseInterface, Set<Long>>> getClasf2Course2Enrollment(Collection<Long> majorIds, boolean multipleMajors) {
+			return getClasf2Course2Students(majorIds, multipleMajors, iEnrollments);
+		}
+
+		/** Students with course requests by academic classification id and course */
+		public Map<Long, Map<CourseInterface, Set<Long>>> getClasf2Course2Requested(Collection<Long> majorIds, boolean multipleMajors) {
+			return getClasf2Course2Students(majorIds, multipleMajors, iRequests);
+		}
+
+		/**
+		 * Last-like students by academic classification code and major code. Students are grouped under an empty major code when
+		 * there are no majors or when multiple majors are required.
+		 */
+		public Map<String, Map<String, Set<Long>>> getClasf2Major2LastLike(Collection<String> majorCodes, boolean multipleMajors) {
+			Map<String, Map<String, Set<Long>>> clasf2major2students = new HashMap<String, Map<String, Set<Long>>>();
+			boolean groupMajors = (majorCodes.isEmpty() || (multipleMajors && majorCodes.size() > 1));
+			for (StudentAreaClasfMajor acm: getMatchingStudents(iLastLikeStudents, null, majorCodes, multipleMajors)) {
+				String majorCode = (groupMajors ? "" : acm.getMajorCode());
+				Map<String, Set<Long>> major2students = clasf2major2students.get(acm.getClassificationCode());
+				if (major2students == null) {
+					major2students = new HashMap<String, Set<Long>>();
+					clasf2major2students.put(acm.getClassificationCode(), major2students);
+				}
+				Set<Long> students = major2students.get(majorCode);
+				if (students == null) {
+					students = new HashSet<Long>();
+					major2students.put(majorCode, students);
+				}
+				students.add(acm.getStudentId());
+			}
+			return clasf2major2students;
+		}
+
+		/**
+		 * Last-like students by academic classification code, course, and major code. Students are grouped under an empty major code when
+		 * there are no majors. When multiple majors are required, students are either grouped under an empty major code or, when
+		 * expandMajors is set, listed under each of the majors.
+		 */
+		public Map<String, Map<CourseInterface, Map<String, Set<Long>>>> getClasf2Course2Major2LastLike(Collection<String> majorCodes, boolean multipleMajors, boolean expandMajors) {
+			Map<String, Map<CourseInterface, Map<String, Set<Long>>>> clasf2course2major2students = new HashMap<String, Map<CourseInterface, Map<String, Set<Long>>>>();
+			boolean multiple = (multipleMajors && majorCodes.size() > 1);
+			for (StudentAreaClasfMajor acm: getMatchingStudents(iLastLikeStudents, null, majorCodes, multipleMajors)) {
+				Set<CourseInterface> courses = iLastLikes.get(acm.getStudentId());
+				if (courses == null) continue;
+				Collection<String> studentMajors = null;
+				if (majorCodes.isEmpty() || (multiple && !expandMajors))
+					studentMajors = Collections.singleton("");
+				else if (multiple)
+					studentMajors = majorCodes;
+				else
+					studentMajors = Collections.singleton(acm.getMajorCode());
+				Map<CourseInterface, Map<String, Set<Long>>> course2major2students = clasf2course2major2students.get(acm.getClassificationCode());
+				if (course2major2students == null) {
+					course2major2students = new HashMap<CourseInterface, Map<String, Set<Long>>>();
+					clasf2course2major2students.put(acm.getClassificationCode(), course2major2students);
+				}
+				for (CourseInterface course: courses) {
+					Map<String, Set<Long>> major2students = course2major2students.get(course);
+					if (major2students == null) {
+						major2students = new HashMap<String, Set<Long>>();
+						course2major2students.put(course, major2students);
+					}
+					for (String majorCode: studentMajors) {
+						Set<Long> students = major2students.get(majorCode);
+						if (students == null) {
+							students = new HashSet<Long>();
+							major2students.put(majorCode, students);
+						}
+						students.add(acm.getStudentId());
+					}
+				}
+			}
+			return clasf2course2major2students;
+		}
+	}
+}
@@ -665,8 +665,6 @@ public class CurriculaServlet implements CurriculaService {
 			org.hibernate.Session hibSession = CurriculumDAO.getInstance().getSession();
 			boolean hasSnapshotData = hasSnapshotData(hibSession, getAcademicSessionId());
 			try {
-				AcademicArea acadArea = AcademicAreaDAO.getInstance().get(acadAreaId, hibSession);
-				
 				List<PosMajor> posMajors = new ArrayList<PosMajor>();
 				for (Long majorId: majors) {
 					posMajors.add(PosMajorDAO.getInstance().get(majorId,hibSession));
@@ -1479,8 +1477,6 @@ public class CurriculaServlet implements CurriculaService {
 				Hashtable<String,HashMap<String, Float>> rules = getRules(hibSession, acadAreaId);
 				Hashtable<String, HashMap<String, Float>> snapshotRules = getSnapshotRules(hibSession, acadAreaId);
 
-				AcademicArea acadArea = AcademicAreaDAO.getInstance().get(acadAreaId, hibSession);
-				
 				List<PosMajor> posMajors = new ArrayList<PosMajor>();
 				for (Long majorId: majors) {
 					posMajors.add(PosMajorDAO.getInstance().get(majorId,hibSession));
@@ -1494,9 +1490,9 @@ public class CurriculaServlet implements CurriculaService {
 				
 				Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> clasf2course2req = loadClasfCourse2req(hibSession, acadAreaId, majors, multipleMajors);
 				
-				Hashtable<String, HashMap<String, Set<Long>>> clasf2ll = loadClasfMajor2ll(hibSession, acadArea.getAcademicAreaAbbreviation(), posMajors, multipleMajors);
+				Hashtable<String, HashMap<String, Set<Long>>> clasf2ll = loadClasfMajor2ll(hibSession, acadAreaId, posMajors, multipleMajors);
 				
-				Hashtable<String, Hashtable<CourseInterface, HashMap<String, Set<Long>>>> clasf2course2ll = loadClasfCourseMajor2ll(hibSession, acadArea.getAcademicAreaAbbreviation(), posMajors, multipleMajors);
+				Hashtable<String, Hashtable<CourseInterface, HashMap<String, Set<Long>>>> clasf2course2ll = loadClasfCourseMajor2ll(hibSession, acadAreaId, posMajors, multipleMajors);
 				
 				for (AcademicClassificationInterface clasf: classifications) {
 					
@@ -3502,582 +3498,121 @@ public class CurriculaServlet implements CurriculaService {
 				.setCacheable(true).list();
 	}
 	
-	private Hashtable<Long, Integer> loadClasf2enrl(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, count(distinct s)";
-		String from = "StudentClassEnrollment e inner join e.student s inner join s.areaClasfMajors a";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		String group = "a.academicClassification.uniqueId";
-		if (c.getMajors().isEmpty()) {
-			// students with all majors
-			if (!c.isMultipleMajors())
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setCacheable(true).list();
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<Long> majorIds = new ArrayList<Long>();
-			for (PosMajor major: c.getMajors())
-				majorIds.add(major.getUniqueId());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and a.major.uniqueId in :majorIds group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setParameterList("majorIds", majorIds)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and a.major.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major.getUniqueId());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId());
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
+	private CurriculaProjectionCache.AreaData getAreaData(org.hibernate.Session hibSession, Curriculum c) {
+		return CurriculaProjectionCache.getAreaData(hibSession, c.getAcademicArea().getSessionId(), c.getAcademicArea().getUniqueId());
+	}
+	
+	private List<Long> getMajorIds(Curriculum c) {
+		List<Long> majorIds = new ArrayList<Long>();
+		for (PosMajor major: c.getMajors())
+			majorIds.add(major.getUniqueId());
+		return majorIds;
+	}
+	
+	private List<String> getMajorCodes(Collection<PosMajor> majors) {
+		List<String> majorCodes = new ArrayList<String>();
+		for (PosMajor major: majors)
+			majorCodes.add(major.getCode());
+		return majorCodes;
+	}
+	
+	private Hashtable<Long, Integer> countStudents(Map<Long, Set<Long>> clasf2students) {
+		Hashtable<Long, Integer> clasf2count = new Hashtable<Long, Integer>();
+		for (Map.Entry<Long, Set<Long>> e: clasf2students.entrySet())
+			clasf2count.put(e.getKey(), e.getValue().size());
+		return clasf2count;
+	}
+	
+	private Hashtable<Long, Hashtable<Long, Integer>> countCourseStudents(Map<Long, Map<CourseInterface, Set<Long>>> clasf2course2students) {
+		Hashtable<Long, Hashtable<Long, Integer>> clasf2course2count = new Hashtable<Long, Hashtable<Long, Integer>>();
+		for (Map.Entry<Long, Map<CourseInterface, Set<Long>>> e: clasf2course2students.entrySet()) {
+			Hashtable<Long, Integer> course2count = new Hashtable<Long, Integer>();
+			for (Map.Entry<CourseInterface, Set<Long>> f: e.getValue().entrySet())
+				course2count.put(f.getKey().getId(), f.getValue().size());
+			clasf2course2count.put(e.getKey(), course2count);
 		}
-		Hashtable<Long, Integer> clasf2enrl = new Hashtable<Long, Integer>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				int enrl = ((Number)o[1]).intValue();
-				if (clasfId != null)
-					clasf2enrl.put(clasfId, enrl);
-			}
-		return clasf2enrl;
+		return clasf2course2count;
+	}
+	
+	private Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> toHashtable(Map<Long, Map<CourseInterface, Set<Long>>> clasf2course2students) {
+		Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> ret = new Hashtable<Long, Hashtable<CourseInterface, Set<Long>>>();
+		for (Map.Entry<Long, Map<CourseInterface, Set<Long>>> e: clasf2course2students.entrySet())
+			ret.put(e.getKey(), new Hashtable<CourseInterface, Set<Long>>(e.getValue()));
+		return ret;
+	}
+	
+	private Hashtable<Long, Integer> loadClasf2enrl(org.hibernate.Session hibSession, Curriculum c) {
+		return countStudents(getAreaData(hibSession, c).getClasf2Enrollment(getMajorIds(c), c.isMultipleMajors()));
 	}
 	
 	private Hashtable<Long, Set<Long>> loadClasf2enrl(org.hibernate.Session hibSession, Long acadAreaId, Collection<Long> majors, boolean multipleMajors) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, s.uniqueId";
-		String from = "StudentClassEnrollment e inner join e.student s inner join s.areaClasfMajors a";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		if (majors.isEmpty()) {
-			// students with all majors
-			if (!multipleMajors)
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setCacheable(true).list();
-		} else if (!multipleMajors || majors.size() == 1) {
-			// students with one major
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and a.major.uniqueId in :majorIds")
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setParameterList("majorIds", majors)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (Long major: majors) {
-				if (idx == 0) {
-					where += " and a.major.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major);
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId);
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Set<Long>> clasf2enrl = new Hashtable<Long, Set<Long>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				Long studentId = (Long)o[1];
-				Set<Long> students = clasf2enrl.get(clasfId);
-				if (students == null) {
-					students = new HashSet<Long>();
-					clasf2enrl.put(clasfId, students);
-				}
-				students.add(studentId);
-			}
-		return clasf2enrl;
+		return new Hashtable<Long, Set<Long>>(CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Enrollment(majors, multipleMajors));
 	}
 	
 	private Hashtable<String, Hashtable<String, Integer>> loadClasfMajor2ll(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "f.code, m.code, count(distinct s)";
-		String from = "LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f inner join a.major m";
-		String where = "x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv";
-		String group = "f.code, m.code";
-		if (c.getMajors().isEmpty()) {
-			// students with all majors
-			if (!c.isMultipleMajors()) {
-				select = "f.code, '', count(distinct s)";
-				group = "f.code";
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-						.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-						.setCacheable(true).list();
-			}
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<String> majorCodes = new ArrayList<String>();
-			for (PosMajor major: c.getMajors())
-				majorCodes.add(major.getCode());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.code in :majorCodes group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-					.setParameterList("majorCodes", majorCodes)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			select = "f.code, '', count(distinct s)";
-			group = "f.code";
-			Map<String, String> params = new HashMap<String, String>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and m.code = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.academicAreaAbbreviation = :acadAbbv and a" + idx + ".major.code = :m" + idx;
-				}
-				params.put("m" + idx, major.getCode());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation());
-			for (Map.Entry<String, String> e: params.entrySet())
-				q.setString(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
 		Hashtable<String, Hashtable<String, Integer>> clasfMajor2ll = new Hashtable<String, Hashtable<String,Integer>>();
-		if (lines != null)
-			for (Object[] o: lines) {
-				String clasfCode = (String)o[0];
-				if (clasfCode == null) continue;
-				String majorCode = (String)o[1];
-				if (majorCode == null) majorCode = "";
-				int enrl = ((Number)o[2]).intValue();
-				Hashtable<String, Integer> major2ll = clasfMajor2ll.get(clasfCode);
-				if (major2ll == null) {
-					major2ll = new Hashtable<String, Integer>();
-					clasfMajor2ll.put(clasfCode, major2ll);
-				}
-				major2ll.put(majorCode, enrl);
-			}
+		for (Map.Entry<String, Map<String, Set<Long>>> e: getAreaData(hibSession, c).getClasf2Major2LastLike(getMajorCodes(c.getMajors()), c.isMultipleMajors()).entrySet()) {
+			Hashtable<String, Integer> major2ll = new Hashtable<String, Integer>();
+			for (Map.Entry<String, Set<Long>> f: e.getValue().entrySet())
+				major2ll.put(f.getKey(), f.getValue().size());
+			clasfMajor2ll.put(e.getKey(), major2ll);
+		}
 		return clasfMajor2ll;
 	}
 	
 	private Hashtable<String, Integer> loadClasf2ll(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "f.code, count(distinct s)";
-		String from = "LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f";
-		String where = "x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv";
-		String group = "f.code";
-		if (c.getMajors().isEmpty()) {
-			// students with all majors
-			if (!c.isMultipleMajors())
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-					.setCacheable(true).list();
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<String> majorCodes = new ArrayList<String>();
-			for (PosMajor major: c.getMajors())
-				majorCodes.add(major.getCode());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and a.major.code in :majorCodes group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-					.setParameterList("majorCodes", majorCodes)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, String> params = new HashMap<String, String>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and a.major.code = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.academicAreaAbbreviation = :acadAbbv and a" + idx + ".major.code = :m" + idx;
-				}
-				params.put("m" + idx, major.getCode());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation());
-			for (Map.Entry<String, String> e: params.entrySet())
-				q.setString(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
 		Hashtable<String, Integer> clasf2ll = new Hashtable<String, Integer>();
-		if (lines != null)
-			for (Object[] o: lines) {
-				String clasfCode = (String)o[0];
-				int enrl = ((Number)o[1]).intValue();
-				if (clasfCode != null)
-					clasf2ll.put(clasfCode, enrl);
-			}
+		for (Map.Entry<String, Map<String, Set<Long>>> e: getAreaData(hibSession, c).getClasf2Major2LastLike(getMajorCodes(c.getMajors()), c.isMultipleMajors()).entrySet()) {
+			Set<Long> students = new HashSet<Long>();
+			for (Set<Long> s: e.getValue().values())
+				students.addAll(s);
+			clasf2ll.put(e.getKey(), students.size());
+		}
 		return clasf2ll;
 	}
 	
-	private Hashtable<String, HashMap<String, Set<Long>>> loadClasfMajor2ll(org.hibernate.Session hibSession, String acadAreaAbbv, Collection<PosMajor> majors, boolean multipleMajors) {
-		List<Object[]> lines = null;
-		String select = "f.code, m.code, s.uniqueId";
-		String from = "LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f inner join a.major m";
-		String where = "x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv";
-		if (majors.isEmpty()) {
-			// students with all majors
-			if (!multipleMajors) {
-				select = "f.code, '', s.uniqueId";
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-						.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv)
-						.setCacheable(true).list();
-			}
-		} else if (!multipleMajors || majors.size() == 1) {
-			List<String> codes = new ArrayList<String>();
-			for (PosMajor major: majors)
-				codes.add(major.getCode());
-			// students with one major
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.code in :majorCodes")
-					.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv)
-					.setParameterList("majorCodes", codes)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			select = "f.code, '', s.uniqueId";
-			Map<String, String> params = new HashMap<String, String>();
-			int idx = 0;
-			for (PosMajor major: majors) {
-				if (idx == 0) {
-					where += " and m.code = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.academicAreaAbbreviation = :acadAbbv and a" + idx + ".major.code = :m" + idx;
-				}
-				params.put("m" + idx, major.getCode());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv);
-			for (Map.Entry<String, String> e: params.entrySet())
-				q.setString(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
+	private Hashtable<String, HashMap<String, Set<Long>>> loadClasfMajor2ll(org.hibernate.Session hibSession, Long acadAreaId, Collection<PosMajor> majors, boolean multipleMajors) {
 		Hashtable<String, HashMap<String, Set<Long>>> clasf2ll = new Hashtable<String, HashMap<String, Set<Long>>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				String clasfCode = (String)o[0];
-				String majorCode = (String)o[1];
-				if (majorCode == null) majorCode = "";
-				Long studentId = (Long)o[2];
-				HashMap<String, Set<Long>> major2students = clasf2ll.get(clasfCode);
-				if (major2students == null) {
-					major2students = new HashMap<String, Set<Long>>();
-					clasf2ll.put(clasfCode, major2students);
-				}
-				Set<Long> students = major2students.get(majorCode);
-				if (students == null) {
-					students = new HashSet<Long>();
-					major2students.put(majorCode, students);
-				}
-				students.add(studentId);
-			}
-		
+		for (Map.Entry<String, Map<String, Set<Long>>> e: CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Major2LastLike(getMajorCodes(majors), multipleMajors).entrySet())
+			clasf2ll.put(e.getKey(), new HashMap<String, Set<Long>>(e.getValue()));
 		return clasf2ll;
 	}
 	
 	private Hashtable<Long, Hashtable<Long, Integer>> loadClasfCourse2enrl(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, e.courseOffering.uniqueId, count(distinct s)";
-		String from = "StudentClassEnrollment e inner join e.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		String group = "a.academicClassification.uniqueId, e.courseOffering.uniqueId";
-		if (c.getMajors().isEmpty()) {
-			// students with no major
-			if (!c.isMultipleMajors())
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setCacheable(true).list();
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<Long> majorIds = new ArrayList<Long>();
-			for (PosMajor major: c.getMajors())
-				majorIds.add(major.getUniqueId());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setParameterList("majorIds", majorIds)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-					
-				}
-				params.put("m" + idx, major.getUniqueId());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId());
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Hashtable<Long, Integer>> clasf2course2enrl = new Hashtable<Long, Hashtable<Long,Integer>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				if (clasfId == null) continue;
-				Long courseId = (Long)o[1];
-				int enrl = ((Number)o[2]).intValue();
-				Hashtable<Long, Integer> course2enrl = clasf2course2enrl.get(clasfId);
-				if (course2enrl == null) {
-					course2enrl = new Hashtable<Long, Integer>();
-					clasf2course2enrl.put(clasfId, course2enrl);
-				}
-				course2enrl.put(courseId, enrl);
-			}		
-		return clasf2course2enrl;
+		return countCourseStudents(getAreaData(hibSession, c).getClasf2Course2Enrollment(getMajorIds(c), c.isMultipleMajors()));
 	}
 	
 	private Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> loadClasfCourse2enrl(org.hibernate.Session hibSession, Long acadAreaId, Collection<Long> majors, boolean multipleMajors) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, e.courseOffering.uniqueId, e.courseOffering.subjectArea.subjectAreaAbbreviation || ' ' || e.courseOffering.courseNbr, s.uniqueId";
-		String from = "StudentClassEnrollment e inner join e.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		if (majors.isEmpty()) {
-			// students with no major
-			if (!multipleMajors)
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setCacheable(true).list();
-		} else if (!multipleMajors || majors.size() == 1) {
-			// students with one major
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds")
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setParameterList("majorIds", majors)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (Long major: majors) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major);
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId);
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> clasf2course2enrl = new Hashtable<Long, Hashtable<CourseInterface,Set<Long>>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				Long courseId = (Long)o[1];
-				String courseName = (String)o[2];
-				Long studentId = (Long)o[3];
-				CourseInterface course = new CourseInterface();
-				course.setId(courseId);
-				course.setCourseName(courseName);
-				Hashtable<CourseInterface, Set<Long>> course2enrl = clasf2course2enrl.get(clasfId);
-				if (course2enrl == null) {
-					course2enrl = new Hashtable<CourseInterface, Set<Long>>();
-					clasf2course2enrl.put(clasfId, course2enrl);
-				}
-				Set<Long> students = course2enrl.get(course);
-				if (students == null) {
-					students = new HashSet<Long>();
-					course2enrl.put(course, students);
-				}
-				students.add(studentId);
-			}
-		
-		return clasf2course2enrl;
+		return toHashtable(CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Course2Enrollment(majors, multipleMajors));
 	}
 	
 	private Hashtable<String, Hashtable<String, Hashtable<Long, Integer>>> loadClasfMajorCourse2ll(org.hibernate.Session hibSession, Curriculum c) {
-		String select = "f.code, m.code, co.uniqueId, count(distinct s)";
-		String from = "CourseOffering co, LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f inner join a.major m";
-		String[] checks = new String[] {
-			"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.permId=x.coursePermId",
-			"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.courseNbr=x.courseNbr",
-			"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.demandOffering.permId=x.coursePermId",
-			"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.demandOffering.courseNbr=x.courseNbr"
-		};
-		String group = "f.code, m.code, co.uniqueId";
 		Hashtable<String, Hashtable<String, Hashtable<Long, Integer>>> clasfMajor2course2ll = new Hashtable<String, Hashtable<String, Hashtable<Long,Integer>>>();
-		for (String where: checks) {
-			List<Object[]> lines = null;
-			if (c.getMajors().isEmpty()) {
-				// students with no major
-				if (!c.isMultipleMajors()) {
-					select = "f.code, '', co.uniqueId, count(distinct s)";
-					group = "f.code, co.uniqueId";
-					lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-							.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-							.setCacheable(true).list();
-				}
-			} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-				// students with one major
-				List<String> majorCodes = new ArrayList<String>();
-				for (PosMajor major: c.getMajors())
-					majorCodes.add(major.getCode());
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.code in :majorCodes group by " + group)
-						.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation())
-						.setParameterList("majorCodes", majorCodes)
-						.setCacheable(true).list();
-			} else {
-				// students with multiple majors
-				select = "f.code, '', co.uniqueId, count(distinct s)";
-				group = "f.code, co.uniqueId";
-				Map<String, String> params = new HashMap<String, String>();
-				int idx = 0;
-				for (PosMajor major: c.getMajors()) {
-					if (idx == 0) {
-						where += " and m.code = :m" + idx;
-					} else {
-						from += " inner join s.areaClasfMajors a" + idx;
-						where += " and a" + idx + ".academicArea.academicAreaAbbreviation = :acadAbbv and a" + idx + ".major.code = :m" + idx;
+		for (Map.Entry<String, Map<CourseInterface, Map<String, Set<Long>>>> e: getAreaData(hibSession, c).getClasf2Course2Major2LastLike(getMajorCodes(c.getMajors()), c.isMultipleMajors(), false).entrySet()) {
+			Hashtable<String, Hashtable<Long, Integer>> major2course2ll = new Hashtable<String, Hashtable<Long,Integer>>();
+			for (Map.Entry<CourseInterface, Map<String, Set<Long>>> f: e.getValue().entrySet()) {
+				for (Map.Entry<String, Set<Long>> g: f.getValue().entrySet()) {
+					Hashtable<Long, Integer> course2ll = major2course2ll.get(g.getKey());
+					if (course2ll == null) {
+						course2ll = new Hashtable<Long, Integer>();
+						major2course2ll.put(g.getKey(), course2ll);
 					}
-					params.put("m" + idx, major.getCode());
-					idx ++;
+					course2ll.put(f.getKey().getId(), g.getValue().size());
 				}
-				org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-						.setLong("sessionId", c.getAcademicArea().getSessionId()).setString("acadAbbv", c.getAcademicArea().getAcademicAreaAbbreviation());
-				for (Map.Entry<String, String> e: params.entrySet())
-					q.setString(e.getKey(), e.getValue());
-				lines = q.setCacheable(true).list();
 			}
-			if (lines != null)
-				for (Object[] o: lines) {
-					String clasfCode = (String)o[0];
-					if (clasfCode == null) continue;
-					String majorCode = (String)o[1];
-					if (majorCode == null) majorCode = "";
-					Long courseId = (Long)o[2];
-					int enrl = ((Number)o[3]).intValue();
-					Hashtable<String, Hashtable<Long, Integer>> major2course2ll = clasfMajor2course2ll.get(clasfCode);
-					if (major2course2ll == null) {
-						major2course2ll = new Hashtable<String, Hashtable<Long,Integer>>();
-						clasfMajor2course2ll.put(clasfCode, major2course2ll);
-					}
-					Hashtable<Long, Integer> course2enrl = major2course2ll.get(majorCode);
-					if (course2enrl == null) {
-						course2enrl = new Hashtable<Long, Integer>();
-						major2course2ll.put(majorCode, course2enrl);
-					}
-					course2enrl.put(courseId, enrl);
-				}
+			clasfMajor2course2ll.put(e.getKey(), major2course2ll);
 		}
 		return clasfMajor2course2ll;
 	}
 	
-	private Hashtable<String, Hashtable<CourseInterface, HashMap<String, Set<Long>>>> loadClasfCourseMajor2ll(org.hibernate.Session hibSession, String acadAreaAbbv, Collection<PosMajor> majors, boolean multipleMajors) {
-		String select = "f.code, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr, m.code, s.uniqueId";
-		String from = "CourseOffering co, LastLikeCourseDemand x inner join x.student s inner join s.areaClasfMajors a inner join a.academicClassification f inner join a.major m";
-		String[] checks = new String[] {
-				"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.permId=x.coursePermId",
-				"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.courseNbr=x.courseNbr",
-				"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is not null and co.demandOffering.permId=x.coursePermId",
-				"x.subjectArea.session.uniqueId = :sessionId and a.academicArea.academicAreaAbbreviation = :acadAbbv and co.demandOffering.subjectArea.uniqueId = x.subjectArea.uniqueId and x.coursePermId is null and co.demandOffering.courseNbr=x.courseNbr"
-		};
+	private Hashtable<String, Hashtable<CourseInterface, HashMap<String, Set<Long>>>> loadClasfCourseMajor2ll(org.hibernate.Session hibSession, Long acadAreaId, Collection<PosMajor> majors, boolean multipleMajors) {
 		Hashtable<String, Hashtable<CourseInterface, HashMap<String, Set<Long>>>> clasf2course2ll = new Hashtable<String, Hashtable<CourseInterface,HashMap<String,Set<Long>>>>();
-		for (String where: checks) {
-			List<Object[]> lines = new ArrayList<Object[]>();
-			if (majors.isEmpty()) {
-				// students with no major
-				if (!multipleMajors) {
-					select = "f.code, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr, '', s.uniqueId";
-					lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-							.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv)
-							.setCacheable(true).list();
-				}
-			} else if (!multipleMajors || majors.size() == 1) {
-				List<String> codes = new ArrayList<String>();
-				for (PosMajor major: majors)
-					codes.add(major.getCode());
-				// students with one major
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.code in :majorCodes")
-						.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv)
-						.setParameterList("majorCodes", codes)
-						.setCacheable(true).list();
-			} else {
-				// students with multiple majors
-				select = "f.code, co.uniqueId, co.subjectArea.subjectAreaAbbreviation || ' ' || co.courseNbr, '', s.uniqueId";
-				Map<String, String> params = new HashMap<String, String>();
-				int idx = 0;
-				for (PosMajor major: majors) {
-					if (idx == 0) {
-						where += " and m.code = :m" + idx;
-					} else {
-						from += " inner join s.areaClasfMajors a" + idx;
-						where += " and a" + idx + ".academicArea.academicAreaAbbreviation = :acadAbbv and a" + idx + ".major.code = :m" + idx;
-					}
-					params.put("m" + idx, major.getCode());
-					idx ++;
-				}
-				org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-						.setLong("sessionId", getAcademicSessionId()).setString("acadAbbv", acadAreaAbbv);
-				for (Map.Entry<String, String> e: params.entrySet())
-					q.setString(e.getKey(), e.getValue());
-				lines = q.setCacheable(true).list();
-			}
-			if (lines != null)
-				for (Object[] o : lines) {
-					String clasfCode = (String)o[0];
-					Long courseId = (Long)o[1];
-					String courseName = (String)o[2];
-					String majorCode = (String)o[3];
-					if (majorCode == null) majorCode = "";
-					Long studentId = (Long)o[4];
-					CourseInterface course = new CourseInterface();
-					course.setId(courseId);
-					course.setCourseName(courseName);
-					Hashtable<CourseInterface, HashMap<String,Set<Long>>> course2ll = clasf2course2ll.get(clasfCode);
-					if (course2ll == null) {
-						course2ll = new Hashtable<CourseInterface, HashMap<String,Set<Long>>>();
-						clasf2course2ll.put(clasfCode, course2ll);
-					}
-					HashMap<String,Set<Long>> major2students = course2ll.get(course);
-					if (major2students == null) {
-						major2students = new HashMap<String, Set<Long>>();
-						course2ll.put(course, major2students);
-					}
-					if (multipleMajors && majors.size() > 1) {
-						for (PosMajor major: majors) {
-							Set<Long> students = major2students.get(major.getCode());
-							if (students == null) {
-								students = new HashSet<Long>();
-								major2students.put(major.getCode(), students);
-							}
-							students.add(studentId);
-						}
-					} else {
-						Set<Long> students = major2students.get(majorCode);
-						if (students == null) {
-							students = new HashSet<Long>();
-							major2students.put(majorCode, students);
-						}
-						students.add(studentId);
-					}
-				}			
+		for (Map.Entry<String, Map<CourseInterface, Map<String, Set<Long>>>> e: CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Course2Major2LastLike(getMajorCodes(majors), multipleMajors, true).entrySet()) {
+			Hashtable<CourseInterface, HashMap<String, Set<Long>>> course2ll = new Hashtable<CourseInterface, HashMap<String,Set<Long>>>();
+			for (Map.Entry<CourseInterface, Map<String, Set<Long>>> f: e.getValue().entrySet())
+				course2ll.put(f.getKey(), new HashMap<String, Set<Long>>(f.getValue()));
+			clasf2course2ll.put(e.getKey(), course2ll);
 		}
-		
 		return clasf2course2ll;
 	}
 	
@@ -4232,228 +3767,19 @@ public class CurriculaServlet implements CurriculaService {
 	}
 	
 	private Hashtable<Long, Integer> loadClasf2req(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, count(distinct s)";
-		String from = "CourseRequest r inner join r.courseDemand.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		String group = "a.academicClassification.uniqueId";
-		if (c.getMajors().isEmpty()) {
-			// students with no major
-			if (!c.isMultipleMajors())
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where  + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setCacheable(true).list();
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<Long> majorIds = new ArrayList<Long>();
-			for (PosMajor major: c.getMajors())
-				majorIds.add(major.getUniqueId());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds  group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setParameterList("majorIds", majorIds)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major.getUniqueId());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId());
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Integer> clasf2enrl = new Hashtable<Long, Integer>();
-		if (lines != null)
-			for (Object[] o: lines) {
-				Long clasfId = (Long)o[0];
-				int enrl = ((Number)o[1]).intValue();
-				if (clasfId != null)
-					clasf2enrl.put(clasfId, enrl);
-			}
-		return clasf2enrl;
+		return countStudents(getAreaData(hibSession, c).getClasf2Requested(getMajorIds(c), c.isMultipleMajors()));
 	}
 	
 	private Hashtable<Long, Set<Long>> loadClasf2req(org.hibernate.Session hibSession, Long acadAreaId, Collection<Long> majors, boolean multipleMajors) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, s.uniqueId";
-		String from = "CourseRequest r inner join r.courseDemand.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		if (majors.isEmpty()) {
-			// students with no major
-			if (!multipleMajors)
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setCacheable(true).list();
-		} else if (!multipleMajors || majors.size() == 1) {
-			// students with one major
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds")
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setParameterList("majorIds", majors)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (Long major: majors) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major);
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId);
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Set<Long>> clasf2enrl = new Hashtable<Long, Set<Long>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				Long studentId = (Long)o[1];
-				Set<Long> students = clasf2enrl.get(clasfId);
-				if (students == null) {
-					students = new HashSet<Long>();
-					clasf2enrl.put(clasfId, students);
-				}
-				students.add(studentId);
-			}
-		return clasf2enrl;
+		return new Hashtable<Long, Set<Long>>(CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Requested(majors, multipleMajors));
 	}
 	
 	private Hashtable<Long, Hashtable<Long, Integer>> loadClasfCourse2req(org.hibernate.Session hibSession, Curriculum c) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, r.courseOffering.uniqueId, count(distinct s)";
-		String from = "CourseRequest r inner join r.courseDemand.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		String group = "a.academicClassification.uniqueId, r.courseOffering.uniqueId";
-		if (c.getMajors().isEmpty()) {
-			// students with no major
-			if (!c.isMultipleMajors())
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setCacheable(true).list();
-		} else if (!c.isMultipleMajors() || c.getMajors().size() == 1) {
-			// students with one major
-			List<Long> majorIds = new ArrayList<Long>();
-			for (PosMajor major: c.getMajors())
-				majorIds.add(major.getUniqueId());
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId())
-					.setParameterList("majorIds", majorIds)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (PosMajor major: c.getMajors()) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a" + idx + ".academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major.getUniqueId());
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where + " group by " + group)
-					.setLong("sessionId", c.getAcademicArea().getSessionId()).setLong("areaId", c.getAcademicArea().getUniqueId());
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Hashtable<Long, Integer>> clasf2course2enrl = new Hashtable<Long, Hashtable<Long,Integer>>();
-		if (lines != null)
-			for (Object[] o: lines) {
-				Long clasfId = (Long)o[0];
-				if (clasfId == null) continue;
-				Long courseId = (Long)o[1];
-				int enrl = ((Number)o[2]).intValue();
-				Hashtable<Long, Integer> course2enrl = clasf2course2enrl.get(clasfId);
-				if (course2enrl == null) {
-					course2enrl = new Hashtable<Long, Integer>();
-					clasf2course2enrl.put(clasfId, course2enrl);
-				}
-				course2enrl.put(courseId, enrl);
-			}
-		return clasf2course2enrl;
+		return countCourseStudents(getAreaData(hibSession, c).getClasf2Course2Requested(getMajorIds(c), c.isMultipleMajors()));
 	}
 	
 	private Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> loadClasfCourse2req(org.hibernate.Session hibSession, Long acadAreaId, Collection<Long> majors, boolean multipleMajors) {
-		List<Object[]> lines = null;
-		String select = "a.academicClassification.uniqueId, r.courseOffering.uniqueId, r.courseOffering.subjectArea.subjectAreaAbbreviation || ' ' || r.courseOffering.courseNbr, s.uniqueId";
-		String from = "CourseRequest r inner join r.courseDemand.student s inner join s.areaClasfMajors a inner join a.major m";
-		String where = "s.session.uniqueId = :sessionId and a.academicArea.uniqueId = :areaId";
-		if (majors.isEmpty()) {
-			// students with no major
-			if (!multipleMajors)
-				lines = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setCacheable(true).list();
-		} else if (!multipleMajors || majors.size() == 1) {
-			// students with one major
-			lines = hibSession.createQuery("select " + select + " from " + from + " where " + where + " and m.uniqueId in :majorIds")
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId)
-					.setParameterList("majorIds", majors)
-					.setCacheable(true).list();
-		} else {
-			// students with multiple majors
-			Map<String, Long> params = new HashMap<String, Long>();
-			int idx = 0;
-			for (Long major: majors) {
-				if (idx == 0) {
-					where += " and m.uniqueId = :m" + idx;
-				} else {
-					from += " inner join s.areaClasfMajors a" + idx;
-					where += " and a.academicArea.uniqueId = :areaId and a" + idx + ".major.uniqueId = :m" + idx;
-				}
-				params.put("m" + idx, major);
-				idx ++;
-			}
-			org.hibernate.Query q = hibSession.createQuery("select " + select + " from " + from + " where " + where)
-					.setLong("sessionId", getAcademicSessionId()).setLong("areaId", acadAreaId);
-			for (Map.Entry<String, Long> e: params.entrySet())
-				q.setLong(e.getKey(), e.getValue());
-			lines = q.setCacheable(true).list();
-		}
-		Hashtable<Long, Hashtable<CourseInterface, Set<Long>>> clasf2course2enrl = new Hashtable<Long, Hashtable<CourseInterface,Set<Long>>>();
-		if (lines != null)
-			for (Object[] o : lines) {
-				Long clasfId = (Long)o[0];
-				Long courseId = (Long)o[1];
-				String courseName = (String)o[2];
-				Long studentId = (Long)o[3];
-				CourseInterface course = new CourseInterface();
-				course.setId(courseId);
-				course.setCourseName(courseName);
-				Hashtable<CourseInterface, Set<Long>> course2enrl = clasf2course2enrl.get(clasfId);
-				if (course2enrl == null) {
-					course2enrl = new Hashtable<CourseInterface, Set<Long>>();
-					clasf2course2enrl.put(clasfId, course2enrl);
-				}
-				Set<Long> students = course2enrl.get(course);
-				if (students == null) {
-					students = new HashSet<Long>();
-					course2enrl.put(course, students);
-				}
-				students.add(studentId);
-			}
-		
-		return clasf2course2enrl;
+		return toHashtable(CurriculaProjectionCache.getAreaData(hibSession, getAcademicSessionId(), acadAreaId).getClasf2Course2Requested(majors, multipleMajors));
 	}
 	
 	private Map<Long, Map<Long, Map<Long, Set<Long>>>> loadAreaMajorClasf2req(org.hibernate.Session hibSession, Long courseOfferingId) {
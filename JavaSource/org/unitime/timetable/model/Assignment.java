@@ -19,13 +19,17 @@
 */
 package org.unitime.timetable.model;
 
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
 import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
@@ -348,15 +352,31 @@ public class Assignment extends BaseAssignment {
 	}
 	
     public ClassEvent generateCommittedEvent(ClassEvent event, boolean createNoRoomMeetings) {
+    	return generateCommittedEvent(event, createNoRoomMeetings, null);
+    }
+    
+    /**
+     * Update the given class event (or create a new one when null) to match this assignment.
+     * Meetings that are already in place are kept, only the missing meetings are added and the ones that are no longer valid are removed.
+     * @param changes counts the changes made to the event (can be null), see {@link Solution.CommitChanges#isEventChanged()}
+     */
+    public ClassEvent generateCommittedEvent(ClassEvent event, boolean createNoRoomMeetings, Solution.CommitChanges changes) {
     	Class_ clazz = getClazz();
+    	boolean changed = false;
         if (event==null) {
             event = new ClassEvent();
             event.setClazz(clazz); clazz.setEvent(event);
             if (getClazz().getSession().getStatusType().isTestSession()) return null;
+            changed = true;
+        }
+        String name = getClassName();
+        Integer limit = clazz.getClassLimit(this);
+        if (!name.equals(event.getEventName()) || !limit.equals(event.getMinCapacity()) || !limit.equals(event.getMaxCapacity())) {
+        	event.setEventName(name);
+        	event.setMinCapacity(limit);
+        	event.setMaxCapacity(limit);
+        	changed = true;
         }
-        event.setEventName(getClassName());
-        event.setMinCapacity(clazz.getClassLimit(this));
-        event.setMaxCapacity(clazz.getClassLimit(this));
         
         boolean changePast = ApplicationProperty.ClassAssignmentChangePastMeetings.isTrue();
 		Calendar cal = Calendar.getInstance(Locale.US);
@@ -365,14 +385,23 @@ public class Assignment extends BaseAssignment {
 		cal.set(Calendar.SECOND, 0);
 		cal.set(Calendar.MILLISECOND, 0);
 		Date today = cal.getTime();
-        
+		
+		DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+		Map<String, Meeting> oldMeetings = new HashMap<String, Meeting>();
 		if (event.getMeetings() != null) {
-			if (changePast) {
-				event.getMeetings().clear();
-			} else {
-		    	for (Iterator<Meeting> i = event.getMeetings().iterator(); i.hasNext(); )
-		    		if (!i.next().getMeetingDate().before(today)) i.remove();
-			}
+	    	for (Iterator<Meeting> i = event.getMeetings().iterator(); i.hasNext(); ) {
+	    		Meeting m = i.next();
+	    		if (!changePast && m.getMeetingDate().before(today)) continue;
+	    		String key = meetingKey(df, m);
+	    		if (oldMeetings.containsKey(key)) {
+	    			// duplicate meeting
+	    			i.remove();
+	    			if (changes != null) changes.iMeetingsRemoved ++;
+	    			changed = true;
+	    		} else {
+	    			oldMeetings.put(key, m);
+	    		}
+	    	}
 		} else {
 			event.setMeetings(new HashSet());
         }
@@ -396,7 +425,13 @@ public class Assignment extends BaseAssignment {
                         m.setStatus(Meeting.Status.APPROVED);
                         m.setApprovalDate(getSolution().getCommitDate());
                         m.setEvent(event);
-                        event.getMeetings().add(m);
+                        if (oldMeetings.remove(meetingKey(df, m)) != null) {
+                        	if (changes != null) changes.iMeetingsKept ++;
+                        } else {
+                        	event.getMeetings().add(m);
+                        	if (changes != null) changes.iMeetingsAdded ++;
+                        	changed = true;
+                        }
                         created = true;
                     }
                 }
@@ -412,11 +447,25 @@ public class Assignment extends BaseAssignment {
                     m.setStatus(Meeting.Status.APPROVED);
                     m.setApprovalDate(getSolution().getCommitDate());
                     m.setEvent(event);
-                    event.getMeetings().add(m);
+                    if (oldMeetings.remove(meetingKey(df, m)) != null) {
+                    	if (changes != null) changes.iMeetingsKept ++;
+                    } else {
+                    	event.getMeetings().add(m);
+                    	if (changes != null) changes.iMeetingsAdded ++;
+                    	changed = true;
+                    }
                 }
             }
 		}
 		
+		// remove meetings that are no longer valid
+		for (Meeting m: oldMeetings.values()) {
+			event.getMeetings().remove(m);
+			if (changes != null) changes.iMeetingsRemoved ++;
+			changed = true;
+		}
+		if (changes != null) changes.iEventChanged = changed;
+		
 		/*
         DatePattern dp = getDatePattern();
         cal.setTime(dp.getStartDate()); cal.setLenient(true);
@@ -476,6 +525,10 @@ public class Assignment extends BaseAssignment {
         return event;
     }
     
+    private static String meetingKey(DateFormat df, Meeting m) {
+    	return df.format(m.getMeetingDate()) + ":" + m.getStartPeriod() + ":" + m.getStartOffset() + ":" + m.getStopPeriod() + ":" + m.getStopOffset() + ":" + m.getLocationPermanentId();
+    }
+    
     public boolean shareDays(Assignment another) {
         return ((getDays() & another.getDays()) !=0 );
     }
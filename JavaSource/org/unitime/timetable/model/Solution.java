@@ -20,6 +20,7 @@
 package org.unitime.timetable.model;
 
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -128,30 +129,54 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 	}
 	
 	public void uncommitSolution(org.hibernate.Session hibSession, String sendNotificationPuid) {
+		uncommitSolution(hibSession, sendNotificationPuid, null, null);
+	}
+	
+	/**
+	 * Uncommit the solution
+	 * @param keepClassIds classes whose events are left in place (e.g., because they are going to be committed by a new solution right away), can be null
+	 * @param changes counts the changes made to the class events, can be null
+	 */
+	public void uncommitSolution(org.hibernate.Session hibSession, String sendNotificationPuid, Set<Long> keepClassIds, CommitChanges changes) {
 		if (DEBUG) sLog.debug("uncommit["+getUniqueId()+","+getOwner().getName()+"] -------------------------------------------------------");
 		setCommitDate(null);
 		setCommited(Boolean.FALSE);
 
 		hibSession.update(this);
 		
+		removeClassEvents(hibSession, sendNotificationPuid, keepClassIds, false, changes);
+
+//		removeDivSecNumbers(hibSession);
+		
+		if (sendNotificationPuid!=null) sendNotification(this, null, sendNotificationPuid, true, null);
+
+		// Manually fix the Clazz_.committedAssignment cache.
+		for (Assignment a: getAssignments())
+			a.getClazz().setCommittedAssignment(null);
+	}
+	
+	/**
+	 * Remove class events of the given classes that were kept by {@link #uncommitSolution(org.hibernate.Session, String, Set, CommitChanges)},
+	 * to be used when the new solution failed to commit.
+	 */
+	public void uncommitClassEvents(org.hibernate.Session hibSession, String sendNotificationPuid, Set<Long> classIds, CommitChanges changes) {
+		if (classIds == null || classIds.isEmpty()) return;
+		removeClassEvents(hibSession, sendNotificationPuid, classIds, true, changes);
+	}
+	
+	private void removeClassEvents(org.hibernate.Session hibSession, String sendNotificationPuid, Set<Long> classIds, boolean include, CommitChanges changes) {
 	    if (ApplicationProperty.ClassAssignmentChangePastMeetings.isTrue()) {
-			deleteObjects(hibSession,
-		              "ClassEvent",
-		              "select e.uniqueId from Solution s inner join s.assignments a, ClassEvent e where e.clazz=a.clazz and s.uniqueId=:solutionId");
+	    	List<Long> eventIds = new ArrayList<Long>();
+	    	for (Object[] o: (List<Object[]>)hibSession.createQuery(
+	    			"select e.uniqueId, a.clazz.uniqueId from Solution s inner join s.assignments a, ClassEvent e where e.clazz=a.clazz and s.uniqueId=:solutionId")
+	    			.setLong("solutionId", getUniqueId()).list()) {
+	    		if (classIds == null || classIds.contains((Long)o[1]) == include)
+	    			eventIds.add((Long)o[0]);
+	    	}
+	    	int deleted = deleteObjects(hibSession, "ClassEvent", eventIds);
+	    	if (changes != null) changes.iEventsDeleted += deleted;
 	    } else {
-			EventContact contact = (sendNotificationPuid == null ? null : EventContact.findByExternalUniqueId(sendNotificationPuid));
-		    if (contact == null && sendNotificationPuid != null) {
-		        TimetableManager manager = TimetableManager.findByExternalId(sendNotificationPuid);
-		        if (manager != null) {
-			        contact = new EventContact();
-			        contact.setFirstName(manager.getFirstName());
-		            contact.setMiddleName(manager.getMiddleName());
-			        contact.setLastName(manager.getLastName());
-			        contact.setExternalUniqueId(manager.getExternalUniqueId());
-			        contact.setEmailAddress(manager.getEmailAddress());
-			        hibSession.save(contact);
-		        }
-		    }
+			EventContact contact = findContact(hibSession, sendNotificationPuid);
 		    
 			Calendar cal = Calendar.getInstance(Locale.US);
 			cal.set(Calendar.HOUR_OF_DAY, 0);
@@ -164,10 +189,15 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 					"select e from Solution s inner join s.assignments a, ClassEvent e where e.clazz=a.clazz and s.uniqueId=:solutionId")
 					.setLong("solutionId", getUniqueId()).list();
 			for (ClassEvent event: events) {
+				if (classIds != null && classIds.contains(event.getClazz().getUniqueId()) != include) continue;
 	        	for (Iterator<Meeting> i = event.getMeetings().iterator(); i.hasNext(); )
-	        		if (!i.next().getMeetingDate().before(today)) i.remove();
+	        		if (!i.next().getMeetingDate().before(today)) {
+	        			i.remove();
+	        			if (changes != null) changes.iMeetingsRemoved ++;
+	        		}
 	        	if (event.getMeetings().isEmpty()) {
 	        		hibSession.delete(event);
+	        		if (changes != null) changes.iEventsDeleted ++;
 	        	} else {
 	    			if (event.getNotes() == null)
 	    				event.setNotes(new HashSet<EventNote>());
@@ -181,17 +211,38 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 					note.setMeetings(MSG.classMeetingsNotApplicable());
 					event.getNotes().add(note);
 	        		hibSession.saveOrUpdate(event);
+	        		if (changes != null) { changes.iEventsUpdated ++; changes.iNotesAdded ++; }
 	        	}
 			}
 	    }
-
-//		removeDivSecNumbers(hibSession);
-		
-		if (sendNotificationPuid!=null) sendNotification(this, null, sendNotificationPuid, true, null);
-
-		// Manually fix the Clazz_.committedAssignment cache.
+	}
+	
+	private static EventContact findContact(org.hibernate.Session hibSession, String puid) {
+		if (puid == null) return null;
+		EventContact contact = EventContact.findByExternalUniqueId(puid);
+	    if (contact == null) {
+	        TimetableManager manager = TimetableManager.findByExternalId(puid);
+	        if (manager != null) {
+		        contact = new EventContact();
+		        contact.setFirstName(manager.getFirstName());
+	            contact.setMiddleName(manager.getMiddleName());
+		        contact.setLastName(manager.getLastName());
+		        contact.setExternalUniqueId(manager.getExternalUniqueId());
+		        contact.setEmailAddress(manager.getEmailAddress());
+		        hibSession.save(contact);
+	        }
+	    }
+	    return contact;
+	}
+	
+	/**
+	 * Unique ids of all the classes of this solution
+	 */
+	public Set<Long> getClassIds() {
+		Set<Long> classIds = new HashSet<Long>();
 		for (Assignment a: getAssignments())
-			a.getClazz().setCommittedAssignment(null);
+			classIds.add(a.getClassId());
+		return classIds;
 	}
 	
 	public boolean commitSolution(Vector messages, org.hibernate.Session hibSession) {
@@ -244,14 +295,29 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
     }
 
 	public boolean commitSolution(List<String> messages, org.hibernate.Session hibSession, String sendNotificationPuid) {
+		CommitChanges changes = new CommitChanges();
+		boolean ret = commitSolution(messages, hibSession, sendNotificationPuid, changes);
+		sLog.info("Solution " + getOwner().getName() + (ret ? " committed: " : " failed to commit: ") + changes);
+		return ret;
+	}
+	
+	/**
+	 * Commit the solution. Class events of the classes that are in the solution are updated in place: only the changed events get updated
+	 * (with a note), only the meetings that have changed are added or removed. 
+	 * @param changes counts the changes made to the class events, can be null
+	 */
+	public boolean commitSolution(List<String> messages, org.hibernate.Session hibSession, String sendNotificationPuid, CommitChanges changes) {
+		if (changes == null) changes = new CommitChanges();
 		List solutions = hibSession.createCriteria(Solution.class).add(Restrictions.eq("owner",getOwner())).list();
 		Solution uncommittedSolution = null;
+		Set<Long> keepClassIds = null;
 		for (Iterator i=solutions.iterator();i.hasNext();) {
 			Solution s = (Solution)i.next();
 			if (s.equals(this)) continue;
 			if (s.isCommited().booleanValue()) {
 				uncommittedSolution = s;
-				s.uncommitSolution(hibSession, null);
+				if (keepClassIds == null) keepClassIds = getClassIds();
+				s.uncommitSolution(hibSession, null, keepClassIds, changes);
 			}
 		}
 		if (DEBUG) sLog.debug("commit["+getUniqueId()+","+getOwner().getName()+"] -------------------------------------------------------");
@@ -298,6 +364,8 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 		}
 		
 		if (!isOK) {
+			if (uncommittedSolution != null)
+				uncommittedSolution.uncommitClassEvents(hibSession, sendNotificationPuid, keepClassIds, changes);
 			if (sendNotificationPuid!=null) sendNotification(uncommittedSolution, this, sendNotificationPuid, false, messages);
 			return false;
 		}
@@ -340,22 +408,7 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 		
 //		createDivSecNumbers(hibSession, messages);
 		
-		EventContact contact = null;
-		if (sendNotificationPuid!=null) {
-		    contact = EventContact.findByExternalUniqueId(sendNotificationPuid);
-		    if (contact==null) {
-		        TimetableManager manager = TimetableManager.findByExternalId(sendNotificationPuid);
-		        if (manager != null) {
-		        	contact = new EventContact();
-		        	contact.setFirstName(manager.getFirstName());
-		        	contact.setMiddleName(manager.getMiddleName());
-		        	contact.setLastName(manager.getLastName());
-		        	contact.setExternalUniqueId(manager.getExternalUniqueId());
-		        	contact.setEmailAddress(manager.getEmailAddress());
-		        	hibSession.save(contact);
-		        }
-		    }
-		}
+		EventContact contact = findContact(hibSession, sendNotificationPuid);
         Hashtable<Long,ClassEvent> classEvents = new Hashtable();
         for (Iterator i=hibSession.createQuery(
                 "select e from Solution s inner join s.assignments a, ClassEvent e where e.clazz=a.clazz and s.uniqueId=:solutionId")
@@ -366,9 +419,16 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
         }
 		for (Iterator i=getAssignments().iterator();i.hasNext();) {
 		    Assignment a = (Assignment)i.next();
-		    ClassEvent event = a.generateCommittedEvent(classEvents.get(a.getClassId()),true);
-		    classEvents.remove(a.getClassId());
+		    ClassEvent event = a.generateCommittedEvent(classEvents.remove(a.getClassId()), true, changes);
 		    if (event != null && !event.getMeetings().isEmpty()) {
+		    	if (!changes.isEventChanged()) {
+		    		changes.iEventsUnchanged ++;
+		    		continue;
+		    	}
+		    	if (event.getUniqueId() == null)
+		    		changes.iEventsCreated ++;
+		    	else
+		    		changes.iEventsUpdated ++;
 		        event.setMainContact(contact);
     			if (event.getNotes() == null)
     				event.setNotes(new HashSet<EventNote>());
@@ -381,16 +441,20 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 				note.setTextNote(MSG.classNoteCommitted(getOwner().getName()));
 				note.setMeetings(a.getPlacement().getLongName(CONSTANTS.useAmPm()));
 				event.getNotes().add(note);
+				changes.iNotesAdded ++;
 		        hibSession.saveOrUpdate(event);
 		    }
-		    if (event != null && event.getMeetings().isEmpty() && event.getUniqueId() != null)
+		    if (event != null && event.getMeetings().isEmpty() && event.getUniqueId() != null) {
 		    	hibSession.delete(event);
+		    	changes.iEventsDeleted ++;
+		    }
 		}
 		
 		if (ApplicationProperty.ClassAssignmentChangePastMeetings.isTrue()) {
-			for (Enumeration e=classEvents.elements();e.hasMoreElements();) {
-			    ClassEvent event = (ClassEvent)e.nextElement();
-			    hibSession.delete(event);
+			// the events are loaded in the session, delete them one by one so that no deleted instance is left attached
+			for (ClassEvent event: classEvents.values()) {
+				hibSession.delete(event);
+				changes.iEventsDeleted ++;
 			}
 		} else {
 			Calendar cal = Calendar.getInstance(Locale.US);
@@ -403,9 +467,13 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 			for (Enumeration e=classEvents.elements();e.hasMoreElements();) {
 			    ClassEvent event = (ClassEvent)e.nextElement();
 	        	for (Iterator<Meeting> i = event.getMeetings().iterator(); i.hasNext(); )
-	        		if (!i.next().getMeetingDate().before(today)) i.remove();
+	        		if (!i.next().getMeetingDate().before(today)) {
+	        			i.remove();
+	        			changes.iMeetingsRemoved ++;
+	        		}
 	        	if (event.getMeetings().isEmpty()) {
 	        		hibSession.delete(event);
+	        		changes.iEventsDeleted ++;
 	        	} else {
 	    			if (event.getNotes() == null)
 	    				event.setNotes(new HashSet<EventNote>());
@@ -419,6 +487,7 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 					note.setMeetings(MSG.classMeetingsNotApplicable());
 					event.getNotes().add(note);
 	        		hibSession.saveOrUpdate(event);
+	        		changes.iEventsUpdated ++; changes.iNotesAdded ++;
 	        	}
 			}
 		}
@@ -678,6 +747,21 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
 			hibSession.createQuery("delete "+objectName+" as x where x.uniqueId in ("+ids+")").executeUpdate();
 	}
 	
+	private int deleteObjects(org.hibernate.Session hibSession, String objectName, Collection<Long> ids) {
+		int deleted = 0;
+		List<Long> batch = new ArrayList<Long>();
+		for (Long id: ids) {
+			batch.add(id);
+			if (batch.size() == 100) {
+				deleted += hibSession.createQuery("delete "+objectName+" as x where x.uniqueId in (:ids)").setParameterList("ids", batch).executeUpdate();
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty())
+			deleted += hibSession.createQuery("delete "+objectName+" as x where x.uniqueId in (:ids)").setParameterList("ids", batch).executeUpdate();
+		return deleted;
+	}
+	
 	public void delete(org.hibernate.Session hibSession) {
 		// NOTE: In order to decrease the amount of interaction between solutions persistance of committed student conflicts was disabled
 		/*
@@ -1550,4 +1634,42 @@ public class Solution extends BaseSolution implements ClassAssignmentProxy {
         }
         return table;
     }
+    
+    /**
+     * Counts the class events, meetings, and event notes touched by a solution commit (or uncommit).
+     */
+    public static class CommitChanges {
+    	int iEventsCreated = 0, iEventsUpdated = 0, iEventsDeleted = 0, iEventsUnchanged = 0;
+    	int iMeetingsAdded = 0, iMeetingsRemoved = 0, iMeetingsKept = 0;
+    	int iNotesAdded = 0;
+    	boolean iEventChanged = false;
+    	
+    	public int getEventsCreated() { return iEventsCreated; }
+    	public int getEventsUpdated() { return iEventsUpdated; }
+    	public int getEventsDeleted() { return iEventsDeleted; }
+    	public int getEventsUnchanged() { return iEventsUnchanged; }
+    	public int getMeetingsAdded() { return iMeetingsAdded; }
+    	public int getMeetingsRemoved() { return iMeetingsRemoved; }
+    	public int getMeetingsKept() { return iMeetingsKept; }
+    	public int getNotesAdded() { return iNotesAdded; }
+    	
+    	/**
+    	 * True if the last event passed to {@link Assignment#generateCommittedEvent(ClassEvent, boolean, CommitChanges)} has been created or changed
+    	 */
+    	public boolean isEventChanged() { return iEventChanged; }
+    	
+    	/**
+    	 * Number of event, meeting, and event note rows inserted, updated, or deleted
+    	 */
+    	public int getRowsTouched() {
+    		return iEventsCreated + iEventsUpdated + iEventsDeleted + iMeetingsAdded + iMeetingsRemoved + iNotesAdded;
+    	}
+    	
+    	@Override
+    	public String toString() {
+    		return "events: " + iEventsCreated + " created, " + iEventsUpdated + " updated, " + iEventsDeleted + " deleted, " + iEventsUnchanged + " unchanged; " +
+    				"meetings: " + iMeetingsAdded + " added, " + iMeetingsRemoved + " removed, " + iMeetingsKept + " kept; " +
+    				"notes: " + iNotesAdded + " added";
+    	}
+    }
 }
@@ -23,12 +23,15 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
 
+import javax.transaction.Synchronization;
+
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.DocumentHelper;
@@ -37,9 +40,11 @@ import org.dom4j.io.OutputFormat;
 import org.dom4j.io.SAXReader;
 import org.dom4j.io.XMLWriter;
 import org.hibernate.HibernateException;
+import org.hibernate.Transaction;
 import org.unitime.timetable.model.base.BaseStudentSectioningQueue;
 import org.unitime.timetable.onlinesectioning.OnlineSectioningLog;
 import org.unitime.timetable.security.UserContext;
+import org.unitime.timetable.util.CalendarFeedCache;
 
 /**
  * @author Tomas Muller
@@ -188,31 +193,65 @@ public class StudentSectioningQueue extends BaseStudentSectioningQueue implement
 				.setType(OnlineSectioningLog.Entity.EntityType.MANAGER).build();
 	}
 	
+	/**
+	 * Drop the calendar feeds that depend on the changed session, students, or classes. The feeds are dropped right away and, when
+	 * there is an active transaction, once more after it completes, so that a feed generated while the change was not yet
+	 * committed does not remain cached.
+	 */
+	private static void invalidateCalendarFeeds(org.hibernate.Session hibSession, final Long sessionId, Collection<Long> studentIdsToInvalidate, Collection<Long> classIdsToInvalidate) {
+		CalendarFeedCache.invalidateSession(sessionId);
+		CalendarFeedCache.invalidateStudents(studentIdsToInvalidate);
+		CalendarFeedCache.invalidateClasses(classIdsToInvalidate);
+		Transaction tx = (hibSession == null ? null : hibSession.getTransaction());
+		if (tx != null && tx.isActive()) {
+			final List<Long> studentIds = (studentIdsToInvalidate == null ? null : new ArrayList<Long>(studentIdsToInvalidate));
+			final List<Long> classIds = (classIdsToInvalidate == null ? null : new ArrayList<Long>(classIdsToInvalidate));
+			tx.registerSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {}
+				
+				@Override
+				public void afterCompletion(int status) {
+					CalendarFeedCache.invalidateSession(sessionId);
+					CalendarFeedCache.invalidateStudents(studentIds);
+					CalendarFeedCache.invalidateClasses(classIds);
+				}
+			});
+		}
+	}
+	
 	public static void sessionStatusChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, boolean reload) {
 		addItem(hibSession, user, sessionId, (reload ? Type.SESSION_RELOAD : Type.SESSION_STATUS_CHANGE));
+		invalidateCalendarFeeds(hibSession, sessionId, null, null);
 	}
 	
 	public static void allStudentsChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId) {
 		addItem(hibSession, user, sessionId, Type.STUDENT_ENROLLMENT_CHANGE);
+		invalidateCalendarFeeds(hibSession, sessionId, null, null);
 	}
 
 	public static void studentChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, Collection<Long> studentIds) {
 		addItem(hibSession, user, sessionId, Type.STUDENT_ENROLLMENT_CHANGE, studentIds);
+		invalidateCalendarFeeds(hibSession, null, studentIds, null);
 	}
 	
 	public static void classAssignmentChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, Collection<Long> classIds) {
 		addItem(hibSession, user, sessionId, Type.CLASS_ASSIGNMENT_CHANGE, classIds);
+		invalidateCalendarFeeds(hibSession, null, null, classIds);
 	}
 	
 	public static void classAssignmentChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, Long... classIds) {
 		addItem(hibSession, user, sessionId, Type.CLASS_ASSIGNMENT_CHANGE, classIds);
+		invalidateCalendarFeeds(hibSession, null, null, Arrays.asList(classIds));
 	}
 	
 	public static void offeringChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, Collection<Long> offeringId) {
 		addItem(hibSession, user, sessionId, Type.OFFERING_CHANGE, offeringId);
+		invalidateCalendarFeeds(hibSession, sessionId, null, null);
 	}
 
 	public static void offeringChanged(org.hibernate.Session hibSession, UserContext user, Long sessionId, Long... offeringId) {
 		addItem(hibSession, user, sessionId, Type.OFFERING_CHANGE, offeringId);
+		invalidateCalendarFeeds(hibSession, sessionId, null, null);
 	}
 }
@@ -0,0 +1,454 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.onlinesectioning.custom.purdue;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.log4j.Logger;
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.gwt.shared.SectioningException;
+
+/**
+ * Restlet client shared by all the integrations using the same remote API (e.g., banner.xe or purdue.specreg).
+ * Besides sharing one HTTP client (and its keep-alive connections), the client limits the number of concurrent calls,
+ * stops calling the remote API for a while when it keeps failing (circuit breaker), can cache responses of idempotent
+ * status checks for a short time, and keeps latency histograms for each endpoint.<br>
+ * The following properties are used (with the client name as prefix, e.g., purdue.specreg.readTimeout):
+ * <ul>
+ * <li>readTimeout, connectTimeout: HTTP timeouts in milliseconds
+ * <li>maxConcurrentRequests, queueTimeout: maximal number of concurrent calls, and how long (in milliseconds) a call can wait for a slot
+ * <li>breaker.failures, breaker.openTime: number of consecutive failures after which the API is not called, and for how long (in milliseconds)
+ * <li>cacheTTL: how long (in milliseconds) are cached responses kept
+ * <li>asyncThreads: number of threads used for asynchronous calls
+ * </ul>
+ */
+public class IntegrationClient {
+	private static Logger sLog = Logger.getLogger(IntegrationClient.class);
+	private static Map<String, IntegrationClient> sClients = new TreeMap<String, IntegrationClient>();
+	
+	private String iName;
+	private int iReferences = 0;
+	private Client iClient;
+	private Semaphore iConcurrentRequests;
+	private int iMaxConcurrentRequests;
+	private long iQueueTimeout;
+	private CircuitBreaker iBreaker;
+	private long iCacheTTL;
+	private Map<String, CachedResponse> iCache = new ConcurrentHashMap<String, CachedResponse>();
+	private ConcurrentHashMap<String, LatencyHistogram> iLatencies = new ConcurrentHashMap<String, LatencyHistogram>();
+	private ExecutorService iExecutor = null;
+	private int iAsyncThreads;
+	
+	protected IntegrationClient(String name) {
+		iName = name;
+		List<Protocol> protocols = new ArrayList<Protocol>();
+		protocols.add(Protocol.HTTP);
+		protocols.add(Protocol.HTTPS);
+		Context cx = new Context();
+		cx.getParameters().add("readTimeout", getProperty("readTimeout", "60000"));
+		cx.getParameters().add("socketConnectTimeoutMs", getProperty("connectTimeout", "10000"));
+		iClient = new Client(cx, protocols);
+		iMaxConcurrentRequests = Integer.parseInt(getProperty("maxConcurrentRequests", "50"));
+		iConcurrentRequests = new Semaphore(iMaxConcurrentRequests, true);
+		iQueueTimeout = Long.parseLong(getProperty("queueTimeout", "10000"));
+		iBreaker = new CircuitBreaker(Integer.parseInt(getProperty("breaker.failures", "10")), Long.parseLong(getProperty("breaker.openTime", "30000")));
+		iCacheTTL = Long.parseLong(getProperty("cacheTTL", "5000"));
+		iAsyncThreads = Integer.parseInt(getProperty("asyncThreads", "4"));
+		try {
+			iClient.start();
+		} catch (Exception e) {
+			sLog.error("Failed to start " + iName + " client: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Shared client of the given name, call {@link IntegrationClient#release()} when no longer needed
+	 */
+	public static IntegrationClient getInstance(String name) {
+		synchronized (sClients) {
+			IntegrationClient client = sClients.get(name);
+			if (client == null) {
+				client = new IntegrationClient(name);
+				sClients.put(name, client);
+			}
+			client.iReferences ++;
+			return client;
+		}
+	}
+	
+	/**
+	 * Release the client, the client is stopped when it is no longer used
+	 */
+	public void release() {
+		synchronized (sClients) {
+			iReferences --;
+			if (iReferences > 0) return;
+			sClients.remove(iName);
+		}
+		if (!iLatencies.isEmpty())
+			sLog.info("Stopping " + iName + " client: " + this);
+		if (iExecutor != null) iExecutor.shutdownNow();
+		try {
+			iClient.stop();
+		} catch (Exception e) {
+			sLog.error(e.getMessage(), e);
+		}
+	}
+	
+	protected String getProperty(String name, String defaultValue) {
+		return ApplicationProperties.getProperty(iName + "." + name, defaultValue);
+	}
+	
+	public String getName() { return iName; }
+	
+	/**
+	 * Create a new resource that is using the shared client
+	 */
+	public ClientResource createResource(String url) {
+		ClientResource resource = new ClientResource(url);
+		resource.setNext(iClient);
+		return resource;
+	}
+	
+	/**
+	 * Call GET on the given resource (see {@link ClientResource#get(MediaType)})
+	 * @param endpoint endpoint name, used for the latency statistics
+	 */
+	public Representation get(String endpoint, final ClientResource resource, final MediaType mediaType) throws ResourceException {
+		return execute(endpoint, new Callable<Representation>() {
+			@Override
+			public Representation call() throws Exception {
+				return resource.get(mediaType);
+			}
+		});
+	}
+	
+	/**
+	 * Call GET on the given resource, a response of the same request that is not older than the cacheTTL is returned when available.
+	 * Only use this for idempotent status checks (see also {@link IntegrationClient#invalidate(String, String)}).
+	 * @param endpoint endpoint name, used for the latency statistics and for the cache invalidation
+	 * @return response entity
+	 */
+	public Representation getCached(String endpoint, final ClientResource resource, final MediaType mediaType) throws ResourceException {
+		if (iCacheTTL <= 0) {
+			get(endpoint, resource, mediaType);
+			return resource.getResponseEntity();
+		}
+		String key = endpoint + "|" + resource.getReference().toString();
+		CachedResponse cached = iCache.get(key);
+		if (cached != null && !cached.isExpired())
+			return new StringRepresentation(cached.getText(), cached.getMediaType());
+		get(endpoint, resource, mediaType);
+		Representation entity = resource.getResponseEntity();
+		if (entity == null || !entity.isAvailable()) return entity;
+		try {
+			String text = entity.getText();
+			if (iCache.size() > 10000) removeExpired();
+			iCache.put(key, new CachedResponse(text, entity.getMediaType(), System.currentTimeMillis() + iCacheTTL));
+			return new StringRepresentation(text, entity.getMediaType());
+		} catch (IOException e) {
+			throw new ResourceException(e);
+		}
+	}
+	
+	/**
+	 * Remove cached responses of the given endpoint
+	 * @param endpoint endpoint name
+	 * @param match if not null, only responses to requests containing the given string (e.g., studentId=123) are removed
+	 */
+	public void invalidate(String endpoint, String match) {
+		for (Iterator<String> i = iCache.keySet().iterator(); i.hasNext(); ) {
+			String key = i.next();
+			if (key.startsWith(endpoint + "|") && (match == null || key.contains(match)))
+				i.remove();
+		}
+	}
+	
+	protected void removeExpired() {
+		for (Iterator<CachedResponse> i = iCache.values().iterator(); i.hasNext(); )
+			if (i.next().isExpired()) i.remove();
+	}
+	
+	/**
+	 * Call GET on the given resource in a background thread
+	 * @param endpoint endpoint name, used for the latency statistics
+	 * @param cached use {@link IntegrationClient#getCached(String, ClientResource, MediaType)}
+	 * @return response entity (buffered), the resource is released when done
+	 */
+	public Future<Representation> getAsync(final String endpoint, final ClientResource resource, final MediaType mediaType, final boolean cached) {
+		return getExecutor().submit(new Callable<Representation>() {
+			@Override
+			public Representation call() throws Exception {
+				try {
+					if (cached)
+						return getCached(endpoint, resource, mediaType);
+					get(endpoint, resource, mediaType);
+					Representation entity = resource.getResponseEntity();
+					if (entity == null || !entity.isAvailable()) return entity;
+					return new StringRepresentation(entity.getText(), entity.getMediaType());
+				} finally {
+					if (resource.getResponse() != null) resource.getResponse().release();
+					resource.release();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Call POST on the given resource (see {@link ClientResource#post(Object)})
+	 * @param endpoint endpoint name, used for the latency statistics
+	 */
+	public Representation post(String endpoint, final ClientResource resource, final Object entity) throws ResourceException {
+		return execute(endpoint, new Callable<Representation>() {
+			@Override
+			public Representation call() throws Exception {
+				return resource.post(entity);
+			}
+		});
+	}
+	
+	protected synchronized ExecutorService getExecutor() {
+		if (iExecutor == null) {
+			iExecutor = Executors.newFixedThreadPool(iAsyncThreads, new ThreadFactory() {
+				private AtomicInteger iThreadId = new AtomicInteger(0);
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "IntegrationClient-" + iName + "-" + iThreadId.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return iExecutor;
+	}
+	
+	protected <T> T execute(String endpoint, Callable<T> call) throws ResourceException {
+		if (!iBreaker.isCallPermitted())
+			throw new SectioningException(iName + " is not responding, please try again later.");
+		try {
+			if (!iConcurrentRequests.tryAcquire(iQueueTimeout, TimeUnit.MILLISECONDS))
+				throw new SectioningException(iName + " is too busy (" + iMaxConcurrentRequests + " pending requests), please try again later.");
+		} catch (InterruptedException e) {
+			throw new SectioningException(iName + " call was interrupted.", e);
+		}
+		long t0 = System.currentTimeMillis();
+		boolean failed = false;
+		try {
+			return call.call();
+		} catch (ResourceException e) {
+			failed = (e.getStatus() == null || e.getStatus().isConnectorError() || e.getStatus().isServerError());
+			throw e;
+		} catch (RuntimeException e) {
+			failed = true;
+			throw e;
+		} catch (Exception e) {
+			failed = true;
+			throw new ResourceException(e);
+		} finally {
+			iConcurrentRequests.release();
+			getLatencyHistogram(endpoint).add(System.currentTimeMillis() - t0, failed);
+			if (failed) {
+				if (iBreaker.failure())
+					sLog.warn(iName + " failed " + iBreaker.getFailures() + " times in a row, it will not be called for the next " + (iBreaker.getOpenTime() / 1000) + " seconds.");
+			} else {
+				iBreaker.success();
+			}
+		}
+	}
+	
+	protected LatencyHistogram getLatencyHistogram(String endpoint) {
+		LatencyHistogram histogram = iLatencies.get(endpoint);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			LatencyHistogram other = iLatencies.putIfAbsent(endpoint, histogram);
+			if (other != null) histogram = other;
+		}
+		return histogram;
+	}
+	
+	/**
+	 * Latency histograms of the endpoints that have been called
+	 */
+	public Map<String, LatencyHistogram> getLatencies() {
+		return new TreeMap<String, LatencyHistogram>(iLatencies);
+	}
+	
+	/**
+	 * False when the remote API is not being called because of too many failures
+	 */
+	public boolean isAvailable() {
+		return !iBreaker.isOpen();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuffer ret = new StringBuffer(iName);
+		if (iBreaker.isOpen()) ret.append(" (not available)");
+		for (Map.Entry<String, LatencyHistogram> e: getLatencies().entrySet())
+			ret.append("\n  " + e.getKey() + ": " + e.getValue());
+		return ret.toString();
+	}
+	
+	/**
+	 * Stop calling the remote API after the given number of consecutive failures, try again after the open time has passed
+	 */
+	public static class CircuitBreaker {
+		private int iMaxFailures;
+		private long iOpenTime;
+		private AtomicInteger iFailures = new AtomicInteger(0);
+		private AtomicLong iOpenUntil = new AtomicLong(0);
+		
+		public CircuitBreaker(int maxFailures, long openTime) {
+			iMaxFailures = maxFailures; iOpenTime = openTime;
+		}
+		
+		public boolean isCallPermitted() {
+			if (iMaxFailures <= 0) return true;
+			long openUntil = iOpenUntil.get();
+			if (openUntil == 0) return true;
+			// after the open time, let one call through (others are rejected until it finishes)
+			return System.currentTimeMillis() >= openUntil && iOpenUntil.compareAndSet(openUntil, System.currentTimeMillis() + iOpenTime);
+		}
+		
+		public boolean isOpen() {
+			long openUntil = iOpenUntil.get();
+			return openUntil != 0 && System.currentTimeMillis() < openUntil;
+		}
+		
+		public void success() {
+			iFailures.set(0);
+			iOpenUntil.set(0);
+		}
+		
+		/**
+		 * @return true if the breaker has been opened by this failure
+		 */
+		public boolean failure() {
+			if (iMaxFailures <= 0) return false;
+			if (iFailures.incrementAndGet() >= iMaxFailures) {
+				long openUntil = iOpenUntil.get();
+				return iOpenUntil.compareAndSet(openUntil, System.currentTimeMillis() + iOpenTime) && openUntil == 0;
+			}
+			return false;
+		}
+		
+		public int getFailures() { return iFailures.get(); }
+		public long getOpenTime() { return iOpenTime; }
+	}
+	
+	/**
+	 * Call latencies of an endpoint
+	 */
+	public static class LatencyHistogram {
+		private static final long[] sLimits = new long[] { 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000 };
+		private AtomicLongArray iCounts = new AtomicLongArray(sLimits.length + 1);
+		private AtomicLong iCount = new AtomicLong(0), iFailures = new AtomicLong(0), iTotal = new AtomicLong(0), iMax = new AtomicLong(0);
+		
+		public void add(long time, boolean failed) {
+			int bucket = 0;
+			while (bucket < sLimits.length && time > sLimits[bucket]) bucket++;
+			iCounts.incrementAndGet(bucket);
+			iCount.incrementAndGet();
+			if (failed) iFailures.incrementAndGet();
+			iTotal.addAndGet(time);
+			long max = iMax.get();
+			while (time > max && !iMax.compareAndSet(max, time))
+				max = iMax.get();
+		}
+		
+		public long getCount() { return iCount.get(); }
+		public long getFailures() { return iFailures.get(); }
+		public long getMax() { return iMax.get(); }
+		public double getAverage() {
+			long count = iCount.get();
+			return (count == 0 ? 0.0 : ((double)iTotal.get()) / count);
+		}
+		
+		/**
+		 * Upper bound of the given percentile (0.0 .. 1.0) in milliseconds, -1 when it is above the largest bucket
+		 */
+		public long getPercentile(double percentile) {
+			long count = iCount.get();
+			if (count == 0) return 0;
+			long limit = (long)Math.ceil(percentile * count), sum = 0;
+			for (int i = 0; i < sLimits.length; i++) {
+				sum += iCounts.get(i);
+				if (sum >= limit) return sLimits[i];
+			}
+			return -1;
+		}
+		
+		@Override
+		public String toString() {
+			DecimalFormat df = new DecimalFormat("0.0");
+			long p50 = getPercentile(0.5), p95 = getPercentile(0.95), p99 = getPercentile(0.99);
+			StringBuffer buckets = new StringBuffer();
+			for (int i = 0; i <= sLimits.length; i++) {
+				long c = iCounts.get(i);
+				if (c == 0) continue;
+				if (buckets.length() > 0) buckets.append(", ");
+				buckets.append((i < sLimits.length ? "<=" + sLimits[i] : ">" + sLimits[sLimits.length - 1]) + "ms:" + c);
+			}
+			return "calls=" + getCount() + ", failures=" + getFailures() + ", avg=" + df.format(getAverage()) + "ms, max=" + getMax() + "ms" +
+					", p50" + (p50 < 0 ? ">" + sLimits[sLimits.length - 1] : "<=" + p50) + "ms" +
+					", p95" + (p95 < 0 ? ">" + sLimits[sLimits.length - 1] : "<=" + p95) + "ms" +
+					", p99" + (p99 < 0 ? ">" + sLimits[sLimits.length - 1] : "<=" + p99) + "ms [" + buckets + "]";
+		}
+	}
+	
+	protected static class CachedResponse {
+		private String iText;
+		private MediaType iMediaType;
+		private long iExpiration;
+		
+		CachedResponse(String text, MediaType mediaType, long expiration) {
+			iText = text; iMediaType = mediaType; iExpiration = expiration;
+		}
+		
+		public String getText() { return iText; }
+		public MediaType getMediaType() { return iMediaType; }
+		public boolean isExpired() { return System.currentTimeMillis() > iExpiration; }
+	}
+}
@@ -44,8 +44,6 @@ import org.hibernate.FlushMode;
 import org.hibernate.Transaction;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.restlet.Client;
-import org.restlet.data.Protocol;
 import org.restlet.resource.ClientResource;
 import org.unitime.timetable.ApplicationProperties;
 import org.unitime.timetable.defaults.ApplicationProperty;
@@ -91,7 +89,7 @@ public class PurdueBatchSolverValidator extends StudentSectioningSaver {
     private String iOwnerId = null;
     private Progress iProgress = null;
 
-    private Client iClient;
+    private IntegrationClient iClient;
 	private ExternalTermProvider iExternalTermProvider;
 	private AcademicSessionInfo iSession;
 	private InMemoryReport iCSV;
@@ -126,10 +124,7 @@ public class PurdueBatchSolverValidator extends StudentSectioningSaver {
 	@Override
 	public void save() throws Exception {
 		iProgress.setStatus("Validating solution ...");
-		List<Protocol> protocols = new ArrayList<Protocol>();
-		protocols.add(Protocol.HTTP);
-		protocols.add(Protocol.HTTPS);
-		iClient = new Client(protocols);
+		iClient = IntegrationClient.getInstance("purdue.specreg");
 		iCSV.setHeader(new CSVField[] {
 				new CSVField("PUID"),
 				new CSVField("Name"),
@@ -166,11 +161,7 @@ public class PurdueBatchSolverValidator extends StudentSectioningSaver {
             if (tx != null) tx.rollback();
         } finally {
             if (hibSession!=null && hibSession.isOpen()) hibSession.close();
-			try {
-				iClient.stop();
-			} catch (Exception e) {
-				sLog.error(e.getMessage(), e);
-			}
+			iClient.release();
 		}
 	}
 	
@@ -334,15 +325,14 @@ public class PurdueBatchSolverValidator extends StudentSectioningSaver {
 		CheckRestrictionsResponse resp = null;
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiValidationSite());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiValidationSite());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson();
 			action.addOptionBuilder().setKey("validation_request").setValue(gson.toJson(req));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<CheckRestrictionsRequest>(req));
+			iClient.post("checkRestrictions", resource, new GsonRepresentation<CheckRestrictionsRequest>(req));
 			
 			action.setApiPostTime(System.currentTimeMillis() - t1);
 			
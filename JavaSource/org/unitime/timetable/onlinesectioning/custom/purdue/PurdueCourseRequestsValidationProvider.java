@@ -34,6 +34,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.cpsolver.coursett.model.TimeLocation;
@@ -61,10 +63,8 @@ import org.cpsolver.studentsct.online.selection.SuggestionSelection;
 import org.cpsolver.studentsct.reservation.Reservation;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.restlet.Client;
-import org.restlet.Context;
 import org.restlet.data.MediaType;
-import org.restlet.data.Protocol;
+import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
 import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.ApplicationProperties;
@@ -153,16 +153,11 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 	protected static final StudentSectioningMessages MESSAGES = Localization.create(StudentSectioningMessages.class);
 	protected static Format<Number> sCreditFormat = Formats.getNumberFormat("0.##");
 	
-	private Client iClient;
+	private IntegrationClient iClient;
 	private ExternalTermProvider iExternalTermProvider;
 	
 	public PurdueCourseRequestsValidationProvider() {
-		List<Protocol> protocols = new ArrayList<Protocol>();
-		protocols.add(Protocol.HTTP);
-		protocols.add(Protocol.HTTPS);
-		iClient = new Client(protocols);
-		Context cx = new Context();
-		cx.getParameters().add("readTimeout", getSpecialRegistrationApiReadTimeout());
+		iClient = IntegrationClient.getInstance("purdue.specreg");
 		try {
 			String clazz = ApplicationProperty.CustomizationExternalTerm.value();
 			if (clazz == null || clazz.isEmpty())
@@ -179,10 +174,6 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		return ApplicationProperties.getProperty("purdue.specreg.site");
 	}
 	
-	protected String getSpecialRegistrationApiReadTimeout() {
-		return ApplicationProperties.getProperty("purdue.specreg.readTimeout", "60000");
-	}
-	
 	protected String getSpecialRegistrationApiValidationSite() {
 		return ApplicationProperties.getProperty("purdue.specreg.site.validation", getSpecialRegistrationApiSite() + "/checkRestrictions");
 	}
@@ -540,8 +531,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			CheckRestrictionsResponse resp = null;
 			ClientResource resource = null;
 			try {
-				resource = new ClientResource(getSpecialRegistrationApiValidationSite());
-				resource.setNext(iClient);
+				resource = iClient.createResource(getSpecialRegistrationApiValidationSite());
 				resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 				
 				Gson gson = getGson(helper);
@@ -550,7 +540,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 				helper.getAction().addOptionBuilder().setKey("validation_request").setValue(gson.toJson(req));
 				long t1 = System.currentTimeMillis();
 				
-				resource.post(new GsonRepresentation<CheckRestrictionsRequest>(req));
+				iClient.post("checkRestrictions", resource, new GsonRepresentation<CheckRestrictionsRequest>(req));
 				
 				helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 				
@@ -926,11 +916,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 
 	@Override
 	public void dispose() {
-		try {
-			iClient.stop();
-		} catch (Exception e) {
-			sLog.error(e.getMessage(), e);
-		}	
+		iClient.release();
 	}
 
 	@Override
@@ -963,8 +949,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		Map<String, Set<String>> overrides = new HashMap<String, Set<String>>();
 		Float maxCredit = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -980,11 +965,11 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			
 			long t1 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			Representation entity = iClient.getCached("checkSpecialRegistrationStatus", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiGetTime(System.currentTimeMillis() - t1);
 			
-			SpecialRegistrationStatusResponse status = (SpecialRegistrationStatusResponse)new GsonRepresentation<SpecialRegistrationStatusResponse>(resource.getResponseEntity(), SpecialRegistrationStatusResponse.class).getObject();
+			SpecialRegistrationStatusResponse status = (SpecialRegistrationStatusResponse)new GsonRepresentation<SpecialRegistrationStatusResponse>(entity, SpecialRegistrationStatusResponse.class).getObject();
 			Gson gson = getGson(helper);
 			
 			if (helper.isDebugEnabled())
@@ -1186,8 +1171,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		if (!req.changes.isEmpty() || !overrides.isEmpty() || req.maxCredit != null) {
 			resource = null;
 			try {
-				resource = new ClientResource(getSpecialRegistrationApiSiteSubmitRegistration());
-				resource.setNext(iClient);
+				resource = iClient.createResource(getSpecialRegistrationApiSiteSubmitRegistration());
 				resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 				
 				Gson gson = getGson(helper);
@@ -1196,7 +1180,8 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 				helper.getAction().addOptionBuilder().setKey("specreg_request").setValue(gson.toJson(req));
 				long t1 = System.currentTimeMillis();
 				
-				resource.post(new GsonRepresentation<SpecialRegistrationRequest>(req));
+				iClient.post("submitRegistration", resource, new GsonRepresentation<SpecialRegistrationRequest>(req));
+				iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + req.studentId);
 				
 				helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 				
@@ -1547,8 +1532,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -1564,11 +1548,11 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			
 			long t0 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			Representation entity = iClient.getCached("checkSpecialRegistrationStatus", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiGetTime(System.currentTimeMillis() - t0);
 			
-			SpecialRegistrationStatusResponse status = (SpecialRegistrationStatusResponse)new GsonRepresentation<SpecialRegistrationStatusResponse>(resource.getResponseEntity(), SpecialRegistrationStatusResponse.class).getObject();
+			SpecialRegistrationStatusResponse status = (SpecialRegistrationStatusResponse)new GsonRepresentation<SpecialRegistrationStatusResponse>(entity, SpecialRegistrationStatusResponse.class).getObject();
 			Gson gson = getGson(helper);
 			
 			if (helper.isDebugEnabled())
@@ -1693,8 +1677,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
 			
 			AcademicSessionInfo session = (server == null ? new AcademicSessionInfo(student.getSession()) : server.getAcademicSession());
 			String term = getBannerTerm(session);
@@ -1710,7 +1693,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			
 			long t0 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			iClient.get("checkSpecialRegistrationStatus", resource, MediaType.APPLICATION_JSON);
 			
 			action.setApiGetTime(System.currentTimeMillis() - t0);
 			
@@ -2023,8 +2006,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			validationRequest.changes = new RestrictionsCheckRequest();
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiValidationSite());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiValidationSite());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson(helper);
@@ -2033,7 +2015,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			action.addOptionBuilder().setKey("validation_request").setValue(gson.toJson(validationRequest));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<CheckRestrictionsRequest>(validationRequest));
+			iClient.post("checkRestrictions", resource, new GsonRepresentation<CheckRestrictionsRequest>(validationRequest));
 			
 			action.setApiPostTime(System.currentTimeMillis() - t1);
 			
@@ -2201,8 +2183,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		SpecialRegistrationResponseList response = null;
 		resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteSubmitRegistration());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteSubmitRegistration());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson(helper);
@@ -2211,7 +2192,8 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			action.addOptionBuilder().setKey("specreg_request").setValue(gson.toJson(submitRequest));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<SpecialRegistrationRequest>(submitRequest));
+			iClient.post("submitRegistration", resource, new GsonRepresentation<SpecialRegistrationRequest>(submitRequest));
+			iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + submitRequest.studentId);
 			
 			action.setApiPostTime(action.getApiPostTime() + System.currentTimeMillis() - t1);
 			
@@ -2337,8 +2319,7 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		if (!check.hasFlag(EligibilityCheck.EligibilityFlag.CAN_REGISTER)) return;
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckEligibility());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckEligibility());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -2354,11 +2335,11 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 			
 			long t0 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			Representation entity = iClient.getCached("checkEligibility", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiGetTime(System.currentTimeMillis() - t0);
 			
-			CheckEligibilityResponse eligibility = (CheckEligibilityResponse)new GsonRepresentation<CheckEligibilityResponse>(resource.getResponseEntity(), CheckEligibilityResponse.class).getObject();
+			CheckEligibilityResponse eligibility = (CheckEligibilityResponse)new GsonRepresentation<CheckEligibilityResponse>(entity, CheckEligibilityResponse.class).getObject();
 			Gson gson = getGson(helper);
 			
 			if (helper.isDebugEnabled())
@@ -2397,42 +2378,50 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		}
 	}
 	
-	protected void checkStudentStatuses(OnlineSectioningServer server, OnlineSectioningHelper helper, Map<String, org.unitime.timetable.model.Student> id2student, List<Long> reloadIds, int batchNumber) throws SectioningException {
-		ClientResource resource = null;
+	protected Future<Representation> requestStudentStatuses(OnlineSectioningServer server, OnlineSectioningHelper helper, Map<String, org.unitime.timetable.model.Student> id2student, int batchNumber) throws SectioningException {
+		ClientResource resource = iClient.createResource(getSpecialRegistrationApiSiteCheckAllSpecialRegistrationStatus());
+		
+		AcademicSessionInfo session = (server == null ? null : server.getAcademicSession());
+		String studentIds = null;
+		for (Map.Entry<String, org.unitime.timetable.model.Student> e: id2student.entrySet()) {
+			if (session == null) session = new AcademicSessionInfo(e.getValue().getSession());
+			if (studentIds == null) studentIds = e.getKey();
+			else studentIds += "," + e.getKey();
+		}
+		String term = getBannerTerm(session);
+		String campus = getBannerCampus(session);
+		resource.addQueryParameter("term", term);
+		resource.addQueryParameter("campus", campus);
+		resource.addQueryParameter("studentIds", studentIds);
+		resource.addQueryParameter("mode", getSpecialRegistrationApiMode().name());
+		resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
+		OnlineSectioningLog.Action.Builder action = helper.getAction();
+		if (action != null) {
+			action.addOptionBuilder().setKey("term").setValue(term);
+			action.addOptionBuilder().setKey("campus").setValue(campus);
+			action.addOptionBuilder().setKey("studentIds-" + batchNumber).setValue(studentIds);
+		}
+		
+		return iClient.getAsync("checkAllSpecialRegistrationStatus", resource, MediaType.APPLICATION_JSON, false);
+	}
+	
+	protected void checkStudentStatuses(OnlineSectioningServer server, OnlineSectioningHelper helper, Map<String, org.unitime.timetable.model.Student> id2student, List<Long> reloadIds, int batchNumber, Future<Representation> request) throws SectioningException {
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckAllSpecialRegistrationStatus());
-			resource.setNext(iClient);
-			
-			AcademicSessionInfo session = (server == null ? null : server.getAcademicSession());
-			String studentIds = null;
-			List<String> ids = new ArrayList<String>();
-			for (Map.Entry<String, org.unitime.timetable.model.Student> e: id2student.entrySet()) {
-				if (session == null) session = new AcademicSessionInfo(e.getValue().getSession());
-				if (studentIds == null) studentIds = e.getKey();
-				else studentIds += "," + e.getKey();
-				ids.add(e.getKey());
-			}
-			String term = getBannerTerm(session);
-			String campus = getBannerCampus(session);
-			resource.addQueryParameter("term", term);
-			resource.addQueryParameter("campus", campus);
-			resource.addQueryParameter("studentIds", studentIds);
-			resource.addQueryParameter("mode", getSpecialRegistrationApiMode().name());
-			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
+			List<String> ids = new ArrayList<String>(id2student.keySet());
 			OnlineSectioningLog.Action.Builder action = helper.getAction();
-			if (action != null) {
-				action.addOptionBuilder().setKey("term").setValue(term);
-				action.addOptionBuilder().setKey("campus").setValue(campus);
-				action.addOptionBuilder().setKey("studentIds-" + batchNumber).setValue(studentIds);
-			}
 			
 			long t0 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			Representation entity = null;
+			try {
+				entity = request.get();
+			} catch (ExecutionException e) {
+				throw (e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+			}
 			
 			if (action != null) action.setApiGetTime(action.getApiGetTime() + System.currentTimeMillis() - t0);
 			
-			SpecialRegistrationMultipleStatusResponse response = (SpecialRegistrationMultipleStatusResponse)new GsonRepresentation<SpecialRegistrationMultipleStatusResponse>(resource.getResponseEntity(), SpecialRegistrationMultipleStatusResponse.class).getObject();
+			SpecialRegistrationMultipleStatusResponse response = (SpecialRegistrationMultipleStatusResponse)new GsonRepresentation<SpecialRegistrationMultipleStatusResponse>(entity, SpecialRegistrationMultipleStatusResponse.class).getObject();
 			Gson gson = getGson(helper);
 			
 			if (helper.isDebugEnabled())
@@ -2540,32 +2529,36 @@ public class PurdueCourseRequestsValidationProvider implements CourseRequestsVal
 		} catch (Exception e) {
 			sLog.error(e.getMessage(), e);
 			throw new SectioningException(e.getMessage());
-		} finally {
-			if (resource != null) {
-				if (resource.getResponse() != null) resource.getResponse().release();
-				resource.release();
-			}
 		}
 	}
 
 	@Override
 	public Collection<Long> updateStudents(OnlineSectioningServer server, OnlineSectioningHelper helper, List<org.unitime.timetable.model.Student> students) throws SectioningException {
-		Map<String, org.unitime.timetable.model.Student> id2student = new HashMap<String, org.unitime.timetable.model.Student>();
+		List<Map<String, org.unitime.timetable.model.Student>> batches = new ArrayList<Map<String, org.unitime.timetable.model.Student>>();
+		Map<String, org.unitime.timetable.model.Student> id2student = null;
 		List<Long> reloadIds = new ArrayList<Long>();
-		int batchNumber = 1;
 		for (int i = 0; i < students.size(); i++) {
 			org.unitime.timetable.model.Student student = students.get(i);
 			if (student == null || !hasOverride(student)) continue;
 			if (!isValidationEnabled(student)) continue;
 			String id = getBannerId(student);
-			id2student.put(id, student);
-			if (id2student.size() >= 100) {
-				checkStudentStatuses(server, helper, id2student, reloadIds, batchNumber++);
-				id2student.clear();
+			if (id2student == null || id2student.size() >= 100) {
+				id2student = new HashMap<String, org.unitime.timetable.model.Student>();
+				batches.add(id2student);
 			}
+			id2student.put(id, student);
+		}
+		// request all the batches at once, process the responses (in this thread) as they come
+		List<Future<Representation>> requests = new ArrayList<Future<Representation>>();
+		try {
+			for (int i = 0; i < batches.size(); i++)
+				requests.add(requestStudentStatuses(server, helper, batches.get(i), 1 + i));
+			for (int i = 0; i < batches.size(); i++)
+				checkStudentStatuses(server, helper, batches.get(i), reloadIds, 1 + i, requests.get(i));
+		} finally {
+			for (Future<Representation> request: requests)
+				request.cancel(true);
 		}
-		if (!id2student.isEmpty())
-			checkStudentStatuses(server, helper, id2student, reloadIds, batchNumber++);
 		if (!reloadIds.isEmpty())
 			helper.getHibSession().flush();
 		if (!reloadIds.isEmpty() && server != null && !(server instanceof DatabaseServer))
@@ -39,11 +39,8 @@ import org.apache.log4j.Logger;
 import org.cpsolver.coursett.model.Placement;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.restlet.Client;
-import org.restlet.Context;
 import org.restlet.data.ChallengeScheme;
 import org.restlet.data.MediaType;
-import org.restlet.data.Protocol;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
 import org.unitime.localization.impl.Localization;
@@ -167,18 +164,13 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 	private static Logger sLog = Logger.getLogger(PurdueSpecialRegistrationProvider.class);
 	private static StudentSectioningMessages MSG = Localization.create(StudentSectioningMessages.class);
 
-	private Client iClient;
+	private IntegrationClient iClient, iBannerClient;
 	private ExternalTermProvider iExternalTermProvider;
 	private ExternalClassLookupInterface iExternalClassLookup;
 	
 	public PurdueSpecialRegistrationProvider() {
-		List<Protocol> protocols = new ArrayList<Protocol>();
-		protocols.add(Protocol.HTTP);
-		protocols.add(Protocol.HTTPS);
-		iClient = new Client(protocols);
-		Context cx = new Context();
-		cx.getParameters().add("readTimeout", getSpecialRegistrationApiReadTimeout());
-		iClient.setContext(cx);
+		iClient = IntegrationClient.getInstance("purdue.specreg");
+		iBannerClient = IntegrationClient.getInstance("banner.xe");
 		try {
 			String clazz = ApplicationProperty.CustomizationExternalTerm.value();
 			if (clazz == null || clazz.isEmpty())
@@ -205,10 +197,6 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		return ApplicationProperties.getProperty("purdue.specreg.site");
 	}
 	
-	protected String getSpecialRegistrationApiReadTimeout() {
-		return ApplicationProperties.getProperty("purdue.specreg.readTimeout", "60000");
-	}
-	
 	protected String getSpecialRegistrationApiSiteSubmitRegistration() {
 		return ApplicationProperties.getProperty("purdue.specreg.site.submitRegistration", getSpecialRegistrationApiSite() + "/submitRegistration");
 	}
@@ -653,8 +641,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		CheckRestrictionsResponse resp = null;
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiCheckRestrictions());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiCheckRestrictions());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson(helper);
@@ -663,7 +650,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			helper.getAction().addOptionBuilder().setKey("request").setValue(gson.toJson(req));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<CheckRestrictionsRequest>(req));
+			iClient.post("checkRestrictions", resource, new GsonRepresentation<CheckRestrictionsRequest>(req));
 			
 			helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 			
@@ -856,8 +843,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			if (request.changes == null || request.changes.isEmpty())
 				throw new SectioningException("There are no changes.");
 
-			resource = new ClientResource(getSpecialRegistrationApiSiteSubmitRegistration());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteSubmitRegistration());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson(helper);
@@ -866,7 +852,8 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			helper.getAction().addOptionBuilder().setKey("specreg_request").setValue(gson.toJson(request));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<SpecialRegistrationRequest>(request));
+			iClient.post("submitRegistration", resource, new GsonRepresentation<SpecialRegistrationRequest>(request));
+			iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + request.studentId);
 			
 			helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 			
@@ -1034,11 +1021,8 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 
 	@Override
 	public void dispose() {
-		try {
-			iClient.stop();
-		} catch (Exception e) {
-			sLog.error(e.getMessage(), e);
-		}	
+		iClient.release();
+		iBannerClient.release();
 	}
 	
 	protected CourseOffering findCourseByExternalId(Long sessionId, String externalId) {
@@ -1796,8 +1780,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		if (!isSpecialRegistrationEnabled(server, helper, student)) return null;
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckSpecialRegistrationStatus());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -1813,7 +1796,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			
 			long t1 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			iClient.get("checkSpecialRegistrationStatus", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiGetTime(System.currentTimeMillis() - t1);
 			
@@ -1973,8 +1956,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		try {
 			Gson gson = getGson(helper);
 
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckEligibility());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckEligibility());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -1990,7 +1972,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			
 			long t1 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			iClient.get("checkEligibility", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 			
@@ -2070,8 +2052,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		try {
 			Gson gson = getGson(helper);
 
-			resource = new ClientResource(getSpecialRegistrationApiSiteCancelSpecialRegistration());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCancelSpecialRegistration());
 			
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -2088,7 +2069,8 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			
 			long t1 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			iClient.get("cancelSpecialRegistration", resource, MediaType.APPLICATION_JSON);
+			iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + getBannerId(student));
 			
 			helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 			
@@ -2187,8 +2169,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 	public RetrieveAvailableGradeModesResponse retrieveAvailableGradeModes(OnlineSectioningServer server, OnlineSectioningHelper helper, XStudent student) throws SectioningException {
 		ClientResource resource = null;
 		try {
-			resource = new ClientResource(getSpecialRegistrationApiSiteCheckStudentGradeModes());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteCheckStudentGradeModes());
 
 			AcademicSessionInfo session = server.getAcademicSession();
 			String term = getBannerTerm(session);
@@ -2204,7 +2185,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			
 			long t1 = System.currentTimeMillis();
 			
-			resource.get(MediaType.APPLICATION_JSON);
+			iClient.get("checkStudentGradeModes", resource, MediaType.APPLICATION_JSON);
 			
 			helper.getAction().setApiGetTime(System.currentTimeMillis() - t1);
 			
@@ -2315,8 +2296,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 		if (request.hasGradeModeChanges(false) || request.hasCreditChanges(false)) {
 			ClientResource resource = null;
 			try {
-				resource = new ClientResource(getBannerSite());
-				resource.setNext(iClient);
+				resource = iBannerClient.createResource(getBannerSite());
 				resource.setChallengeResponse(ChallengeScheme.HTTP_BASIC, getBannerUser(true), getBannerPassword(true));
 				Gson gson = getGson(helper);
 				XEInterface.RegisterResponse original = null;
@@ -2334,7 +2314,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 				Map<String, String> code2desc = new HashMap<String, String>();
 				long t0 = System.currentTimeMillis();
 				try {
-					resource.get(MediaType.APPLICATION_JSON);
+					iBannerClient.get("registration", resource, MediaType.APPLICATION_JSON);
 				} catch (ResourceException exception) {
 					helper.getAction().setApiException(exception.getMessage());
 					try {
@@ -2415,7 +2395,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 					
 					long t1 = System.currentTimeMillis();
 					try {
-						resource.post(new GsonRepresentation<XEInterface.RegisterRequest>(req));
+						iBannerClient.post("register", resource, new GsonRepresentation<XEInterface.RegisterRequest>(req));
 					} catch (ResourceException exception) {
 						helper.getAction().setApiException(exception.getMessage());
 						try {
@@ -2590,8 +2570,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 				req.requestorNotes = request.getNote();
 				
 				if (req.changes != null && !req.changes.isEmpty()) {
-					resource = new ClientResource(getSpecialRegistrationApiSiteSubmitRegistration());
-					resource.setNext(iClient);
+					resource = iClient.createResource(getSpecialRegistrationApiSiteSubmitRegistration());
 					resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 					
 					Gson gson = getGson(helper);
@@ -2600,7 +2579,8 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 					helper.getAction().addOptionBuilder().setKey("specreg_request").setValue(gson.toJson(req));
 					long t1 = System.currentTimeMillis();
 					
-					resource.post(new GsonRepresentation<SpecialRegistrationRequest>(req));
+					iClient.post("submitRegistration", resource, new GsonRepresentation<SpecialRegistrationRequest>(req));
+					iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + req.studentId);
 					
 					helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 					
@@ -2660,8 +2640,7 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			}
 			request.requestorNotes = input.getNote();
 			
-			resource = new ClientResource(getSpecialRegistrationApiSiteUpdateRegistration());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getSpecialRegistrationApiSiteUpdateRegistration());
 			resource.addQueryParameter("apiKey", getSpecialRegistrationApiKey());
 			
 			Gson gson = getGson(helper);
@@ -2670,7 +2649,8 @@ public class PurdueSpecialRegistrationProvider implements SpecialRegistrationPro
 			helper.getAction().addOptionBuilder().setKey("specreg_request").setValue(gson.toJson(request));
 			long t1 = System.currentTimeMillis();
 			
-			resource.post(new GsonRepresentation<SpecialRegistrationRequest>(request));
+			iClient.post("updateRegistration", resource, new GsonRepresentation<SpecialRegistrationRequest>(request));
+			iClient.invalidate("checkSpecialRegistrationStatus", "studentId=" + request.studentId);
 			
 			helper.getAction().setApiPostTime(System.currentTimeMillis() - t1);
 			
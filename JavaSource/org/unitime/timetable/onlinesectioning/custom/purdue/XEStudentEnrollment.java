@@ -33,10 +33,8 @@ import java.util.TreeSet;
 import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.restlet.Client;
 import org.restlet.data.ChallengeScheme;
 import org.restlet.data.MediaType;
-import org.restlet.data.Protocol;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
 import org.unitime.localization.impl.Localization;
@@ -86,14 +84,11 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 	private static StudentSectioningMessages MESSAGES = Localization.create(StudentSectioningMessages.class);
 	protected static Format<Number> sCreditFormat = Formats.getNumberFormat("0.##");
 	
-	private Client iClient;
+	private IntegrationClient iClient;
 	private ExternalTermProvider iExternalTermProvider;
 	
 	public XEStudentEnrollment() {
-		List<Protocol> protocols = new ArrayList<Protocol>();
-		protocols.add(Protocol.HTTP);
-		protocols.add(Protocol.HTTPS);
-		iClient = new Client(protocols);
+		iClient = IntegrationClient.getInstance("banner.xe");
 		try {
 			String clazz = ApplicationProperty.CustomizationExternalTerm.value();
 			if (clazz == null || clazz.isEmpty())
@@ -258,8 +253,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 				helper.debug("Checking eligility for " + student.getName() + " (term: " + term + ", id:" + getBannerId(student) + (admin ? ", admin" : pin != null ? ", pin:" + pin : "") + ")");
 			
 			// First, check student registration status
-			resource = new ClientResource(getBannerSite());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getBannerSite());
 			resource.setChallengeResponse(ChallengeScheme.HTTP_BASIC, getBannerUser(manager), getBannerPassword(manager));
 			Gson gson = getGson(helper);
 			XEInterface.RegisterResponse original = null;
@@ -278,7 +272,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 			}
 			long t0 = System.currentTimeMillis();
 			try {
-				resource.get(MediaType.APPLICATION_JSON);
+				iClient.get("registration", resource, MediaType.APPLICATION_JSON);
 			} catch (ResourceException exception) {
 				helper.getAction().setApiException(exception.getMessage());
 				try {
@@ -456,8 +450,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 			}
 			
 			// First, check student registration status
-			resource = new ClientResource(getBannerSite());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getBannerSite());
 			resource.setChallengeResponse(ChallengeScheme.HTTP_BASIC, getBannerUser(manager), getBannerPassword(manager));
 			Gson gson = getGson(helper);
 			XEInterface.RegisterResponse original = null;
@@ -476,7 +469,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 			}
 			long t0 = System.currentTimeMillis();
 			try {
-				resource.get(MediaType.APPLICATION_JSON);
+				iClient.get("registration", resource, MediaType.APPLICATION_JSON);
 			} catch (ResourceException exception) {
 				helper.getAction().setApiException(exception.getMessage());
 				try {
@@ -708,7 +701,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 
 			long t1 = System.currentTimeMillis();
 			try {
-				resource.post(new GsonRepresentation<XEInterface.RegisterRequest>(req));
+				iClient.post("register", resource, new GsonRepresentation<XEInterface.RegisterRequest>(req));
 			} catch (ResourceException exception) {
 				helper.getAction().setApiException(exception.getMessage());
 				try {
@@ -924,7 +917,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 						helper.getAction().addOptionBuilder().setKey("gm_request").setValue(gson.toJson(reqGM));
 						long t2 = System.currentTimeMillis();
 						try {
-							resource.post(new GsonRepresentation<XEInterface.RegisterRequest>(reqGM));
+							iClient.post("register", resource, new GsonRepresentation<XEInterface.RegisterRequest>(reqGM));
 						} catch (ResourceException exception) {
 							helper.getAction().setApiException(exception.getMessage());
 							try {
@@ -1065,11 +1058,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 	
 	@Override
 	public void dispose() {
-		try {
-			iClient.stop();
-		} catch (Exception e) {
-			sLog.error(e.getMessage(), e);
-		}
+		iClient.release();
 	}
 	
 	@Override
@@ -1126,8 +1115,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 			}
 			
 			// First, check student registration status
-			resource = new ClientResource(getBannerSite());
-			resource.setNext(iClient);
+			resource = iClient.createResource(getBannerSite());
 			resource.setChallengeResponse(ChallengeScheme.HTTP_BASIC, getBannerUser(true), getBannerPassword(true));
 
 			resource.addQueryParameter("term", term);
@@ -1139,7 +1127,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 			
 			long t0 = System.currentTimeMillis();
 			try {
-				resource.get(MediaType.APPLICATION_JSON);
+				iClient.get("registration", resource, MediaType.APPLICATION_JSON);
 			} catch (ResourceException exception) {
 				helper.getAction().setApiException(exception.getMessage());
 				try {
@@ -1223,7 +1211,7 @@ public class XEStudentEnrollment implements StudentEnrollmentProvider {
 
 			long t1 = System.currentTimeMillis();
 			try {
-				resource.post(new GsonRepresentation<XEInterface.RegisterRequest>(req));
+				iClient.post("register", resource, new GsonRepresentation<XEInterface.RegisterRequest>(req));
 			} catch (ResourceException exception) {
 				helper.getAction().setApiException(exception.getMessage());
 				try {
@@ -20,6 +20,7 @@
 package org.unitime.timetable.onlinesectioning.updates;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -91,6 +92,7 @@ import org.unitime.timetable.onlinesectioning.server.CheckMaster.Master;
 import org.unitime.timetable.onlinesectioning.solver.CheckAssignmentAction;
 import org.unitime.timetable.onlinesectioning.solver.SectioningRequest;
 import org.unitime.timetable.onlinesectioning.solver.FindAssignmentAction.IdPair;
+import org.unitime.timetable.util.CalendarFeedCache;
 
 /**
  * @author Tomas Muller
@@ -770,6 +772,7 @@ public class EnrollStudent implements OnlineSectioningAction<ClassAssignmentInte
 				
 				server.execute(server.createAction(NotifyStudentAction.class).forStudent(getStudentId()).oldStudent(oldStudent), helper.getUser());
 				helper.commitTransaction();
+				CalendarFeedCache.invalidateStudents(Collections.singleton(getStudentId()));
 			} catch (Exception e) {
 				helper.rollbackTransaction();
 				if (e instanceof SectioningException) {
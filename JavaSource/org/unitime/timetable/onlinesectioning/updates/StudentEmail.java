@@ -106,9 +106,9 @@ import org.unitime.timetable.onlinesectioning.server.CheckMaster.Master;
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.Formats;
 import org.unitime.timetable.util.NameFormat;
+import org.unitime.timetable.util.TemplateCache;
 import org.unitime.timetable.util.Formats.Format;
 
-import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
@@ -550,11 +550,7 @@ public class StudentEmail implements OnlineSectioningAction<Boolean> {
 	}
 	
 	private String generateMessage(org.unitime.timetable.model.Student student, OnlineSectioningServer server, OnlineSectioningHelper helper)  throws IOException, TemplateException {
-		Configuration cfg = new Configuration(Configuration.VERSION_2_3_0);
-		cfg.setClassForTemplateLoading(StudentEmail.class, "/");
-		cfg.setLocale(Localization.getJavaLocale());
-		cfg.setOutputEncoding("utf-8");
-		Template template = cfg.getTemplate(ApplicationProperty.OnlineSchedulingEmailTemplate.value());
+		Template template = TemplateCache.getTemplate(StudentEmail.class, "/", ApplicationProperty.OnlineSchedulingEmailTemplate.value());
 		Map<String, Object> input = new HashMap<String, Object>();
 		
 		input.put("msg", MSG);
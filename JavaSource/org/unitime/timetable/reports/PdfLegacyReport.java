@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.PdfFont;
@@ -54,6 +56,8 @@ public class PdfLegacyReport {
     private String iCont = null;
     private String iHeader[] = null;
     private String iFooter = null;
+    private int iMode = sModeNormal;
+    private List<String> iPages = null;
     
     private boolean iEmpty = true;
     
@@ -85,25 +89,52 @@ public class PdfLegacyReport {
     
     public void open(OutputStream out, int mode) throws DocumentException, IOException {
         iOut = out;
+        iMode = mode;
+        iPages = null;
         if (mode==sModeText) {
             iPrint = new PrintWriter(iOut);
         } else {
             iNrLines = (mode==sModeLedger?116:50);
-            iDoc = new Document(mode==sModeLedger?PageSize.LEDGER.rotate():PageSize.LETTER.rotate());
-
-            PdfWriter.getInstance(iDoc, iOut);
-
-            iDoc.addTitle(iTitle);
-            iDoc.addAuthor("UniTime "+Constants.getVersion()+", www.unitime.org");
-            iDoc.addSubject(iSubject);
-            iDoc.addCreator("UniTime "+Constants.getVersion()+", www.unitime.org");
-
-            iDoc.open();
+            iDoc = createDocument(mode, iOut, iTitle, iSubject);
         }
         iEmpty = true;
         iPageNo = 0; iLineNo = 0;
     }
     
+    /**
+     * Open the report in the buffered mode: the pages are kept in memory until {@link #closeBuffered()} is called.
+     * The returned pages can be written out later, on any thread (see {@link Pages#write(OutputStream)}).
+     */
+    public void openBuffered(int mode) {
+        iOut = null; iDoc = null; iPrint = null;
+        iMode = mode;
+        iPages = new ArrayList<String>();
+        if (mode!=sModeText) iNrLines = (mode==sModeLedger?116:50);
+        iEmpty = true;
+        iPageNo = 0; iLineNo = 0;
+    }
+    
+    protected static Document createDocument(int mode, OutputStream out, String title, String subject) throws DocumentException {
+        Document doc = new Document(mode==sModeLedger?PageSize.LEDGER.rotate():PageSize.LETTER.rotate());
+
+        PdfWriter.getInstance(doc, out);
+
+        doc.addTitle(title);
+        doc.addAuthor("UniTime "+Constants.getVersion()+", www.unitime.org");
+        doc.addSubject(subject);
+        doc.addCreator("UniTime "+Constants.getVersion()+", www.unitime.org");
+
+        doc.open();
+        return doc;
+    }
+    
+    protected static Paragraph createPage(String text) {
+    	//FIXME: For some reason when a line starts with space, the line is shifted by one space in the resulting PDF (when using iText 5.0.2)
+        Paragraph p = new Paragraph(text.replace("\n ", "\n  "), PdfFont.getFixedFont());
+        p.setLeading(9.5f); //was 13.5f
+        return p;
+    }
+    
     protected void setPageName(String pageName) {
         iPageId = pageName;
     }
@@ -213,13 +244,12 @@ public class PdfLegacyReport {
         iEmpty=false;
         out("");
         out(renderEnd(renderMiddle((iFooter==null?"":iFooter),"Page "+(iPageNo+1)),(iPageId==null||iPageId.length()==0?"":iPageId)+"  "));
-        if (iPrint!=null) {
+        if (iPages!=null) {
+            iPages.add(iBuffer.toString());
+        } else if (iPrint!=null) {
             iPrint.print(iBuffer);
         } else {
-        	//FIXME: For some reason when a line starts with space, the line is shifted by one space in the resulting PDF (when using iText 5.0.2)
-            Paragraph p = new Paragraph(iBuffer.toString().replace("\n ", "\n  "), PdfFont.getFixedFont());
-            p.setLeading(9.5f); //was 13.5f
-            iDoc.add(p);
+            iDoc.add(createPage(iBuffer.toString()));
         }
         iBuffer = new StringBuffer();
         iPageNo++;
@@ -236,7 +266,9 @@ public class PdfLegacyReport {
             out(""); iLineNo++;
         }
         printFooter();
-        if (iPrint!=null) {
+        if (iPages!=null) {
+            // page breaks are added when the pages are written out
+        } else if (iPrint!=null) {
             iPrint.print("\f\n");
         } else {
             iDoc.newPage();
@@ -267,4 +299,57 @@ public class PdfLegacyReport {
             iOut.close();
         }
     }
+    
+    /**
+     * Close the report opened by {@link #openBuffered(int)}, returning its pages
+     */
+    public Pages closeBuffered() throws DocumentException {
+        if (isEmpty()) { println("Nothing to report."); lastPage(); }
+        Pages pages = new Pages(iMode, iTitle, iSubject, iPages);
+        iPages = null;
+        return pages;
+    }
+    
+    /**
+     * Pages of a report that was printed in the buffered mode. Writing them out does not access the database.
+     */
+    public static class Pages {
+        private int iMode;
+        private String iTitle, iSubject;
+        private List<String> iPages;
+        
+        public Pages(int mode, String title, String subject, List<String> pages) {
+            iMode = mode; iTitle = title; iSubject = subject; iPages = pages;
+        }
+        
+        public int size() { return iPages.size(); }
+        
+        public void write(OutputStream out) throws IOException, DocumentException {
+            if (iMode==sModeText) {
+                PrintWriter print = new PrintWriter(out);
+                for (int i=0;i<iPages.size();i++) {
+                    if (i>0) print.print("\f\n");
+                    print.print(iPages.get(i));
+                }
+                print.flush(); print.close();
+            } else {
+                Document doc = createDocument(iMode, out, iTitle, iSubject);
+                for (int i=0;i<iPages.size();i++) {
+                    if (i>0) doc.newPage();
+                    doc.add(createPage(iPages.get(i)));
+                }
+                doc.close();
+                out.close();
+            }
+        }
+        
+        public void write(File file) throws IOException, DocumentException {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                write(out);
+            } finally {
+                out.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.reports;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.unitime.timetable.reports.PdfLegacyReport.Pages;
+
+/**
+ * Pool of worker threads writing out reports printed in the buffered mode (see {@link PdfLegacyReport#openBuffered(int)}).<br>
+ * <br>
+ * The reports are printed (which may need the database) on the calling thread, the PDF rendering and the file output is done by the workers,
+ * each of them into its own document. The number of reports waiting to be written is limited, so that the pages of at most a few
+ * reports per worker are kept in memory at a time.
+ */
+public class ReportWriterPool {
+	private static Logger sLog = Logger.getLogger(ReportWriterPool.class);
+	private static AtomicInteger sPoolId = new AtomicInteger(0);
+	private ExecutorService iExecutor;
+	private int iMaxPending;
+	private Semaphore iPending;
+	private AtomicInteger iTotal = new AtomicInteger(0), iDone = new AtomicInteger(0), iWritten = new AtomicInteger(0);
+	private volatile long iStartTime = -1;
+	private Throwable iError = null;
+	private Listener iListener;
+
+	public ReportWriterPool(int nrWorkers, Listener listener) {
+		final int poolId = sPoolId.incrementAndGet();
+		iExecutor = Executors.newFixedThreadPool(nrWorkers, new ThreadFactory() {
+			private AtomicInteger iThreadId = new AtomicInteger(0);
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ReportWriter-" + poolId + "-" + iThreadId.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		iMaxPending = 4 * nrWorkers;
+		iPending = new Semaphore(iMaxPending);
+		iListener = listener;
+	}
+
+	/**
+	 * Announce the number of reports that are going to be either written or skipped, used for the progress
+	 */
+	public void begin(int nrReports) {
+		if (iStartTime < 0) iStartTime = System.currentTimeMillis();
+		iTotal.addAndGet(nrReports);
+	}
+
+	/**
+	 * A report announced by {@link #begin(int)} is not going to be written
+	 */
+	public void skip() {
+		iDone.incrementAndGet();
+		progress();
+	}
+
+	/**
+	 * Write the given pages into the given file on one of the workers, waits when there are too many reports waiting to be written
+	 */
+	public void write(final Pages pages, final File file) throws InterruptedException {
+		if (iStartTime < 0) iStartTime = System.currentTimeMillis();
+		iPending.acquire();
+		iExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					pages.write(file);
+					iWritten.incrementAndGet();
+				} catch (Throwable t) {
+					sLog.error("Failed to write " + file.getName() + ": " + t.getMessage(), t);
+					synchronized (ReportWriterPool.this) {
+						if (iError == null) iError = t;
+					}
+				} finally {
+					iDone.incrementAndGet();
+					progress();
+					iPending.release();
+				}
+			}
+		});
+	}
+
+	protected void progress() {
+		if (iListener != null)
+			iListener.progress(iDone.get(), iTotal.get(), iWritten.get(), getThroughput());
+	}
+
+	/**
+	 * Wait until all the reports are written, throws the first failure (if any)
+	 */
+	public void flush() throws Exception {
+		iPending.acquire(iMaxPending);
+		iPending.release(iMaxPending);
+		synchronized (this) {
+			if (iError != null) {
+				Throwable error = iError;
+				iError = null;
+				if (error instanceof Exception) throw (Exception)error;
+				throw new Exception(error.getMessage(), error);
+			}
+		}
+	}
+
+	/**
+	 * Stop the workers (reports that are waiting to be written are still written)
+	 */
+	public void shutdown() {
+		iExecutor.shutdown();
+	}
+
+	public int getWritten() { return iWritten.get(); }
+
+	/**
+	 * Number of reports written per second
+	 */
+	public double getThroughput() {
+		if (iStartTime < 0) return 0.0;
+		long time = System.currentTimeMillis() - iStartTime;
+		return (time <= 0 ? 0.0 : 1000.0 * iWritten.get() / time);
+	}
+
+	public static interface Listener {
+		/**
+		 * Called every time a report is written (on a worker thread) or skipped (on the calling thread)
+		 * @param done number of reports written or skipped
+		 * @param total number of reports announced by {@link ReportWriterPool#begin(int)}
+		 * @param written number of reports written
+		 * @param throughput number of reports written per second
+		 */
+		public void progress(int done, int total, int written, double throughput);
+	}
+}
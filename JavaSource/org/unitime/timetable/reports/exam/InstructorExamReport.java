@@ -47,6 +47,7 @@ import org.unitime.timetable.model.Event.MultiMeeting;
 import org.unitime.timetable.model.comparators.ClassComparator;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.StudentDAO;
+import org.unitime.timetable.reports.ReportWriterPool;
 import org.unitime.timetable.solver.exam.ui.ExamAssignment;
 import org.unitime.timetable.solver.exam.ui.ExamAssignmentInfo;
 import org.unitime.timetable.solver.exam.ui.ExamRoomInfo;
@@ -178,6 +179,18 @@ public class InstructorExamReport extends PdfLegacyExamReport {
     }
     
     public Hashtable<ExamInstructorInfo,File> printInstructorReports(int mode, String filePrefix, FileGenerator gen) throws DocumentException, IOException {
+        try {
+            return printInstructorReports(mode, filePrefix, gen, null);
+        } catch (InterruptedException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Print individual instructor reports. When a pool of writers is given, the reports are printed in the buffered mode
+     * and written out by the writers (call {@link ReportWriterPool#flush()} to wait for the files to be written).
+     */
+    public Hashtable<ExamInstructorInfo,File> printInstructorReports(int mode, String filePrefix, FileGenerator gen, ReportWriterPool writers) throws DocumentException, IOException, InterruptedException {
         generateCache();
         sLog.info("  Printing individual instructor reports...");
         Hashtable<ExamInstructorInfo,File> files = new Hashtable();
@@ -193,13 +206,18 @@ public class InstructorExamReport extends PdfLegacyExamReport {
                 examsThisInstructor.add(exam);
             }
         }
+        if (writers!=null) writers.begin(exams.size());
         for (ExamInstructorInfo instructor : new TreeSet<ExamInstructorInfo>(exams.keySet())) {
             TreeSet<ExamAssignmentInfo> examsThisInstructor = exams.get(instructor);
-            if (!isOfSubjectArea(examsThisInstructor)) continue;
+            if (!isOfSubjectArea(examsThisInstructor)) {
+                if (writers!=null) writers.skip();
+                continue;
+            }
             if (iSince!=null) {
                 ChangeLog last = getLastChange(instructor, examsThisInstructor);
                 if (last==null || iSince.compareTo(last.getTimeStamp())>0) {
                     sLog.debug("    No change found for "+instructor.getName());
+                    if (writers!=null) writers.skip();
                     continue;
                 }
             }
@@ -208,11 +226,19 @@ public class InstructorExamReport extends PdfLegacyExamReport {
                     (instructor.getExternalUniqueId()!=null?instructor.getExternalUniqueId():instructor.getInstructor().getLastName()),
                     (mode==sModeText?"txt":"pdf")); 
                 //ApplicationProperties.getTempFile(filePrefix+"_"+(instructor.getExternalUniqueId()!=null?instructor.getExternalUniqueId():instructor.getInstructor().getLastName()), (mode==sModeText?"txt":"pdf"));
-            open(file, mode);
-            printHeader();
-            printReport(instructor, examsThisInstructor);
-            lastPage();
-            close();
+            if (writers!=null) {
+                openBuffered(mode);
+                printHeader();
+                printReport(instructor, examsThisInstructor);
+                lastPage();
+                writers.write(closeBuffered(), file);
+            } else {
+                open(file, mode);
+                printHeader();
+                printReport(instructor, examsThisInstructor);
+                lastPage();
+                close();
+            }
             files.put(instructor,file);
         }
         return files;
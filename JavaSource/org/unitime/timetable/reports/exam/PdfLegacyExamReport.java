@@ -74,6 +74,7 @@ import org.unitime.timetable.model.dao._RootDAO;
 import org.unitime.timetable.reports.PdfLegacyReport;
 import org.unitime.timetable.solver.exam.ui.ExamAssignment;
 import org.unitime.timetable.solver.exam.ui.ExamAssignmentInfo;
+import org.unitime.timetable.solver.exam.ui.ExamConflictIndex;
 import org.unitime.timetable.solver.exam.ui.ExamInfo;
 import org.unitime.timetable.solver.exam.ui.ExamRoomInfo;
 import org.unitime.timetable.solver.exam.ui.ExamAssignmentInfo.Parameters;
@@ -787,163 +788,15 @@ public abstract class PdfLegacyExamReport extends PdfLegacyReport {
         	classEvents.put(ce.getClazz().getUniqueId(), ce);
         }
         
-        Hashtable<Long,Set<Long>> owner2students = new Hashtable();
-        Hashtable<Long,Set<Exam>> student2exams = new Hashtable();
-        Hashtable<Long,Hashtable<Long,Set<Long>>> owner2course2students = new Hashtable();
+        Hashtable<Long,Set<Long>> owner2students = null;
+        Hashtable<Long,Set<Exam>> student2exams = null;
+        Hashtable<Long,Hashtable<Long,Set<Long>>> owner2course2students = null;
         if (assgn) {
-            sLog.info("  Loading students (class)...");
-            for (Iterator i=
-                new ExamDAO().getSession().createQuery(
-                "select x.uniqueId, o.uniqueId, e.student.uniqueId, e.courseOffering.uniqueId from "+
-                "Exam x inner join x.owners o, "+
-                "StudentClassEnrollment e inner join e.clazz c "+
-                "where x.session.uniqueId=:sessionId and x.examType.uniqueId=:examTypeId and "+
-                "o.ownerType="+org.unitime.timetable.model.ExamOwner.sOwnerTypeClass+" and "+
-                "o.ownerId=c.uniqueId").setLong("sessionId", sessionId).setLong("examTypeId", examTypeId).setCacheable(true).list().iterator();i.hasNext();) {
-                    Object[] o = (Object[])i.next();
-                    Long examId = (Long)o[0];
-                    Long ownerId = (Long)o[1];
-                    Long studentId = (Long)o[2];
-                    Set<Long> studentsOfOwner = owner2students.get(ownerId);
-                    if (studentsOfOwner==null) {
-                        studentsOfOwner = new HashSet<Long>();
-                        owner2students.put(ownerId, studentsOfOwner);
-                    }
-                    studentsOfOwner.add(studentId);
-                    Set<Exam> examsOfStudent = student2exams.get(studentId);
-                    if (examsOfStudent==null) { 
-                        examsOfStudent = new HashSet<Exam>();
-                        student2exams.put(studentId, examsOfStudent);
-                    }
-                    examsOfStudent.add(exams.get(examId));
-                    Long courseId = (Long)o[3];
-                    Hashtable<Long, Set<Long>> course2students = owner2course2students.get(ownerId);
-                    if (course2students == null) {
-                    	course2students = new Hashtable<Long, Set<Long>>();
-                    	owner2course2students.put(ownerId, course2students);
-                    }
-                    Set<Long> studentsOfCourse = course2students.get(courseId);
-                    if (studentsOfCourse == null) {
-                    	studentsOfCourse = new HashSet<Long>();
-                    	course2students.put(courseId, studentsOfCourse);
-                    }
-                    studentsOfCourse.add(studentId);
-                }
-            sLog.info("  Loading students (config)...");
-            for (Iterator i=
-                new ExamDAO().getSession().createQuery(
-                        "select x.uniqueId, o.uniqueId, e.student.uniqueId, e.courseOffering.uniqueId from "+
-                        "Exam x inner join x.owners o, "+
-                        "StudentClassEnrollment e inner join e.clazz c " +
-                        "inner join c.schedulingSubpart.instrOfferingConfig ioc " +
-                        "where x.session.uniqueId=:sessionId and x.examType.uniqueId=:examTypeId and "+
-                        "o.ownerType="+org.unitime.timetable.model.ExamOwner.sOwnerTypeConfig+" and "+
-                        "o.ownerId=ioc.uniqueId").setLong("sessionId", sessionId).setLong("examTypeId", examTypeId).setCacheable(true).list().iterator();i.hasNext();) {
-                Object[] o = (Object[])i.next();
-                Long examId = (Long)o[0];
-                Long ownerId = (Long)o[1];
-                Long studentId = (Long)o[2];
-                Set<Long> studentsOfOwner = owner2students.get(ownerId);
-                if (studentsOfOwner==null) {
-                    studentsOfOwner = new HashSet<Long>();
-                    owner2students.put(ownerId, studentsOfOwner);
-                }
-                studentsOfOwner.add(studentId);
-                Set<Exam> examsOfStudent = student2exams.get(studentId);
-                if (examsOfStudent==null) { 
-                    examsOfStudent = new HashSet<Exam>();
-                    student2exams.put(studentId, examsOfStudent);
-                }
-                examsOfStudent.add(exams.get(examId));
-                Long courseId = (Long)o[3];
-                Hashtable<Long, Set<Long>> course2students = owner2course2students.get(ownerId);
-                if (course2students == null) {
-                	course2students = new Hashtable<Long, Set<Long>>();
-                	owner2course2students.put(ownerId, course2students);
-                }
-                Set<Long> studentsOfCourse = course2students.get(courseId);
-                if (studentsOfCourse == null) {
-                	studentsOfCourse = new HashSet<Long>();
-                	course2students.put(courseId, studentsOfCourse);
-                }
-                studentsOfCourse.add(studentId);
-            }
-            sLog.info("  Loading students (course)...");
-            for (Iterator i=
-                new ExamDAO().getSession().createQuery(
-                        "select x.uniqueId, o.uniqueId, e.student.uniqueId, e.courseOffering.uniqueId from "+
-                        "Exam x inner join x.owners o, "+
-                        "StudentClassEnrollment e inner join e.courseOffering co " +
-                        "where x.session.uniqueId=:sessionId and x.examType.uniqueId=:examTypeId and "+
-                        "o.ownerType="+org.unitime.timetable.model.ExamOwner.sOwnerTypeCourse+" and "+
-                        "o.ownerId=co.uniqueId").setLong("sessionId", sessionId).setLong("examTypeId", examTypeId).setCacheable(true).list().iterator();i.hasNext();) {
-                Object[] o = (Object[])i.next();
-                Long examId = (Long)o[0];
-                Long ownerId = (Long)o[1];
-                Long studentId = (Long)o[2];
-                Set<Long> studentsOfOwner = owner2students.get(ownerId);
-                if (studentsOfOwner==null) {
-                    studentsOfOwner = new HashSet<Long>();
-                    owner2students.put(ownerId, studentsOfOwner);
-                }
-                studentsOfOwner.add(studentId);
-                Set<Exam> examsOfStudent = student2exams.get(studentId);
-                if (examsOfStudent==null) { 
-                    examsOfStudent = new HashSet<Exam>();
-                    student2exams.put(studentId, examsOfStudent);
-                }
-                examsOfStudent.add(exams.get(examId));
-                Long courseId = (Long)o[3];
-                Hashtable<Long, Set<Long>> course2students = owner2course2students.get(ownerId);
-                if (course2students == null) {
-                	course2students = new Hashtable<Long, Set<Long>>();
-                	owner2course2students.put(ownerId, course2students);
-                }
-                Set<Long> studentsOfCourse = course2students.get(courseId);
-                if (studentsOfCourse == null) {
-                	studentsOfCourse = new HashSet<Long>();
-                	course2students.put(courseId, studentsOfCourse);
-                }
-                studentsOfCourse.add(studentId);
-            }
-            sLog.info("  Loading students (offering)...");
-            for (Iterator i=
-                new ExamDAO().getSession().createQuery(
-                        "select x.uniqueId, o.uniqueId, e.student.uniqueId, e.courseOffering.uniqueId from "+
-                        "Exam x inner join x.owners o, "+
-                        "StudentClassEnrollment e inner join e.courseOffering.instructionalOffering io " +
-                        "where x.session.uniqueId=:sessionId and x.examType.uniqueId=:examTypeId and "+
-                        "o.ownerType="+org.unitime.timetable.model.ExamOwner.sOwnerTypeOffering+" and "+
-                        "o.ownerId=io.uniqueId").setLong("sessionId", sessionId).setLong("examTypeId", examTypeId).setCacheable(true).list().iterator();i.hasNext();) {
-                Object[] o = (Object[])i.next();
-                Long examId = (Long)o[0];
-                Long ownerId = (Long)o[1];
-                Long studentId = (Long)o[2];
-                Set<Long> studentsOfOwner = owner2students.get(ownerId);
-                if (studentsOfOwner==null) {
-                    studentsOfOwner = new HashSet<Long>();
-                    owner2students.put(ownerId, studentsOfOwner);
-                }
-                studentsOfOwner.add(studentId);
-                Set<Exam> examsOfStudent = student2exams.get(studentId);
-                if (examsOfStudent==null) { 
-                    examsOfStudent = new HashSet<Exam>();
-                    student2exams.put(studentId, examsOfStudent);
-                }
-                examsOfStudent.add(exams.get(examId));
-                Long courseId = (Long)o[3];
-                Hashtable<Long, Set<Long>> course2students = owner2course2students.get(ownerId);
-                if (course2students == null) {
-                	course2students = new Hashtable<Long, Set<Long>>();
-                	owner2course2students.put(ownerId, course2students);
-                }
-                Set<Long> studentsOfCourse = course2students.get(courseId);
-                if (studentsOfCourse == null) {
-                	studentsOfCourse = new HashSet<Long>();
-                	course2students.put(courseId, studentsOfCourse);
-                }
-                studentsOfCourse.add(studentId);
-            }
+            sLog.info("  Loading students...");
+            ExamConflictIndex index = ExamConflictIndex.getInstance(sessionId, examTypeId);
+            owner2students = index.getOwner2Students();
+            owner2course2students = index.getOwner2Course2Students();
+            student2exams = index.getStudentExams(exams);
         }
         Hashtable<Long, Set<Meeting>> period2meetings = new Hashtable();
         ExamType type = ExamTypeDAO.getInstance().get(examTypeId);
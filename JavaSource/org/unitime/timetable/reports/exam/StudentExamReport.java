@@ -44,6 +44,7 @@ import org.unitime.timetable.model.SubjectArea;
 import org.unitime.timetable.model.Event.MultiMeeting;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.StudentDAO;
+import org.unitime.timetable.reports.ReportWriterPool;
 import org.unitime.timetable.reports.exam.InstructorExamReport.FileGenerator;
 import org.unitime.timetable.solver.exam.ui.ExamAssignment;
 import org.unitime.timetable.solver.exam.ui.ExamAssignmentInfo;
@@ -537,6 +538,18 @@ public class StudentExamReport extends PdfLegacyExamReport {
     }
     
     public Hashtable<Student,File> printStudentReports(int mode, String filePrefix, FileGenerator gen) throws DocumentException, IOException {
+        try {
+            return printStudentReports(mode, filePrefix, gen, null);
+        } catch (InterruptedException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Print individual student reports. When a pool of writers is given, the reports are printed in the buffered mode
+     * and written out by the writers (call {@link ReportWriterPool#flush()} to wait for the files to be written).
+     */
+    public Hashtable<Student,File> printStudentReports(int mode, String filePrefix, FileGenerator gen, ReportWriterPool writers) throws DocumentException, IOException, InterruptedException {
         generateCache();
         sLog.info("Printing individual student reports...");
         Hashtable<Student,File> files = new Hashtable();
@@ -554,13 +567,18 @@ public class StudentExamReport extends PdfLegacyExamReport {
                 }
             }
         }
+        if (writers!=null) writers.begin(sections.size());
         for (Student student : new TreeSet<Student>(sections.keySet())) {
             TreeSet<ExamSectionInfo> sectionsThisStudent = sections.get(student);
-            if (!isOfSubjectArea(sectionsThisStudent)) continue;
+            if (!isOfSubjectArea(sectionsThisStudent)) {
+                if (writers!=null) writers.skip();
+                continue;
+            }
             if (iSince!=null) {
                 ChangeLog last = getLastChange(sectionsThisStudent);
                 if (last==null || iSince.compareTo(last.getTimeStamp())>0) {
                     sLog.debug("No change found for "+student.getName(DepartmentalInstructor.sNameFormatLastFist));
+                    if (writers!=null) writers.skip();
                     continue;
                 }
             }
@@ -569,11 +587,19 @@ public class StudentExamReport extends PdfLegacyExamReport {
                     (student.getExternalUniqueId()!=null?student.getExternalUniqueId():student.getLastName()),
                     (mode==sModeText?"txt":"pdf")); 
                 //ApplicationProperties.getTempFile(filePrefix+"_"+(instructor.getExternalUniqueId()!=null?instructor.getExternalUniqueId():instructor.getInstructor().getLastName()), (mode==sModeText?"txt":"pdf"));
-            open(file, mode);
-            printHeader();
-            printReport(student, sectionsThisStudent);
-            lastPage();
-            close();
+            if (writers!=null) {
+                openBuffered(mode);
+                printHeader();
+                printReport(student, sectionsThisStudent);
+                lastPage();
+                writers.write(closeBuffered(), file);
+            } else {
+                open(file, mode);
+                printHeader();
+                printReport(student, sectionsThisStudent);
+                lastPage();
+                close();
+            }
             files.put(student,file);
         }
         return files;
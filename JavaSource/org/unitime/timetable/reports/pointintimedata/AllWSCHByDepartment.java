@@ -21,10 +21,10 @@ package org.unitime.timetable.reports.pointintimedata;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Map;
 
 import org.hibernate.Session;
 import org.unitime.timetable.model.Department;
-import org.unitime.timetable.model.PitClass;
 import org.unitime.timetable.model.PointInTimeData;
 
 /**
@@ -62,59 +62,32 @@ public class AllWSCHByDepartment extends WSCHByDepartment {
 		return(MSG.deptWSCHReportAllHoursNote());
 	}
 
-	@Override
-	protected float weeklyClassHours(PitClass pitClass) {
-		return(pitClass.getAllWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
-	}
-
-	@Override
-	protected float weeklyStudentClassHours(PitClass pitClass) {
-		return(pitClass.getAllWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
-	}
-
 	@Override
 	public void createWeeklyStudentContactHoursByDepartmentReportFor(PointInTimeData pointInTimeData, Session hibSession) {
-		HashSet<Long> processedClasses = new HashSet<Long>();
+		PointInTimeDataCube cube = PointInTimeDataCube.getInstance(pointInTimeData, hibSession);
+		ArrayList<Department> departments = new ArrayList<Department>();
+		HashSet<Long> departmentIds = new HashSet<Long>();
 		for(Department d : pointInTimeData.getSession().getDepartments()) {
 			if (!d.getSubjectAreas().isEmpty()) {
-				float deptTotalWsch = 0;
-				float deptTotalWch = 0;
-				float deptTotalOrgWsch = 0;
-				float deptTotalOrgWch = 0;
-				float deptTotalNotOrgWsch = 0;
-				float deptTotalNotOrgWch = 0;
-					
-				for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, d.getUniqueId(), hibSession)) {
-					for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-						if (processedClasses.contains(pc.getUniqueId())){
-							continue;
-						}
-						processedClasses.add(pc.getUniqueId());
-						
-						deptTotalWch += weeklyClassHours(pc);
-						deptTotalWsch += weeklyStudentClassHours(pc);
-						deptTotalOrgWsch += pc.getOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-						deptTotalOrgWch += pc.getOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-						deptTotalNotOrgWsch += pc.getNotOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-						deptTotalNotOrgWch += pc.getNotOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-					}
-				}
-
-				ArrayList<String> row = new ArrayList<String>();
-				row.add(d.getDeptCode());
-				row.add(d.getAbbreviation());
-				row.add(d.getName());
-				row.add(Float.toString(deptTotalOrgWch));
-				row.add(Float.toString(deptTotalNotOrgWch));
-				row.add(Float.toString(deptTotalWch));
-				row.add(Float.toString(deptTotalOrgWsch));
-				row.add(Float.toString(deptTotalNotOrgWsch));
-				row.add(Float.toString(deptTotalWsch));
-				addDataRow(row);
+				departments.add(d);
+				departmentIds.add(d.getUniqueId());
 			}
-		}	
+		}
+		Map<Long, PointInTimeDataCube.DepartmentTotals> totals = cube.computeDepartmentTotals(departmentIds, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+		for(Department d : departments) {
+			PointInTimeDataCube.DepartmentTotals t = totals.get(d.getUniqueId());
+			ArrayList<String> row = new ArrayList<String>();
+			row.add(d.getDeptCode());
+			row.add(d.getAbbreviation());
+			row.add(d.getName());
+			row.add(Float.toString(t.getOrganizedWeeklyClassHours()));
+			row.add(Float.toString(t.getNotOrganizedWeeklyClassHours()));
+			row.add(Float.toString(t.getWeeklyClassHours()));
+			row.add(Float.toString(t.getOrganizedWeeklyStudentClassHours()));
+			row.add(Float.toString(t.getNotOrganizedWeeklyStudentClassHours()));
+			row.add(Float.toString(t.getWeeklyStudentClassHours()));
+			addDataRow(row);
+		}
 	}
 
-
-	
 }
@@ -79,12 +79,10 @@ public class AllWSCHForDepartmentByClass extends WSCHByDepartment {
 		return(MSG.deptWSCBReportAllHoursForDepartmentByClassNote());
 	}
 
-	@Override
 	protected float weeklyClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
 
-	@Override
 	protected float weeklyStudentClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
@@ -93,37 +91,35 @@ public class AllWSCHForDepartmentByClass extends WSCHByDepartment {
 	public void createWeeklyStudentContactHoursByDepartmentReportFor(PointInTimeData pointInTimeData, Session hibSession) {
 		HashSet<Long> processedClasses = new HashSet<Long>();
 		Department d = (Department) hibSession.createQuery("from Department d where d.uniqueId = :id").setLong("id", getDepartmentId()).setCacheable(true).uniqueResult();
-		for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, getDepartmentId(), hibSession)) {
-			for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-				if (processedClasses.contains(pc.getUniqueId())){
-					continue;
-				}
-				processedClasses.add(pc.getUniqueId());
-
-				ArrayList<String> row = new ArrayList<String>();
-				row.add(d.getDeptCode());
-				row.add(d.getAbbreviation());
-				row.add(d.getName());
-				row.add(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getSubjectArea().getSubjectAreaAbbreviation());
-				row.add(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getCourseNbr());
-				row.add(pc.getPitSchedulingSubpart().getItype().getAbbv());
-				row.add(pc.getPitSchedulingSubpart().getItype().getOrganized().toString());
-				row.add(pc.getSectionNumber().toString() + (pc.getPitSchedulingSubpart().getSchedulingSubpartSuffixCache().equals("-")?"":pc.getPitSchedulingSubpart().getSchedulingSubpartSuffixCache()));
-				row.add(pc.getExternalUniqueId());
-				row.add(Float.toString(pc.getOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
-				row.add(Float.toString(pc.getNotOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
-				row.add(Float.toString(weeklyClassHours(pc)));
-				row.add(Float.toString(pc.getOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
-				row.add(Float.toString(pc.getNotOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
-				row.add(Float.toString(weeklyStudentClassHours(pc)));
-				int cnt = 0;
-				for(PitClassEvent pce : pc.getPitClassEvents()){
-					cnt += pce.getPitClassMeetings().size();
-				}
-				row.add(Integer.toString(cnt));
-				addDataRow(row);
-			}	
-		}
+		for(PitClass pc : findAllPitClassesForDepartment(pointInTimeData, getDepartmentId(), hibSession)) {
+			if (processedClasses.contains(pc.getUniqueId())){
+				continue;
+			}
+			processedClasses.add(pc.getUniqueId());
+
+			ArrayList<String> row = new ArrayList<String>();
+			row.add(d.getDeptCode());
+			row.add(d.getAbbreviation());
+			row.add(d.getName());
+			row.add(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getSubjectArea().getSubjectAreaAbbreviation());
+			row.add(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getCourseNbr());
+			row.add(pc.getPitSchedulingSubpart().getItype().getAbbv());
+			row.add(pc.getPitSchedulingSubpart().getItype().getOrganized().toString());
+			row.add(pc.getSectionNumber().toString() + (pc.getPitSchedulingSubpart().getSchedulingSubpartSuffixCache().equals("-")?"":pc.getPitSchedulingSubpart().getSchedulingSubpartSuffixCache()));
+			row.add(pc.getExternalUniqueId());
+			row.add(Float.toString(pc.getOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
+			row.add(Float.toString(pc.getNotOrganizedWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
+			row.add(Float.toString(weeklyClassHours(pc)));
+			row.add(Float.toString(pc.getOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
+			row.add(Float.toString(pc.getNotOrganizedWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm())));
+			row.add(Float.toString(weeklyStudentClassHours(pc)));
+			int cnt = 0;
+			for(PitClassEvent pce : pc.getPitClassEvents()){
+				cnt += pce.getPitClassMeetings().size();
+			}
+			row.add(Integer.toString(cnt));
+			addDataRow(row);
+		}	
 	}
 
 	public Long getDepartmentId() {
@@ -78,12 +78,10 @@ public class AllWSCHForDepartmentByInstructor extends WSCHByDepartment {
 		return(MSG.deptWSCHReportAllHoursForDepartmentByInstructorNote());
 	}
 
-	@Override
 	protected float weeklyClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
 
-	@Override
 	protected float weeklyStudentClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
@@ -94,44 +92,42 @@ public class AllWSCHForDepartmentByInstructor extends WSCHByDepartment {
 		for(Long deptId : getDepartmentIds()){
 			Department d = (Department) hibSession.createQuery("from Department d where d.uniqueId = :id").setLong("id", deptId).setCacheable(true).uniqueResult();
 			HashMap<PitDepartmentalInstructor, InstructorHours> positionClassHours = new HashMap<PitDepartmentalInstructor, InstructorHours>();
-			for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, deptId, hibSession)) {
-				for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-					if (processedClasses.contains(pc.getUniqueId())){
-						continue;
-					}
-					processedClasses.add(pc.getUniqueId());
+			for(PitClass pc : findAllPitClassesForDepartment(pointInTimeData, deptId, hibSession)) {
+				if (processedClasses.contains(pc.getUniqueId())){
+					continue;
+				}
+				processedClasses.add(pc.getUniqueId());
 
-					if (pc.getPitClassInstructors() == null || pc.getPitClassInstructors().isEmpty()) {
+				if (pc.getPitClassInstructors() == null || pc.getPitClassInstructors().isEmpty()) {
+					InstructorHours ih = positionClassHours.get(null);
+					if (ih == null) {
+						ih = new InstructorHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+						positionClassHours.put(null, ih);
+					}
+					ih.addClassHours(null, pc);
+				} else {
+					int numInstructors = 0;
+					for(PitClassInstructor pci : pc.getPitClassInstructors()) {
+						InstructorHours ih = positionClassHours.get(pci.getPitDepartmentalInstructor());
+						if (ih == null) {
+							ih = new InstructorHours(pci.getPitDepartmentalInstructor(), getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+							positionClassHours.put(pci.getPitDepartmentalInstructor(), ih);
+						}
+						if(ih.addClassHours(pci, pc)) {
+							numInstructors++;
+						}
+					}
+					if (numInstructors == 0){
 						InstructorHours ih = positionClassHours.get(null);
 						if (ih == null) {
 							ih = new InstructorHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
 							positionClassHours.put(null, ih);
 						}
 						ih.addClassHours(null, pc);
-					} else {
-						int numInstructors = 0;
-						for(PitClassInstructor pci : pc.getPitClassInstructors()) {
-							InstructorHours ih = positionClassHours.get(pci.getPitDepartmentalInstructor());
-							if (ih == null) {
-								ih = new InstructorHours(pci.getPitDepartmentalInstructor(), getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-								positionClassHours.put(pci.getPitDepartmentalInstructor(), ih);
-							}
-							if(ih.addClassHours(pci, pc)) {
-								numInstructors++;
-							}
-						}
-						if (numInstructors == 0){
-							InstructorHours ih = positionClassHours.get(null);
-							if (ih == null) {
-								ih = new InstructorHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-								positionClassHours.put(null, ih);
-							}
-							ih.addClassHours(null, pc);
-						}
 					}
-				}	
-			   
-			}
+				}
+			}	
+		   
 			for(PitDepartmentalInstructor pdi : positionClassHours.keySet()) {
 				InstructorHours ih = positionClassHours.get(pdi);
 				ArrayList<String> row = new ArrayList<String>();
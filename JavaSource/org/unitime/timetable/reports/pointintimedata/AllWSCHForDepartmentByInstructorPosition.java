@@ -76,12 +76,10 @@ public class AllWSCHForDepartmentByInstructorPosition extends WSCHByDepartment {
 		return(MSG.deptWSCBReportAllHoursForDepartmentByPositionNote());
 	}
 
-	@Override
 	protected float weeklyClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
 
-	@Override
 	protected float weeklyStudentClassHours(PitClass pitClass) {
 		return(pitClass.getAllWeeklyStudentClassHours(getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm()));
 	}
@@ -92,42 +90,40 @@ public class AllWSCHForDepartmentByInstructorPosition extends WSCHByDepartment {
 		for(Long deptId : getDepartmentIds()){
 			Department d = (Department) hibSession.createQuery("from Department d where d.uniqueId = :id").setLong("id", deptId).setCacheable(true).uniqueResult();
 			HashMap<PositionType, PositionHours> positionClassHours = new HashMap<PositionType, PositionHours>();
-			for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, deptId, hibSession)) {
-				for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-					if (processedClasses.contains(pc.getUniqueId())){
-						continue;
-					}
-					processedClasses.add(pc.getUniqueId());
+			for(PitClass pc : findAllPitClassesForDepartment(pointInTimeData, deptId, hibSession)) {
+				if (processedClasses.contains(pc.getUniqueId())){
+					continue;
+				}
+				processedClasses.add(pc.getUniqueId());
 
-					if (pc.getPitClassInstructors() == null || pc.getPitClassInstructors().isEmpty()) {
+				if (pc.getPitClassInstructors() == null || pc.getPitClassInstructors().isEmpty()) {
+					PositionHours ph = positionClassHours.get(null);
+					if (ph == null) {
+						ph = new PositionHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+						positionClassHours.put(null, ph);
+					}
+					ph.addClassHours(null, pc);
+				} else {
+					int numInstructors = 0;
+					for(PitClassInstructor pci : pc.getPitClassInstructors()) {
+						PositionHours ph = positionClassHours.get(pci.getPitDepartmentalInstructor().getPositionType());
+						if (ph == null) {
+							ph = new PositionHours(pci.getPitDepartmentalInstructor().getPositionType(), getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+							positionClassHours.put(pci.getPitDepartmentalInstructor().getPositionType(), ph);
+						}
+						if(ph.addClassHours(pci, pc)) {
+							numInstructors++;
+						}
+					}
+					if (numInstructors == 0){
 						PositionHours ph = positionClassHours.get(null);
 						if (ph == null) {
 							ph = new PositionHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
 							positionClassHours.put(null, ph);
 						}
 						ph.addClassHours(null, pc);
-					} else {
-						int numInstructors = 0;
-						for(PitClassInstructor pci : pc.getPitClassInstructors()) {
-							PositionHours ph = positionClassHours.get(pci.getPitDepartmentalInstructor().getPositionType());
-							if (ph == null) {
-								ph = new PositionHours(pci.getPitDepartmentalInstructor().getPositionType(), getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-								positionClassHours.put(pci.getPitDepartmentalInstructor().getPositionType(), ph);
-							}
-							if(ph.addClassHours(pci, pc)) {
-								numInstructors++;
-							}
-						}
-						if (numInstructors == 0){
-							PositionHours ph = positionClassHours.get(null);
-							if (ph == null) {
-								ph = new PositionHours(null, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
-								positionClassHours.put(null, ph);
-							}
-							ph.addClassHours(null, pc);
-						}
-	
 					}
+
 				}
 			}
 
@@ -0,0 +1,340 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+*/
+
+package org.unitime.timetable.reports.pointintimedata;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.model.PointInTimeData;
+import org.unitime.timetable.util.Constants;
+
+/**
+ * Columnar, read-only image of a point in time data snapshot. All classes, their utilized periods, and their
+ * enrollment counts are loaded in a few bulk queries and kept in primitive arrays, so that the point in time data
+ * reports can aggregate over them without going back to the database for every department or offering.<br>
+ * <br>
+ * Since a snapshot does not change once it has been saved, the cube is cached (softly) per snapshot and its time stamp.<br>
+ * <br>
+ * Only the department totals ({@link WSCHByDepartment}, {@link AllWSCHByDepartment}) are computed from the cube,
+ * the other point in time data reports need the class, instructor, or room details and still query the snapshot directly.
+ */
+public class PointInTimeDataCube {
+	private static Log sLog = LogFactory.getLog(PointInTimeDataCube.class);
+	private static Map<Long, SoftReference<PointInTimeDataCube>> sCache = new HashMap<Long, SoftReference<PointInTimeDataCube>>();
+	private static Map<Long, Object> sLoading = new HashMap<Long, Object>();
+
+	private Long iPointInTimeDataId;
+	private Date iTimestamp;
+
+	// class columns
+	private long[] iClassId;
+	private long[] iOfferingId;
+	private long[] iDepartmentId;
+	private boolean[] iOrganized;
+	private int[] iNrStudents;
+	private int[] iNrUniquePeriods;
+
+	// meeting columns, periods of the i-th class are stored between iPeriodStart[i] (inclusive) and iPeriodStart[i+1] (exclusive)
+	private int[] iPeriodStart;
+	private long[] iPeriodLocation;
+	private long[] iPeriodKey;
+
+	private Map<Long, Integer> iClassIndex = new HashMap<Long, Integer>();
+	private Map<Long, int[]> iDepartmentClasses = new HashMap<Long, int[]>();
+
+	protected PointInTimeDataCube(PointInTimeData pointInTimeData) {
+		iPointInTimeDataId = pointInTimeData.getUniqueId();
+		iTimestamp = pointInTimeData.getTimestamp();
+	}
+
+	/**
+	 * Returns the cube of the given snapshot, loading it when it is not cached yet.
+	 */
+	public static PointInTimeDataCube getInstance(PointInTimeData pointInTimeData, org.hibernate.Session hibSession) {
+		Long id = pointInTimeData.getUniqueId();
+		Object lock;
+		synchronized (sCache) {
+			PointInTimeDataCube cube = getCached(pointInTimeData);
+			if (cube != null) return cube;
+			lock = sLoading.get(id);
+			if (lock == null) {
+				lock = new Object();
+				sLoading.put(id, lock);
+			}
+		}
+		// the cube is loaded while holding the lock of its snapshot only, so that other snapshots can be loaded (or returned) in the meantime
+		synchronized (lock) {
+			synchronized (sCache) {
+				PointInTimeDataCube cube = getCached(pointInTimeData);
+				if (cube != null) return cube;
+			}
+			try {
+				PointInTimeDataCube cube = new PointInTimeDataCube(pointInTimeData);
+				cube.load(pointInTimeData, hibSession);
+				synchronized (sCache) {
+					sCache.put(id, new SoftReference<PointInTimeDataCube>(cube));
+				}
+				return cube;
+			} finally {
+				synchronized (sCache) {
+					if (sLoading.get(id) == lock) sLoading.remove(id);
+				}
+			}
+		}
+	}
+	
+	private static PointInTimeDataCube getCached(PointInTimeData pointInTimeData) {
+		SoftReference<PointInTimeDataCube> ref = sCache.get(pointInTimeData.getUniqueId());
+		PointInTimeDataCube cube = (ref == null ? null : ref.get());
+		if (cube != null && (cube.iTimestamp == null ? pointInTimeData.getTimestamp() == null : cube.iTimestamp.equals(pointInTimeData.getTimestamp())))
+			return cube;
+		return null;
+	}
+
+	/**
+	 * Drops the cached cube of the given snapshot (e.g., when the snapshot is deleted).
+	 */
+	public static void invalidate(Long pointInTimeDataId) {
+		synchronized (sCache) {
+			if (pointInTimeDataId == null)
+				sCache.clear();
+			else
+				sCache.remove(pointInTimeDataId);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void load(PointInTimeData pointInTimeData, org.hibernate.Session hibSession) {
+		long t0 = System.currentTimeMillis();
+
+		List<Object[]> classes = (List<Object[]>)hibSession.createQuery(
+				"select distinct pc.uniqueId, pio.uniqueId, sa.department.uniqueId, it.organized" +
+				" from PitClass pc" +
+				" inner join pc.pitSchedulingSubpart as pss" +
+				" inner join pss.itype as it" +
+				" inner join pss.pitInstrOfferingConfig as pioc" +
+				" inner join pioc.pitInstructionalOffering as pio" +
+				" inner join pio.pitCourseOfferings as pco" +
+				" inner join pco.subjectArea as sa" +
+				" where pio.pointInTimeData.uniqueId = :pitdUid" +
+				" and pco.isControl = true" +
+				" and pc.pitClassEvents is not empty")
+				.setLong("pitdUid", pointInTimeData.getUniqueId())
+				.list();
+
+		int nrClasses = classes.size();
+		iClassId = new long[nrClasses];
+		iOfferingId = new long[nrClasses];
+		iDepartmentId = new long[nrClasses];
+		iOrganized = new boolean[nrClasses];
+		iNrStudents = new int[nrClasses];
+		iNrUniquePeriods = new int[nrClasses];
+		Map<Long, List<Integer>> departmentClasses = new HashMap<Long, List<Integer>>();
+		for (Object[] o: classes) {
+			Long classId = (Long)o[0];
+			if (iClassIndex.containsKey(classId)) continue;
+			int idx = iClassIndex.size();
+			iClassIndex.put(classId, idx);
+			iClassId[idx] = classId;
+			iOfferingId[idx] = (Long)o[1];
+			iDepartmentId[idx] = (Long)o[2];
+			iOrganized[idx] = Boolean.TRUE.equals(o[3]);
+			List<Integer> indexes = departmentClasses.get(iDepartmentId[idx]);
+			if (indexes == null) {
+				indexes = new ArrayList<Integer>();
+				departmentClasses.put(iDepartmentId[idx], indexes);
+			}
+			indexes.add(idx);
+		}
+		if (iClassIndex.size() < nrClasses) {
+			nrClasses = iClassIndex.size();
+			iClassId = Arrays.copyOf(iClassId, nrClasses);
+			iOfferingId = Arrays.copyOf(iOfferingId, nrClasses);
+			iDepartmentId = Arrays.copyOf(iDepartmentId, nrClasses);
+			iOrganized = Arrays.copyOf(iOrganized, nrClasses);
+			iNrStudents = Arrays.copyOf(iNrStudents, nrClasses);
+			iNrUniquePeriods = Arrays.copyOf(iNrUniquePeriods, nrClasses);
+		}
+		for (Map.Entry<Long, List<Integer>> e: departmentClasses.entrySet()) {
+			int[] indexes = new int[e.getValue().size()];
+			for (int i = 0; i < indexes.length; i++)
+				indexes[i] = e.getValue().get(i);
+			iDepartmentClasses.put(e.getKey(), indexes);
+		}
+
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select e.pitClass.uniqueId, count(e)" +
+				" from PitStudentClassEnrollment e" +
+				" where e.pitClass.pitSchedulingSubpart.pitInstrOfferingConfig.pitInstructionalOffering.pointInTimeData.uniqueId = :pitdUid" +
+				" group by e.pitClass.uniqueId")
+				.setLong("pitdUid", pointInTimeData.getUniqueId())
+				.list()) {
+			Integer idx = iClassIndex.get((Long)o[0]);
+			if (idx != null) iNrStudents[idx] = ((Number)o[1]).intValue();
+		}
+
+		Date begin = pointInTimeData.getSession().getSessionBeginDateTime();
+		Date end = pointInTimeData.getSession().getClassesEndDateTime();
+		List<Object[]> periods = (List<Object[]>)hibSession.createQuery(
+				"select pce.pitClass.uniqueId, pcm.locationPermanentId, pcm.meetingDate, pcmup.timeSlot" +
+				" from PitClassMeetingUtilPeriod pcmup" +
+				" inner join pcmup.pitClassMeeting as pcm" +
+				" inner join pcm.pitClassEvent as pce" +
+				" where pce.pitClass.pitSchedulingSubpart.pitInstrOfferingConfig.pitInstructionalOffering.pointInTimeData.uniqueId = :pitdUid")
+				.setLong("pitdUid", pointInTimeData.getUniqueId())
+				.list();
+
+		// counting sort of the utilized periods by class
+		int[] nrPeriods = new int[nrClasses];
+		int[] rowClass = new int[periods.size()];
+		int row = 0;
+		for (Object[] o: periods) {
+			Integer idx = iClassIndex.get((Long)o[0]);
+			Date meetingDate = (Date)o[2];
+			if (idx == null || begin.compareTo(meetingDate) > 0 || end.compareTo(meetingDate) < 0) {
+				rowClass[row++] = -1;
+			} else {
+				rowClass[row++] = idx;
+				nrPeriods[idx] ++;
+			}
+		}
+		iPeriodStart = new int[nrClasses + 1];
+		for (int i = 0; i < nrClasses; i++)
+			iPeriodStart[i + 1] = iPeriodStart[i] + nrPeriods[i];
+		iPeriodLocation = new long[iPeriodStart[nrClasses]];
+		iPeriodKey = new long[iPeriodStart[nrClasses]];
+		int[] position = Arrays.copyOf(iPeriodStart, nrClasses);
+		row = 0;
+		for (Object[] o: periods) {
+			int idx = rowClass[row++];
+			if (idx < 0) continue;
+			int pos = position[idx]++;
+			iPeriodLocation[pos] = (o[1] == null ? -1l : ((Long)o[1]).longValue());
+			iPeriodKey[pos] = periodKey((Date)o[2], (Integer)o[3]);
+		}
+		for (int i = 0; i < nrClasses; i++) {
+			long[] keys = Arrays.copyOfRange(iPeriodKey, iPeriodStart[i], iPeriodStart[i + 1]);
+			Arrays.sort(keys);
+			int unique = 0;
+			for (int j = 0; j < keys.length; j++)
+				if (j == 0 || keys[j] != keys[j - 1]) unique ++;
+			iNrUniquePeriods[i] = unique;
+		}
+
+		sLog.debug("Point in time data " + pointInTimeData.getName() + " loaded in " + (System.currentTimeMillis() - t0) + " ms (" +
+				nrClasses + " classes, " + iPeriodKey.length + " utilized periods).");
+	}
+
+	/**
+	 * A period is identified by its meeting date and time slot.
+	 */
+	protected static long periodKey(Date meetingDate, Integer timeSlot) {
+		return meetingDate.getTime() * Constants.SLOTS_PER_DAY + (timeSlot == null ? 0 : timeSlot.intValue());
+	}
+
+	public Long getPointInTimeDataId() { return iPointInTimeDataId; }
+
+	public int getNrClasses() { return iClassId.length; }
+
+	public long getClassId(int index) { return iClassId[index]; }
+
+	public long getOfferingId(int index) { return iOfferingId[index]; }
+
+	public long getDepartmentId(int index) { return iDepartmentId[index]; }
+
+	public boolean isOrganized(int index) { return iOrganized[index]; }
+
+	public int getNrStudents(int index) { return iNrStudents[index]; }
+
+	public int getNrUniquePeriods(int index) { return iNrUniquePeriods[index]; }
+
+	/**
+	 * Indexes of the classes whose controlling course belongs to the given department
+	 */
+	public int[] getDepartmentClasses(Long departmentId) {
+		int[] indexes = iDepartmentClasses.get(departmentId);
+		return (indexes == null ? new int[0] : indexes);
+	}
+
+	public Set<Long> getDepartments() {
+		return iDepartmentClasses.keySet();
+	}
+
+	public float getWeeklyClassHours(int index, Float standardMinutesInReportingHour, Float standardWeeksInReportingTerm) {
+		float minutesInReportingHour = (standardMinutesInReportingHour == null ? ApplicationProperty.StandardMinutesInReportingHour.floatValue() : standardMinutesInReportingHour.floatValue());
+		float weeksInReportingTerm = (standardWeeksInReportingTerm == null ? ApplicationProperty.StandardWeeksInReportingTerm.floatValue() : standardWeeksInReportingTerm.floatValue());
+		return (Constants.SLOT_LENGTH_MIN * 1.0f) * iNrUniquePeriods[index] / minutesInReportingHour / weeksInReportingTerm;
+	}
+
+	public float getWeeklyStudentClassHours(int index, Float standardMinutesInReportingHour, Float standardWeeksInReportingTerm) {
+		return getWeeklyClassHours(index, standardMinutesInReportingHour, standardWeeksInReportingTerm) * iNrStudents[index];
+	}
+
+	/**
+	 * Weekly class hours and weekly student class hours totals of a department
+	 */
+	public static class DepartmentTotals {
+		private float iOrganizedWch = 0f, iNotOrganizedWch = 0f, iOrganizedWsch = 0f, iNotOrganizedWsch = 0f;
+
+		public float getOrganizedWeeklyClassHours() { return iOrganizedWch; }
+		public float getNotOrganizedWeeklyClassHours() { return iNotOrganizedWch; }
+		public float getWeeklyClassHours() { return iOrganizedWch + iNotOrganizedWch; }
+		public float getOrganizedWeeklyStudentClassHours() { return iOrganizedWsch; }
+		public float getNotOrganizedWeeklyStudentClassHours() { return iNotOrganizedWsch; }
+		public float getWeeklyStudentClassHours() { return iOrganizedWsch + iNotOrganizedWsch; }
+	}
+
+	/**
+	 * Computes {@link DepartmentTotals} for the given departments, the cube itself is not modified by the computation.
+	 */
+	public Map<Long, DepartmentTotals> computeDepartmentTotals(Collection<Long> departmentIds, Float standardMinutesInReportingHour, Float standardWeeksInReportingTerm) {
+		Map<Long, DepartmentTotals> totals = new HashMap<Long, DepartmentTotals>();
+		for (Long departmentId: departmentIds) {
+			DepartmentTotals departmentTotals = new DepartmentTotals();
+			computeDepartmentTotals(departmentId, departmentTotals, standardMinutesInReportingHour, standardWeeksInReportingTerm);
+			totals.put(departmentId, departmentTotals);
+		}
+		return totals;
+	}
+
+	protected void computeDepartmentTotals(Long departmentId, DepartmentTotals totals, Float standardMinutesInReportingHour, Float standardWeeksInReportingTerm) {
+		for (int index: getDepartmentClasses(departmentId)) {
+			float wch = getWeeklyClassHours(index, standardMinutesInReportingHour, standardWeeksInReportingTerm);
+			if (iOrganized[index]) {
+				totals.iOrganizedWch += wch;
+				totals.iOrganizedWsch += wch * iNrStudents[index];
+			} else {
+				totals.iNotOrganizedWch += wch;
+				totals.iNotOrganizedWsch += wch * iNrStudents[index];
+			}
+		}
+	}
+}
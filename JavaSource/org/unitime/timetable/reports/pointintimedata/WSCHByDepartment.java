@@ -22,10 +22,10 @@ package org.unitime.timetable.reports.pointintimedata;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Map;
 
 import org.hibernate.Session;
 import org.unitime.timetable.model.Department;
-import org.unitime.timetable.model.PitClass;
 import org.unitime.timetable.model.PointInTimeData;
 
 public abstract class WSCHByDepartment extends BasePointInTimeDataReports {
@@ -45,36 +45,27 @@ public abstract class WSCHByDepartment extends BasePointInTimeDataReports {
 		setHeader(hdr);
 	}
 	
-	protected abstract float weeklyClassHours(PitClass pitClass);
-	protected abstract float weeklyStudentClassHours(PitClass pitClass);
-
 	public void createWeeklyStudentContactHoursByDepartmentReportFor(PointInTimeData pointInTimeData, Session hibSession) {
-		HashSet<Long> processedClasses = new HashSet<Long>();
+		PointInTimeDataCube cube = PointInTimeDataCube.getInstance(pointInTimeData, hibSession);
+		ArrayList<Department> departments = new ArrayList<Department>();
+		HashSet<Long> departmentIds = new HashSet<Long>();
 		for(Department d : pointInTimeData.getSession().getDepartments()) {
 			if (!d.getSubjectAreas().isEmpty()) {
-				float deptTotalWsch = 0;
-				float deptTotalWch = 0;
-				
-				for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, d.getUniqueId(), hibSession)) {
-					for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-						if (processedClasses.contains(pc.getUniqueId())){
-							continue;
-						}
-						processedClasses.add(pc.getUniqueId());
-						deptTotalWch += weeklyClassHours(pc);
-						deptTotalWsch += weeklyStudentClassHours(pc);
-					}
-				}
-			
-				ArrayList<String> row = new ArrayList<String>();
-				row.add(d.getDeptCode());
-				row.add(d.getAbbreviation());
-				row.add(d.getName());
-				row.add(Float.toString(deptTotalWch));
-				row.add(Float.toString(deptTotalWsch));
-				addDataRow(row);
+				departments.add(d);
+				departmentIds.add(d.getUniqueId());
 			}
-		}	
+		}
+		Map<Long, PointInTimeDataCube.DepartmentTotals> totals = cube.computeDepartmentTotals(departmentIds, getStandardMinutesInReportingHour(), getStandardWeeksInReportingTerm());
+		for(Department d : departments) {
+			PointInTimeDataCube.DepartmentTotals t = totals.get(d.getUniqueId());
+			ArrayList<String> row = new ArrayList<String>();
+			row.add(d.getDeptCode());
+			row.add(d.getAbbreviation());
+			row.add(d.getName());
+			row.add(Float.toString(t.getWeeklyClassHours()));
+			row.add(Float.toString(t.getWeeklyStudentClassHours()));
+			addDataRow(row);
+		}
 	}
 
 	@Override
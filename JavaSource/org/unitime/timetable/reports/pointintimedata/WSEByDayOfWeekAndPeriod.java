@@ -111,26 +111,24 @@ public class WSEByDayOfWeekAndPeriod extends BasePointInTimeDataReports {
 		HashSet<Long> processedClasses = new HashSet<Long>();
 
 		for(Long deptId : revisedDepartmentIds) {
-			for (Long pioUid : findAllPitInstructionalOfferingUniqueIdsForDepartment(pointInTimeData, deptId, hibSession)) {		
-				for(PitClass pc : findAllPitClassesForPitInstructionalOfferingId(pointInTimeData, pioUid, hibSession)) {
-					if (processedClasses.contains(pc.getUniqueId())){
-						continue;
-					}
-					processedClasses.add(pc.getUniqueId());
-
-					if(getSubjectAreaIds().contains(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getSubjectArea().getUniqueId())) {
-						HashMap<java.util.Date, Float> datePeriodEnrollments = pc.findPeriodEnrollmentsForCriteria(validRoomPermanentIds, positionIds);
-						for(java.util.Date date : datePeriodEnrollments.keySet()) {
-							String label = dayOfWeekTimeLabelFor(date);
-							PeriodEnrollment pe = periodEnrollmentMap.get(label);
-							if (pe == null) {
-								pe = new PeriodEnrollment(date, getStandardWeeksInReportingTerm());
-								periodEnrollmentMap.put(label, pe);
-							}
-							pe.addEnrollment(pc, datePeriodEnrollments.get(date));
-						}
-					};
+			for(PitClass pc : findAllPitClassesForDepartment(pointInTimeData, deptId, hibSession)) {
+				if (processedClasses.contains(pc.getUniqueId())){
+					continue;
 				}
+				processedClasses.add(pc.getUniqueId());
+
+				if(getSubjectAreaIds().contains(pc.getPitSchedulingSubpart().getPitInstrOfferingConfig().getPitInstructionalOffering().getControllingPitCourseOffering().getSubjectArea().getUniqueId())) {
+					HashMap<java.util.Date, Float> datePeriodEnrollments = pc.findPeriodEnrollmentsForCriteria(validRoomPermanentIds, positionIds);
+					for(java.util.Date date : datePeriodEnrollments.keySet()) {
+						String label = dayOfWeekTimeLabelFor(date);
+						PeriodEnrollment pe = periodEnrollmentMap.get(label);
+						if (pe == null) {
+							pe = new PeriodEnrollment(date, getStandardWeeksInReportingTerm());
+							periodEnrollmentMap.put(label, pe);
+						}
+						pe.addEnrollment(pc, datePeriodEnrollments.get(date));
+					}
+				};
 			}
 		}
 
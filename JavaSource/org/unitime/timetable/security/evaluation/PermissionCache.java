@@ -0,0 +1,247 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.security.evaluation;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Synchronization;
+
+import org.hibernate.Transaction;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.security.Qualifiable;
+import org.unitime.timetable.security.UserAuthority;
+import org.unitime.timetable.security.UserContext;
+import org.unitime.timetable.security.rights.Right;
+
+/**
+ * Memoization of permission check results for a (user, authority, right, domain object) combination.<br>
+ * <br>
+ * Results are kept for the duration of the current HTTP request and, when {@link ApplicationProperty#PermissionCacheTimeToLive}
+ * is set, also for a few seconds across the requests of the same user. Both caches are dropped by {@link #invalidate()},
+ * which is to be called when roles, their permissions, or department / session statuses are changed. The checks cached by a request
+ * (and across the requests of its user) are also dropped when the request saves, updates, or deletes an entity, since many rights
+ * depend on the state of their domain object (see {@link #invalidateRequest()}).
+ */
+public class PermissionCache {
+	private static final String REQUEST_ATTRIBUTE = PermissionCache.class.getName();
+	private static final int MAX_USER_ENTRIES = 10000;
+
+	private static AtomicLong sVersion = new AtomicLong(0);
+	private static AtomicLong sRequestHits = new AtomicLong(0), sUserHits = new AtomicLong(0), sMisses = new AtomicLong(0);
+	private static Map<String, Entries> sUserCache = new ConcurrentHashMap<String, Entries>();
+	private static Map<Class<?>, Method> sIdMethods = new ConcurrentHashMap<Class<?>, Method>();
+
+	/**
+	 * Cache key of the given permission check, null if the check cannot be cached (right with no type, domain object with no id)
+	 */
+	public static String getKey(UserContext user, Object domainObject, Right right) {
+		if (user == null || user.getCurrentAuthority() == null || right == null || !right.hasType() || domainObject == null) return null;
+		Serializable id = getId(domainObject);
+		if (id == null) return null;
+		UserAuthority authority = user.getCurrentAuthority();
+		return right.name() + ":" + id + "|" + authority.getAuthority() + "|" + authority.getUniqueId();
+	}
+
+	protected static Serializable getId(Object domainObject) {
+		if (domainObject instanceof Qualifiable)
+			return ((Qualifiable)domainObject).getQualifierId();
+		Method method = sIdMethods.get(domainObject.getClass());
+		if (method == null) {
+			try {
+				method = domainObject.getClass().getMethod("getUniqueId");
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+			sIdMethods.put(domainObject.getClass(), method);
+		}
+		try {
+			Object id = method.invoke(domainObject);
+			return (id instanceof Serializable ? (Serializable)id : null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	protected static String getUserKey(UserContext user) {
+		return user.getExternalUserId();
+	}
+
+	/**
+	 * Cached result, null if not cached
+	 */
+	public static Boolean get(UserContext user, String key) {
+		if (key == null) return null;
+		Entries request = getRequestEntries(false);
+		if (request != null) {
+			request.setUserKey(getUserKey(user));
+			Boolean ret = request.get(key);
+			if (ret != null) {
+				sRequestHits.incrementAndGet();
+				return ret;
+			}
+		}
+		Entries entries = getUserEntries(user, false);
+		if (entries != null) {
+			Boolean ret = entries.get(key);
+			if (ret != null) {
+				sUserHits.incrementAndGet();
+				if (request != null) request.put(key, ret);
+				return ret;
+			}
+		}
+		sMisses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Remember the result of a permission check
+	 */
+	public static void put(UserContext user, String key, boolean value) {
+		if (key == null) return;
+		Entries request = getRequestEntries(true);
+		if (request != null) {
+			request.setUserKey(getUserKey(user));
+			request.put(key, value);
+		}
+		Entries entries = getUserEntries(user, true);
+		if (entries != null) entries.put(key, value);
+	}
+
+	protected static Entries getRequestEntries(boolean create) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) return null;
+		Entries entries = (Entries)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (entries == null || !entries.isValid(0)) {
+			if (!create) return null;
+			entries = new Entries(false);
+			attributes.setAttribute(REQUEST_ATTRIBUTE, entries, RequestAttributes.SCOPE_REQUEST);
+		}
+		return entries;
+	}
+
+	protected static Entries getUserEntries(UserContext user, boolean create) {
+		int ttl = ApplicationProperty.PermissionCacheTimeToLive.intValue();
+		if (ttl <= 0) return null;
+		String userKey = getUserKey(user);
+		if (userKey == null) return null;
+		Entries entries = sUserCache.get(userKey);
+		if (entries == null || !entries.isValid(1000l * ttl)) {
+			if (entries != null) sUserCache.remove(userKey);
+			if (!create) return null;
+			entries = new Entries(true);
+			sUserCache.put(userKey, entries);
+		}
+		return entries;
+	}
+
+	/**
+	 * Drop all cached permission checks (of all users)
+	 */
+	public static void invalidate() {
+		sVersion.incrementAndGet();
+		sUserCache.clear();
+	}
+	
+	/**
+	 * Drop all cached permission checks once the current transaction of the given session completes (right away when
+	 * there is no active transaction), so that no check evaluated before the change is committed remains cached
+	 */
+	public static void invalidate(org.hibernate.Session hibSession) {
+		Transaction tx = (hibSession == null ? null : hibSession.getTransaction());
+		if (tx != null && tx.isActive()) {
+			tx.registerSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {}
+				
+				@Override
+				public void afterCompletion(int status) {
+					invalidate();
+				}
+			});
+		} else {
+			invalidate();
+		}
+	}
+	
+	/**
+	 * Drop the permission checks cached by the current request, together with the checks cached across the requests of its user.
+	 * Called whenever an entity is saved, updated, or deleted (see {@link PermissionCacheInterceptor}).
+	 */
+	public static void invalidateRequest() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) return;
+		Entries entries = (Entries)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (entries == null) return;
+		attributes.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (entries.getUserKey() != null)
+			sUserCache.remove(entries.getUserKey());
+	}
+
+	public static long getRequestHits() { return sRequestHits.get(); }
+	public static long getUserHits() { return sUserHits.get(); }
+	public static long getMisses() { return sMisses.get(); }
+
+	/**
+	 * Hit ratio (between 0 and 1) of the permission checks that could be cached
+	 */
+	public static double getHitRatio() {
+		long hits = sRequestHits.get() + sUserHits.get();
+		long total = hits + sMisses.get();
+		return (total == 0 ? 0.0 : ((double)hits) / total);
+	}
+
+	protected static class Entries {
+		private Map<String, Boolean> iEntries;
+		private long iVersion, iCreated;
+		private boolean iShared;
+		private String iUserKey;
+
+		protected Entries(boolean shared) {
+			iShared = shared;
+			iVersion = sVersion.get();
+			iCreated = System.currentTimeMillis();
+			iEntries = (shared ? new ConcurrentHashMap<String, Boolean>() : new HashMap<String, Boolean>());
+		}
+
+		protected boolean isValid(long timeToLive) {
+			if (iVersion != sVersion.get()) return false;
+			return timeToLive <= 0 || System.currentTimeMillis() - iCreated < timeToLive;
+		}
+
+		protected Boolean get(String key) {
+			return iEntries.get(key);
+		}
+		
+		protected String getUserKey() { return iUserKey; }
+		protected void setUserKey(String userKey) { iUserKey = userKey; }
+
+		protected void put(String key, Boolean value) {
+			if (iShared && iEntries.size() >= MAX_USER_ENTRIES) return;
+			iEntries.put(key, value);
+		}
+	}
+}
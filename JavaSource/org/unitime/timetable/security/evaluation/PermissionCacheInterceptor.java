@@ -0,0 +1,141 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.security.evaluation;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.EntityMode;
+import org.hibernate.Interceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+
+/**
+ * Session factory interceptor that drops the permission checks cached by the current request whenever an entity or a collection
+ * is saved, updated, or deleted (see {@link PermissionCache#invalidateRequest()}), since many rights depend on the state of their
+ * domain object. All callbacks are passed on to the next interceptor of the chain (e.g., the request statistics interceptor).
+ */
+public class PermissionCacheInterceptor extends EmptyInterceptor {
+	private static final long serialVersionUID = 1L;
+	private Interceptor iNext;
+	
+	public PermissionCacheInterceptor(Interceptor next) {
+		iNext = (next == null ? EmptyInterceptor.INSTANCE : next);
+	}
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		PermissionCache.invalidateRequest();
+		return iNext.onSave(entity, id, state, propertyNames, types);
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState, String[] propertyNames, Type[] types) {
+		PermissionCache.invalidateRequest();
+		return iNext.onFlushDirty(entity, id, currentState, previousState, propertyNames, types);
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		PermissionCache.invalidateRequest();
+		iNext.onDelete(entity, id, state, propertyNames, types);
+	}
+	
+	@Override
+	public void onCollectionRecreate(Object collection, Serializable key) {
+		PermissionCache.invalidateRequest();
+		iNext.onCollectionRecreate(collection, key);
+	}
+	
+	@Override
+	public void onCollectionRemove(Object collection, Serializable key) {
+		PermissionCache.invalidateRequest();
+		iNext.onCollectionRemove(collection, key);
+	}
+	
+	@Override
+	public void onCollectionUpdate(Object collection, Serializable key) {
+		PermissionCache.invalidateRequest();
+		iNext.onCollectionUpdate(collection, key);
+	}
+	
+	@Override
+	public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		return iNext.onLoad(entity, id, state, propertyNames, types);
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void preFlush(Iterator entities) {
+		iNext.preFlush(entities);
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void postFlush(Iterator entities) {
+		iNext.postFlush(entities);
+	}
+	
+	@Override
+	public Boolean isTransient(Object entity) {
+		return iNext.isTransient(entity);
+	}
+	
+	@Override
+	public int[] findDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState, String[] propertyNames, Type[] types) {
+		return iNext.findDirty(entity, id, currentState, previousState, propertyNames, types);
+	}
+	
+	@Override
+	public Object instantiate(String entityName, EntityMode entityMode, Serializable id) {
+		return iNext.instantiate(entityName, entityMode, id);
+	}
+	
+	@Override
+	public String getEntityName(Object object) {
+		return iNext.getEntityName(object);
+	}
+	
+	@Override
+	public Object getEntity(String entityName, Serializable id) {
+		return iNext.getEntity(entityName, id);
+	}
+	
+	@Override
+	public void afterTransactionBegin(Transaction tx) {
+		iNext.afterTransactionBegin(tx);
+	}
+	
+	@Override
+	public void beforeTransactionCompletion(Transaction tx) {
+		iNext.beforeTransactionCompletion(tx);
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		iNext.afterTransactionCompletion(tx);
+	}
+	
+	@Override
+	public String onPrepareStatement(String sql) {
+		return iNext.onPrepareStatement(sql);
+	}
+}
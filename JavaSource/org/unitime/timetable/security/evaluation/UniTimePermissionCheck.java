@@ -259,6 +259,13 @@ public class UniTimePermissionCheck implements PermissionCheck, InitializingBean
 			throw new AccessDeniedException(MSG.wrongDomainObject(right.toString(), domainObject.getClass().getSimpleName(), right.type().getSimpleName()));
 		}
 		
+		String key = PermissionCache.getKey(user, domainObject, right);
+		if (Boolean.TRUE.equals(PermissionCache.get(user, key))) return;
+		checkDomainObject(user, domainObject, right);
+		PermissionCache.put(user, key, true);
+	}
+	
+	protected void checkDomainObject(UserContext user, Object domainObject, Right right) throws AccessDeniedException {
 		try {
 			Permission<?> perm = (Permission<?>)applicationContext.getBean("permission" + right.name(), Permission.class);
 			if (perm != null && perm.type().isInstance(domainObject)) {
@@ -526,6 +533,15 @@ public class UniTimePermissionCheck implements PermissionCheck, InitializingBean
 			return false;
 		}
 		
+		String key = PermissionCache.getKey(user, domainObject, right);
+		Boolean cached = PermissionCache.get(user, key);
+		if (cached != null) return cached;
+		boolean ret = hasDomainObjectPermission(user, domainObject, right);
+		PermissionCache.put(user, key, ret);
+		return ret;
+	}
+	
+	protected boolean hasDomainObjectPermission(UserContext user, Object domainObject, Right right) {
 		try {
 			Permission<?> perm = (Permission<?>)applicationContext.getBean("permission" + right.name(), Permission.class);
 			if (perm != null && perm.type().isInstance(domainObject))
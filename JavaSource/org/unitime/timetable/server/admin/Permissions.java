@@ -43,6 +43,7 @@ import org.unitime.timetable.model.ChangeLog.Operation;
 import org.unitime.timetable.model.ChangeLog.Source;
 import org.unitime.timetable.model.dao.RolesDAO;
 import org.unitime.timetable.security.SessionContext;
+import org.unitime.timetable.security.evaluation.PermissionCache;
 import org.unitime.timetable.security.rights.Right;
 
 /**
@@ -119,6 +120,8 @@ public class Permissions implements AdminTable {
 				}
 			}
 		}
+		if (!changed.isEmpty())
+			PermissionCache.invalidate(hibSession);
 		for (Roles role: changed) {
 			hibSession.saveOrUpdate(role);
 			ChangeLog.addChange(hibSession,
@@ -155,6 +158,8 @@ public class Permissions implements AdminTable {
 				else role.getRights().remove(right.name());
 			}
 		}
+		if (!changed.isEmpty())
+			PermissionCache.invalidate(hibSession);
 		for (Roles role: changed) {
 			hibSession.saveOrUpdate(role);
 			ChangeLog.addChange(hibSession,
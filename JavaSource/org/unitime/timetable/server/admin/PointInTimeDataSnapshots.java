@@ -39,6 +39,7 @@ import org.unitime.timetable.model.ChangeLog.Operation;
 import org.unitime.timetable.model.ChangeLog.Source;
 import org.unitime.timetable.model.PointInTimeData;
 import org.unitime.timetable.model.dao.PointInTimeDataDAO;
+import org.unitime.timetable.reports.pointintimedata.PointInTimeDataCube;
 import org.unitime.timetable.security.SessionContext;
 import org.unitime.timetable.security.rights.Right;
 import org.unitime.timetable.util.Formats;
@@ -124,6 +125,7 @@ public class PointInTimeDataSnapshots implements AdminTable {
 				Operation.DELETE,
 				null,
 				null);
+		PointInTimeDataCube.invalidate(pointInTimeData.getUniqueId());
 		hibSession.delete(pointInTimeData);
 	}
 	
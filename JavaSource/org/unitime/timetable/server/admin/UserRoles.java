@@ -39,6 +39,7 @@ import org.unitime.timetable.model.ChangeLog.Operation;
 import org.unitime.timetable.model.ChangeLog.Source;
 import org.unitime.timetable.model.dao.RolesDAO;
 import org.unitime.timetable.security.SessionContext;
+import org.unitime.timetable.security.evaluation.PermissionCache;
 import org.unitime.timetable.security.rights.Right;
 
 /**
@@ -94,6 +95,7 @@ public class UserRoles implements AdminTable {
 	@Override
 	@PreAuthorize("checkPermission('RoleEdit')")
 	public void save(Record record, SessionContext context, Session hibSession) {
+		PermissionCache.invalidate(hibSession);
 		Roles role = new Roles();
 		role.setReference(record.getField(0));
 		role.setAbbv(record.getField(1));
@@ -112,6 +114,7 @@ public class UserRoles implements AdminTable {
 	}
 
 	protected void update(Roles role, Record record, SessionContext context, Session hibSession) {
+		PermissionCache.invalidate(hibSession);
 		if (role == null) return;
 		if (ToolBox.equals(role.getReference(), record.getField(0)) &&
 				ToolBox.equals(role.getAbbv(), record.getField(1)) &&
@@ -139,6 +142,7 @@ public class UserRoles implements AdminTable {
 	}
 	
 	protected void delete(Roles role, SessionContext context, Session hibSession) {
+		PermissionCache.invalidate(hibSession);
 		if (role == null) return;
 		if (!role.isManager())
 			throw new PageAccessException(MESSAGES.failedDeleteRole(role.getAbbv()));
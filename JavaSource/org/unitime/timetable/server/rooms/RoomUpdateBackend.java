@@ -38,6 +38,7 @@ import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.defaults.SessionAttribute;
 import org.unitime.timetable.events.EventAction.EventContext;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.gwt.command.client.GwtRpcException;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplementation;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplements;
@@ -158,6 +159,8 @@ public class RoomUpdateBackend implements GwtRpcImplementation<RoomUpdateRpcRequ
 		} catch (RoomException e) {
 			sLog.error(e.getMessage(), e);
 			exception = e;
+		} finally {
+			RoomFilterIndex.invalidate();
 		}
 		if (location != null) {
 	    	List<ExamType> types = ExamType.findAllApplicable(context.getUser(), DepartmentStatusType.Status.ExamView, DepartmentStatusType.Status.ExamTimetable);
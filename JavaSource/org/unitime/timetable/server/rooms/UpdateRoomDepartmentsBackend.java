@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.hibernate.Transaction;
 import org.unitime.timetable.events.EventAction.EventContext;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.gwt.command.client.GwtRpcException;
 import org.unitime.timetable.gwt.command.client.GwtRpcResponseNull;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplementation;
@@ -111,6 +112,7 @@ public class UpdateRoomDepartmentsBackend implements GwtRpcImplementation<Update
     		}
 
             tx.commit();
+            RoomFilterIndex.invalidate();
             return new GwtRpcResponseNull();
         } catch (Exception e) {
         	e.printStackTrace();
@@ -28,6 +28,7 @@ import java.util.List;
 import org.hibernate.Transaction;
 import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.events.EventAction.EventContext;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.gwt.command.client.GwtRpcException;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplementation;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplements;
@@ -103,6 +104,7 @@ public class UpdateRoomFeatureBackend implements GwtRpcImplementation<UpdateRoom
             }
 
             tx.commit();
+            RoomFilterIndex.invalidate();
             
             return feature;
         } catch (Exception e) {
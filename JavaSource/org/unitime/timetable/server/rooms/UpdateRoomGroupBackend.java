@@ -28,6 +28,7 @@ import java.util.List;
 import org.hibernate.Transaction;
 import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.events.EventAction.EventContext;
+import org.unitime.timetable.events.RoomFilterIndex;
 import org.unitime.timetable.gwt.command.client.GwtRpcException;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplementation;
 import org.unitime.timetable.gwt.command.server.GwtRpcImplements;
@@ -93,6 +94,7 @@ public class UpdateRoomGroupBackend implements GwtRpcImplementation<UpdateRoomGr
             }
             
             tx.commit();
+            RoomFilterIndex.invalidate();
         	return group;
         } catch (Exception e) {
         	e.printStackTrace();
@@ -32,6 +32,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
@@ -39,6 +40,7 @@ import org.apache.commons.logging.LogFactory;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.model.Constraint;
 import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.ModelListener;
 import org.cpsolver.ifs.model.Value;
 import org.cpsolver.ifs.model.Variable;
 import org.cpsolver.ifs.solution.Solution;
@@ -81,6 +83,7 @@ public abstract class AbstractSolver<V extends Variable<V, T>, T extends Value<V
     private File iPassivationFolder = null;
     private String iPassivationPuid = null;
     protected Thread iWorkThread = null;
+    private AtomicLong iAssignmentVersion = new AtomicLong(System.currentTimeMillis() << 16);
     
     public AbstractSolver(DataProperties properties, SolverDisposeListener disposeListener) {
         super(properties);
@@ -172,17 +175,62 @@ public abstract class AbstractSolver<V extends Variable<V, T>, T extends Value<V
     
     @Override
     public void dispose() {
+        synchronized (this) {
+            if (iIsPassivated) {
+                // no need to activate a passivated solver just to dispose it
+                File file = new File(iPassivationFolder, getType().getPrefix() + iPassivationPuid + BackupFileFilter.sXmlExtension);
+                if (file.exists()) file.delete();
+                iIsPassivated = false;
+            }
+        }
         disposeNoInherit(true);
     }
 
     protected void disposeNoInherit(boolean unregister) {
         super.dispose();
-        if (currentSolution()!=null && currentSolution().getModel()!=null)
-            Progress.removeInstance(currentSolution().getModel());
+        if (super.currentSolution()!=null && super.currentSolution().getModel()!=null)
+            Progress.removeInstance(super.currentSolution().getModel());
         setInitalSolution((org.cpsolver.ifs.solution.Solution)null);
         if (unregister && iDisposeListener!=null) iDisposeListener.onDispose();
     }
     
+    /**
+     * Version of the current assignment, changed whenever a variable is assigned or unassigned, or a new model is set.
+     * Used by remote solver proxies to cache the results of their calls (see {@link org.unitime.timetable.solver.jgroups.RemoteSolverCache}).
+     */
+    public long getAssignmentVersion() {
+        return iAssignmentVersion.get();
+    }
+    
+    @Override
+    public void setInitalSolution(Solution<V, T> solution) {
+        super.setInitalSolution(solution);
+        iAssignmentVersion.incrementAndGet();
+        if (solution != null && solution.getModel() != null)
+            solution.getModel().addModelListener(new AssignmentVersionListener());
+    }
+    
+    private class AssignmentVersionListener implements ModelListener<V, T> {
+        @Override
+        public void variableAdded(V variable) { iAssignmentVersion.incrementAndGet(); }
+        @Override
+        public void variableRemoved(V variable) { iAssignmentVersion.incrementAndGet(); }
+        @Override
+        public void constraintAdded(Constraint<V, T> constraint) {}
+        @Override
+        public void constraintRemoved(Constraint<V, T> constraint) {}
+        @Override
+        public void beforeAssigned(Assignment<V, T> assignment, long iteration, T value) {}
+        @Override
+        public void beforeUnassigned(Assignment<V, T> assignment, long iteration, T value) {}
+        @Override
+        public void afterAssigned(Assignment<V, T> assignment, long iteration, T value) { iAssignmentVersion.incrementAndGet(); }
+        @Override
+        public void afterUnassigned(Assignment<V, T> assignment, long iteration, T value) { iAssignmentVersion.incrementAndGet(); }
+        @Override
+        public boolean init(Solver<V, T> solver) { return true; }
+    }
+    
     @Override
     public String getHost() {
         return "local";
@@ -19,12 +19,14 @@
 */
 package org.unitime.timetable.solver;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Vector;
-import java.util.Enumeration;
 
 import org.unitime.timetable.interfaces.RoomAvailabilityInterface.TimeBlock;
 import org.unitime.timetable.model.Assignment;
@@ -33,125 +35,118 @@ import org.unitime.timetable.solver.ui.AssignmentPreferenceInfo;
 
 
 /**
+ * Caching wrapper of a class assignment proxy (a solver or a solution proxy), to be used for a single request.<br>
+ * <br>
+ * A table builder is expected to declare the classes it is going to render using {@link #prefetch(Collection)}; the assignments
+ * and the assignment infos of all these classes are then resolved using two bulk calls (see {@link ClassAssignmentProxy#getAssignmentTable(Collection)}
+ * and {@link ClassAssignmentProxy#getAssignmentInfoTable(Collection)}) instead of one or two calls for each class.
+ * Classes that were not prefetched are looked up (and cached) on demand. Null values (classes with no assignment) are cached as well.
+ * 
  * @author Tomas Muller
  */
 public class CachedClassAssignmentProxy implements ClassAssignmentProxy {
-	private static Object sNULL = Boolean.FALSE;
 	private ClassAssignmentProxy iProxy;
-	private Hashtable iAssignmentTable = new Hashtable();
-	private Hashtable iAssignmentInfoTable = new Hashtable();
+	private Map<Long, Assignment> iAssignmentTable = new HashMap<Long, Assignment>();
+	private Map<Long, AssignmentPreferenceInfo> iAssignmentInfoTable = new HashMap<Long, AssignmentPreferenceInfo>();
 	
 	public CachedClassAssignmentProxy(ClassAssignmentProxy proxy) {
 		iProxy = proxy;
 	}
 	
-	public Assignment getAssignment(Long classId) {
-		Object cached = iAssignmentTable.get(classId);
-		if (cached!=null) {
-			return (sNULL.equals(cached)?null:(Assignment)cached);
-		}
+	protected static Long getClassId(Object classOrClassId) {
+		if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
+		return (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
+	}
+	
+	protected static Object getClassOrClassId(Object classOrClassId) {
+		return (classOrClassId instanceof Object[] ? ((Object[])classOrClassId)[0] : classOrClassId);
+	}
+	
+	public synchronized Assignment getAssignment(Long classId) {
+		if (iAssignmentTable.containsKey(classId))
+			return iAssignmentTable.get(classId);
 		Assignment assignment = iProxy.getAssignment(classId);
-		iAssignmentTable.put(classId, (assignment==null?sNULL:assignment));
+		iAssignmentTable.put(classId, assignment);
 		return assignment;
 	}
 	
-	public Assignment getAssignment(Class_ clazz) {
-		Object cached = iAssignmentTable.get(clazz.getUniqueId());
-		if (cached!=null) {
-			return (sNULL.equals(cached)?null:(Assignment)cached);
-		}
+	public synchronized Assignment getAssignment(Class_ clazz) {
+		if (iAssignmentTable.containsKey(clazz.getUniqueId()))
+			return iAssignmentTable.get(clazz.getUniqueId());
 		Assignment assignment = iProxy.getAssignment(clazz);
-		iAssignmentTable.put(clazz.getUniqueId(), (assignment==null?sNULL:assignment));
+		iAssignmentTable.put(clazz.getUniqueId(), assignment);
 		return assignment;
 	}
 	
-	public AssignmentPreferenceInfo getAssignmentInfo(Long classId) {
-		Object cached = iAssignmentInfoTable.get(classId);
-		if (cached!=null) {
-			return (sNULL.equals(cached)?null:(AssignmentPreferenceInfo)cached);
-		}
+	public synchronized AssignmentPreferenceInfo getAssignmentInfo(Long classId) {
+		if (iAssignmentInfoTable.containsKey(classId))
+			return iAssignmentInfoTable.get(classId);
 		AssignmentPreferenceInfo info = iProxy.getAssignmentInfo(classId);
-		iAssignmentInfoTable.put(classId, (info==null?sNULL:info));
+		iAssignmentInfoTable.put(classId, info);
 		return info;
 	}
 	
-	public AssignmentPreferenceInfo getAssignmentInfo(Class_ clazz) {
-		Object cached = iAssignmentInfoTable.get(clazz.getUniqueId());
-		if (cached!=null) {
-			return (sNULL.equals(cached)?null:(AssignmentPreferenceInfo)cached);
-		}
+	public synchronized AssignmentPreferenceInfo getAssignmentInfo(Class_ clazz) {
+		if (iAssignmentInfoTable.containsKey(clazz.getUniqueId()))
+			return iAssignmentInfoTable.get(clazz.getUniqueId());
 		AssignmentPreferenceInfo info = iProxy.getAssignmentInfo(clazz);
-		iAssignmentInfoTable.put(clazz.getUniqueId(), (info==null?sNULL:info));
+		iAssignmentInfoTable.put(clazz.getUniqueId(), info);
 		return info;
 	}
 	
-	public Hashtable getAssignmentTable(Collection classesOrClassIds) {
-		Hashtable assignments = new Hashtable();
-		Vector unknown = new Vector();
+	public synchronized Hashtable getAssignmentTable(Collection classesOrClassIds) {
+		List unknown = new ArrayList();
 		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
 			Object classOrClassId = i.next();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Long classId = (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
-			Object cached = iAssignmentTable.get(classId);
-			if (cached!=null) {
-				if (!sNULL.equals(cached)) assignments.put(classId, cached);
-			} else {
-				unknown.add(classOrClassId);
+			if (!iAssignmentTable.containsKey(getClassId(classOrClassId)))
+				unknown.add(getClassOrClassId(classOrClassId));
+		}
+		if (!unknown.isEmpty()) {
+			Hashtable newAssignments = iProxy.getAssignmentTable(unknown);
+			for (Object classOrClassId: unknown) {
+				Long classId = getClassId(classOrClassId);
+				iAssignmentTable.put(classId, (Assignment)newAssignments.get(classId));
 			}
 		}
-		Hashtable newAssignments = iProxy.getAssignmentTable(unknown);
-		for (Enumeration e=unknown.elements();e.hasMoreElements();) {
-			Object classOrClassId = e.nextElement();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Long classId = (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
-			Assignment assignment = (Assignment) newAssignments.get(classId);
-			iAssignmentTable.put(classId, (assignment==null?sNULL:assignment));
-			if (assignment!=null)
-				assignments.put(classId, assignment);
+		Hashtable assignments = new Hashtable();
+		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
+			Long classId = getClassId(i.next());
+			Assignment assignment = iAssignmentTable.get(classId);
+			if (assignment != null) assignments.put(classId, assignment);
 		}
 		return assignments;
 	}
 	
-	public Hashtable getAssignmentInfoTable(Collection classesOrClassIds) {
-		Hashtable infos = new Hashtable();
-		Vector unknown = new Vector();
+	public synchronized Hashtable getAssignmentInfoTable(Collection classesOrClassIds) {
+		List unknown = new ArrayList();
 		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
 			Object classOrClassId = i.next();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Long classId = (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
-			Object cached = iAssignmentInfoTable.get(classId);
-			if (cached!=null) {
-				if (!sNULL.equals(cached)) infos.put(classId, cached);
-			} else {
-				unknown.add(classOrClassId);
+			if (!iAssignmentInfoTable.containsKey(getClassId(classOrClassId)))
+				unknown.add(getClassOrClassId(classOrClassId));
+		}
+		if (!unknown.isEmpty()) {
+			Hashtable newInfos = iProxy.getAssignmentInfoTable(unknown);
+			for (Object classOrClassId: unknown) {
+				Long classId = getClassId(classOrClassId);
+				iAssignmentInfoTable.put(classId, (AssignmentPreferenceInfo)newInfos.get(classId));
 			}
 		}
-		Hashtable newInfos = iProxy.getAssignmentInfoTable(unknown);
-		for (Enumeration e=unknown.elements();e.hasMoreElements();) {
-			Object classOrClassId = e.nextElement();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Long classId = (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
-			AssignmentPreferenceInfo info = (AssignmentPreferenceInfo) newInfos.get(classId);
-			iAssignmentInfoTable.put(classId, (info==null?sNULL:info));
-			if (info!=null)
-				infos.put(classId, info);
+		Hashtable infos = new Hashtable();
+		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
+			Long classId = getClassId(i.next());
+			AssignmentPreferenceInfo info = iAssignmentInfoTable.get(classId);
+			if (info != null) infos.put(classId, info);
 		}
 		return infos;
 	}
 	
-	public void setCache(Collection classesOrClassIds) {
-		Vector classesOrClassIdsVect = (classesOrClassIds instanceof Vector ? (Vector)classesOrClassIds : new Vector(classesOrClassIds));
-		Hashtable newAssignments = iProxy.getAssignmentTable(classesOrClassIdsVect);
-		Hashtable newInfos = iProxy.getAssignmentInfoTable(classesOrClassIdsVect);
-		for (Enumeration e=classesOrClassIdsVect.elements();e.hasMoreElements();) {
-			Object classOrClassId = e.nextElement();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Long classId = (classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
-			Assignment assignment = (Assignment) newAssignments.get(classId);
-			iAssignmentTable.put(classId, (assignment==null?sNULL:assignment));
-			AssignmentPreferenceInfo info = (AssignmentPreferenceInfo) newInfos.get(classId);
-			iAssignmentInfoTable.put(classId, (info==null?sNULL:info));
-		}
+	/**
+	 * Declare the classes (or class ids, or arrays with the class as the first element) that are going to be used.
+	 * Assignments and assignment infos of the classes that are not yet cached are resolved in bulk.
+	 */
+	public synchronized void prefetch(Collection classesOrClassIds) {
+		getAssignmentTable(classesOrClassIds);
+		getAssignmentInfoTable(classesOrClassIds);
 	}
 	
 	@Override
@@ -19,20 +19,24 @@
 */
 package org.unitime.timetable.solver;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
 
+import org.hibernate.type.LongType;
 import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.interfaces.RoomAvailabilityInterface;
@@ -49,6 +53,7 @@ import org.unitime.timetable.model.InstructionalOffering;
 import org.unitime.timetable.model.Location;
 import org.unitime.timetable.model.Meeting;
 import org.unitime.timetable.model.SchedulingSubpart;
+import org.unitime.timetable.model.dao.AssignmentDAO;
 import org.unitime.timetable.model.dao.Class_DAO;
 import org.unitime.timetable.model.dao.InstructionalOfferingDAO;
 import org.unitime.timetable.model.dao.MeetingDAO;
@@ -64,6 +69,7 @@ import org.unitime.timetable.util.DefaultRoomAvailabilityService.MeetingTimeBloc
  */
 public class CommitedClassAssignmentProxy implements ClassAssignmentProxy {
 	private static AssignmentPreferenceInfo sCommitedAssignmentPreferenceInfo = new AssignmentPreferenceInfo();
+	protected static final int sBatchSize = 1000;
 	
 	public CommitedClassAssignmentProxy() {}
 	
@@ -85,12 +91,36 @@ public class CommitedClassAssignmentProxy implements ClassAssignmentProxy {
     
 	public Hashtable getAssignmentTable(Collection classesOrClassIds) {
 		Hashtable assignments = new Hashtable();
+		Set<Long> classIds = new HashSet<Long>();
 		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
 			Object classOrClassId = i.next();
 			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Assignment assignment = (classOrClassId instanceof Class_ ? getAssignment((Class_)classOrClassId) : getAssignment((Long)classOrClassId));
-			if (assignment!=null)
-				assignments.put(classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId, assignment);
+			classIds.add(classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId);
+		}
+		if (classIds.isEmpty()) return assignments;
+		assignments.putAll(getCommittedAssignments(classIds));
+		return assignments;
+	}
+	
+	/**
+	 * Committed assignments of the given classes, loaded using one query per {@link #sBatchSize} classes
+	 * (instead of initializing {@link Class_#getCommittedAssignment()} of each class one by one).
+	 */
+	protected Map<Long, Assignment> getCommittedAssignments(Collection<Long> classIds) {
+		Map<Long, Assignment> assignments = new HashMap<Long, Assignment>();
+		org.hibernate.Session hibSession = AssignmentDAO.getInstance().getSession();
+		List<Long> batch = new ArrayList<Long>(Math.min(sBatchSize, classIds.size()));
+		for (Iterator<Long> i = classIds.iterator(); i.hasNext(); ) {
+			batch.add(i.next());
+			if (batch.size() == sBatchSize || !i.hasNext()) {
+				for (Assignment a: (List<Assignment>)hibSession.createQuery(
+						"select distinct a from Assignment a inner join a.clazz c left join fetch a.rooms " +
+						"where a.solution.commited = true and a.solution.owner = c.managingDept.solverGroup and c.uniqueId in (:classIds)")
+						.setParameterList("classIds", batch, new LongType()).list()) {
+					assignments.put(a.getClassId(), a);
+				}
+				batch.clear();
+			}
 		}
 		return assignments;
 	}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.model.dao.TimetableManagerDAO;
+import org.unitime.timetable.model.dao._RootDAO;
+
+/**
+ * Runs independent read-only queries of a solver load in parallel with the load itself.<br>
+ * <br>
+ * Each fetch gets its own read-only Hibernate session that is closed as soon as the fetch is done, so a fetch
+ * must not return any entities (only identifiers or solver objects). The results are then used by the loader thread,
+ * which waits for the fetch only when the result is needed (see {@link Fetch#get()}).
+ * With no threads, the fetch is done on the loader thread (still on its own session) when the result is needed.
+ */
+public class ParallelFetcher {
+	private static AtomicInteger sFetcherId = new AtomicInteger(0);
+	private ExecutorService iExecutor = null;
+	private Long iSessionId;
+
+	public ParallelFetcher(Long sessionId, int nrThreads) {
+		iSessionId = sessionId;
+		if (nrThreads > 0) {
+			final int fetcherId = sFetcherId.incrementAndGet();
+			iExecutor = Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+				private AtomicInteger iThreadId = new AtomicInteger(0);
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "LoaderFetch-" + fetcherId + "-" + iThreadId.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Start the given fetch
+	 * @param name fetch name (used in the solver log)
+	 */
+	public <T> Fetch<T> submit(String name, FetchTask<T> task) {
+		Fetch<T> fetch = new Fetch<T>(name, task);
+		if (iExecutor != null)
+			fetch.iFuture = iExecutor.submit(fetch);
+		return fetch;
+	}
+
+	/**
+	 * Stop the fetcher threads, fetches that are still running are finished
+	 */
+	public void shutdown() {
+		if (iExecutor != null) iExecutor.shutdown();
+	}
+
+	public class Fetch<T> implements Callable<T> {
+		private String iName;
+		private FetchTask<T> iTask;
+		private Future<T> iFuture = null;
+		private long iFetchTime = 0, iWaitTime = 0;
+
+		private Fetch(String name, FetchTask<T> task) {
+			iName = name;
+			iTask = task;
+		}
+
+		@Override
+		public T call() throws Exception {
+			boolean worker = (iExecutor != null);
+			if (worker) ApplicationProperties.setSessionId(iSessionId);
+			long t0 = System.currentTimeMillis();
+			org.hibernate.Session hibSession = TimetableManagerDAO.getInstance().createNewSession();
+			try {
+				hibSession.setDefaultReadOnly(true);
+				hibSession.setCacheMode(CacheMode.IGNORE);
+				hibSession.setFlushMode(FlushMode.MANUAL);
+				return iTask.fetch(hibSession);
+			} finally {
+				if (hibSession.isOpen()) hibSession.close();
+				if (worker) {
+					_RootDAO.rollbackCurrentThreadSessions();
+					ApplicationProperties.setSessionId(null);
+				}
+				iFetchTime = System.currentTimeMillis() - t0;
+			}
+		}
+
+		/**
+		 * Result of the fetch, waits for the fetch to finish if needed
+		 */
+		public T get() throws Exception {
+			long t0 = System.currentTimeMillis();
+			try {
+				if (iFuture == null) return call();
+				return iFuture.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) throw (Exception)e.getCause();
+				throw e;
+			} finally {
+				iWaitTime = System.currentTimeMillis() - t0;
+			}
+		}
+
+		public String getName() { return iName; }
+
+		/**
+		 * Time in milliseconds spent fetching the data
+		 */
+		public long getFetchTime() { return iFetchTime; }
+
+		/**
+		 * Time in milliseconds the loader had to wait for the result
+		 */
+		public long getWaitTime() { return iWaitTime; }
+	}
+
+	public static interface FetchTask<T> {
+		/**
+		 * Fetch the data using the given (read-only) session
+		 */
+		public T fetch(org.hibernate.Session hibSession) throws Exception;
+	}
+}
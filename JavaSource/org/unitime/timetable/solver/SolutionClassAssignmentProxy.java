@@ -19,21 +19,25 @@
 */
 package org.unitime.timetable.solver;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
 
 import org.hibernate.ObjectNotFoundException;
+import org.hibernate.type.LongType;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.interfaces.RoomAvailabilityInterface;
 import org.unitime.timetable.interfaces.RoomAvailabilityInterface.TimeBlock;
@@ -49,6 +53,7 @@ import org.unitime.timetable.model.InstructionalOffering;
 import org.unitime.timetable.model.Location;
 import org.unitime.timetable.model.SchedulingSubpart;
 import org.unitime.timetable.model.Solution;
+import org.unitime.timetable.model.dao.AssignmentDAO;
 import org.unitime.timetable.model.dao.Class_DAO;
 import org.unitime.timetable.model.dao.InstructionalOfferingDAO;
 import org.unitime.timetable.model.dao.SolutionDAO;
@@ -112,6 +117,75 @@ public class SolutionClassAssignmentProxy extends CommitedClassAssignmentProxy {
     	return (a==null?null:(AssignmentPreferenceInfo)a.getAssignmentInfo("AssignmentInfo"));
     }
     
+    /**
+     * Split the given classes (or class ids) into the ones that are in one of the selected solutions (returned as a class id &rarr; solution id map)
+     * and the others (to be looked up in the committed solution, added into the committed collection).
+     */
+    protected Map<Long, Long> splitClassesOrClassIds(Collection classesOrClassIds, Collection committed) {
+    	Map<Long, Long> class2solution = new HashMap<Long, Long>();
+		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
+			Object classOrClassId = i.next();
+			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
+			Class_ clazz = (classOrClassId instanceof Class_ ? (Class_)classOrClassId : Class_DAO.getInstance().get((Long)classOrClassId));
+			if (clazz == null) continue;
+			Long solutionId = getSolutionId(clazz);
+			if (solutionId == null)
+				committed.add(clazz);
+			else
+				class2solution.put(clazz.getUniqueId(), solutionId);
+		}
+		return class2solution;
+    }
+    
+    /**
+     * Assignments of the given classes in the given solutions, loaded using one query per {@link #sBatchSize} classes
+     * @param fetchInfo also fetch the assignment infos (see {@link Assignment#getAssignmentInfo(String)})
+     */
+    protected Map<Long, Assignment> getSolutionAssignments(Map<Long, Long> class2solution, boolean fetchInfo) {
+    	Map<Long, Assignment> assignments = new HashMap<Long, Assignment>();
+    	if (class2solution.isEmpty()) return assignments;
+    	org.hibernate.Session hibSession = AssignmentDAO.getInstance().getSession();
+    	Set<Long> solutionIds = new HashSet<Long>(class2solution.values());
+    	List<Long> batch = new ArrayList<Long>(Math.min(sBatchSize, class2solution.size()));
+    	for (Iterator<Long> i = class2solution.keySet().iterator(); i.hasNext(); ) {
+    		batch.add(i.next());
+    		if (batch.size() == sBatchSize || !i.hasNext()) {
+    			for (Assignment a: (List<Assignment>)hibSession.createQuery(
+    					"select distinct a from Assignment a left join fetch a.rooms " +
+    					(fetchInfo ? "left join fetch a.assignmentInfo i left join fetch i.definition " : "") +
+    					"where a.solution.uniqueId in (:solutionIds) and a.clazz.uniqueId in (:classIds)")
+    					.setParameterList("solutionIds", solutionIds, new LongType())
+    					.setParameterList("classIds", batch, new LongType()).list()) {
+    				if (a.getSolution().getUniqueId().equals(class2solution.get(a.getClassId())))
+    					assignments.put(a.getClassId(), a);
+    			}
+    			batch.clear();
+    		}
+    	}
+    	return assignments;
+    }
+    
+    @Override
+    public Hashtable getAssignmentTable(Collection classesOrClassIds) {
+    	List committed = new ArrayList();
+    	Map<Long, Long> class2solution = splitClassesOrClassIds(classesOrClassIds, committed);
+    	Hashtable assignments = (committed.isEmpty() ? new Hashtable() : super.getAssignmentTable(committed));
+    	assignments.putAll(getSolutionAssignments(class2solution, false));
+    	return assignments;
+    }
+    
+    @Override
+    public Hashtable getAssignmentInfoTable(Collection classesOrClassIds) {
+    	List committed = new ArrayList();
+    	Map<Long, Long> class2solution = splitClassesOrClassIds(classesOrClassIds, committed);
+    	Hashtable infos = (committed.isEmpty() ? new Hashtable() : super.getAssignmentInfoTable(committed));
+    	for (Map.Entry<Long, Assignment> e: getSolutionAssignments(class2solution, true).entrySet()) {
+    		AssignmentPreferenceInfo info = (AssignmentPreferenceInfo)e.getValue().getAssignmentInfo("AssignmentInfo");
+    		if (info != null) infos.put(e.getKey(), info);
+    	}
+    	return infos;
+    }
+    
     public Set<Long> getSolutionIds() {
     	return iSolutionIds;
     }
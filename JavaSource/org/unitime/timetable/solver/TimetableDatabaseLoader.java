@@ -74,6 +74,7 @@ import org.hibernate.FlushMode;
 import org.hibernate.LazyInitializationException;
 import org.hibernate.Query;
 import org.hibernate.Transaction;
+import org.hibernate.type.LongType;
 import org.hibernate.type.StringType;
 import org.unitime.localization.impl.Localization;
 import org.unitime.timetable.ApplicationProperties;
@@ -119,7 +120,6 @@ import org.unitime.timetable.model.StudentGroupReservation;
 import org.unitime.timetable.model.TimePattern;
 import org.unitime.timetable.model.TimePatternModel;
 import org.unitime.timetable.model.TimePref;
-import org.unitime.timetable.model.TravelTime;
 import org.unitime.timetable.model.DistributionPref.Structure;
 import org.unitime.timetable.model.comparators.ClassComparator;
 import org.unitime.timetable.model.comparators.InstrOfferingConfigComparator;
@@ -129,6 +129,8 @@ import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.SolutionDAO;
 import org.unitime.timetable.model.dao.SolverGroupDAO;
 import org.unitime.timetable.model.dao.TimetableManagerDAO;
+import org.unitime.timetable.solver.ParallelFetcher.Fetch;
+import org.unitime.timetable.solver.ParallelFetcher.FetchTask;
 import org.unitime.timetable.solver.course.weights.ClassWeightProvider;
 import org.unitime.timetable.solver.course.weights.DefaultClassWeights;
 import org.unitime.timetable.solver.curricula.LastLikeStudentCourseDemands;
@@ -170,6 +172,9 @@ public class TimetableDatabaseLoader extends TimetableLoader {
 	private Hashtable<Long, String> iDeptNames = new Hashtable<Long, String>();
 	private Hashtable<Long, Class_> iClasses = new Hashtable<Long, Class_>();
 	private Set<DatePattern> iAllUsedDatePatterns = new HashSet<DatePattern>();
+	private TimetableStaticData iStaticData = null;
+	private ParallelFetcher iFetcher = null;
+	private Map<Long, Placement> iCommittedPlacements = new HashMap<Long, Placement>();
 	private Hashtable<Long, StudentGroup> iGroups = new Hashtable<Long, StudentGroup>();
 	private Set<Class_> iAllClasses = null;
 	private Hashtable<InstructionalOffering, List<Configuration>> iAltConfigurations = new Hashtable<InstructionalOffering, List<Configuration>>();
@@ -203,6 +208,9 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     private boolean iIgnoreRoomSharing = false;
     private boolean iLoadStudentInstructorConflicts = false;
     private int iMaxRoomCombinations = 100;
+    private int iFetchThreads = 4;
+    private String iPhase = null;
+    private long iPhaseStart = 0;
     
     private String iAutoSameStudentsConstraint = "SAME_STUDENTS";
     private String iInstructorFormat = null;
@@ -268,6 +276,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
         
         iLoadStudentEnrlsFromSolution = getModel().getProperties().getPropertyBoolean("Global.LoadStudentEnrlsFromSolution", iLoadStudentEnrlsFromSolution);
         iLoadStudentInstructorConflicts = getModel().getProperties().getPropertyBoolean("Global.LoadStudentInstructorConflicts", iLoadStudentInstructorConflicts);
+        iFetchThreads = getModel().getProperties().getPropertyInt("General.LoadFetchThreads", iFetchThreads);
         
         iFixMinPerWeek = getModel().getProperties().getPropertyBoolean("Global.FixMinPerWeek", iFixMinPerWeek);
         
@@ -683,7 +692,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
         		PreferenceCombination groupPref = PreferenceCombination.getDefault();
         		for (Iterator i2=groupPrefs.iterator();i2.hasNext();) {
         			RoomGroupPref p = (RoomGroupPref)i2.next();
-        			if (p.getRoomGroup().getRooms().contains(room))
+        			if (iStaticData.isInGroup(room, p.getRoomGroup()))
         				groupPref.addPreferenceProlog(p.getPrefLevel().getPrefProlog());
         		}
         		
@@ -823,7 +832,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
                 	RoomFeature feature = roomFeaturePref.getRoomFeature();
                 	String p = roomFeaturePref.getPrefLevel().getPrefProlog();
                 	
-                	boolean hasFeature = feature.getRooms().contains(room);
+                	boolean hasFeature = iStaticData.hasFeature(room, feature);
                     if (p.equals(PreferenceLevel.sProhibited) && hasFeature) {
                     	iProgress.trace("present feature "+feature.getLabel()+" is prohibited :-(");
                         acceptableFeatures=false;
@@ -918,7 +927,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
                     	for (DatePatternPref p: datePatternPrefs) {
                     		if (PreferenceLevel.sRequired.equals(p.getPrefLevel().getPrefProlog())) { hasReq = true; break; }
                     	}
-                    	for (DatePattern child: datePattern.findChildren()) {
+                    	for (DatePattern child: iStaticData.getChildren(datePattern, hibSession)) {
                     		int minsPerMeeting = dm.getExactTimeMinutesPerMeeting(clazz.getSchedulingSubpart().getMinutesPerWk(), child, pattern.getExactDays());
                     		int length = ExactTimeMins.getNrSlotsPerMtg(minsPerMeeting);
                     		int breakTime = ExactTimeMins.getBreakTime(minsPerMeeting);
@@ -1009,7 +1018,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
                         	for (DatePatternPref p: datePatternPrefs) {
                         		if (PreferenceLevel.sRequired.equals(p.getPrefLevel().getPrefProlog())) { hasReq = true; break; }
                         	}
-                        	for (DatePattern child: datePattern.findChildren()) {
+                        	for (DatePattern child: iStaticData.getChildren(datePattern, hibSession)) {
                         		if (!dm.isValidSelection(clazz.getSchedulingSubpart().getMinutesPerWk(), child, timePref.getTimePattern(), pattern.getDayCode(day)))
                         			continue;
                         		String pr = PreferenceLevel.sNeutral;
@@ -1091,7 +1100,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
                         for (int day=0;day<model.getNrDays(); day++) {
                         	if (datePattern.getType() == DatePattern.sTypePatternSet) {
                             	Set<DatePatternPref> datePatternPrefs = (Set<DatePatternPref>)clazz.effectivePreferences(DatePatternPref.class);
-                            	for (DatePattern child: datePattern.findChildren()) {
+                            	for (DatePattern child: iStaticData.getChildren(datePattern, hibSession)) {
                             		if (!dm.isValidSelection(clazz.getSchedulingSubpart().getMinutesPerWk(), child, pattern, model.getDayCode(day))) continue;
                             		String pr = PreferenceLevel.sNeutral;
                             		for (DatePatternPref p: datePatternPrefs)
@@ -1450,48 +1459,73 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     	return ic;
     }
     
-    private void loadInstructorAvailabilities(org.hibernate.Session hibSession, Set<String> puids) {
-    	Query q = hibSession.createQuery("select distinct i.externalUniqueId, a from ClassInstructor ci inner join ci.instructor i inner join ci.classInstructing.assignments a " +
-    			"where ci.lead = true and i.externalUniqueId in :puids and a.solution.owner.session.uniqueId=:sessionId and a.solution.commited=true and a.solution.owner.uniqueId not in ("+iSolverGroupIds+")");
-    	q.setLong("sessionId",iSessionId.longValue());
-    	q.setParameterList("puids", puids, StringType.INSTANCE);
-		for (Iterator i=q.iterate();i.hasNext();) {
-			Object[] x = (Object[])i.next();
+    private Fetch<List<Object[]>> fetchInstructorAvailabilities() {
+    	Set<String> puidSet = new HashSet<String>();
+    	for (Enumeration e=iInstructors.elements();e.hasMoreElements();) {
+    		InstructorConstraint ic = (InstructorConstraint)e.nextElement();
+    		if (ic.getPuid()!=null) puidSet.add(ic.getPuid());
+    	}
+    	final List<String> puids = new ArrayList<String>(puidSet);
+    	return iFetcher.submit(MSG.phaseLoadInstructorAvailabilities(), new FetchTask<List<Object[]>>() {
+			@Override
+			public List<Object[]> fetch(org.hibernate.Session hibSession) {
+				List<Object[]> ret = new ArrayList<Object[]>();
+				for (int i = 0; i < puids.size(); i += 100) {
+			    	Query q = hibSession.createQuery("select distinct i.externalUniqueId, a from ClassInstructor ci inner join ci.instructor i inner join ci.classInstructing.assignments a " +
+			    			"where ci.lead = true and i.externalUniqueId in :puids and a.solution.owner.session.uniqueId=:sessionId and a.solution.commited=true and a.solution.owner.uniqueId not in ("+iSolverGroupIds+")");
+			    	q.setLong("sessionId",iSessionId.longValue());
+			    	q.setParameterList("puids", puids.subList(i, Math.min(i + 100, puids.size())), StringType.INSTANCE);
+			    	for (Object[] x: (List<Object[]>)q.list()) {
+			    		Assignment a = (Assignment)x[1];
+			    		ret.add(new Object[] {x[0], a.getUniqueId(), a.getPlacement()});
+			    	}
+				}
+				return ret;
+			}
+		});
+    }
+    
+    private void loadInstructorAvailabilities(Fetch<List<Object[]>> fetch) throws Exception {
+    	setPhase(MSG.phaseLoadInstructorAvailabilities(), 1);
+    	for (Object[] x: fetch.get()) {
 			String puid = (String)x[0];
-			Assignment a = (Assignment)x[1];
+			Placement p = getCommittedPlacement((Long)x[1], (Placement)x[2]);
 			InstructorConstraint ic = (InstructorConstraint)iInstructors.get(puid);
-			Placement p = a.getPlacement();
 			ic.setNotAvailable(p);
-			if (!iLectures.containsKey(a.getClassId())) {
-				iLectures.put(a.getClassId(), p.variable());
+			if (!iLectures.containsKey(p.variable().getClassId())) {
+				iLectures.put(p.variable().getClassId(), p.variable());
 				getModel().addVariable(p.variable());
 			}
-			
-		}
+    	}
+    	logFetch(fetch);
+    	incProgress();
     }
     
-    private void loadInstructorAvailabilities(org.hibernate.Session hibSession) {
-    	setPhase(MSG.phaseLoadInstructorAvailabilities(), 1);
-    	Set<String> puids = new HashSet<String>();
-    	for (Enumeration e=iInstructors.elements();e.hasMoreElements();) {
-    		InstructorConstraint ic = (InstructorConstraint)e.nextElement();
-    		if (ic.getPuid()==null) continue;
-    		puids.add(ic.getPuid());
-    		if (puids.size() == 100) {
-    			loadInstructorAvailabilities(hibSession, puids);
-    			puids.clear();
-    		}
+    private Fetch<List<Object[]>> fetchInstructorStudentConflicts() {
+    	Set<String> puidSet = new HashSet<String>();
+    	for (InstructorConstraint ic: iInstructors.values()) {
+    		if (ic.getPuid()!=null) puidSet.add(ic.getPuid());
     	}
-    	if (!puids.isEmpty()) loadInstructorAvailabilities(hibSession, puids);
-    	incProgress();
+    	final List<String> puids = new ArrayList<String>(puidSet);
+    	return iFetcher.submit(MSG.phaseLoadInstructorStudentConflicts(), new FetchTask<List<Object[]>>() {
+			@Override
+			public List<Object[]> fetch(org.hibernate.Session hibSession) {
+				List<Object[]> ret = new ArrayList<Object[]>();
+				for (int i = 0; i < puids.size(); i += 100) {
+					ret.addAll((List<Object[]>)hibSession.createQuery("select s.uniqueId, s.externalUniqueId from Student s " +
+			    			"where s.session.uniqueId = :sessionId and s.externalUniqueId in :puids")
+			    			.setLong("sessionId",iSessionId.longValue())
+			    			.setParameterList("puids", puids.subList(i, Math.min(i + 100, puids.size())), StringType.INSTANCE)
+			    			.list());
+				}
+				return ret;
+			}
+		});
     }
     
-    private void loadInstructorStudentConflicts(org.hibernate.Session hibSession, Set<String> puids) {
-    	for (Object[] x: (List<Object[]>)hibSession.createQuery("select s.uniqueId, s.externalUniqueId from Student s " +
-    			"where s.session.uniqueId = :sessionId and s.externalUniqueId in :puids")
-    			.setLong("sessionId",iSessionId.longValue())
-    			.setParameterList("puids", puids, StringType.INSTANCE)
-    			.list()) {
+    private void loadInstructorStudentConflicts(Fetch<List<Object[]>> fetch) throws Exception {
+    	setPhase(MSG.phaseLoadInstructorStudentConflicts(), 1);
+    	for (Object[] x: fetch.get()) {
     		Long studentId = (Long)x[0];
     		String puid = (String)x[1];
 			InstructorConstraint ic = iInstructors.get(puid);
@@ -1505,57 +1539,75 @@ public class TimetableDatabaseLoader extends TimetableLoader {
 				}
 			}
 		}
+    	logFetch(fetch);
+    	incProgress();
     }
     
-    private void loadInstructorStudentConflicts(org.hibernate.Session hibSession) {
-    	setPhase(MSG.phaseLoadInstructorStudentConflicts(), 1);
-    	Set<String> puids = new HashSet<String>();
-    	for (InstructorConstraint ic: iInstructors.values()) {
-    		if (ic.getPuid() == null) continue;
-    		puids.add(ic.getPuid());
-    		if (puids.size() == 100) {
-    			loadInstructorStudentConflicts(hibSession, puids);
-    			puids.clear();
-    		}
+    private Fetch<List<Object[]>> fetchRoomAvailabilities() {
+    	final List<Long> roomIds = new ArrayList<Long>();
+    	for (Enumeration e=iRooms.elements();e.hasMoreElements();) {
+    		RoomConstraint rc = (RoomConstraint)e.nextElement();
+    		roomIds.add(rc.getResourceId());
     	}
-    	if (!puids.isEmpty()) loadInstructorStudentConflicts(hibSession, puids);
-    	incProgress();
+    	return iFetcher.submit(MSG.phaseLoadRoomAvailabilities(), new FetchTask<List<Object[]>>() {
+			@Override
+			public List<Object[]> fetch(org.hibernate.Session hibSession) {
+				List<Object[]> ret = new ArrayList<Object[]>();
+				for (int i = 0; i < roomIds.size(); i += 100) {
+					Query q = hibSession.createQuery("select distinct r.uniqueId, a from Location r inner join r.assignments as a "+
+							"where r.uniqueId in (:roomIds) and a.solution.owner.session.uniqueId=:sessionId and a.solution.commited=true and a.solution.owner.uniqueId not in ("+iSolverGroupIds+") and r.ignoreRoomCheck = false");
+					q.setLong("sessionId",iSessionId.longValue());
+					q.setParameterList("roomIds", roomIds.subList(i, Math.min(i + 100, roomIds.size())), LongType.INSTANCE);
+					for (Object[] x: (List<Object[]>)q.list()) {
+			    		Assignment a = (Assignment)x[1];
+			    		ret.add(new Object[] {x[0], a.getUniqueId(), a.getPlacement()});
+					}
+				}
+				return ret;
+			}
+		});
     }
     
-    private void loadRoomAvailabilities(org.hibernate.Session hibSession, String roomids) {
-		Query q = hibSession.createQuery("select distinct r.uniqueId, a from Location r inner join r.assignments as a "+
-				"where r.uniqueId in ("+roomids+") and a.solution.owner.session.uniqueId=:sessionId and a.solution.commited=true and a.solution.owner.uniqueId not in ("+iSolverGroupIds+") and r.ignoreRoomCheck = false");
-		q.setLong("sessionId",iSessionId.longValue());
-		for (Iterator i=q.iterate();i.hasNext();) {
-			Object[] x = (Object[])i.next();
+    private void loadRoomAvailabilities(Fetch<List<Object[]>> fetch) throws Exception {
+    	setPhase(MSG.phaseLoadRoomAvailabilities(), 1);
+    	for (Object[] x: fetch.get()) {
 			Long roomId = (Long)x[0];
-			Assignment a = (Assignment)x[1];
-			Placement p = a.getPlacement();
+			Placement p = getCommittedPlacement((Long)x[1], (Placement)x[2]);
 			RoomConstraint rc = (RoomConstraint)iRooms.get(roomId);
 			rc.setNotAvailable(p);
-			if (!iLectures.containsKey(a.getClassId())) {
-				iLectures.put(a.getClassId(), p.variable());
+			if (!iLectures.containsKey(p.variable().getClassId())) {
+				iLectures.put(p.variable().getClassId(), p.variable());
 				getModel().addVariable(p.variable());
 			}
 		}
+    	logFetch(fetch);
+    	incProgress();
     }
     
-    private void loadRoomAvailabilities(org.hibernate.Session hibSession) {
-    	setPhase(MSG.phaseLoadRoomAvailabilities(), 1);
-    	StringBuffer roomids = new StringBuffer();
-    	int idx = 0;
-    	for (Enumeration e=iRooms.elements();e.hasMoreElements();) {
-    		RoomConstraint rc = (RoomConstraint)e.nextElement();
-    		if (roomids.length()>0) roomids.append(",");
-    		roomids.append(rc.getResourceId()); idx++;
-    		if (idx==100) {
-    			loadRoomAvailabilities(hibSession, roomids.toString());
-    			roomids = new StringBuffer();
-    			idx = 0;
-    		}
+    /**
+     * Committed placement of the given assignment, making sure that the same placement (and lecture) is used
+     * when the assignment has been fetched more than once (e.g., on different sessions)
+     */
+    private Placement getCommittedPlacement(Long assignmentId, Placement placement) {
+    	Placement p = iCommittedPlacements.get(assignmentId);
+    	if (p == null) {
+    		p = placement;
+    		iCommittedPlacements.put(assignmentId, p);
     	}
-    	if (roomids.length()>0) loadRoomAvailabilities(hibSession, roomids.toString());
-    	incProgress();
+    	return p;
+    }
+    
+    private Placement getCommittedPlacement(Assignment assignment) {
+    	Placement p = iCommittedPlacements.get(assignment.getUniqueId());
+    	if (p == null) {
+    		p = assignment.getPlacement();
+    		iCommittedPlacements.put(assignment.getUniqueId(), p);
+    	}
+    	return p;
+    }
+    
+    private void logFetch(Fetch<?> fetch) {
+    	iProgress.message(msglevel("loadTimes", Progress.MSGLEVEL_INFO), MSG.infoLoadFetchTime(fetch.getName(), fetch.getFetchTime(), fetch.getWaitTime()));
     }
     
     private Constraint createGroupConstraint(DistributionPref pref) {
@@ -2134,6 +2186,9 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     		iProgress.message(msglevel("loadFailed", Progress.MSGLEVEL_FATAL), MSG.fatalLoadFailed(e.getMessage()), e);
     		tx.rollback();
     	} finally {
+    		// setPhase only reports the time of the previous phase, report the last one as well
+    		endPhase();
+    		if (iFetcher != null) iFetcher.shutdown();
     		// here we need to close the session since this code may run in a separate thread
     		if (hibSession!=null && hibSession.isOpen()) hibSession.close();
     	}
@@ -2275,50 +2330,56 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     	}
     }
     
-    private void loadCommittedStudentConflicts(org.hibernate.Session hibSession, Set<Long> offeringsToAvoid) {
-        //Load all committed assignment - student relations that may be relevant
-		List<Object[]> assignmentEnrollments = (List<Object[]>)hibSession.createQuery(
-    			"select distinct a, e.studentId, io.uniqueId from "+
-    			"Solution s inner join s.assignments a inner join s.studentEnrollments e inner join a.clazz.schedulingSubpart.instrOfferingConfig.instructionalOffering io "+
-    			"where "+
-    			"s.commited=true and s.owner.session.uniqueId=:sessionId and s.owner not in ("+iSolverGroupIds+") and "+
-    			"a.clazz=e.clazz").setLong("sessionId", iSessionId.longValue()).list();
-
-    	
+    private Fetch<List<Object[]>> fetchCommittedStudentConflicts() {
+    	return iFetcher.submit(MSG.phaseLoadCommittedStudentConflicts(), new FetchTask<List<Object[]>>() {
+			@Override
+			public List<Object[]> fetch(org.hibernate.Session hibSession) {
+		        //Load all committed assignment - student relations that may be relevant
+				return (List<Object[]>)hibSession.createQuery(
+		    			"select distinct a.uniqueId, e.studentId, io.uniqueId from "+
+		    			"Solution s inner join s.assignments a inner join s.studentEnrollments e inner join a.clazz.schedulingSubpart.instrOfferingConfig.instructionalOffering io "+
+		    			"where "+
+		    			"s.commited=true and s.owner.session.uniqueId=:sessionId and s.owner not in ("+iSolverGroupIds+") and "+
+		    			"a.clazz=e.clazz").setLong("sessionId", iSessionId.longValue()).list();
+			}
+		});
+    }
+    
+    private void loadCommittedStudentConflicts(org.hibernate.Session hibSession, Fetch<List<Object[]>> fetch, Set<Long> offeringsToAvoid) throws Exception {
 		// Filter out relevant relations (relations that are for loaded students)
-		Hashtable<Assignment, Set<Student>> assignments = new Hashtable<Assignment, Set<Student>>();
-		for (Object[] result: assignmentEnrollments) {
-    		Assignment assignment = (Assignment)result[0];
+		Map<Long, HashSet<Student>> assignments = new HashMap<Long, HashSet<Student>>();
+		for (Object[] result: fetch.get()) {
+    		Long assignmentId = (Long)result[0];
 			Long studentId = (Long)result[1];
 			Long offeringId = (Long)result[2];
 			if (offeringsToAvoid.contains(offeringId)) continue;
     		Student student = (Student)iStudents.get(studentId);
     		if (student!=null) {
-    			Set<Student> students = assignments.get(assignment);
+    			HashSet<Student> students = assignments.get(assignmentId);
     			if (students==null) {
     				students = new HashSet<Student>();
-    				assignments.put(assignment, students);
+    				assignments.put(assignmentId, students);
     			}
     			students.add(student);
     		}
 		}
+		logFetch(fetch);
 		
-		// Ensure no assignment-class relation is got from the cache
-		for (Iterator i1=assignmentEnrollments.iterator(); i1.hasNext();) {
-			Object[] result = (Object[])i1.next();
-    		Assignment assignment = (Assignment)result[0];
-    		if (!assignments.containsKey(assignment)) hibSession.evict(assignment);
+		// Load only the relevant assignments
+		List<Assignment> relevant = new ArrayList<Assignment>(assignments.size());
+		List<Long> assignmentIds = new ArrayList<Long>(assignments.keySet());
+		for (int i = 0; i < assignmentIds.size(); i += 1000) {
+			relevant.addAll((List<Assignment>)hibSession.createQuery(
+					"select a from Assignment a where a.uniqueId in (:assignmentIds)")
+					.setParameterList("assignmentIds", assignmentIds.subList(i, Math.min(i + 1000, assignmentIds.size())), LongType.INSTANCE).list());
 		}
 		
 		// Make up the appropriate committed placements and propagate those through the course structure
-        setPhase(MSG.phaseLoadCommittedStudentConflicts(), assignments.size());
-		for (Iterator i1=assignments.entrySet().iterator(); i1.hasNext();) {
-			Map.Entry entry = (Map.Entry)i1.next();
-			Assignment assignment = (Assignment)entry.getKey();
-			HashSet students = (HashSet)entry.getValue();
-   			Placement committedPlacement = assignment.getPlacement();
-   			for (Iterator i2=students.iterator();i2.hasNext();) {
-   				Student student = (Student)i2.next();
+        setPhase(MSG.phaseLoadCommittedStudentConflicts(), relevant.size());
+		for (Assignment assignment: relevant) {
+			HashSet<Student> students = assignments.get(assignment.getUniqueId());
+   			Placement committedPlacement = getCommittedPlacement(assignment);
+   			for (Student student: students) {
     			student.addCommitedPlacement(committedPlacement);
    			}
    			if (!iLectures.containsKey(assignment.getClassId())) {
@@ -2624,8 +2685,10 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     
     private void load(org.hibernate.Session hibSession) throws Exception {
 		iProgress.setStatus(MSG.statusLoadingInputData());
+		iPhase = MSG.statusLoadingInputData(); iPhaseStart = System.currentTimeMillis();
 
-		TravelTime.populateTravelTimes(getModel().getDistanceMetric(), iSessionId, hibSession);
+		iStaticData = TimetableStaticData.getInstance(iSessionId, hibSession);
+		iStaticData.populateTravelTimes(getModel().getDistanceMetric());
 
 		iSolverGroup = null;
 		iSession = null;
@@ -2750,9 +2813,19 @@ public class TimetableDatabaseLoader extends TimetableLoader {
 			incProgress();
 		}
 		
-		loadInstructorAvailabilities(hibSession);
+		iFetcher = new ParallelFetcher(iSessionId, iFetchThreads);
+		Fetch<List<Object[]>> instructorAvailabilities = fetchInstructorAvailabilities();
+		Fetch<List<Object[]>> roomAvailabilities = fetchRoomAvailabilities();
+		Fetch<List<Object[]>> committedStudentConflicts = null;
+		if (iCommittedStudentConflictsMode == CommittedStudentConflictsMode.Load && !iStudentCourseDemands.isMakingUpStudents())
+			committedStudentConflicts = fetchCommittedStudentConflicts();
+		Fetch<List<Object[]>> instructorStudentConflicts = null;
+		if (iLoadStudentInstructorConflicts)
+			instructorStudentConflicts = fetchInstructorStudentConflicts();
 		
-		loadRoomAvailabilities(hibSession);
+		loadInstructorAvailabilities(instructorAvailabilities);
+		
+		loadRoomAvailabilities(roomAvailabilities);
 		
 		setPhase(MSG.phaseLoadingOfferings(), iAllClasses.size());
     	Set<Long> loadedOfferings = new HashSet<Long>();
@@ -3180,7 +3253,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     		iProgress.message(msglevel("hibernateFailure", Progress.MSGLEVEL_FATAL), MSG.fatalHibernateSessionClosed());
 
     	if (iCommittedStudentConflictsMode == CommittedStudentConflictsMode.Load && !iStudentCourseDemands.isMakingUpStudents())
-    		loadCommittedStudentConflicts(hibSession, loadedOfferings);
+    		loadCommittedStudentConflicts(hibSession, committedStudentConflicts, loadedOfferings);
     	else if (iCommittedStudentConflictsMode != CommittedStudentConflictsMode.Ignore)
     		makeupCommittedStudentConflicts(loadedOfferings);
     	
@@ -3378,7 +3451,7 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     		iProgress.message(msglevel("hibernateFailure", Progress.MSGLEVEL_FATAL), MSG.fatalHibernateSessionClosed());
 
         if (iLoadStudentInstructorConflicts)
-        	loadInstructorStudentConflicts(hibSession);
+        	loadInstructorStudentConflicts(instructorStudentConflicts);
 
         setPhase(MSG.phaseComputingJenrl(),iStudents.size());
         Hashtable jenrls = new Hashtable();
@@ -4072,9 +4145,17 @@ public class TimetableDatabaseLoader extends TimetableLoader {
     
     protected void setPhase(String phase, long progressMax) {
     	checkTermination();
+    	endPhase();
+    	iPhase = phase; iPhaseStart = System.currentTimeMillis();
     	iProgress.setPhase(phase, progressMax);
     }
     
+    protected void endPhase() {
+    	if (iPhase != null)
+    		iProgress.message(msglevel("loadTimes", Progress.MSGLEVEL_INFO), MSG.infoLoadPhaseTime(iPhase, System.currentTimeMillis() - iPhaseStart));
+    	iPhase = null;
+    }
+    
     protected void incProgress() {
     	checkTermination();
     	iProgress.incProgress();
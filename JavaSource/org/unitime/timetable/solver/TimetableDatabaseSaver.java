@@ -23,11 +23,13 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -169,11 +171,19 @@ public class TimetableDatabaseSaver extends TimetableSaver {
     			
     			setPhase(MSG.phaseCommittingSolution(), 2*solutionIds.length);
     			tx = hibSession.beginTransaction();
+    			String puid = getModel().getProperties().getProperty("General.OwnerPuid");
+    			Solution.CommitChanges changes = new Solution.CommitChanges();
+    			Map<Long, Solution> uncommittedSolutions = new HashMap<Long, Solution>();
+    			Map<Long, Set<Long>> keepClassIds = new HashMap<Long, Set<Long>>();
     			for (int i=0;i<solutionIds.length;i++) {
     				Solution solution = (new SolutionDAO()).get(solutionIds[i]);
     				Solution committedSolution = solution.getOwner().getCommittedSolution();
     				if (committedSolution!=null) {
-    					committedSolution.uncommitSolution(hibSession, getModel().getProperties().getProperty("General.OwnerPuid"));
+    					// events of classes that are in the new solution are kept, they get updated by the commit
+    					Set<Long> classIds = solution.getClassIds();
+    					committedSolution.uncommitSolution(hibSession, puid, classIds, changes);
+    					uncommittedSolutions.put(solution.getUniqueId(), committedSolution);
+    					keepClassIds.put(solution.getUniqueId(), classIds);
                         refreshIds.add(committedSolution.getUniqueId());
                         touchedSolutions.add(committedSolution);
                     }
@@ -183,7 +193,11 @@ public class TimetableDatabaseSaver extends TimetableSaver {
     			for (int i=0;i<solutionIds.length;i++) {
     				Solution solution = (new SolutionDAO()).get(solutionIds[i]);
     				List<String> messages = new ArrayList<String>();
-    				solution.commitSolution(messages,hibSession, getModel().getProperties().getProperty("General.OwnerPuid"));
+    				if (!solution.commitSolution(messages, hibSession, puid, changes)) {
+    					Solution committedSolution = uncommittedSolutions.get(solution.getUniqueId());
+    					if (committedSolution != null)
+    						committedSolution.uncommitClassEvents(hibSession, puid, keepClassIds.get(solution.getUniqueId()), changes);
+    				}
     				touchedSolutions.add(solution);
     				for (String m: messages) {
     					iProgress.error(MSG.errorUnableToCommit(m));
@@ -191,6 +205,9 @@ public class TimetableDatabaseSaver extends TimetableSaver {
     				hibSession.update(solution);
     				incProgress();
     			}
+    			iProgress.info(MSG.infoSolutionCommitChanges(changes.getRowsTouched(),
+    					changes.getEventsCreated(), changes.getEventsUpdated(), changes.getEventsDeleted(), changes.getEventsUnchanged(),
+    					changes.getMeetingsAdded(), changes.getMeetingsRemoved(), changes.getMeetingsKept()));
 				tx.commit();
 		    	String className = ApplicationProperty.ExternalActionSolutionCommit.value();
 		    	if (className != null && className.trim().length() > 0){
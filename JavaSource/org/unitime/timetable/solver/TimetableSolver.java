@@ -902,52 +902,52 @@ public class TimetableSolver extends AbstractSolver<Lecture, Placement, Timetabl
     	Lock lock = currentSolution().getLock().readLock();
 		lock.lock();
 		try {
-    		Lecture lecture = null;
-    		for (Lecture l: currentSolution().getModel().variables()) {
-    			if (l.getClassId().equals(classId)) {
-    				lecture = l; break;
-    			}
-    		}
-    		if (lecture==null) return null;
-    		Placement placement = (Placement)currentSolution().getAssignment().getValue(lecture);
-    		if (placement==null) return null;
-        	Assignment assignment = new Assignment();
-        	assignment.setClassName(lecture.getName());
-    		assignment.setDays(new Integer(placement.getTimeLocation().getDayCode()));
-    		assignment.setStartSlot(new Integer(placement.getTimeLocation().getStartSlot()));
-    		if (placement.getTimeLocation().getDatePatternId()!=null) {
-    			assignment.setDatePattern(DatePatternDAO.getInstance().get(placement.getTimeLocation().getDatePatternId()));
-    		}
-    		assignment.setSlotsPerMtg(placement.getTimeLocation().getLength());
-    		assignment.setBreakTime(placement.getTimeLocation().getBreakTime());
-    		HashSet rooms = new HashSet();
-    		if (placement.isMultiRoom()) {
-    			for (RoomLocation r: placement.getRoomLocations()) {
-    				Location room = (new LocationDAO()).get(r.getId());
-    				if (room!=null) rooms.add(room);
-    			}
-    		} else {
-    			Location room = (new LocationDAO()).get(placement.getRoomLocation().getId());
-    			if (room!=null) rooms.add(room);
-    		}
-    		assignment.setRooms(rooms);
-    		TimePattern pattern = (new TimePatternDAO()).get(placement.getTimeLocation().getTimePatternId());
-    		assignment.setTimePattern(pattern);
-    		HashSet instructors = new HashSet();
-    		for (InstructorConstraint ic: lecture.getInstructorConstraints()) {
-    			DepartmentalInstructor instructor = null;
-    			if (ic.getResourceId()!=null) {
-					instructor = (new DepartmentalInstructorDAO()).get(ic.getResourceId());
-				}
-    			if (instructor!=null) instructors.add(instructor);
-    			
+    		for (Lecture lecture: currentSolution().getModel().variables()) {
+    			if (lecture.getClassId().equals(classId))
+    				return createAssignment(lecture, currentSolution().getAssignment().getValue(lecture));
     		}
-    		assignment.setInstructors(instructors);
-    		return assignment;
+    		return null;
     	} finally {
     		lock.unlock();
     	}
     }
+    
+    protected Assignment createAssignment(Lecture lecture, Placement placement) {
+		if (placement==null) return null;
+    	Assignment assignment = new Assignment();
+    	assignment.setClassName(lecture.getName());
+		assignment.setDays(new Integer(placement.getTimeLocation().getDayCode()));
+		assignment.setStartSlot(new Integer(placement.getTimeLocation().getStartSlot()));
+		if (placement.getTimeLocation().getDatePatternId()!=null) {
+			assignment.setDatePattern(DatePatternDAO.getInstance().get(placement.getTimeLocation().getDatePatternId()));
+		}
+		assignment.setSlotsPerMtg(placement.getTimeLocation().getLength());
+		assignment.setBreakTime(placement.getTimeLocation().getBreakTime());
+		HashSet rooms = new HashSet();
+		if (placement.isMultiRoom()) {
+			for (RoomLocation r: placement.getRoomLocations()) {
+				Location room = (new LocationDAO()).get(r.getId());
+				if (room!=null) rooms.add(room);
+			}
+		} else {
+			Location room = (new LocationDAO()).get(placement.getRoomLocation().getId());
+			if (room!=null) rooms.add(room);
+		}
+		assignment.setRooms(rooms);
+		TimePattern pattern = (new TimePatternDAO()).get(placement.getTimeLocation().getTimePatternId());
+		assignment.setTimePattern(pattern);
+		HashSet instructors = new HashSet();
+		for (InstructorConstraint ic: lecture.getInstructorConstraints()) {
+			DepartmentalInstructor instructor = null;
+			if (ic.getResourceId()!=null) {
+				instructor = (new DepartmentalInstructorDAO()).get(ic.getResourceId());
+			}
+			if (instructor!=null) instructors.add(instructor);
+			
+		}
+		assignment.setInstructors(instructors);
+		return assignment;
+    }
 
     @Override
     public AssignmentPreferenceInfo getAssignmentInfo(Class_ clazz) {
@@ -962,30 +962,58 @@ public class TimetableSolver extends AbstractSolver<Lecture, Placement, Timetabl
     	Lock lock = currentSolution().getLock().readLock();
 		lock.lock();
 		try {
-    		Lecture lecture = null;
-    		for (Lecture l: currentSolution().getModel().variables()) {
-    			if (l.getClassId().equals(classId)) {
-    				lecture = l; break;
+    		for (Lecture lecture: currentSolution().getModel().variables()) {
+    			if (lecture.getClassId().equals(classId)) {
+    				Placement placement = currentSolution().getAssignment().getValue(lecture);
+    				return (placement==null ? null : new AssignmentPreferenceInfo(this,placement));
     			}
     		}
-    		if (lecture==null) return null;
-    		Placement placement = (Placement)currentSolution().getAssignment().getValue(lecture);
-    		if (placement==null) return null;
-    		return new AssignmentPreferenceInfo(this,placement);
+    		return null;
     	} finally {
     		lock.unlock();
     	}
     }
-
-    @Override
-	public Hashtable getAssignmentTable(Collection classesOrClassIds) {
-		Hashtable assignments = new Hashtable();
+    
+    /**
+     * Split the given classes (or class ids) into the ones that are handled by the solver (returned as class ids)
+     * and the others (to be looked up in the committed solution, added into the committed collection).
+     */
+    protected Set<Long> splitClassesOrClassIds(Collection classesOrClassIds, Collection committed) {
+    	Set<Long> classIds = new HashSet<Long>();
 		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
 			Object classOrClassId = i.next();
 			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			Assignment assignment = (classOrClassId instanceof Class_ ? getAssignment((Class_)classOrClassId) : getAssignment((Long)classOrClassId));
-			if (assignment!=null)
-				assignments.put(classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId, assignment);
+			if (classOrClassId instanceof Class_) {
+				Class_ clazz = (Class_)classOrClassId;
+				Department dept = clazz.getManagingDept();
+				if (dept!=null && getDepartmentIds().contains(dept.getUniqueId()))
+					classIds.add(clazz.getUniqueId());
+				else
+					committed.add(clazz);
+			} else {
+				classIds.add((Long)classOrClassId);
+			}
+		}
+		return classIds;
+    }
+
+    @Override
+	public Hashtable getAssignmentTable(Collection classesOrClassIds) {
+    	List committed = new ArrayList();
+    	Set<Long> classIds = splitClassesOrClassIds(classesOrClassIds, committed);
+		Hashtable assignments = (committed.isEmpty() ? new Hashtable() : iCommitedClassAssignmentProxy.getAssignmentTable(committed));
+		if (classIds.isEmpty()) return assignments;
+    	Lock lock = currentSolution().getLock().readLock();
+		lock.lock();
+		try {
+			for (Lecture lecture: currentSolution().getModel().variables()) {
+				if (!classIds.contains(lecture.getClassId())) continue;
+				Assignment assignment = createAssignment(lecture, currentSolution().getAssignment().getValue(lecture));
+				if (assignment!=null)
+					assignments.put(lecture.getClassId(), assignment);
+			}
+		} finally {
+			lock.unlock();
 		}
 		return assignments;
 	}
@@ -997,13 +1025,21 @@ public class TimetableSolver extends AbstractSolver<Lecture, Placement, Timetabl
 	
     @Override
 	public Hashtable getAssignmentInfoTable(Collection classesOrClassIds) {
-		Hashtable infos = new Hashtable();
-		for (Iterator i=classesOrClassIds.iterator();i.hasNext();) {
-			Object classOrClassId = i.next();
-			if (classOrClassId instanceof Object[]) classOrClassId = ((Object[])classOrClassId)[0];
-			AssignmentPreferenceInfo info = (classOrClassId instanceof Class_ ? getAssignmentInfo((Class_)classOrClassId) : getAssignmentInfo((Long)classOrClassId));
-			if (info!=null)
-				infos.put(classOrClassId instanceof Class_ ? ((Class_)classOrClassId).getUniqueId() : (Long)classOrClassId, info);
+    	List committed = new ArrayList();
+    	Set<Long> classIds = splitClassesOrClassIds(classesOrClassIds, committed);
+		Hashtable infos = (committed.isEmpty() ? new Hashtable() : iCommitedClassAssignmentProxy.getAssignmentInfoTable(committed));
+		if (classIds.isEmpty()) return infos;
+    	Lock lock = currentSolution().getLock().readLock();
+		lock.lock();
+		try {
+			for (Lecture lecture: currentSolution().getModel().variables()) {
+				if (!classIds.contains(lecture.getClassId())) continue;
+				Placement placement = currentSolution().getAssignment().getValue(lecture);
+				if (placement!=null)
+					infos.put(lecture.getClassId(), new AssignmentPreferenceInfo(this,placement));
+			}
+		} finally {
+			lock.unlock();
 		}
 		return infos;
 	}
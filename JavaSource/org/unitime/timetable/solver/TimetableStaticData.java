@@ -0,0 +1,231 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cpsolver.ifs.util.DistanceMetric;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.model.DatePattern;
+import org.unitime.timetable.model.DepartmentRoomFeature;
+import org.unitime.timetable.model.GlobalRoomFeature;
+import org.unitime.timetable.model.Location;
+import org.unitime.timetable.model.NonUniversityLocation;
+import org.unitime.timetable.model.Room;
+import org.unitime.timetable.model.RoomFeature;
+import org.unitime.timetable.model.RoomGroup;
+import org.unitime.timetable.model.TravelTime;
+import org.unitime.timetable.model.dao.DatePatternDAO;
+
+/**
+ * Academic session data used by the course timetabling solver load that do not depend on the loaded solver groups:
+ * travel times (distance matrix), rooms of each room feature and room group, and children of each date pattern set.<br>
+ * <br>
+ * Only identifiers and primitive values are kept, so that one instance can be shared by all the solver instances
+ * (and reloads) of the session. The data are reloaded when the fingerprint changes, which is computed from a few aggregate
+ * queries: number and the last unique id of the rooms, room features, room groups, date patterns, and travel times, and
+ * the time stamp of the last change log record of any of these (see {@link #getFingerprint(Long, org.hibernate.Session)}).
+ */
+public class TimetableStaticData {
+	private static Log sLog = LogFactory.getLog(TimetableStaticData.class);
+	private static final int MAX_SESSIONS = 10;
+	private static Map<Long, TimetableStaticData> sData = new ConcurrentHashMap<Long, TimetableStaticData>();
+	private static final List<String> sChangeLogTypes = Arrays.asList(new String[] {
+			Room.class.getName(), NonUniversityLocation.class.getName(), GlobalRoomFeature.class.getName(),
+			DepartmentRoomFeature.class.getName(), RoomGroup.class.getName(), DatePattern.class.getName(), TravelTime.class.getName()
+	});
+
+	private Long iSessionId;
+	private String iFingerprint;
+	private long[] iTravelTimeLocation1, iTravelTimeLocation2;
+	private int[] iTravelTimeDistance;
+	private Map<Long, Set<Long>> iFeatureRooms = new HashMap<Long, Set<Long>>();
+	private Map<Long, Set<Long>> iGroupRooms = new HashMap<Long, Set<Long>>();
+	private Map<Long, List<Long>> iDatePatternChildren = new HashMap<Long, List<Long>>();
+
+	private TimetableStaticData(Long sessionId, String fingerprint) {
+		iSessionId = sessionId;
+		iFingerprint = fingerprint;
+	}
+
+	/**
+	 * Static data of the given academic session, (re)loaded when they do not exist or are no longer up to date.
+	 * When the cache is disabled (see {@link #isEnabled()}), the data are loaded on each call.
+	 */
+	public static TimetableStaticData getInstance(Long sessionId, org.hibernate.Session hibSession) {
+		if (!isEnabled()) {
+			TimetableStaticData data = new TimetableStaticData(sessionId, null);
+			data.load(hibSession);
+			return data;
+		}
+		String fingerprint = getFingerprint(sessionId, hibSession);
+		TimetableStaticData data = sData.get(sessionId);
+		if (data == null || !fingerprint.equals(data.iFingerprint)) {
+			data = new TimetableStaticData(sessionId, fingerprint);
+			data.load(hibSession);
+			if (sData.size() >= MAX_SESSIONS) sData.clear();
+			sData.put(sessionId, data);
+		} else {
+			sLog.debug("Using cached static data of session " + sessionId);
+		}
+		return data;
+	}
+
+	/**
+	 * True if the data are to be kept in memory between solver loads (see {@link ApplicationProperty#SolverStaticDataCache})
+	 */
+	public static boolean isEnabled() {
+		return ApplicationProperty.SolverStaticDataCache.isTrue();
+	}
+
+	/**
+	 * Cheap check whether the rooms, room features, room groups, date patterns, or travel times of the session have changed.
+	 * Only counts and sums are used, which do not depend on the order in which the unique ids were allocated. Travel times are
+	 * summed by their room pairs and by their distances weighted by their ids, since the travel time editors do not log their changes.
+	 * Changes made by the room, room feature, and room group editors are noticed through the last change log entry as well.
+	 */
+	protected static String getFingerprint(Long sessionId, org.hibernate.Session hibSession) {
+		Object[] rooms = (Object[])hibSession.createQuery(
+				"select count(l), sum(l.uniqueId) from Location l where l.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object[] features = (Object[])hibSession.createQuery(
+				"select count(f), sum(l.uniqueId + f.uniqueId) " +
+				"from Location l inner join l.features f where l.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object[] groups = (Object[])hibSession.createQuery(
+				"select count(g), sum(l.uniqueId + g.uniqueId) " +
+				"from Location l inner join l.roomGroups g where l.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object[] patterns = (Object[])hibSession.createQuery(
+				"select count(dp), sum(dp.uniqueId) from DatePattern dp where dp.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object[] travelTimes = (Object[])hibSession.createQuery(
+				"select count(t), sum(t.location1Id * 1000 + t.location2Id), sum(t.distance * t.uniqueId) from TravelTime t where t.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object lastChange = hibSession.createQuery(
+				"select max(c.timeStamp) from ChangeLog c where c.session.uniqueId = :sessionId and c.objectType in (:types)")
+				.setLong("sessionId", sessionId).setParameterList("types", sChangeLogTypes).uniqueResult();
+		return Arrays.toString(rooms) + Arrays.toString(features) + Arrays.toString(groups) + Arrays.toString(patterns) + Arrays.toString(travelTimes) +
+				(lastChange == null ? "" : String.valueOf(((java.util.Date)lastChange).getTime()));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void load(org.hibernate.Session hibSession) {
+		long t0 = System.currentTimeMillis();
+
+		List<TravelTime> travelTimes = (List<TravelTime>)hibSession.createQuery(
+				"from TravelTime where session.uniqueId = :sessionId")
+				.setLong("sessionId", iSessionId).list();
+		iTravelTimeLocation1 = new long[travelTimes.size()];
+		iTravelTimeLocation2 = new long[travelTimes.size()];
+		iTravelTimeDistance = new int[travelTimes.size()];
+		int idx = 0;
+		for (TravelTime time: travelTimes) {
+			iTravelTimeLocation1[idx] = time.getLocation1Id();
+			iTravelTimeLocation2[idx] = time.getLocation2Id();
+			iTravelTimeDistance[idx] = time.getDistance();
+			idx ++;
+		}
+
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select f.uniqueId, l.uniqueId from Location l inner join l.features f where l.session.uniqueId = :sessionId")
+				.setLong("sessionId", iSessionId).list())
+			add(iFeatureRooms, (Long)o[0], (Long)o[1]);
+
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select g.uniqueId, l.uniqueId from Location l inner join l.roomGroups g where l.session.uniqueId = :sessionId")
+				.setLong("sessionId", iSessionId).list())
+			add(iGroupRooms, (Long)o[0], (Long)o[1]);
+
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select parent.uniqueId, dp.uniqueId from DatePattern dp inner join dp.parents parent where dp.session.uniqueId = :sessionId")
+				.setLong("sessionId", iSessionId).list()) {
+			List<Long> children = iDatePatternChildren.get((Long)o[0]);
+			if (children == null) {
+				children = new ArrayList<Long>();
+				iDatePatternChildren.put((Long)o[0], children);
+			}
+			children.add((Long)o[1]);
+		}
+
+		sLog.info("Static data of session " + iSessionId + " loaded in " + (System.currentTimeMillis() - t0) + " ms (" +
+				iTravelTimeDistance.length + " travel times, " + iFeatureRooms.size() + " room features, " + iGroupRooms.size() + " room groups, " +
+				iDatePatternChildren.size() + " date pattern sets)");
+	}
+
+	private static void add(Map<Long, Set<Long>> map, Long key, Long value) {
+		Set<Long> values = map.get(key);
+		if (values == null) {
+			values = new HashSet<Long>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	public Long getSessionId() { return iSessionId; }
+
+	/**
+	 * Populate distance metric with the travel times of the session (same as {@link TravelTime#populateTravelTimes(DistanceMetric, Long, org.hibernate.Session)})
+	 */
+	public void populateTravelTimes(DistanceMetric metric) {
+		for (int i = 0; i < iTravelTimeDistance.length; i++)
+			metric.addTravelTime(iTravelTimeLocation1[i], iTravelTimeLocation2[i], iTravelTimeDistance[i]);
+	}
+
+	/**
+	 * True if the given location has the given room feature
+	 */
+	public boolean hasFeature(Location location, RoomFeature feature) {
+		Set<Long> rooms = iFeatureRooms.get(feature.getUniqueId());
+		return rooms != null && rooms.contains(location.getUniqueId());
+	}
+
+	/**
+	 * True if the given location is in the given room group
+	 */
+	public boolean isInGroup(Location location, RoomGroup group) {
+		Set<Long> rooms = iGroupRooms.get(group.getUniqueId());
+		return rooms != null && rooms.contains(location.getUniqueId());
+	}
+
+	/**
+	 * Children of the given date pattern set (same as {@link DatePattern#findChildren(org.hibernate.Session)})
+	 */
+	public List<DatePattern> getChildren(DatePattern datePattern, org.hibernate.Session hibSession) {
+		List<DatePattern> ret = new ArrayList<DatePattern>();
+		if (datePattern.getType() != null && datePattern.getType() != DatePattern.sTypePatternSet) return ret;
+		List<Long> children = iDatePatternChildren.get(datePattern.getUniqueId());
+		if (children != null)
+			for (Long childId: children) {
+				DatePattern child = DatePatternDAO.getInstance().get(childId, hibSession);
+				if (child != null) ret.add(child);
+			}
+		return ret;
+	}
+}
@@ -267,7 +267,13 @@ public class ExamAssignmentInfo extends ExamAssignment implements Serializable
     public ExamAssignmentInfo(org.unitime.timetable.model.Exam exam, boolean useCache) {
         super(exam);
         if (!useCache) {
-            generateConflicts(exam, exam.getStudentExams(), null); 
+            if (ExamConflictIndex.isEnabled()) {
+                ExamConflictIndex index = ExamConflictIndex.getInstance(exam.getSession().getUniqueId(), exam.getExamType().getUniqueId());
+                generateConflicts(exam, index.getStudentExams(exam), null, null, new Parameters(exam.getSession().getUniqueId(), exam.getExamType().getUniqueId()),
+                		index.getOwner2Students(), index.getOwner2Course2Students());
+            } else {
+                generateConflicts(exam, exam.getStudentExams(), null);
+            }
             return;
         }
         if (exam.getConflicts()!=null && !exam.getConflicts().isEmpty()) {
@@ -602,11 +608,21 @@ public class ExamAssignmentInfo extends ExamAssignment implements Serializable
     }
 
     public ExamAssignmentInfo(org.unitime.timetable.model.Exam exam, ExamPeriod period, Collection<ExamRoomInfo> rooms) throws Exception {
-        this(exam, period, rooms, (period==null?null:exam.getStudentExams()), null);
+        this(exam, period, rooms, (period==null?null:getStudentExams(exam)), null);
     }
     
     public ExamAssignmentInfo(org.unitime.timetable.model.Exam exam, ExamPeriod period, Collection<ExamRoomInfo> rooms, Hashtable<Long, ExamAssignment> table) throws Exception {
-        this(exam, period, rooms, exam.getStudentExams(), table);
+        this(exam, period, rooms, getStudentExams(exam), table);
+    }
+    
+    /**
+     * Student &rarr; examinations of the student for all the students of the given examination,
+     * taken from the {@link ExamConflictIndex} when enabled
+     */
+    protected static Hashtable<Long, Set<org.unitime.timetable.model.Exam>> getStudentExams(org.unitime.timetable.model.Exam exam) {
+        if (ExamConflictIndex.isEnabled())
+            return ExamConflictIndex.getInstance(exam.getSession().getUniqueId(), exam.getExamType().getUniqueId()).getStudentExams(exam);
+        return exam.getStudentExams();
     }
     
     
@@ -617,7 +633,7 @@ public class ExamAssignmentInfo extends ExamAssignment implements Serializable
    
     public ExamAssignmentInfo(org.unitime.timetable.model.Exam exam, Hashtable<Long, ExamAssignment> table) {
         super(exam);
-        generateConflicts(exam, exam.getStudentExams(), table);
+        generateConflicts(exam, getStudentExams(exam), table);
     }
     
     public void generateConflicts(org.unitime.timetable.model.Exam exam, Hashtable<Long, Set<org.unitime.timetable.model.Exam>> examStudents, Hashtable<Long, ExamAssignment> table) {
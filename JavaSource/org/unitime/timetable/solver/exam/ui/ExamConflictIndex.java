@@ -0,0 +1,277 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver.exam.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.type.LongType;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.model.Exam;
+import org.unitime.timetable.model.ExamOwner;
+import org.unitime.timetable.model.dao.ExamDAO;
+
+/**
+ * Student conflict index of all examinations of an academic session and an examination type.<br>
+ * <br>
+ * The index is built in bulk (one query per examination owner type) and it only contains identifiers: students of each
+ * examination owner (also split by course), examinations of each student and the number of students shared by each
+ * pair of examinations. It is kept in memory until the student class enrollments or the examination owners of the session change,
+ * which is checked using a fingerprint query at most once per HTTP request (see {@link #getInstance(Long, Long)}).
+ * Direct, back-to-back and more than two a day conflicts of an assigned examination are then computed from the index
+ * (see {@link ExamAssignmentInfo}), with no additional queries needed.
+ */
+public class ExamConflictIndex {
+	private static Log sLog = LogFactory.getLog(ExamConflictIndex.class);
+	private static final String REQUEST_ATTRIBUTE = ExamConflictIndex.class.getName();
+	private static final int MAX_INDEXES = 20;
+	private static final int sBatchSize = 1000;
+	private static Map<String, ExamConflictIndex> sIndexes = new ConcurrentHashMap<String, ExamConflictIndex>();
+
+	private Long iSessionId, iExamTypeId;
+	private String iFingerprint;
+	private Hashtable<Long, Set<Long>> iOwner2students = new Hashtable<Long, Set<Long>>();
+	private Hashtable<Long, Hashtable<Long, Set<Long>>> iOwner2course2students = new Hashtable<Long, Hashtable<Long, Set<Long>>>();
+	private Map<Long, Set<Long>> iStudent2exams = new HashMap<Long, Set<Long>>();
+	private Map<Long, Set<Long>> iExam2students = new HashMap<Long, Set<Long>>();
+	private Map<Long, Map<Long, Integer>> iSharedStudents = new HashMap<Long, Map<Long, Integer>>();
+
+	private ExamConflictIndex(Long sessionId, Long examTypeId, String fingerprint) {
+		iSessionId = sessionId;
+		iExamTypeId = examTypeId;
+		iFingerprint = fingerprint;
+	}
+
+	/**
+	 * Conflict index of the given session and examination type, (re)built when it does not exist or it is no longer up to date.
+	 * When the index is disabled (see {@link #isEnabled()}), a new index is built on each call.
+	 */
+	@SuppressWarnings("unchecked")
+	public static ExamConflictIndex getInstance(Long sessionId, Long examTypeId) {
+		if (!isEnabled()) {
+			ExamConflictIndex index = new ExamConflictIndex(sessionId, examTypeId, null);
+			index.load();
+			return index;
+		}
+		String key = sessionId + ":" + examTypeId;
+		ExamConflictIndex index = sIndexes.get(key);
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		Set<String> checked = null;
+		if (attributes != null) {
+			checked = (Set<String>)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+			if (checked == null) {
+				checked = new HashSet<String>();
+				attributes.setAttribute(REQUEST_ATTRIBUTE, checked, RequestAttributes.SCOPE_REQUEST);
+			}
+			if (index != null && checked.contains(key)) return index;
+		}
+		String fingerprint = getFingerprint(sessionId, examTypeId);
+		if (index == null || !fingerprint.equals(index.iFingerprint)) {
+			index = new ExamConflictIndex(sessionId, examTypeId, fingerprint);
+			index.load();
+			if (sIndexes.size() >= MAX_INDEXES) sIndexes.clear();
+			sIndexes.put(key, index);
+		}
+		if (checked != null) checked.add(key);
+		return index;
+	}
+
+	/**
+	 * True if the index is to be kept in memory and used by the examination pages (see {@link ApplicationProperty#ExaminationConflictIndex})
+	 */
+	public static boolean isEnabled() {
+		return ApplicationProperty.ExaminationConflictIndex.isTrue();
+	}
+
+	/**
+	 * Cheap check whether the student class enrollments of the session or the examination owners have changed. Owners are
+	 * fingerprinted by the sums of their ids, examination ids, and owner ids, so that an owner moved to another examination is noticed.
+	 */
+	protected static String getFingerprint(Long sessionId, Long examTypeId) {
+		org.hibernate.Session hibSession = ExamDAO.getInstance().getSession();
+		Object[] enrollments = (Object[])hibSession.createQuery(
+				"select count(e), sum(e.uniqueId), max(e.timestamp) from StudentClassEnrollment e where e.student.session.uniqueId = :sessionId")
+				.setLong("sessionId", sessionId).uniqueResult();
+		Object[] owners = (Object[])hibSession.createQuery(
+				"select count(o), sum(o.uniqueId), sum(o.exam.uniqueId), sum(o.ownerId), sum(o.ownerType) from ExamOwner o where o.exam.session.uniqueId = :sessionId and o.exam.examType.uniqueId = :examTypeId")
+				.setLong("sessionId", sessionId).setLong("examTypeId", examTypeId).uniqueResult();
+		return Arrays.toString(enrollments) + Arrays.toString(owners);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void load() {
+		long t0 = System.currentTimeMillis();
+		org.hibernate.Session hibSession = ExamDAO.getInstance().getSession();
+		String[] owners = new String[] {
+				"StudentClassEnrollment e inner join e.clazz c where o.ownerType = " + ExamOwner.sOwnerTypeClass + " and o.ownerId = c.uniqueId",
+				"StudentClassEnrollment e inner join e.clazz c inner join c.schedulingSubpart.instrOfferingConfig ioc where o.ownerType = " + ExamOwner.sOwnerTypeConfig + " and o.ownerId = ioc.uniqueId",
+				"StudentClassEnrollment e inner join e.courseOffering co where o.ownerType = " + ExamOwner.sOwnerTypeCourse + " and o.ownerId = co.uniqueId",
+				"StudentClassEnrollment e inner join e.courseOffering.instructionalOffering io where o.ownerType = " + ExamOwner.sOwnerTypeOffering + " and o.ownerId = io.uniqueId"
+		};
+		for (String owner: owners) {
+			for (Object[] o: (List<Object[]>)hibSession.createQuery(
+					"select x.uniqueId, o.uniqueId, e.student.uniqueId, e.courseOffering.uniqueId from Exam x inner join x.owners o, " + owner + " and " +
+					"x.session.uniqueId = :sessionId and x.examType.uniqueId = :examTypeId")
+					.setLong("sessionId", iSessionId).setLong("examTypeId", iExamTypeId).list()) {
+				Long examId = (Long)o[0];
+				Long ownerId = (Long)o[1];
+				Long studentId = (Long)o[2];
+				Long courseId = (Long)o[3];
+				add(iOwner2students, ownerId, studentId);
+				Hashtable<Long, Set<Long>> course2students = iOwner2course2students.get(ownerId);
+				if (course2students == null) {
+					course2students = new Hashtable<Long, Set<Long>>();
+					iOwner2course2students.put(ownerId, course2students);
+				}
+				add(course2students, courseId, studentId);
+				add(iStudent2exams, studentId, examId);
+				add(iExam2students, examId, studentId);
+			}
+		}
+		for (Set<Long> exams: iStudent2exams.values()) {
+			if (exams.size() <= 1) continue;
+			for (Long e1: exams)
+				for (Long e2: exams) {
+					if (e1.equals(e2)) continue;
+					Map<Long, Integer> shared = iSharedStudents.get(e1);
+					if (shared == null) {
+						shared = new HashMap<Long, Integer>();
+						iSharedStudents.put(e1, shared);
+					}
+					Integer count = shared.get(e2);
+					shared.put(e2, count == null ? 1 : count + 1);
+				}
+		}
+		sLog.debug("Examination conflict index of " + iSessionId + ":" + iExamTypeId + " built in " + (System.currentTimeMillis() - t0) + " ms (" +
+				iExam2students.size() + " exams, " + iStudent2exams.size() + " students)");
+	}
+
+	private static <K> void add(Map<K, Set<Long>> map, K key, Long value) {
+		Set<Long> values = map.get(key);
+		if (values == null) {
+			values = new HashSet<Long>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	public Long getSessionId() { return iSessionId; }
+	public Long getExamTypeId() { return iExamTypeId; }
+
+	/**
+	 * Owner unique id &rarr; students (to be passed to {@link ExamAssignment#ExamAssignment(Exam, Hashtable, Hashtable)}, must not be modified)
+	 */
+	public Hashtable<Long, Set<Long>> getOwner2Students() { return iOwner2students; }
+
+	/**
+	 * Owner unique id &rarr; course offering unique id &rarr; students (must not be modified)
+	 */
+	public Hashtable<Long, Hashtable<Long, Set<Long>>> getOwner2Course2Students() { return iOwner2course2students; }
+
+	public Set<Long> getStudentIds(Long examId) {
+		Set<Long> students = iExam2students.get(examId);
+		return (students == null ? Collections.<Long>emptySet() : Collections.unmodifiableSet(students));
+	}
+
+	public Set<Long> getExamIds(Long studentId) {
+		Set<Long> exams = iStudent2exams.get(studentId);
+		return (exams == null ? Collections.<Long>emptySet() : Collections.unmodifiableSet(exams));
+	}
+
+	/**
+	 * Number of students shared by the two examinations
+	 */
+	public int getNrSharedStudents(Long examId, Long otherExamId) {
+		Map<Long, Integer> shared = iSharedStudents.get(examId);
+		Integer count = (shared == null ? null : shared.get(otherExamId));
+		return (count == null ? 0 : count);
+	}
+
+	/**
+	 * Examinations sharing at least one student with the given examination &rarr; number of shared students
+	 */
+	public Map<Long, Integer> getSharedStudents(Long examId) {
+		Map<Long, Integer> shared = iSharedStudents.get(examId);
+		return (shared == null ? Collections.<Long, Integer>emptyMap() : Collections.unmodifiableMap(shared));
+	}
+
+	/**
+	 * Student &rarr; examinations of the student for all the students of the given examination (the same as {@link Exam#getStudentExams()}).
+	 * Only the examinations sharing students with the given examination are loaded (in bulk).
+	 */
+	public Hashtable<Long, Set<Exam>> getStudentExams(Exam exam) {
+		Map<Long, Exam> exams = new HashMap<Long, Exam>();
+		exams.put(exam.getUniqueId(), exam);
+		loadExams(getSharedStudents(exam.getUniqueId()).keySet(), exams);
+		Hashtable<Long, Set<Exam>> studentExams = new Hashtable<Long, Set<Exam>>();
+		for (Long studentId: getStudentIds(exam.getUniqueId())) {
+			Set<Exam> examsOfStudent = new HashSet<Exam>();
+			for (Long examId: getExamIds(studentId)) {
+				Exam x = exams.get(examId);
+				if (x != null) examsOfStudent.add(x);
+			}
+			studentExams.put(studentId, examsOfStudent);
+		}
+		return studentExams;
+	}
+
+	/**
+	 * Student &rarr; examinations of the student for all the students of the session, using the given (already loaded) examinations
+	 */
+	public Hashtable<Long, Set<Exam>> getStudentExams(Map<Long, Exam> exams) {
+		Hashtable<Long, Set<Exam>> studentExams = new Hashtable<Long, Set<Exam>>();
+		for (Map.Entry<Long, Set<Long>> entry: iStudent2exams.entrySet()) {
+			Set<Exam> examsOfStudent = new HashSet<Exam>();
+			for (Long examId: entry.getValue()) {
+				Exam x = exams.get(examId);
+				if (x != null) examsOfStudent.add(x);
+			}
+			studentExams.put(entry.getKey(), examsOfStudent);
+		}
+		return studentExams;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static void loadExams(Collection<Long> examIds, Map<Long, Exam> exams) {
+		List<Long> ids = new ArrayList<Long>();
+		for (Long examId: examIds)
+			if (!exams.containsKey(examId)) ids.add(examId);
+		if (ids.isEmpty()) return;
+		org.hibernate.Session hibSession = ExamDAO.getInstance().getSession();
+		for (int i = 0; i < ids.size(); i += sBatchSize) {
+			for (Exam exam: (List<Exam>)hibSession.createQuery("select x from Exam x where x.uniqueId in (:examIds)")
+					.setParameterList("examIds", ids.subList(i, Math.min(ids.size(), i + sBatchSize)), new LongType()).list())
+				exams.put(exam.getUniqueId(), exam);
+		}
+	}
+}
@@ -19,10 +19,19 @@
 */
 package org.unitime.timetable.solver.jgroups;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,13 +47,17 @@ import org.unitime.timetable.model.DepartmentalInstructor;
 import org.unitime.timetable.model.ExamType;
 import org.unitime.timetable.model.InstructionalOffering;
 import org.unitime.timetable.model.Solution;
+import org.unitime.timetable.model.SolverParameterGroup.SolverType;
 import org.unitime.timetable.model.TeachingRequest;
 import org.unitime.timetable.model.dao._RootDAO;
+import org.unitime.timetable.solver.CommonSolverInterface;
 import org.unitime.timetable.util.Constants;
 import org.unitime.timetable.util.RoomAvailability;
 import org.unitime.timetable.util.queue.LocalQueueProcessor;
 import org.unitime.timetable.util.queue.QueueProcessor;
 
+import com.sun.management.GcInfo;
+
 /**
  * @author Tomas Muller
  */
@@ -54,6 +67,8 @@ public abstract class AbstractSolverServer implements SolverServer {
 	protected int iUsageBase = 0;
 	protected Date iStartTime = new Date();
 	protected boolean iActive = false;
+	private Map<String, long[]> iFootprints = new ConcurrentHashMap<String, long[]>();
+	private MetricsThread iMetricsThread = null;
 
 	public AbstractSolverServer() {
 	}
@@ -61,6 +76,8 @@ public abstract class AbstractSolverServer implements SolverServer {
 	@Override
 	public void start() {
 		iActive = true;
+		iMetricsThread = new MetricsThread();
+		iMetricsThread.start();
 		sLog.info("Solver server is up and running.");
 	}
 	
@@ -68,6 +85,10 @@ public abstract class AbstractSolverServer implements SolverServer {
 	public void stop() {
 		sLog.info("Solver server is going down...");
 		iActive = false;
+		if (iMetricsThread != null) {
+			iMetricsThread.destroy();
+			iMetricsThread = null;
+		}
 	}
 
 	@Override
@@ -141,13 +162,185 @@ public abstract class AbstractSolverServer implements SolverServer {
 		return iActive;
 	}
 	
+	/**
+	 * Collection usage of the tenured heap pool is only trusted when the last garbage collection of the pool ended
+	 * within this many milliseconds (G1 only updates it on mixed and full collections, it can be stale or zero for a long time)
+	 */
+	protected static long sMaxCollectionUsageAge = 60000l;
+	
+	/**
+	 * Tenured (old generation) heap pool, that is the heap pool supporting usage thresholds, null if there is no such pool
+	 */
+	protected MemoryPoolMXBean getTenuredPool() {
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported())
+				return pool;
+		return null;
+	}
+	
+	/**
+	 * True if a garbage collector managing the given pool finished a collection within {@link #sMaxCollectionUsageAge} milliseconds.
+	 * Only supported on JVMs providing {@link com.sun.management.GarbageCollectorMXBean}, false otherwise.
+	 */
+	protected boolean isCollectionUsageRecent(MemoryPoolMXBean pool) {
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (!gc.isValid() || !(gc instanceof com.sun.management.GarbageCollectorMXBean)) continue;
+			boolean managed = false;
+			for (String name: gc.getMemoryPoolNames())
+				if (name.equals(pool.getName())) { managed = true; break; }
+			if (!managed) continue;
+			GcInfo info = ((com.sun.management.GarbageCollectorMXBean)gc).getLastGcInfo();
+			if (info != null && uptime - info.getEndTime() <= sMaxCollectionUsageAge) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Heap used after the last garbage collection (summed over all heap memory pools), -1 when not known, that is when
+	 * the collection usage of the tenured pool is not supported, zero, or not recent (see {@link #isCollectionUsageRecent(MemoryPoolMXBean)})
+	 */
+	protected long getUsedMemoryAfterGC() {
+		MemoryPoolMXBean tenured = getTenuredPool();
+		if (tenured == null) return -1;
+		MemoryUsage tenuredUsage = tenured.getCollectionUsage();
+		if (tenuredUsage == null || tenuredUsage.getUsed() <= 0 || !isCollectionUsageRecent(tenured)) return -1;
+		long used = 0;
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP || !pool.isValid()) continue;
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (usage == null) usage = pool.getUsage();
+			if (usage != null) used += usage.getUsed();
+		}
+		return used;
+	}
+	
 	@Override
 	public boolean isAvailable() {
 		if (!isActive()) return false;
-		if (getMemoryLimit() > getAvailableMemory()) System.gc();
+		if (getMemoryLimit() <= getAvailableMemory()) return true;
+		// memory that would be freed by a garbage collection is available as well, no need to call System.gc() when it is known
+		long usedAfterGC = getUsedMemoryAfterGC();
+		if (usedAfterGC >= 0 && getMemoryLimit() <= Runtime.getRuntime().maxMemory() - usedAfterGC) return true;
+		System.gc();
 		return getMemoryLimit() <= getAvailableMemory();
 	}
 	
+	/**
+	 * Local solver container of the given type, null if there are no solvers running on this server
+	 */
+	protected SolverContainer<? extends CommonSolverInterface> getLocalSolverContainer(SolverType type) {
+		return null;
+	}
+	
+	@Override
+	public SolverServerMetrics getMetrics() {
+		SolverServerMetrics metrics = new SolverServerMetrics();
+		metrics.setHost(getHost());
+		metrics.setActive(isActive());
+		metrics.setLocal(isLocal());
+		metrics.setUsageBase(iUsageBase);
+		metrics.setHeapMax(Runtime.getRuntime().maxMemory());
+		metrics.setHeapUsed(Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+		metrics.setHeapUsedAfterGC(getUsedMemoryAfterGC());
+		metrics.setMemoryLimit(getMemoryLimit());
+		metrics.setAvailableProcessors(getAvailableProcessors());
+		metrics.setSystemLoad(ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+		for (SolverType type: SolverType.values()) {
+			SolverContainer<? extends CommonSolverInterface> container = getLocalSolverContainer(type);
+			if (container == null) continue;
+			for (String user: container.getSolvers()) {
+				CommonSolverInterface solver = container.getSolver(user);
+				if (solver == null) continue;
+				long[] footprint = iFootprints.get(type.getPrefix() + user);
+				boolean working = false;
+				int threads = 1;
+				try {
+					working = solver.isWorking();
+					if (working && !solver.isPassivated())
+						threads = Math.max(1, solver.getProperties().getPropertyInt("Parallel.NrSolvers", 1));
+				} catch (Exception e) {}
+				metrics.addSolver(new SolverServerMetrics.SolverMetrics(type, user, solver.isPassivated(), working, threads, footprint == null ? 0 : footprint[1]));
+			}
+		}
+		return metrics;
+	}
+	
+	/**
+	 * Recompute the estimated memory footprint of the active solvers that were not measured recently.
+	 * The footprint of a passivated solver is kept, as it is the memory the solver will need once activated again.
+	 */
+	protected void updateFootprints() {
+		long refresh = 60000l * ApplicationProperty.SolverPlacementFootprintRefresh.intValue();
+		Set<String> keys = new HashSet<String>();
+		for (SolverType type: SolverType.values()) {
+			SolverContainer<? extends CommonSolverInterface> container = getLocalSolverContainer(type);
+			if (container == null) continue;
+			for (String user: container.getSolvers()) {
+				String key = type.getPrefix() + user;
+				keys.add(key);
+				CommonSolverInterface solver = container.getSolver(user);
+				if (solver == null || solver.isPassivated()) continue;
+				long[] footprint = iFootprints.get(key);
+				if (footprint != null && System.currentTimeMillis() - footprint[0] < refresh) continue;
+				try {
+					if (solver.isWorking()) continue;
+					iFootprints.put(key, new long[] { System.currentTimeMillis(), container.getMemUsage(user) });
+				} catch (Exception e) {
+					sLog.warn("Failed to estimate memory usage of " + key + ": " + e.getMessage());
+				}
+			}
+		}
+		iFootprints.keySet().retainAll(keys);
+	}
+	
+	protected void setFootprint(SolverType type, String user, long footprint) {
+		iFootprints.put(type.getPrefix() + user, new long[] { System.currentTimeMillis(), footprint });
+	}
+	
+	/**
+	 * Move passivated solvers between the solver servers, called periodically (see {@link ApplicationProperty#SolverPlacementRebalanceInterval})
+	 */
+	protected void rebalance() {
+	}
+	
+	private class MetricsThread extends Thread {
+		private boolean iContinue = true;
+		private long iLastRebalance = System.currentTimeMillis();
+		
+		public MetricsThread() {
+			setName("SolverServer:Metrics");
+			setDaemon(true);
+			setPriority(Thread.MIN_PRIORITY);
+		}
+		
+		@Override
+		public void run() {
+			while (iContinue) {
+				try {
+					sleep(60000);
+				} catch (InterruptedException e) {
+					break;
+				}
+				try {
+					updateFootprints();
+					int interval = ApplicationProperty.SolverPlacementRebalanceInterval.intValue();
+					if (interval > 0 && System.currentTimeMillis() - iLastRebalance >= 60000l * interval) {
+						iLastRebalance = System.currentTimeMillis();
+						rebalance();
+					}
+				} catch (Exception e) {
+					sLog.warn("Failed to update solver server metrics: " + e.getMessage(), e);
+				}
+			}
+		}
+		
+		public void destroy() {
+			iContinue = false;
+			if (isAlive()) interrupt();
+		}
+	}
+	
 	@Override
 	public RoomAvailabilityInterface getRoomAvailability() {
 		return RoomAvailability.getInstance();
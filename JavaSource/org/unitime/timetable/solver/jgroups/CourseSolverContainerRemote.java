@@ -23,9 +23,13 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
@@ -92,8 +96,13 @@ public class CourseSolverContainerRemote extends CourseSolverContainer implement
 		}
 	}
 	
+	public Object[] invokeAll(String user, String[] methods, Class[][] types, Object[][] args) {
+		return RemoteSolverCache.invokeAll(this, user, methods, types, args);
+	}
+	
 	@Override
 	public Object dispatch(Address address, String user, Method method, Object[] args) throws Exception {
+		long t0 = System.nanoTime();
 		try {
 			return iDispatcher.callRemoteMethod(address, "invoke",  new Object[] { method.getName(), user, method.getParameterTypes(), args }, new Class[] { String.class, String.class, Class[].class, Object[].class }, SolverServerImplementation.sFirstResponse);
 		} catch (InvocationTargetException e) {
@@ -105,6 +114,8 @@ public class CourseSolverContainerRemote extends CourseSolverContainer implement
 			if ("exists".equals(method.getName()) && e instanceof SuspectedException) return false;
 			sLog.error("Excution of " + method.getName() + " on solver " + user + " failed: " + e.getMessage(), e);
 			throw e;
+		} finally {
+			RemoteSolverStatistics.record(System.nanoTime() - t0, 1);
 		}
 	}
 	
@@ -204,11 +215,15 @@ public class CourseSolverContainerRemote extends CourseSolverContainer implement
     	private String iUser;
     	private SolverProxy iRemoteSolverProxy;
     	private CommitedClassAssignmentProxy iCommitedClassAssignmentProxy = null;
+    	private RemoteSolverCache iCache;
     	
     	private SolverInvocationHandler(Address address, String user) {
     		iAddress = address;
     		iUser = user;
     		iCommitedClassAssignmentProxy = new CommitedClassAssignmentProxy();
+    		iCache = RemoteSolverCache.getInstance(CourseSolverContainerRemote.this, address, user,
+    				"getDepartmentIds", "getAssignment", "getAssignmentInfo", "hasConflicts", "getConflicts", "getConflictingTimeBlocks")
+    				.addCompanions("getAssignment", "getAssignmentInfo");
     	}
     	
     	private void setRemoteSolverProxy(SolverProxy proxy) { iRemoteSolverProxy = proxy; }
@@ -252,7 +267,7 @@ public class CourseSolverContainerRemote extends CourseSolverContainer implement
                 }
             }
             if (!solverClassesOrClassIds.isEmpty())
-                assignments.putAll(iRemoteSolverProxy.getAssignmentTable2(solverClassesOrClassIds));
+                assignments.putAll(getSolverTable("getAssignment", solverClassesOrClassIds));
             return assignments;
         }
         
@@ -273,16 +288,55 @@ public class CourseSolverContainerRemote extends CourseSolverContainer implement
                 }
             }
             if (!solverClassesOrClassIds.isEmpty())
-                infos.putAll(iRemoteSolverProxy.getAssignmentInfoTable2(solverClassesOrClassIds));
+                infos.putAll(getSolverTable("getAssignmentInfo", solverClassesOrClassIds));
             return infos;
         }
+        
+        /**
+         * Assignments (or assignment infos) of the given solver classes: the ones that are not cached are retrieved
+         * in a single remote call, together with the other table when neither is cached
+         */
+        private Map getSolverTable(String method, Collection<Long> classIds) throws Exception {
+        	Map table = new HashMap();
+        	List<Long> missing = new ArrayList<Long>();
+        	boolean other = true;
+        	String otherMethod = ("getAssignment".equals(method) ? "getAssignmentInfo" : "getAssignment");
+        	for (Long classId: classIds) {
+        		Object value = iCache.get(method, classId);
+        		if (value == null) {
+        			missing.add(classId);
+        			if (other && iCache.contains(otherMethod, classId)) other = false;
+        		} else if (!RemoteSolverCache.isNull(value)) {
+        			table.put(classId, value);
+        		}
+        	}
+        	if (missing.isEmpty()) return table;
+        	Vector ids = new Vector(missing);
+        	Long version = iCache.getVersion();
+        	if (other && version != null) {
+        		Object[] results = iCache.dispatchAll(
+        				new String[] { method + "Table2", otherMethod + "Table2" },
+        				new Class[][] { new Class[] { Collection.class }, new Class[] { Collection.class } },
+        				new Object[][] { new Object[] { ids }, new Object[] { ids } });
+        		if (results[0] instanceof Exception) throw (Exception)results[0];
+        		if (!(results[1] instanceof Throwable))
+        			for (Long classId: missing) iCache.put(version, ((Map)results[1]).get(classId), otherMethod, classId);
+        		for (Long classId: missing) iCache.put(version, ((Map)results[0]).get(classId), method, classId);
+        		table.putAll((Map)results[0]);
+        	} else {
+        		Map values = ("getAssignment".equals(method) ? iRemoteSolverProxy.getAssignmentTable2(ids) : iRemoteSolverProxy.getAssignmentInfoTable2(ids));
+        		for (Long classId: missing) iCache.put(version, values.get(classId), method, classId);
+        		table.putAll(values);
+        	}
+        	return table;
+        }
     	
     	@Override
     	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     		try {
     			return getClass().getMethod(method.getName(), method.getParameterTypes()).invoke(this, args);
     		} catch (NoSuchMethodException e) {}
-    		return dispatch(iAddress, iUser, method, args);
+    		return iCache.invoke(method, args);
         }
     }
 }
@@ -76,8 +76,13 @@ public class ExaminationSolverContainerRemote extends ExaminationSolverContainer
 		}
 	}
 	
+	public Object[] invokeAll(String user, String[] methods, Class[][] types, Object[][] args) {
+		return RemoteSolverCache.invokeAll(this, user, methods, types, args);
+	}
+	
 	@Override
 	public Object dispatch(Address address, String user, Method method, Object[] args) throws Exception {
+		long t0 = System.nanoTime();
 		try {
 			return iDispatcher.callRemoteMethod(address, "invoke",  new Object[] { method.getName(), user, method.getParameterTypes(), args }, new Class[] { String.class, String.class, Class[].class, Object[].class }, SolverServerImplementation.sFirstResponse);
 		} catch (InvocationTargetException e) {
@@ -89,6 +94,8 @@ public class ExaminationSolverContainerRemote extends ExaminationSolverContainer
 			if ("exists".equals(method.getName()) && e instanceof SuspectedException) return false;
 			sLog.error("Excution of " + method.getName() + " on solver " + user + " failed: " + e.getMessage(), e);
 			throw e;
+		} finally {
+			RemoteSolverStatistics.record(System.nanoTime() - t0, 1);
 		}
 	}
 	
@@ -104,10 +111,12 @@ public class ExaminationSolverContainerRemote extends ExaminationSolverContainer
     public class SolverInvocationHandler implements InvocationHandler {
     	private Address iAddress;
     	private String iUser;
+    	private RemoteSolverCache iCache;
     	
     	private SolverInvocationHandler(Address address, String user) {
     		iAddress = address;
     		iUser = user;
+    		iCache = RemoteSolverCache.getInstance(ExaminationSolverContainerRemote.this, address, user, "getInfo", "getAssignment", "getAssignmentInfo", "getExamTypeId");
     	}
     	
     	public String getHost() {
@@ -123,7 +132,7 @@ public class ExaminationSolverContainerRemote extends ExaminationSolverContainer
     		try {
     			return getClass().getMethod(method.getName(), method.getParameterTypes()).invoke(this, args);
     		} catch (NoSuchMethodException e) {}
-    		return dispatch(iAddress, iUser, method, args);
+    		return iCache.invoke(method, args);
         }
     }
 
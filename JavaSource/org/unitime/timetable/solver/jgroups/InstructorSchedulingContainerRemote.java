@@ -78,6 +78,7 @@ public class InstructorSchedulingContainerRemote extends InstructorSchedulingCon
 	
 	@Override
 	public Object dispatch(Address address, String user, Method method, Object[] args) throws Exception {
+		long t0 = System.nanoTime();
 		try {
 			return iDispatcher.callRemoteMethod(address, "invoke",  new Object[] { method.getName(), user, method.getParameterTypes(), args }, new Class[] { String.class, String.class, Class[].class, Object[].class }, SolverServerImplementation.sFirstResponse);
 		} catch (InvocationTargetException e) {
@@ -89,6 +90,8 @@ public class InstructorSchedulingContainerRemote extends InstructorSchedulingCon
 			if ("exists".equals(method.getName()) && e instanceof SuspectedException) return false;
 			sLog.error("Excution of " + method.getName() + " on solver " + user + " failed: " + e.getMessage(), e);
 			throw e;
+		} finally {
+			RemoteSolverStatistics.record(System.nanoTime() - t0, 1);
 		}
 	}
 	
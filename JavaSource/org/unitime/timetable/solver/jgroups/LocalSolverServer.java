@@ -35,6 +35,7 @@ import org.unitime.timetable.model.SolverParameterGroup.SolverType;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.onlinesectioning.OnlineSectioningServer;
 import org.unitime.timetable.onlinesectioning.server.InMemoryServer;
+import org.unitime.timetable.solver.CommonSolverInterface;
 import org.unitime.timetable.solver.SolverProxy;
 import org.unitime.timetable.solver.exam.ExamSolverProxy;
 import org.unitime.timetable.solver.instructor.InstructorSchedulingProxy;
@@ -109,6 +110,22 @@ public class LocalSolverServer extends AbstractSolverServer {
 		return ret;
 	}
 
+	@Override
+	protected SolverContainer<? extends CommonSolverInterface> getLocalSolverContainer(SolverType type) {
+		switch (type) {
+		case COURSE:
+			return iCourseSolverContainer;
+		case EXAM:
+			return iExamSolverContainer;
+		case STUDENT:
+			return iStudentSolverContainer;
+		case INSTRUCTOR:
+			return iInstructorSchedulingContainer;
+		default:
+			return null;
+		}
+	}
+
 	@Override
 	public List<SolverServer> getServers(boolean onlyAvailable) {
 		List<SolverServer> servers = new ArrayList<SolverServer>();
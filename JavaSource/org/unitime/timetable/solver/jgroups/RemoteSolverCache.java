@@ -0,0 +1,345 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver.jgroups;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgroups.Address;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.unitime.timetable.model.Class_;
+import org.unitime.timetable.model.dao._RootDAO;
+
+/**
+ * Client side cache of the results of remote solver calls.<br>
+ * <br>
+ * Results of the cacheable (read-only) methods are kept, shared by all the proxies of the same remote solver, for as long as
+ * the assignment version of the solver (see {@link org.unitime.timetable.solver.AbstractSolver#getAssignmentVersion()}) does not change.
+ * The version is checked at most once per HTTP request (and again after a call that may have changed the solver),
+ * outside of a request no caching is done. A cache miss on a method with companions fetches the companions with the same
+ * parameters as well, in a single remote call (see {@link #invokeAll(RemoteSolverContainer, String, String[], Class[][], Object[][])}).
+ * Both the caches and the cached values are limited in size, the least recently used ones are dropped first.
+ */
+public class RemoteSolverCache {
+	private static Log sLog = LogFactory.getLog(RemoteSolverCache.class);
+	private static final String REQUEST_ATTRIBUTE = RemoteSolverCache.class.getName();
+	private static final Object sNull = new Object();
+	private static final int MAX_ENTRIES = 50000;
+	private static final int MAX_CACHES = 1000;
+	private static Map<String, RemoteSolverCache> sCaches = Collections.synchronizedMap(new LruMap<String, RemoteSolverCache>(MAX_CACHES));
+
+	private RemoteSolverContainer<?> iContainer;
+	private Address iAddress;
+	private String iUser, iKey;
+	private Set<String> iCacheableMethods = new HashSet<String>();
+	private Map<String, String[]> iCompanions = new HashMap<String, String[]>();
+	private Long iVersion = null;
+	private Map<String, Object> iCache = Collections.synchronizedMap(new LruMap<String, Object>(MAX_ENTRIES));
+
+	private RemoteSolverCache(RemoteSolverContainer<?> container, Address address, String user, String key) {
+		iContainer = container;
+		iAddress = address;
+		iUser = user;
+		iKey = key;
+	}
+
+	/**
+	 * Cache of the given remote solver
+	 * @param cacheableMethods names of the methods whose results can be cached
+	 */
+	public static RemoteSolverCache getInstance(RemoteSolverContainer<?> container, Address address, String user, String... cacheableMethods) {
+		String key = container.getClass().getSimpleName() + ":" + user + "@" + address;
+		synchronized (sCaches) {
+			RemoteSolverCache cache = sCaches.get(key);
+			if (cache == null) {
+				cache = new RemoteSolverCache(container, address, user, key);
+				cache.iCacheableMethods.addAll(Arrays.asList(cacheableMethods));
+				sCaches.put(key, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Methods that are to be fetched together (with the same parameters) when one of them is not cached
+	 */
+	public RemoteSolverCache addCompanions(String... methods) {
+		for (String method: methods) {
+			String[] companions = new String[methods.length - 1];
+			int idx = 0;
+			for (String other: methods)
+				if (!other.equals(method)) companions[idx++] = other;
+			iCompanions.put(method, companions);
+		}
+		return this;
+	}
+
+	/**
+	 * Cache key of a method call. Classes are identified by their unique ids, as their {@link Class_#toString()} may
+	 * need to load lazy associations.
+	 */
+	protected static String getKey(String method, Object[] args) {
+		if (args == null || args.length == 0) return method;
+		StringBuilder key = new StringBuilder(method);
+		appendKey(key, args);
+		return key.toString();
+	}
+	
+	private static void appendKey(StringBuilder key, Object arg) {
+		if (arg == null) {
+			key.append("null");
+		} else if (arg instanceof Class_) {
+			key.append("Class_#").append(((Class_)arg).getUniqueId());
+		} else if (arg instanceof Object[]) {
+			key.append("[");
+			for (int i = 0; i < ((Object[])arg).length; i++) {
+				if (i > 0) key.append(", ");
+				appendKey(key, ((Object[])arg)[i]);
+			}
+			key.append("]");
+		} else if (arg instanceof Collection) {
+			key.append("[");
+			boolean first = true;
+			for (Object o: (Collection<?>)arg) {
+				if (!first) key.append(", ");
+				appendKey(key, o);
+				first = false;
+			}
+			key.append("]");
+		} else if (arg.getClass().isArray()) {
+			String array = Arrays.deepToString(new Object[] { arg });
+			key.append(array.substring(1, array.length() - 1));
+		} else {
+			key.append(arg);
+		}
+	}
+
+	/**
+	 * Cached value (null if not cached), {@link #isNull(Object)} is true when the cached value is null
+	 */
+	public Object get(String method, Object... args) {
+		if (!isValid()) return null;
+		Object ret = iCache.get(getKey(method, args));
+		if (ret != null) RemoteSolverStatistics.cacheHit();
+		return ret;
+	}
+
+	/**
+	 * True if the value is cached (without counting it as a cache hit)
+	 */
+	public boolean contains(String method, Object... args) {
+		return isValid() && iCache.containsKey(getKey(method, args));
+	}
+
+	public static boolean isNull(Object value) {
+		return value == sNull;
+	}
+
+	/**
+	 * Cache a value that was retrieved while the solver had the given assignment version (see {@link #getVersion()}).
+	 * The value is not cached when the version has changed in the meantime.
+	 */
+	public void put(Long version, Object value, String method, Object... args) {
+		if (version == null) return;
+		synchronized (this) {
+			if (version.equals(iVersion))
+				iCache.put(getKey(method, args), value == null ? sNull : value);
+		}
+	}
+
+	/**
+	 * Assignment version of the solver the cached values belong to, null when the cache cannot be used (see {@link #isValid()}).
+	 * It is to be taken before a remote call whose result is to be cached and passed to {@link #put(Long, Object, String, Object...)}.
+	 */
+	public Long getVersion() {
+		if (!isValid()) return null;
+		synchronized (this) {
+			return iVersion;
+		}
+	}
+
+	/**
+	 * Check the assignment version of the solver (once per request), returns false when the cache cannot be used
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean isValid() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) return false;
+		Set<String> checked = (Set<String>)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (checked == null) {
+			checked = new HashSet<String>();
+			attributes.setAttribute(REQUEST_ATTRIBUTE, checked, RequestAttributes.SCOPE_REQUEST);
+		}
+		if (checked.add(iKey)) {
+			Long version = null;
+			try {
+				version = (Long)dispatch("getAssignmentVersion", new Class[] {}, new Object[] {});
+			} catch (Exception e) {
+				sLog.debug("Failed to check assignment version of " + iKey + ": " + e.getMessage());
+			}
+			synchronized (this) {
+				if (version == null || !version.equals(iVersion)) iCache.clear();
+				iVersion = version;
+			}
+		}
+		return iVersion != null;
+	}
+
+	/**
+	 * Force the version check on the next call (e.g., after a call that may have changed the solver)
+	 */
+	@SuppressWarnings("unchecked")
+	public void invalidate() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) return;
+		Set<String> checked = (Set<String>)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (checked != null) checked.remove(iKey);
+	}
+
+	protected boolean isReadOnly(String method) {
+		return method.startsWith("get") || method.startsWith("is") || method.startsWith("has") || method.equals("exists");
+	}
+
+	/**
+	 * Call the remote solver method, using the cache when possible
+	 */
+	public Object invoke(Method method, Object[] args) throws Exception {
+		String name = method.getName();
+		Long version = (iCacheableMethods.contains(name) ? getVersion() : null);
+		if (version == null) {
+			try {
+				return iContainer.dispatch(iAddress, iUser, method, args);
+			} finally {
+				if (!isReadOnly(name)) invalidate();
+			}
+		}
+		Object ret = iCache.get(getKey(name, args));
+		if (ret != null) {
+			RemoteSolverStatistics.cacheHit();
+			return (ret == sNull ? null : ret);
+		}
+		String[] companions = iCompanions.get(name);
+		if (companions == null) {
+			ret = iContainer.dispatch(iAddress, iUser, method, args);
+			put(version, ret, name, args);
+			return ret;
+		}
+		String[] methods = new String[1 + companions.length];
+		Class[][] types = new Class[methods.length][];
+		Object[][] params = new Object[methods.length][];
+		methods[0] = name;
+		for (int i = 0; i < companions.length; i++)
+			methods[1 + i] = companions[i];
+		for (int i = 0; i < methods.length; i++) {
+			types[i] = method.getParameterTypes();
+			params[i] = args;
+		}
+		Object[] results = dispatchAll(methods, types, params);
+		for (int i = 1; i < methods.length; i++)
+			if (!(results[i] instanceof Throwable))
+				put(version, results[i], methods[i], args);
+		if (results[0] instanceof Exception) throw (Exception)results[0];
+		put(version, results[0], name, args);
+		return results[0];
+	}
+
+	/**
+	 * Call a method of the remote solver that is not part of its proxy interface
+	 */
+	public Object dispatch(String method, Class[] types, Object[] args) throws Exception {
+		long t0 = System.nanoTime();
+		try {
+			return iContainer.getDispatcher().callRemoteMethod(iAddress, "invoke",  new Object[] { method, iUser, types, args }, new Class[] { String.class, String.class, Class[].class, Object[].class }, SolverServerImplementation.sFirstResponse);
+		} catch (InvocationTargetException e) {
+			if (e.getTargetException() != null && e.getTargetException() instanceof Exception)
+				throw (Exception)e.getTargetException();
+			else
+				throw e;
+		} finally {
+			RemoteSolverStatistics.record(System.nanoTime() - t0, 1);
+		}
+	}
+
+	/**
+	 * Call multiple methods of the remote solver in a single remote call. The returned array contains the results, or
+	 * the exceptions thrown by the particular methods.
+	 */
+	public Object[] dispatchAll(String[] methods, Class[][] types, Object[][] args) throws Exception {
+		long t0 = System.nanoTime();
+		try {
+			return iContainer.getDispatcher().callRemoteMethod(iAddress, "invokeAll",  new Object[] { iUser, methods, types, args }, new Class[] { String.class, String[].class, Class[][].class, Object[][].class }, SolverServerImplementation.sFirstResponse);
+		} catch (InvocationTargetException e) {
+			if (e.getTargetException() != null && e.getTargetException() instanceof Exception)
+				throw (Exception)e.getTargetException();
+			else
+				throw e;
+		} finally {
+			RemoteSolverStatistics.record(System.nanoTime() - t0, methods.length);
+		}
+	}
+
+	/**
+	 * Server side of {@link #dispatchAll(String[], Class[][], Object[][])}: call the given methods on the given solver one by one
+	 */
+	public static Object[] invokeAll(RemoteSolverContainer<?> container, String user, String[] methods, Class[][] types, Object[][] args) {
+		Object[] ret = new Object[methods.length];
+		try {
+			for (int i = 0; i < methods.length; i++) {
+				try {
+					ret[i] = container.invoke(methods[i], user, types[i], args[i]);
+				} catch (Exception e) {
+					ret[i] = e;
+				}
+			}
+		} finally {
+			_RootDAO.closeCurrentThreadSessions();
+		}
+		return ret;
+	}
+	
+	/**
+	 * Map that drops the least recently used entry when it grows over the given size
+	 */
+	private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		private int iMaxSize;
+		
+		private LruMap(int maxSize) {
+			super(16, 0.75f, true);
+			iMaxSize = maxSize;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > iMaxSize;
+		}
+	}
+}
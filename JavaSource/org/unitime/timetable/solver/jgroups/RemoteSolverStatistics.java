@@ -0,0 +1,124 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver.jgroups;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Number and latency of the remote solver calls, both overall and for the current HTTP request.
+ * The counts of a page are logged when the request is completed (at the info level when the page made
+ * more than {@link #SLOW_PAGE_CALLS} remote calls, at the debug level otherwise).
+ */
+public class RemoteSolverStatistics {
+	private static Log sLog = LogFactory.getLog(RemoteSolverStatistics.class);
+	private static final String REQUEST_ATTRIBUTE = RemoteSolverStatistics.class.getName();
+	public static final int SLOW_PAGE_CALLS = 100;
+
+	private static AtomicLong sCalls = new AtomicLong(0), sBatchedCalls = new AtomicLong(0), sNanos = new AtomicLong(0), sCacheHits = new AtomicLong(0);
+
+	/**
+	 * Record a remote call
+	 * @param nanos time spent waiting for the response
+	 * @param batched number of solver method calls that were made in this remote call
+	 */
+	public static void record(long nanos, int batched) {
+		sCalls.incrementAndGet();
+		sBatchedCalls.addAndGet(batched);
+		sNanos.addAndGet(nanos);
+		Counter counter = getRequestCounter();
+		if (counter != null) {
+			counter.iCalls ++;
+			counter.iBatchedCalls += batched;
+			counter.iNanos += nanos;
+		}
+	}
+
+	/**
+	 * Record a call that was answered from the client side cache
+	 */
+	public static void cacheHit() {
+		sCacheHits.incrementAndGet();
+		Counter counter = getRequestCounter();
+		if (counter != null) counter.iCacheHits ++;
+	}
+
+	public static long getCalls() { return sCalls.get(); }
+	public static long getBatchedCalls() { return sBatchedCalls.get(); }
+	public static long getCacheHits() { return sCacheHits.get(); }
+
+	/**
+	 * Average latency of a remote call in milliseconds
+	 */
+	public static double getAverageLatency() {
+		long calls = sCalls.get();
+		return (calls == 0 ? 0.0 : sNanos.get() / 1000000.0 / calls);
+	}
+
+	/**
+	 * Counts of the current request, null if not called within a request
+	 */
+	public static Counter getRequestCounter() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) return null;
+		Counter counter = (Counter)attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (counter == null) {
+			counter = new Counter(attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes)attributes).getRequest().getRequestURI() : null);
+			attributes.setAttribute(REQUEST_ATTRIBUTE, counter, RequestAttributes.SCOPE_REQUEST);
+			attributes.registerDestructionCallback(REQUEST_ATTRIBUTE, counter, RequestAttributes.SCOPE_REQUEST);
+		}
+		return counter;
+	}
+
+	public static class Counter implements Runnable {
+		private String iPage;
+		private int iCalls = 0, iBatchedCalls = 0, iCacheHits = 0;
+		private long iNanos = 0;
+
+		private Counter(String page) {
+			iPage = page;
+		}
+
+		public int getCalls() { return iCalls; }
+		public int getBatchedCalls() { return iBatchedCalls; }
+		public int getCacheHits() { return iCacheHits; }
+		public double getTime() { return iNanos / 1000000.0; }
+
+		@Override
+		public void run() {
+			if (iCalls == 0 && iCacheHits == 0) return;
+			if (iCalls > SLOW_PAGE_CALLS)
+				sLog.info(toString());
+			else if (sLog.isDebugEnabled())
+				sLog.debug(toString());
+		}
+
+		@Override
+		public String toString() {
+			return (iPage == null ? "" : iPage + ": ") + iCalls + " remote solver calls (" + iBatchedCalls + " methods, " + iCacheHits + " cache hits) in " +
+					Math.round(getTime()) + " ms";
+		}
+	}
+}
@@ -32,6 +32,7 @@ import org.jgroups.Address;
 import org.jgroups.blocks.RpcDispatcher;
 import org.jgroups.util.Rsp;
 import org.jgroups.util.RspList;
+import org.unitime.timetable.model.SolverParameterGroup.SolverType;
 
 
 /**
@@ -42,11 +43,17 @@ public class SolverContainerWrapper<T> implements SolverContainer<T> {
 	private RpcDispatcher iDispatcher;
 	private RemoteSolverContainer<T> iContainer;
 	private boolean iCheckLocal = true;
+	private SolverType iType = null;
 
-	public SolverContainerWrapper(RpcDispatcher dispatcher, RemoteSolverContainer<T> container, boolean checkLocal) {
+	public SolverContainerWrapper(RpcDispatcher dispatcher, RemoteSolverContainer<T> container, boolean checkLocal, SolverType type) {
 		iDispatcher = dispatcher;
 		iContainer = container;
 		iCheckLocal = checkLocal;
+		iType = type;
+	}
+	
+	public SolverContainerWrapper(RpcDispatcher dispatcher, RemoteSolverContainer<T> container, boolean checkLocal) {
+		this(dispatcher, container, checkLocal, null);
 	}
 
 	@Override
@@ -129,19 +136,73 @@ public class SolverContainerWrapper<T> implements SolverContainer<T> {
 		return false;
 	}
 
+	/**
+	 * Estimated memory footprint of a new solver of this type: the average of the known footprints
+	 * of the solvers of the same type and the same owner (if there are any), or of all the solvers of the type
+	 */
+	protected long getEstimatedFootprint(String user, List<SolverServerMetrics> metrics) {
+		if (iType == null) return 0;
+		long total = 0, userTotal = 0;
+		int count = 0, userCount = 0;
+		for (SolverServerMetrics m: metrics)
+			for (SolverServerMetrics.SolverMetrics solver: m.getSolvers()) {
+				if (solver.getType() != iType || solver.getFootprint() <= 0) continue;
+				total += solver.getFootprint(); count ++;
+				if (user.equals(solver.getUser())) { userTotal += solver.getFootprint(); userCount ++; }
+			}
+		if (userCount > 0) return userTotal / userCount;
+		return (count == 0 ? 0 : total / count);
+	}
+	
+	/**
+	 * Pick the best server for a new solver based on the live metrics of the solver servers (see {@link SolverServerMetrics#getScore(SolverType, long)}).
+	 * Servers that can fit the estimated footprint of the solver are preferred. Returns null when no server has returned its metrics.
+	 */
+	protected Address getBestServer(String user) throws Exception {
+		RspList<SolverServerMetrics> ret = iDispatcher.callRemoteMethods(null, "getMetrics", new Object[] {}, new Class[] {}, SolverServerImplementation.sAllResponses);
+		List<SolverServerMetrics> metrics = new ArrayList<SolverServerMetrics>();
+		for (Rsp<SolverServerMetrics> rsp : ret)
+			if (rsp.getValue() != null) metrics.add(rsp.getValue());
+		if (metrics.isEmpty()) return null;
+		long footprint = getEstimatedFootprint(user, metrics);
+		
+		Address bestAddress = null;
+		SolverServerMetrics bestMetrics = null;
+		boolean bestFits = false;
+		double bestScore = 0;
+		for (Rsp<SolverServerMetrics> rsp : ret) {
+			SolverServerMetrics m = rsp.getValue();
+			if (m == null || !m.isAvailable()) continue;
+			boolean fits = m.canHost(footprint);
+			double score = m.getScore(iType, footprint);
+			if (bestAddress == null || (fits && !bestFits) || (fits == bestFits && score < bestScore)) {
+				bestAddress = rsp.getSender(); bestMetrics = m; bestFits = fits; bestScore = score;
+			}
+		}
+		if (bestAddress != null && sLog.isDebugEnabled())
+			sLog.debug("Solver " + (iType == null ? "" : iType.getPrefix()) + user + " (estimated footprint " + (footprint >> 20) + "M) placed on " + bestMetrics + " with score " + bestScore);
+		if (bestAddress == null)
+			throw new RuntimeException("Not enough resources to create a solver instance, please try again later.");
+		return bestAddress;
+	}
+	
 	@Override
 	public T createSolver(String user, DataProperties config) {
 		try {
-			Address bestAddress = null;
-			int bestUsage = 0;
-			RspList<Boolean> ret = iDispatcher.callRemoteMethods(null, "isAvailable", new Object[] {}, new Class[] {}, SolverServerImplementation.sAllResponses);
-			for (Rsp<Boolean> rsp : ret) {
-				if (Boolean.TRUE.equals(rsp.getValue())) {
-					Integer usage = iDispatcher.callRemoteMethod(rsp.getSender(), "getUsage", new Object[] {}, new Class[] {}, SolverServerImplementation.sFirstResponse);
-					if (bestAddress == null || bestUsage > usage) {
-						bestAddress = rsp.getSender();
-		                bestUsage = usage;
-		            }
+			Address bestAddress = getBestServer(user);
+			
+			if (bestAddress == null) {
+				// no server has returned its metrics (older version), use the usage instead
+				int bestUsage = 0;
+				RspList<Boolean> ret = iDispatcher.callRemoteMethods(null, "isAvailable", new Object[] {}, new Class[] {}, SolverServerImplementation.sAllResponses);
+				for (Rsp<Boolean> rsp : ret) {
+					if (Boolean.TRUE.equals(rsp.getValue())) {
+						Integer usage = iDispatcher.callRemoteMethod(rsp.getSender(), "getUsage", new Object[] {}, new Class[] {}, SolverServerImplementation.sFirstResponse);
+						if (bestAddress == null || bestUsage > usage) {
+							bestAddress = rsp.getSender();
+			                bestUsage = usage;
+			            }
+					}
 				}
 			}
 				
@@ -19,11 +19,13 @@
 */
 package org.unitime.timetable.solver.jgroups;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -62,10 +64,13 @@ import org.unitime.timetable.interfaces.RoomAvailabilityInterface;
 import org.unitime.timetable.model.ApplicationConfig;
 import org.unitime.timetable.model.StudentSectioningPref;
 import org.unitime.timetable.model.SolverParameterGroup.SolverType;
+import org.unitime.timetable.model.dao._RootDAO;
 import org.unitime.timetable.onlinesectioning.OnlineSectioningServer;
+import org.unitime.timetable.solver.CommonSolverInterface;
 import org.unitime.timetable.solver.SolverProxy;
 import org.unitime.timetable.solver.exam.ExamSolverProxy;
 import org.unitime.timetable.solver.instructor.InstructorSchedulingProxy;
+import org.unitime.timetable.solver.remote.BackupFileFilter;
 import org.unitime.timetable.solver.service.SolverServerService;
 import org.unitime.timetable.solver.studentsct.StudentSolverProxy;
 import org.unitime.timetable.spring.SpringApplicationContextHolder;
@@ -80,6 +85,7 @@ public class SolverServerImplementation extends AbstractSolverServer implements
 	private static SolverServerImplementation sInstance = null;
 	public static final RequestOptions sFirstResponse = new RequestOptions(ResponseMode.GET_FIRST, ApplicationProperty.SolverClusterTimeout.intValue()).setFlags(Flag.DONT_BUNDLE, Flag.OOB);
 	public static final RequestOptions sAllResponses = new RequestOptions(ResponseMode.GET_ALL, ApplicationProperty.SolverClusterTimeout.intValue()).setFlags(Flag.DONT_BUNDLE, Flag.OOB);
+	private static final RequestOptions sNoTimeout = new RequestOptions(ResponseMode.GET_FIRST, 0).setFlags(Flag.DONT_BUNDLE, Flag.OOB);
 	
 	private JChannel iChannel;
 	private RpcDispatcher iDispatcher;
@@ -357,6 +363,143 @@ public class SolverServerImplementation extends AbstractSolverServer implements
 		}
 	}
 	
+	@Override
+	protected SolverContainer<? extends CommonSolverInterface> getLocalSolverContainer(SolverType type) {
+		switch (type) {
+		case COURSE:
+			return iCourseSolverContainer;
+		case EXAM:
+			return iExamSolverContainer;
+		case STUDENT:
+			return iStudentSolverContainer;
+		case INSTRUCTOR:
+			return iInstructorSchedulingContainer;
+		default:
+			return null;
+		}
+	}
+	
+	/**
+	 * Content of the passivation file of a passivated solver, null if the solver does not exist or is not passivated
+	 */
+	public byte[] exportPassivatedSolver(Integer type, String id) {
+		SolverType solverType = SolverType.values()[type];
+		SolverContainer<? extends CommonSolverInterface> container = getLocalSolverContainer(solverType);
+		CommonSolverInterface solver = (container == null ? null : container.getSolver(id));
+		if (solver == null) return null;
+		synchronized (solver) {
+			if (!solver.isPassivated()) return null;
+			File file = new File(ApplicationProperties.getPassivationFolder(), solverType.getPrefix() + id + BackupFileFilter.sXmlExtension);
+			try {
+				return (file.exists() ? Files.readAllBytes(file.toPath()) : null);
+			} catch (Exception e) {
+				sLog.error("Failed to read passivated solver " + file + ": " + e.getMessage(), e);
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * Create a passivated solver from the content of a passivation file of another server.
+	 * The solver is restored (to measure its footprint) and passivated again right away.
+	 */
+	public Boolean importPassivatedSolver(Integer type, String id, byte[] data) {
+		SolverType solverType = SolverType.values()[type];
+		SolverContainer<? extends CommonSolverInterface> container = getLocalSolverContainer(solverType);
+		if (container == null || data == null || container.hasSolver(id)) return false;
+		File folder = ApplicationProperties.getPassivationFolder();
+		try {
+			Files.write(new File(folder, solverType.getPrefix() + id + BackupFileFilter.sXmlExtension).toPath(), data);
+			CommonSolverInterface solver = container.createSolver(id, new DataProperties());
+			if (solver.restore(folder, id, true)) {
+				setFootprint(solverType, id, container.getMemUsage(id));
+				if (solver.passivate(folder, id)) return true;
+			}
+			container.unloadSolver(id);
+			return false;
+		} catch (Exception e) {
+			sLog.error("Failed to import passivated solver " + solverType.getPrefix() + id + ": " + e.getMessage(), e);
+			if (container.hasSolver(id)) container.unloadSolver(id);
+			return false;
+		} finally {
+			_RootDAO.closeCurrentThreadSessions();
+		}
+	}
+	
+	/**
+	 * Unload a passivated solver (that has been moved to another server), false if the solver has been activated in the mean time
+	 */
+	public Boolean removePassivatedSolver(Integer type, String id) {
+		SolverContainer<? extends CommonSolverInterface> container = getLocalSolverContainer(SolverType.values()[type]);
+		CommonSolverInterface solver = (container == null ? null : container.getSolver(id));
+		if (solver == null) return true;
+		synchronized (solver) {
+			if (!solver.isPassivated()) return false;
+			container.unloadSolver(id);
+			return true;
+		}
+	}
+	
+	/**
+	 * Move the largest passivated solver from the server with the highest expected heap usage (counting in the passivated solvers)
+	 * to the server with the lowest one, when the difference is above {@link ApplicationProperty#SolverPlacementRebalanceThreshold}.
+	 * Only done by the coordinator, one solver at a time.
+	 */
+	@Override
+	protected void rebalance() {
+		if (!isCoordinator()) return;
+		try {
+			RspList<SolverServerMetrics> ret = iDispatcher.callRemoteMethods(null, "getMetrics", new Object[] {}, new Class[] {}, sAllResponses);
+			Address source = null, target = null;
+			SolverServerMetrics sourceMetrics = null, targetMetrics = null;
+			for (Rsp<SolverServerMetrics> rsp : ret) {
+				SolverServerMetrics metrics = rsp.getValue();
+				if (metrics == null || !metrics.isActive()) continue;
+				boolean hasPassivated = false;
+				for (SolverServerMetrics.SolverMetrics solver: metrics.getSolvers())
+					if (solver.isPassivated() && !solver.isWorking() && solver.getFootprint() > 0) { hasPassivated = true; break; }
+				if (hasPassivated && (sourceMetrics == null || sourceMetrics.getExpectedMemoryUsage() < metrics.getExpectedMemoryUsage())) {
+					source = rsp.getSender(); sourceMetrics = metrics;
+				}
+				if (!metrics.isLocal() && metrics.getUsageBase() == 0 && (targetMetrics == null || targetMetrics.getExpectedMemoryUsage() > metrics.getExpectedMemoryUsage())) {
+					target = rsp.getSender(); targetMetrics = metrics;
+				}
+			}
+			if (source == null || target == null || source.equals(target)) return;
+			double difference = sourceMetrics.getExpectedMemoryUsage() - targetMetrics.getExpectedMemoryUsage();
+			if (100.0 * difference < ApplicationProperty.SolverPlacementRebalanceThreshold.intValue()) return;
+			
+			SolverServerMetrics.SolverMetrics best = null;
+			for (SolverServerMetrics.SolverMetrics solver: sourceMetrics.getSolvers()) {
+				if (!solver.isPassivated() || solver.isWorking() || solver.getFootprint() <= 0) continue;
+				// do not overshoot: the target must remain less loaded than the source was
+				if (((double)solver.getFootprint()) / sourceMetrics.getHeapMax() + ((double)solver.getFootprint()) / targetMetrics.getHeapMax() > difference) continue;
+				if (!targetMetrics.canHost(solver.getFootprint())) continue;
+				if (best == null || best.getFootprint() < solver.getFootprint()) best = solver;
+			}
+			if (best == null) return;
+			
+			sLog.info("Moving passivated solver " + best + " from " + sourceMetrics + " to " + targetMetrics);
+			Integer type = best.getType().ordinal();
+			byte[] data = iDispatcher.callRemoteMethod(source, "exportPassivatedSolver", new Object[] { type, best.getUser() }, new Class[] { Integer.class, String.class }, sFirstResponse);
+			if (data == null) return;
+			Boolean imported = null;
+			try {
+				imported = iDispatcher.callRemoteMethod(target, "importPassivatedSolver", new Object[] { type, best.getUser(), data }, new Class[] { Integer.class, String.class, byte[].class }, sNoTimeout);
+			} catch (Exception e) {
+				sLog.error("Failed to move solver " + best + ": " + e.getMessage(), e);
+			}
+			if (!Boolean.TRUE.equals(imported)) return;
+			Boolean removed = iDispatcher.callRemoteMethod(source, "removePassivatedSolver", new Object[] { type, best.getUser() }, new Class[] { Integer.class, String.class }, sFirstResponse);
+			if (!Boolean.TRUE.equals(removed)) {
+				sLog.info("Solver " + best + " has been activated in the mean time, unloading the copy from " + targetMetrics.getHost());
+				iDispatcher.callRemoteMethod(target, "unloadSolverLocal", new Object[] { type, best.getUser() }, new Class[] { Integer.class, String.class }, sFirstResponse);
+			}
+		} catch (Exception e) {
+			sLog.error("Failed to rebalance solvers: " + e.getMessage(), e);
+		}
+	}
+	
 	public void unloadSolverLocal(Integer type, String id) {
 		switch (SolverType.values()[type]) {
 		case COURSE:
@@ -0,0 +1,178 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.solver.jgroups;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.unitime.timetable.model.SolverParameterGroup.SolverType;
+
+/**
+ * Live resource usage of a solver server, as collected by {@link SolverServer#getMetrics()}.
+ * Used to pick the best server for a new solver and to rebalance passivated solvers between the servers.
+ */
+public class SolverServerMetrics implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private String iHost;
+	private boolean iActive, iLocal;
+	private int iUsageBase;
+	private long iHeapUsed, iHeapUsedAfterGC, iHeapMax, iMemoryLimit;
+	private int iAvailableProcessors;
+	private double iSystemLoad;
+	private List<SolverMetrics> iSolvers = new ArrayList<SolverMetrics>();
+
+	public SolverServerMetrics() {}
+
+	public String getHost() { return iHost; }
+	public void setHost(String host) { iHost = host; }
+
+	public boolean isActive() { return iActive; }
+	public void setActive(boolean active) { iActive = active; }
+
+	public boolean isLocal() { return iLocal; }
+	public void setLocal(boolean local) { iLocal = local; }
+
+	public int getUsageBase() { return iUsageBase; }
+	public void setUsageBase(int usageBase) { iUsageBase = usageBase; }
+
+	/** Currently used heap (including garbage) */
+	public long getHeapUsed() { return iHeapUsed; }
+	public void setHeapUsed(long heapUsed) { iHeapUsed = heapUsed; }
+
+	/** Heap used after the last garbage collection, -1 when not known */
+	public long getHeapUsedAfterGC() { return iHeapUsedAfterGC; }
+	public void setHeapUsedAfterGC(long heapUsedAfterGC) { iHeapUsedAfterGC = heapUsedAfterGC; }
+
+	public long getHeapMax() { return iHeapMax; }
+	public void setHeapMax(long heapMax) { iHeapMax = heapMax; }
+
+	public long getMemoryLimit() { return iMemoryLimit; }
+	public void setMemoryLimit(long memoryLimit) { iMemoryLimit = memoryLimit; }
+
+	public int getAvailableProcessors() { return iAvailableProcessors; }
+	public void setAvailableProcessors(int availableProcessors) { iAvailableProcessors = availableProcessors; }
+
+	/** System load average for the last minute, -1 when not available */
+	public double getSystemLoad() { return iSystemLoad; }
+	public void setSystemLoad(double systemLoad) { iSystemLoad = systemLoad; }
+
+	public List<SolverMetrics> getSolvers() { return iSolvers; }
+	public void addSolver(SolverMetrics solver) { iSolvers.add(solver); }
+
+	/** Heap that is (or after the next garbage collection will be) in use */
+	public long getHeapLive() {
+		return (iHeapUsedAfterGC >= 0 && iHeapUsedAfterGC < iHeapUsed ? iHeapUsedAfterGC : iHeapUsed);
+	}
+
+	public long getAvailableMemory() {
+		return iHeapMax - getHeapLive();
+	}
+
+	/** Active server with at least the memory limit of free heap */
+	public boolean isAvailable() {
+		return iActive && getMemoryLimit() <= getAvailableMemory();
+	}
+
+	/** Active server that can load an additional solver of the given footprint, leaving at least the memory limit of free heap */
+	public boolean canHost(long footprint) {
+		return iActive && getMemoryLimit() + footprint <= getAvailableMemory();
+	}
+
+	/** Number of threads used by the solvers that are currently working */
+	public int getRunningSolverThreads() {
+		int threads = 0;
+		for (SolverMetrics solver: iSolvers)
+			if (solver.isWorking()) threads += solver.getThreads();
+		return threads;
+	}
+
+	public int countSolvers(SolverType type) {
+		int count = 0;
+		for (SolverMetrics solver: iSolvers)
+			if (solver.getType() == type) count++;
+		return count;
+	}
+
+	/** Heap that the passivated solvers will need once activated */
+	public long getPassivatedFootprint() {
+		long footprint = 0;
+		for (SolverMetrics solver: iSolvers)
+			if (solver.isPassivated() && solver.getFootprint() > 0) footprint += solver.getFootprint();
+		return footprint;
+	}
+
+	/** Expected heap usage (between 0 and 1), counting in the passivated solvers as if they were active */
+	public double getExpectedMemoryUsage() {
+		if (iHeapMax <= 0) return 1.0;
+		return ((double)(getHeapLive() + getPassivatedFootprint())) / iHeapMax;
+	}
+
+	/**
+	 * Placement score of a new solver of the given type and estimated footprint, the lower the better.
+	 * It combines the projected heap usage, the CPU usage (working solver threads or system load, whichever is higher),
+	 * and the number of solvers of the same type already on the server. The usage base (see {@link SolverServer#setUsageBase(int)})
+	 * and the local server (the one running within the web application) are penalized, as before.
+	 */
+	public double getScore(SolverType type, long footprint) {
+		double memory = (iHeapMax <= 0 ? 1.0 : ((double)(getHeapLive() + getPassivatedFootprint() + footprint)) / iHeapMax);
+		double cpu = Math.max(getRunningSolverThreads(), iSystemLoad) / Math.max(1, iAvailableProcessors);
+		double score = memory + cpu + iUsageBase / 100.0;
+		if (type != null) score += 0.05 * countSolvers(type);
+		if (iLocal) score += 5.0;
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return iHost + "{heap=" + (getHeapLive() >> 20) + "/" + (iHeapMax >> 20) + "M, passivated=" + (getPassivatedFootprint() >> 20) + "M, threads=" + getRunningSolverThreads() +
+				", load=" + iSystemLoad + ", cpus=" + iAvailableProcessors + ", solvers=" + iSolvers.size() + "}";
+	}
+
+	/**
+	 * A solver loaded on a solver server
+	 */
+	public static class SolverMetrics implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private SolverType iType;
+		private String iUser;
+		private boolean iPassivated, iWorking;
+		private int iThreads;
+		private long iFootprint;
+
+		public SolverMetrics(SolverType type, String user, boolean passivated, boolean working, int threads, long footprint) {
+			iType = type; iUser = user; iPassivated = passivated; iWorking = working; iThreads = threads; iFootprint = footprint;
+		}
+
+		public SolverType getType() { return iType; }
+		public String getUser() { return iUser; }
+		public boolean isPassivated() { return iPassivated; }
+		public boolean isWorking() { return iWorking; }
+		public int getThreads() { return iThreads; }
+		/** Estimated memory footprint in bytes (measured when the solver was last active), 0 when not known */
+		public long getFootprint() { return iFootprint; }
+
+		@Override
+		public String toString() {
+			return iType.getPrefix() + iUser + (iPassivated ? " (passivated)" : iWorking ? " (working)" : "") + " " + (iFootprint >> 20) + "M";
+		}
+	}
+}
@@ -55,10 +55,10 @@ public class ClassAssignmentService implements AssignmentService<ClassAssignment
 		
 		ProxyHolder<HashSet<Long>, SolutionClassAssignmentProxy> h = (ProxyHolder<HashSet<Long>, SolutionClassAssignmentProxy>)sessionContext.getAttribute(SessionAttribute.ClassAssignment);
 		if (h != null && h.isValid(solutionIds))
-			return h.getProxy();
+			return new CachedClassAssignmentProxy(h.getProxy());
 		
 		SolutionClassAssignmentProxy newProxy = new SolutionClassAssignmentProxy(solutionIds);
 		sessionContext.setAttribute(SessionAttribute.ClassAssignment, new ProxyHolder<HashSet<Long>, SolutionClassAssignmentProxy>(solutionIds, newProxy));
-		return newProxy;
+		return new CachedClassAssignmentProxy(newProxy);
 	}
 }
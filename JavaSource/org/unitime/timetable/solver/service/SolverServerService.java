@@ -35,6 +35,7 @@ import org.springframework.stereotype.Service;
 import org.unitime.commons.jgroups.UniTimeChannelLookup;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.model.Session;
+import org.unitime.timetable.model.SolverParameterGroup.SolverType;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.onlinesectioning.OnlineSectioningServer;
 import org.unitime.timetable.solver.SolverProxy;
@@ -89,16 +90,16 @@ public class SolverServerService implements InitializingBean, DisposableBean {
 				
 				iCourseSolverContainer = new SolverContainerWrapper<SolverProxy>(
 						((SolverServerImplementation)iServer).getDispatcher(),
-						(RemoteSolverContainer<SolverProxy>) iServer.getCourseSolverContainer(), true);
+						(RemoteSolverContainer<SolverProxy>) iServer.getCourseSolverContainer(), true, SolverType.COURSE);
 				iExamSolverContainer = new SolverContainerWrapper<ExamSolverProxy>(
 						((SolverServerImplementation)iServer).getDispatcher(),
-						(RemoteSolverContainer<ExamSolverProxy>) iServer.getExamSolverContainer(), true);
+						(RemoteSolverContainer<ExamSolverProxy>) iServer.getExamSolverContainer(), true, SolverType.EXAM);
 				iStudentSolverContainer = new SolverContainerWrapper<StudentSolverProxy>(
 						((SolverServerImplementation)iServer).getDispatcher(),
-						(RemoteSolverContainer<StudentSolverProxy>) iServer.getStudentSolverContainer(), true);
+						(RemoteSolverContainer<StudentSolverProxy>) iServer.getStudentSolverContainer(), true, SolverType.STUDENT);
 				iInstructorSchedulingContainer = new SolverContainerWrapper<InstructorSchedulingProxy>(
 						((SolverServerImplementation)iServer).getDispatcher(),
-						(RemoteSolverContainer<InstructorSchedulingProxy>) iServer.getInstructorSchedulingContainer(), true);
+						(RemoteSolverContainer<InstructorSchedulingProxy>) iServer.getInstructorSchedulingContainer(), true, SolverType.INSTRUCTOR);
 				iOnlineStudentSchedulingContainer = new SolverContainerWrapper<OnlineSectioningServer>(
 						((SolverServerImplementation)iServer).getDispatcher(),
 						(RemoteSolverContainer<OnlineSectioningServer>) iServer.getOnlineStudentSchedulingContainer(), false);
@@ -0,0 +1,155 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.test;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.PropertyConfigurator;
+import org.hibernate.Transaction;
+import org.unitime.commons.hibernate.util.HibernateUtil;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache.AreaData;
+import org.unitime.timetable.gwt.server.CurriculaProjectionCache.StudentAreaClasfMajor;
+import org.unitime.timetable.model.AcademicClassification;
+import org.unitime.timetable.model.PosMajor;
+import org.unitime.timetable.model.StudentAreaClassificationMajor;
+import org.unitime.timetable.model.dao._RootDAO;
+
+/**
+ * Checks that the {@link CurriculaProjectionCache} notices a change of a student's academic classification and major.
+ * A student academic area, classification, and major combination is loaded into the cache, then its classification
+ * and its major are changed (and flushed) and the cached data are checked to be recomputed. The check interval is set
+ * to zero and the transaction is rolled back at the end, so the test does not change the database.<br>
+ * Parameters: session (academic session unique id, defaults to any session with students).
+ */
+public class CurriculaProjectionCacheTest {
+	private static Log sLog = LogFactory.getLog(CurriculaProjectionCacheTest.class);
+	
+	private static boolean hasCombination(AreaData area, Long studentId, Long classificationId, Long majorId) {
+		for (StudentAreaClasfMajor acm: area.getMatchingStudents(null, null, false))
+			if (acm.getStudentId().equals(studentId) && acm.getClassificationId().equals(classificationId) && acm.getMajorId().equals(majorId))
+				return true;
+		return false;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static boolean test(Long sessionId) {
+		org.hibernate.Session hibSession = new _RootDAO().createNewSession();
+		Transaction tx = hibSession.beginTransaction();
+		try {
+			org.hibernate.Query q = hibSession.createQuery(
+					"from StudentAreaClassificationMajor a" + (sessionId == null ? "" : " where a.student.session.uniqueId = :sessionId") + " order by a.uniqueId");
+			if (sessionId != null) q.setLong("sessionId", sessionId);
+			List<StudentAreaClassificationMajor> acms = q.setMaxResults(1).list();
+			if (acms.isEmpty()) {
+				sLog.warn("No student academic area, classification, and major combination found.");
+				return false;
+			}
+			StudentAreaClassificationMajor acm = acms.get(0);
+			Long studentId = acm.getStudent().getUniqueId();
+			Long areaId = acm.getAcademicArea().getUniqueId();
+			sessionId = acm.getStudent().getSession().getUniqueId();
+			CurriculaProjectionCache.invalidate(sessionId);
+			boolean passed = true;
+			
+			AreaData area = CurriculaProjectionCache.getAreaData(hibSession, sessionId, areaId);
+			if (!hasCombination(area, studentId, acm.getAcademicClassification().getUniqueId(), acm.getMajor().getUniqueId())) {
+				sLog.error("Student " + studentId + " is not loaded in academic area " + area.getAcademicAreaAbbreviation() + ".");
+				return false;
+			}
+			
+			AcademicClassification clasf = (AcademicClassification)hibSession.createQuery(
+					"from AcademicClassification c where c.session.uniqueId = :sessionId and c.uniqueId != :clasfId order by c.uniqueId")
+					.setLong("sessionId", sessionId).setLong("clasfId", acm.getAcademicClassification().getUniqueId()).setMaxResults(1).uniqueResult();
+			if (clasf == null) {
+				sLog.warn("No other academic classification, classification change not tested.");
+			} else {
+				acm.setAcademicClassification(clasf);
+				hibSession.update(acm);
+				hibSession.flush();
+				area = CurriculaProjectionCache.getAreaData(hibSession, sessionId, areaId);
+				if (hasCombination(area, studentId, clasf.getUniqueId(), acm.getMajor().getUniqueId())) {
+					sLog.info("Classification change: PASSED");
+				} else {
+					sLog.error("Classification change: FAILED (student " + studentId + " does not have classification " + clasf.getCode() + ")");
+					passed = false;
+				}
+			}
+			
+			PosMajor major = (PosMajor)hibSession.createQuery(
+					"select m from PosMajor m inner join m.academicAreas a where a.uniqueId = :areaId and m.uniqueId != :majorId order by m.uniqueId")
+					.setLong("areaId", areaId).setLong("majorId", acm.getMajor().getUniqueId()).setMaxResults(1).uniqueResult();
+			if (major == null) {
+				sLog.warn("No other major of the academic area, major change not tested.");
+			} else {
+				acm.setMajor(major);
+				hibSession.update(acm);
+				hibSession.flush();
+				area = CurriculaProjectionCache.getAreaData(hibSession, sessionId, areaId);
+				if (hasCombination(area, studentId, acm.getAcademicClassification().getUniqueId(), major.getUniqueId())) {
+					sLog.info("Major change: PASSED");
+				} else {
+					sLog.error("Major change: FAILED (student " + studentId + " does not have major " + major.getCode() + ")");
+					passed = false;
+				}
+			}
+			
+			return passed;
+		} finally {
+			tx.rollback();
+			hibSession.close();
+			CurriculaProjectionCache.invalidate(sessionId);
+		}
+	}
+	
+	public static void main(String args[]) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "DEBUG, A1");
+            props.setProperty("log4j.appender.A1", "org.apache.log4j.ConsoleAppender");
+            props.setProperty("log4j.appender.A1.layout", "org.apache.log4j.PatternLayout");
+            props.setProperty("log4j.appender.A1.layout.ConversionPattern","%-5p %c{2}: %m%n");
+            props.setProperty("log4j.logger.org.hibernate","INFO");
+            props.setProperty("log4j.logger.org.hibernate.cfg","WARN");
+            props.setProperty("log4j.logger.org.hibernate.cache.EhCacheProvider","ERROR");
+            props.setProperty("log4j.logger.org.unitime.commons.hibernate","INFO");
+            props.setProperty("log4j.logger.net","INFO");
+            PropertyConfigurator.configure(props);
+            
+            String session = ApplicationProperties.getProperty("session");
+            
+            // check the cached data on every call
+            ApplicationProperties.getDefaultProperties().setProperty(ApplicationProperty.CurriculaProjectionCacheCheckInterval.key(), "0");
+            
+            HibernateUtil.configureHibernate(ApplicationProperties.getProperties());
+            
+            sLog.info("Curricula projection cache test: " + (test(session == null ? null : Long.valueOf(session)) ? "PASSED" : "FAILED"));
+            
+            HibernateUtil.closeHibernate();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.PropertyConfigurator;
+import org.restlet.data.MediaType;
+import org.restlet.representation.Representation;
+import org.restlet.resource.ClientResource;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.gwt.shared.SectioningException;
+import org.unitime.timetable.onlinesectioning.custom.purdue.IntegrationClient;
+import org.unitime.timetable.onlinesectioning.custom.purdue.IntegrationClient.LatencyHistogram;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks the {@link IntegrationClient} against a stub remote API (a local HTTP server, no database is needed):
+ * the circuit breaker opens after the given number of failures and lets one call through once the open time has passed
+ * (half-open), cached status checks are returned from the cache until invalidated, asynchronous calls return their
+ * responses, and the latency histograms of all the called endpoints are reported.<br>
+ * Parameters: port (port of the stub server, defaults to 0 that is any free port).
+ */
+public class IntegrationClientTest {
+	private static Log sLog = LogFactory.getLog(IntegrationClientTest.class);
+	private static final String sName = "test.integration";
+	private static final int sFailures = 3;
+	private static final long sOpenTime = 500;
+	
+	private HttpServer iServer;
+	private String iSite;
+	private AtomicBoolean iFailing = new AtomicBoolean(true);
+	private AtomicInteger iFailCalls = new AtomicInteger(0), iStatusCalls = new AtomicInteger(0), iAsyncCalls = new AtomicInteger(0);
+	private int iErrors = 0;
+	
+	public IntegrationClientTest(int port) throws IOException {
+		iServer = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		iServer.createContext("/fail", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				iFailCalls.incrementAndGet();
+				if (iFailing.get())
+					respond(exchange, 500, "{\"status\":\"failure\"}");
+				else
+					respond(exchange, 200, "{\"status\":\"success\"}");
+			}
+		});
+		iServer.createContext("/status", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, 200, "{\"call\":" + iStatusCalls.incrementAndGet() + ",\"query\":\"" + exchange.getRequestURI().getQuery() + "\"}");
+			}
+		});
+		iServer.createContext("/async", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				iAsyncCalls.incrementAndGet();
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {}
+				respond(exchange, 200, "{\"query\":\"" + exchange.getRequestURI().getQuery() + "\"}");
+			}
+		});
+		iServer.start();
+		iSite = "http://localhost:" + iServer.getAddress().getPort();
+	}
+	
+	private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] data = text.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, data.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(data);
+		out.close();
+	}
+	
+	private void check(String test, boolean passed, String message) {
+		if (passed) {
+			sLog.info(test + ": PASSED");
+		} else {
+			sLog.error(test + ": FAILED (" + message + ")");
+			iErrors ++;
+		}
+	}
+	
+	private boolean call(IntegrationClient client, String endpoint, String path) {
+		ClientResource resource = client.createResource(iSite + path);
+		try {
+			client.get(endpoint, resource, MediaType.APPLICATION_JSON);
+			return true;
+		} catch (SectioningException e) {
+			sLog.debug(endpoint + ": " + e.getMessage());
+			return false;
+		} catch (Exception e) {
+			sLog.debug(endpoint + ": " + e.getMessage());
+			return false;
+		} finally {
+			if (resource.getResponse() != null) resource.getResponse().release();
+			resource.release();
+		}
+	}
+	
+	private String getCached(IntegrationClient client, String endpoint, String path) throws IOException {
+		ClientResource resource = client.createResource(iSite + path);
+		try {
+			Representation entity = client.getCached(endpoint, resource, MediaType.APPLICATION_JSON);
+			return (entity == null ? null : entity.getText());
+		} finally {
+			if (resource.getResponse() != null) resource.getResponse().release();
+			resource.release();
+		}
+	}
+	
+	public void testBreaker(IntegrationClient client) throws InterruptedException {
+		for (int i = 0; i < sFailures; i++)
+			call(client, "fail", "/fail");
+		check("Breaker open", !client.isAvailable() && iFailCalls.get() == sFailures, "available: " + client.isAvailable() + ", calls: " + iFailCalls.get());
+		
+		boolean passed = call(client, "fail", "/fail");
+		check("Breaker rejects calls", !passed && iFailCalls.get() == sFailures, "remote API was called " + iFailCalls.get() + " times");
+		
+		Thread.sleep(sOpenTime + 100);
+		passed = call(client, "fail", "/fail");
+		check("Breaker half-open, failing call", !passed && iFailCalls.get() == sFailures + 1 && !client.isAvailable(), "calls: " + iFailCalls.get() + ", available: " + client.isAvailable());
+		
+		Thread.sleep(sOpenTime + 100);
+		iFailing.set(false);
+		passed = call(client, "fail", "/fail");
+		check("Breaker half-open, successful call", passed && iFailCalls.get() == sFailures + 2 && client.isAvailable(), "calls: " + iFailCalls.get() + ", available: " + client.isAvailable());
+		
+		passed = call(client, "fail", "/fail");
+		check("Breaker closed", passed && iFailCalls.get() == sFailures + 3, "calls: " + iFailCalls.get());
+	}
+	
+	public void testCache(IntegrationClient client) throws IOException {
+		String first = getCached(client, "status", "/status?studentId=1");
+		String second = getCached(client, "status", "/status?studentId=1");
+		check("Cache hit", first != null && first.equals(second) && iStatusCalls.get() == 1, "calls: " + iStatusCalls.get() + ", responses: " + first + " / " + second);
+		
+		getCached(client, "status", "/status?studentId=2");
+		check("Cache miss", iStatusCalls.get() == 2, "calls: " + iStatusCalls.get());
+		
+		client.invalidate("status", "studentId=1");
+		String third = getCached(client, "status", "/status?studentId=1");
+		check("Cache invalidation", third != null && !third.equals(first) && iStatusCalls.get() == 3, "calls: " + iStatusCalls.get() + ", response: " + third);
+		
+		getCached(client, "status", "/status?studentId=2");
+		check("Cache invalidation of a single student", iStatusCalls.get() == 3, "calls: " + iStatusCalls.get());
+	}
+	
+	public void testAsync(IntegrationClient client) throws Exception {
+		int count = 10;
+		long t0 = System.currentTimeMillis();
+		List<Future<Representation>> futures = new ArrayList<Future<Representation>>();
+		for (int i = 0; i < count; i++)
+			futures.add(client.getAsync("async", client.createResource(iSite + "/async?id=" + i), MediaType.APPLICATION_JSON, false));
+		int responses = 0;
+		for (int i = 0; i < count; i++) {
+			Representation entity = futures.get(i).get();
+			if (entity != null && entity.getText().contains("id=" + i)) responses ++;
+		}
+		sLog.debug(count + " asynchronous calls took " + (System.currentTimeMillis() - t0) + " ms");
+		check("Asynchronous calls", responses == count && iAsyncCalls.get() == count, "responses: " + responses + ", calls: " + iAsyncCalls.get());
+	}
+	
+	public void testHistograms(IntegrationClient client) {
+		String text = client.toString();
+		sLog.info("Latencies: " + text);
+		LatencyHistogram fail = client.getLatencies().get("fail");
+		LatencyHistogram status = client.getLatencies().get("status");
+		LatencyHistogram async = client.getLatencies().get("async");
+		check("Latency histograms",
+				fail != null && fail.getCount() == sFailures + 3 && fail.getFailures() == sFailures + 1 &&
+				status != null && status.getCount() == 3 && async != null && async.getCount() == 10 &&
+				text.contains("fail: calls=") && text.contains("p95"),
+				text);
+	}
+	
+	public boolean test() throws Exception {
+		Properties properties = ApplicationProperties.getDefaultProperties();
+		properties.setProperty(sName + ".breaker.failures", String.valueOf(sFailures));
+		properties.setProperty(sName + ".breaker.openTime", String.valueOf(sOpenTime));
+		properties.setProperty(sName + ".cacheTTL", "60000");
+		properties.setProperty(sName + ".asyncThreads", "4");
+		IntegrationClient client = IntegrationClient.getInstance(sName);
+		try {
+			testBreaker(client);
+			testCache(client);
+			testAsync(client);
+			testHistograms(client);
+		} finally {
+			client.release();
+			iServer.stop(0);
+		}
+		return iErrors == 0;
+	}
+	
+	public static void main(String args[]) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "DEBUG, A1");
+            props.setProperty("log4j.appender.A1", "org.apache.log4j.ConsoleAppender");
+            props.setProperty("log4j.appender.A1.layout", "org.apache.log4j.PatternLayout");
+            props.setProperty("log4j.appender.A1.layout.ConversionPattern","%-5p %c{2}: %m%n");
+            props.setProperty("log4j.logger.org.restlet","INFO");
+            props.setProperty("log4j.logger.net","INFO");
+            PropertyConfigurator.configure(props);
+            
+            int port = Integer.parseInt(ApplicationProperties.getProperty("port", "0"));
+            
+            sLog.info("Integration client test: " + (new IntegrationClientTest(port).test() ? "PASSED" : "FAILED"));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
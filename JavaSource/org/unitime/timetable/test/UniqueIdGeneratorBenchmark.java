@@ -0,0 +1,110 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.test;
+
+import java.text.DecimalFormat;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.PropertyConfigurator;
+import org.hibernate.Transaction;
+import org.unitime.commons.hibernate.util.HibernateUtil;
+import org.unitime.timetable.ApplicationProperties;
+import org.unitime.timetable.defaults.ApplicationProperty;
+import org.unitime.timetable.model.EventContact;
+import org.unitime.timetable.model.dao._RootDAO;
+
+/**
+ * Measures how many entities per second can be inserted with different unique id block sizes
+ * (see {@link org.unitime.commons.hibernate.id.SequenceBlockGenerator}).
+ * For each block size, the given number of event contacts is inserted and flushed in batches (like the bulk operations,
+ * e.g., the session roll forward, do) and the transaction is rolled back at the end. The sequence values are consumed,
+ * so it is better to run the benchmark against a test database.<br>
+ * Parameters: count (number of inserts, defaults to 100000), batch (number of inserts between flushes, defaults to 1000),
+ * blockSizes (comma separated list of block sizes, defaults to 1,10,50,100).
+ */
+public class UniqueIdGeneratorBenchmark {
+	private static Log sLog = LogFactory.getLog(UniqueIdGeneratorBenchmark.class);
+	
+	/**
+	 * Insert the given number of event contacts, returns the number of inserts per second
+	 */
+	public static double benchmark(int count, int batch) {
+		org.hibernate.Session hibSession = new _RootDAO().createNewSession();
+		Transaction tx = hibSession.beginTransaction();
+		try {
+			long t0 = System.currentTimeMillis();
+			for (int i = 1; i <= count; i++) {
+				EventContact contact = new EventContact();
+				contact.setExternalUniqueId("BENCHMARK-" + i);
+				contact.setFirstName("Benchmark");
+				contact.setLastName("Contact " + i);
+				hibSession.save(contact);
+				if (i % batch == 0) {
+					hibSession.flush();
+					hibSession.clear();
+				}
+			}
+			hibSession.flush();
+			long time = System.currentTimeMillis() - t0;
+			return (time <= 0 ? 0.0 : 1000.0 * count / time);
+		} finally {
+			tx.rollback();
+			hibSession.close();
+		}
+	}
+	
+	public static void main(String args[]) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("log4j.rootLogger", "DEBUG, A1");
+            props.setProperty("log4j.appender.A1", "org.apache.log4j.ConsoleAppender");
+            props.setProperty("log4j.appender.A1.layout", "org.apache.log4j.PatternLayout");
+            props.setProperty("log4j.appender.A1.layout.ConversionPattern","%-5p %c{2}: %m%n");
+            props.setProperty("log4j.logger.org.hibernate","INFO");
+            props.setProperty("log4j.logger.org.hibernate.cfg","WARN");
+            props.setProperty("log4j.logger.org.hibernate.cache.EhCacheProvider","ERROR");
+            props.setProperty("log4j.logger.org.unitime.commons.hibernate","INFO");
+            props.setProperty("log4j.logger.net","INFO");
+            PropertyConfigurator.configure(props);
+            
+            int count = Integer.parseInt(ApplicationProperties.getProperty("count", "100000"));
+            int batch = Integer.parseInt(ApplicationProperties.getProperty("batch", "1000"));
+            String blockSizes = ApplicationProperties.getProperty("blockSizes", "1,10,50,100");
+            
+            Properties properties = ApplicationProperties.getProperties();
+            for (String blockSize: blockSizes.split(",")) {
+            	properties.setProperty(ApplicationProperty.DatabaseUniqueIdBlockSize.key(), blockSize.trim());
+            	HibernateUtil.configureHibernate(properties);
+            	if (!HibernateUtil.isOracle() && !HibernateUtil.isPostgress())
+            		sLog.warn("Unique ids are not reserved in blocks on this database, the block size has no effect.");
+            	
+            	benchmark(Math.min(count, batch), batch); // warm up
+            	double rate = benchmark(count, batch);
+            	sLog.info("Block size " + blockSize.trim() + ": " + count + " inserts, " + new DecimalFormat("0.0").format(rate) + " inserts/s");
+            }
+            
+            HibernateUtil.closeHibernate();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.util;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.unitime.timetable.defaults.ApplicationProperty;
+
+/**
+ * Cache of the iCalendar feeds generated by the {@link org.unitime.timetable.gwt.server.CalendarServlet}, keyed by the academic session and the feed parameters.
+ * Each feed remembers the session, classes, students, and events it was generated from, so that it can be dropped
+ * when any of them changes (enrollment changes, class assignment changes, event changes). Feeds also expire after
+ * {@link ApplicationProperty#CalendarFeedCacheTimeToLive} seconds, which covers the changes that are not notified (e.g., instructor
+ * assignment changes or changes made on other nodes of a cluster), and the least recently used feeds are dropped when the cache grows over
+ * {@link ApplicationProperty#CalendarFeedCacheMaxSize}.
+ */
+public class CalendarFeedCache {
+	private static Log sLog = LogFactory.getLog(CalendarFeedCache.class);
+	private static Map<String, Feed> sFeeds = new ConcurrentHashMap<String, Feed>();
+	private static Map<String, Set<String>> sDependents = new HashMap<String, Set<String>>();
+	private static AtomicLong sVersion = new AtomicLong(0), sSize = new AtomicLong(0);
+	private static AtomicLong sHits = new AtomicLong(0), sMisses = new AtomicLong(0), sNotModified = new AtomicLong(0);
+	private static AtomicLong sInvalidated = new AtomicLong(0), sEvicted = new AtomicLong(0);
+	
+	/** True if the feeds are to be cached */
+	public static boolean isEnabled() {
+		return ApplicationProperty.CalendarFeedCacheTimeToLive.intValue() > 0;
+	}
+	
+	/** Cache key of a feed */
+	public static String getKey(Long sessionId, String classIds, String freeTimes, String examIds, String eventIds, String userId) {
+		return sessionId + "|" + (classIds == null ? "" : classIds) + "|" + (freeTimes == null ? "" : freeTimes) + "|" +
+				(examIds == null ? "" : examIds) + "|" + (eventIds == null ? "" : eventIds) + "|" + (userId == null ? "" : userId);
+	}
+	
+	/**
+	 * Current version of the cache, to be passed to {@link CalendarFeedCache#put(String, byte[], Collection, long)}
+	 * (a feed is not cached when something was invalidated while it was being generated)
+	 */
+	public static long getVersion() { return sVersion.get(); }
+	
+	/**
+	 * Cached feed, null if not cached or expired
+	 */
+	public static Feed get(String key) {
+		Feed feed = sFeeds.get(key);
+		if (feed != null && feed.isExpired(1000l * ApplicationProperty.CalendarFeedCacheTimeToLive.intValue())) {
+			remove(key);
+			feed = null;
+		}
+		if (feed == null) {
+			sMisses.incrementAndGet();
+			return null;
+		}
+		sHits.incrementAndGet();
+		feed.iLastAccess = System.currentTimeMillis();
+		return feed;
+	}
+	
+	/**
+	 * Cache a newly generated feed.
+	 * @param key cache key, see {@link CalendarFeedCache#getKey(Long, String, String, String, String, String)}
+	 * @param content the generated iCalendar
+	 * @param dependencies objects the feed was generated from (see {@link CalendarFeedCache#session(Long)}, {@link CalendarFeedCache#clazz(Long)}, etc.)
+	 * @param version version of the cache when the feed generation started
+	 * @return the feed (it is not cached when something was invalidated in the meantime)
+	 */
+	public static Feed put(String key, byte[] content, Collection<String> dependencies, long version) {
+		Feed feed = new Feed(content, dependencies);
+		synchronized (sDependents) {
+			if (version != sVersion.get()) return feed;
+			Feed old = sFeeds.put(key, feed);
+			if (old != null) {
+				sSize.addAndGet(-old.getSize());
+				unregister(key, old);
+			}
+			sSize.addAndGet(feed.getSize());
+			for (String dependency: dependencies) {
+				Set<String> keys = sDependents.get(dependency);
+				if (keys == null) {
+					keys = new HashSet<String>();
+					sDependents.put(dependency, keys);
+				}
+				keys.add(key);
+			}
+		}
+		long maxSize = 1024l * 1024l * ApplicationProperty.CalendarFeedCacheMaxSize.intValue();
+		if (sSize.get() > maxSize) evict(maxSize);
+		return feed;
+	}
+	
+	/** A client already had the current version of a feed */
+	public static void notModified() {
+		sNotModified.incrementAndGet();
+	}
+	
+	public static String session(Long sessionId) { return "s" + sessionId; }
+	public static String clazz(Long classId) { return "c" + classId; }
+	public static String student(Long studentId) { return "t" + studentId; }
+	public static String event(Long eventId) { return "e" + eventId; }
+	
+	/** Drop all feeds that depend on the given object */
+	public static void invalidate(String dependency) {
+		synchronized (sDependents) {
+			sVersion.incrementAndGet();
+			Set<String> keys = sDependents.remove(dependency);
+			if (keys != null)
+				for (String key: new ArrayList<String>(keys)) {
+					Feed feed = sFeeds.remove(key);
+					if (feed != null) {
+						sSize.addAndGet(-feed.getSize());
+						sInvalidated.incrementAndGet();
+						unregister(key, feed);
+					}
+				}
+		}
+	}
+	
+	/** Drop all feeds of an academic session */
+	public static void invalidateSession(Long sessionId) {
+		if (sessionId != null) invalidate(session(sessionId));
+	}
+	
+	/** Drop all feeds that include any of the given classes */
+	public static void invalidateClasses(Collection<Long> classIds) {
+		if (classIds != null)
+			for (Long classId: classIds) invalidate(clazz(classId));
+	}
+	
+	/** Drop all feeds of the given students */
+	public static void invalidateStudents(Collection<Long> studentIds) {
+		if (studentIds != null)
+			for (Long studentId: studentIds) invalidate(student(studentId));
+	}
+	
+	/** Drop all feeds that include any of the given events */
+	public static void invalidateEvents(Collection<Long> eventIds) {
+		if (eventIds != null)
+			for (Long eventId: eventIds) invalidate(event(eventId));
+	}
+	
+	/** Drop all feeds */
+	public static void invalidate() {
+		synchronized (sDependents) {
+			sVersion.incrementAndGet();
+			sInvalidated.addAndGet(sFeeds.size());
+			sFeeds.clear();
+			sDependents.clear();
+			sSize.set(0);
+		}
+	}
+	
+	private static void remove(String key) {
+		synchronized (sDependents) {
+			Feed feed = sFeeds.remove(key);
+			if (feed != null) {
+				sSize.addAndGet(-feed.getSize());
+				unregister(key, feed);
+			}
+		}
+	}
+	
+	private static void unregister(String key, Feed feed) {
+		for (String dependency: feed.iDependencies) {
+			Set<String> keys = sDependents.get(dependency);
+			if (keys != null && keys.remove(key) && keys.isEmpty())
+				sDependents.remove(dependency);
+		}
+	}
+	
+	private static void evict(long maxSize) {
+		synchronized (sDependents) {
+			if (sSize.get() <= maxSize) return;
+			List<Map.Entry<String, Feed>> entries = new ArrayList<Map.Entry<String, Feed>>(sFeeds.entrySet());
+			Collections.sort(entries, new Comparator<Map.Entry<String, Feed>>() {
+				@Override
+				public int compare(Map.Entry<String, Feed> e1, Map.Entry<String, Feed> e2) {
+					return Long.compare(e1.getValue().iLastAccess, e2.getValue().iLastAccess);
+				}
+			});
+			// drop the least recently used feeds, down to 90% of the limit
+			int evicted = 0;
+			for (Map.Entry<String, Feed> e: entries) {
+				if (sSize.get() <= 9 * maxSize / 10) break;
+				if (sFeeds.remove(e.getKey()) != null) {
+					sSize.addAndGet(-e.getValue().getSize());
+					unregister(e.getKey(), e.getValue());
+					evicted ++;
+				}
+			}
+			sEvicted.addAndGet(evicted);
+			sLog.debug("Evicted " + evicted + " calendar feeds, " + sFeeds.size() + " feeds (" + (sSize.get() / 1024) + " kB) remain cached.");
+		}
+	}
+	
+	public static long getHits() { return sHits.get(); }
+	public static long getMisses() { return sMisses.get(); }
+	public static long getNotModified() { return sNotModified.get(); }
+	public static long getInvalidated() { return sInvalidated.get(); }
+	public static long getEvicted() { return sEvicted.get(); }
+	public static int getCount() { return sFeeds.size(); }
+	/** Size of the cached feeds in bytes */
+	public static long getSize() { return sSize.get(); }
+	
+	public static double getHitRatio() {
+		long hits = sHits.get(), total = hits + sMisses.get();
+		return (total == 0 ? 0.0 : ((double)hits) / total);
+	}
+	
+	public static class Feed {
+		private byte[] iContent;
+		private String iETag;
+		private Date iCreated;
+		private String[] iDependencies;
+		private volatile long iLastAccess;
+		
+		Feed(byte[] content, Collection<String> dependencies) {
+			iContent = content;
+			iCreated = new Date();
+			iLastAccess = iCreated.getTime();
+			iDependencies = dependencies.toArray(new String[dependencies.size()]);
+			try {
+				iETag = new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(36);
+			} catch (Exception e) {
+				iETag = Long.toString(iCreated.getTime(), 36) + Integer.toString(content.length, 36);
+			}
+		}
+		
+		public byte[] getContent() { return iContent; }
+		public String getETag() { return iETag; }
+		public Date getCreated() { return iCreated; }
+		public int getSize() { return iContent.length; }
+		
+		boolean isExpired(long ttl) {
+			return ttl <= 0 || iCreated.getTime() + ttl < System.currentTimeMillis();
+		}
+	}
+}
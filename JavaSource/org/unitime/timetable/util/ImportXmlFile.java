@@ -19,11 +19,10 @@
 */
 package org.unitime.timetable.util;
 
-import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 
 import org.apache.log4j.Logger;
-import org.dom4j.Document;
-import org.dom4j.io.SAXReader;
 import org.unitime.commons.hibernate.util.HibernateUtil;
 import org.unitime.timetable.ApplicationProperties;
 import org.unitime.timetable.dataexchange.DataExchangeHelper;
@@ -50,14 +49,16 @@ public class ImportXmlFile {
 	        // Configure hibernate
 	        HibernateUtil.configureHibernate(ApplicationProperties.getProperties());
 	        
-	        // Load an XML file
-	        Document document = (new SAXReader()).read(new File(args[0]));
-	        
 	        // External id of the manager doing the import (can be null)
 	        String managerId = (args.length >= 2 ? args[1] : null);
 	        
-	        // Import document
-	        DataExchangeHelper.importDocument(document, managerId, null);
+	        // Import the XML file (imports that support it read the file as it is being imported)
+	        InputStream input = new FileInputStream(args[0]);
+	        try {
+	        	DataExchangeHelper.importDocument(input, managerId, null);
+	        } finally {
+	        	input.close();
+	        }
 	        
 	        // Close hibernate
 	        HibernateUtil.closeHibernate();
@@ -23,6 +23,8 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,11 +35,19 @@ import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.struts.action.ActionMessage;
 import org.apache.struts.action.ActionMessages;
 import org.hibernate.Transaction;
+import org.unitime.commons.hibernate.stats.RequestStatistics;
 import org.unitime.timetable.ApplicationProperties;
 import org.unitime.timetable.defaults.ApplicationProperty;
 import org.unitime.timetable.form.RollForwardSessionForm;
@@ -167,6 +177,7 @@ import org.unitime.timetable.model.dao.TeachingRequestDAO;
 import org.unitime.timetable.model.dao.TimePatternDAO;
 import org.unitime.timetable.model.dao.TimetableManagerDAO;
 import org.unitime.timetable.model.dao.TravelTimeDAO;
+import org.unitime.timetable.model.dao._RootDAO;
 import org.unitime.timetable.security.rights.Right;
 import org.unitime.timetable.server.script.SaveTaskBackend;
 
@@ -2086,6 +2097,11 @@ public class SessionRollForward {
 	}
 
 	public void rollCourseOfferingsForward(ActionMessages errors, RollForwardSessionForm rollForwardSessionForm) {
+		int nrThreads = ApplicationProperty.RollForwardThreads.intValue();
+		if (nrThreads > 1 && rollForwardSessionForm.getRollForwardSubjectAreaIds().length > 1) {
+			rollCourseOfferingsForwardInParallel(errors, rollForwardSessionForm, nrThreads);
+			return;
+		}
 		Session toSession = Session.getSessionById(rollForwardSessionForm.getSessionToRollForwardTo());
 		Session fromSession = Session.getSessionById(rollForwardSessionForm.getSessionToRollCourseOfferingsForwardFrom());
 		ArrayList subjects = new ArrayList();
@@ -2108,6 +2124,175 @@ public class SessionRollForward {
 		}
 	}
 	
+	/**
+	 * Roll course offerings forward using the given number of threads. Subject areas are split into groups that can be rolled forward
+	 * independently (subject areas sharing a distribution preference are in the same group), each group is rolled forward by one of the
+	 * threads in its own Hibernate session, the largest groups first.
+	 */
+	protected void rollCourseOfferingsForwardInParallel(ActionMessages errors, final RollForwardSessionForm rollForwardSessionForm, int nrThreads) {
+		final Long toSessionId = rollForwardSessionForm.getSessionToRollForwardTo();
+		final Long fromSessionId = rollForwardSessionForm.getSessionToRollCourseOfferingsForwardFrom();
+		Set<Long> subjectIds = new HashSet<Long>();
+		for (String subjectId: rollForwardSessionForm.getRollForwardSubjectAreaIds())
+			subjectIds.add(Long.valueOf(subjectId));
+		List<List<Long>> groups = getIndependentSubjectAreaGroups(fromSessionId, toSessionId, subjectIds);
+		nrThreads = Math.min(nrThreads, groups.size());
+		iLog.info("Rolling " + subjectIds.size() + " subject areas forward in " + groups.size() + " groups using " + nrThreads + " threads.");
+		
+		final RequestStatistics stats = RequestStatistics.current();
+		ExecutorService executor = Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+			private AtomicInteger iThreadId = new AtomicInteger(0);
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "RollForward-" + iThreadId.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<RequestStatistics>> futures = new ArrayList<Future<RequestStatistics>>();
+			for (final List<Long> group: groups) {
+				futures.add(executor.submit(new Callable<RequestStatistics>() {
+					@Override
+					public RequestStatistics call() throws Exception {
+						boolean collect = (stats != null && RequestStatistics.begin());
+						try {
+							InstructionalOfferingRollForward instrOffrRollFwd = new InstructionalOfferingRollForward(iLog);
+							instrOffrRollFwd.setClassPrefRollForwardParameter(rollForwardSessionForm.getClassPrefsAction());
+							instrOffrRollFwd.setSubpartLocationPrefRollForwardParameters(rollForwardSessionForm.getSubpartLocationPrefsAction());
+							instrOffrRollFwd.setSubpartTimePrefRollForwardParameters(rollForwardSessionForm.getSubpartTimePrefsAction());
+							instrOffrRollFwd.setRollForwardDistributions(rollForwardSessionForm.getRollForwardDistributions());
+							instrOffrRollFwd.setCancelledClassActionRollForwardParameter(rollForwardSessionForm.getCancelledClassAction());
+							// sessions are loaded again, using the Hibernate session of this thread
+							Session toSession = SessionDAO.getInstance().get(toSessionId);
+							Session fromSession = SessionDAO.getInstance().get(fromSessionId);
+							if (toSession.getSubjectAreas() != null)
+								for (Long subjectId: group) {
+									SubjectArea subjectArea = SubjectAreaDAO.getInstance().get(subjectId);
+									if (subjectArea != null)
+										instrOffrRollFwd.rollForwardInstructionalOfferingsForASubjectArea(subjectArea.getSubjectAreaAbbreviation(), fromSession, toSession);
+								}
+							return (collect ? RequestStatistics.current() : null);
+						} finally {
+							if (collect) RequestStatistics.end();
+							_RootDAO.closeCurrentThreadSessions();
+						}
+					}
+				}));
+			}
+			for (Future<RequestStatistics> future: futures) {
+				try {
+					RequestStatistics s = future.get();
+					if (stats != null) stats.merge(s);
+				} catch (ExecutionException e) {
+					iLog.error("Failed to roll course offerings forward: " + e.getCause().getMessage(), e.getCause());
+					errors.add("rollForward", new ActionMessage("errors.rollForward", "Course Offerings", getSessionLabel(fromSessionId), getSessionLabel(toSessionId), "Failed to roll all course offerings forward."));
+				}
+			}
+		} catch (InterruptedException e) {
+			iLog.error("Roll forward of course offerings was interrupted.", e);
+			errors.add("rollForward", new ActionMessage("errors.rollForward", "Course Offerings", getSessionLabel(fromSessionId), getSessionLabel(toSessionId), "Roll forward was interrupted."));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Split the given subject areas (of the session to roll forward to) into groups that can be rolled forward independently.
+	 * Subject areas whose classes or subparts share a distribution preference in the session to roll forward from are put in the same group
+	 * (they would otherwise both create the rolled forward distribution preference). Subject areas of the two sessions are matched by their
+	 * abbreviations, the same way {@link InstructionalOfferingRollForward#rollForwardInstructionalOfferingsForASubjectArea(String, Session, Session)}
+	 * looks them up. Groups are ordered by the number of course offerings to roll forward, the largest first.
+	 */
+	protected List<List<Long>> getIndependentSubjectAreaGroups(Long fromSessionId, Long toSessionId, Set<Long> subjectIds) {
+		org.hibernate.Session hibSession = SubjectAreaDAO.getInstance().getSession();
+		Map<String, Long> abbv2subject = new HashMap<String, Long>();
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select sa.uniqueId, sa.subjectAreaAbbreviation from SubjectArea sa where sa.session.uniqueId = :sessionId")
+				.setLong("sessionId", toSessionId).list()) {
+			if (subjectIds.contains((Long)o[0]))
+				abbv2subject.put((String)o[1], (Long)o[0]);
+		}
+		
+		final Map<Long, Integer> offerings = new HashMap<Long, Integer>();
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select co.subjectArea.subjectAreaAbbreviation, count(co) from CourseOffering co where co.isControl = true and " +
+				"co.subjectArea.session.uniqueId = :sessionId group by co.subjectArea.subjectAreaAbbreviation")
+				.setLong("sessionId", fromSessionId).list()) {
+			Long subjectId = abbv2subject.get((String)o[0]);
+			if (subjectId != null)
+				offerings.put(subjectId, ((Number)o[1]).intValue());
+		}
+		
+		Map<Long, Long> parent = new HashMap<Long, Long>();
+		for (Long subjectId: subjectIds) parent.put(subjectId, subjectId);
+		Map<Long, Long> distributions = new HashMap<Long, Long>();
+		List<Object[]> owners = new ArrayList<Object[]>();
+		owners.addAll(hibSession.createQuery(
+				"select distinct o.distributionPref.uniqueId, co.subjectArea.subjectAreaAbbreviation from DistributionObject o, Class_ c " +
+				"inner join c.schedulingSubpart.instrOfferingConfig.instructionalOffering.courseOfferings co " +
+				"where o.prefGroup.uniqueId = c.uniqueId and co.isControl = true and co.subjectArea.session.uniqueId = :sessionId")
+				.setLong("sessionId", fromSessionId).list());
+		owners.addAll(hibSession.createQuery(
+				"select distinct o.distributionPref.uniqueId, co.subjectArea.subjectAreaAbbreviation from DistributionObject o, SchedulingSubpart s " +
+				"inner join s.instrOfferingConfig.instructionalOffering.courseOfferings co " +
+				"where o.prefGroup.uniqueId = s.uniqueId and co.isControl = true and co.subjectArea.session.uniqueId = :sessionId")
+				.setLong("sessionId", fromSessionId).list());
+		for (Object[] o: owners) {
+			Long distributionId = (Long)o[0], subjectId = abbv2subject.get((String)o[1]);
+			if (subjectId == null) continue;
+			Long other = distributions.get(distributionId);
+			if (other == null)
+				distributions.put(distributionId, subjectId);
+			else
+				parent.put(findGroup(parent, subjectId), findGroup(parent, other));
+		}
+		
+		Map<Long, List<Long>> groups = new HashMap<Long, List<Long>>();
+		for (Long subjectId: subjectIds) {
+			Long group = findGroup(parent, subjectId);
+			List<Long> members = groups.get(group);
+			if (members == null) {
+				members = new ArrayList<Long>();
+				groups.put(group, members);
+			}
+			members.add(subjectId);
+		}
+		List<List<Long>> ret = new ArrayList<List<Long>>(groups.values());
+		Collections.sort(ret, new Comparator<List<Long>>() {
+			private int size(List<Long> group) {
+				int size = 0;
+				for (Long subjectId: group) {
+					Integer count = offerings.get(subjectId);
+					if (count != null) size += count;
+				}
+				return size;
+			}
+			@Override
+			public int compare(List<Long> g1, List<Long> g2) {
+				return Integer.compare(size(g2), size(g1));
+			}
+		});
+		return ret;
+	}
+	
+	private static String getSessionLabel(Long sessionId) {
+		Session session = Session.getSessionById(sessionId);
+		return (session == null ? String.valueOf(sessionId) : session.getLabel());
+	}
+	
+	private static Long findGroup(Map<Long, Long> parent, Long subjectId) {
+		Long group = subjectId;
+		while (!parent.get(group).equals(group))
+			group = parent.get(group);
+		while (!subjectId.equals(group)) {
+			Long next = parent.get(subjectId);
+			parent.put(subjectId, group);
+			subjectId = next;
+		}
+		return group;
+	}
+	
 	public void addNewCourseOfferings(ActionMessages errors,
 			RollForwardSessionForm rollForwardSessionForm) {
 		Session toSession = Session.getSessionById(rollForwardSessionForm.getSessionToRollForwardTo());
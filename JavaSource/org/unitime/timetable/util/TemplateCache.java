@@ -0,0 +1,67 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.util;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.unitime.localization.impl.Localization;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * Shared FreeMarker configurations, one for each template location. Since the configuration keeps the parsed templates
+ * in its template cache, a template is parsed only once (and again when the template file changes) instead of on every use.
+ */
+public class TemplateCache {
+	private static ConcurrentHashMap<String, Configuration> sConfigurations = new ConcurrentHashMap<String, Configuration>();
+
+	/**
+	 * Parsed template for the current locale (see {@link Localization#getJavaLocale()})
+	 * @param loaderClass class used to load the template (see {@link Configuration#setClassForTemplateLoading(Class, String)})
+	 * @param basePackagePath template location, relative to the loader class
+	 * @param name template name
+	 */
+	public static Template getTemplate(Class<?> loaderClass, String basePackagePath, String name) throws IOException {
+		return getTemplate(loaderClass, basePackagePath, name, null);
+	}
+
+	/**
+	 * Parsed template for the current locale (see {@link Localization#getJavaLocale()})
+	 * @param loaderClass class used to load the template (see {@link Configuration#setClassForTemplateLoading(Class, String)})
+	 * @param basePackagePath template location, relative to the loader class
+	 * @param name template name
+	 * @param encoding template file encoding, null for the default
+	 */
+	public static Template getTemplate(Class<?> loaderClass, String basePackagePath, String name, String encoding) throws IOException {
+		String key = loaderClass.getName() + ":" + basePackagePath + ":" + encoding;
+		Configuration cfg = sConfigurations.get(key);
+		if (cfg == null) {
+			cfg = new Configuration(Configuration.VERSION_2_3_0);
+			cfg.setClassForTemplateLoading(loaderClass, basePackagePath);
+			cfg.setOutputEncoding("utf-8");
+			if (encoding != null) cfg.setDefaultEncoding(encoding);
+			Configuration other = sConfigurations.putIfAbsent(key, cfg);
+			if (other != null) cfg = other;
+		}
+		return cfg.getTemplate(name, Localization.getJavaLocale());
+	}
+}
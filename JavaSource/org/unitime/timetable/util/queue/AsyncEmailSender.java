@@ -0,0 +1,125 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * The Apereo Foundation licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+*/
+package org.unitime.timetable.util.queue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.unitime.commons.Email;
+
+/**
+ * Sends emails on a small pool of threads. At most the given number of emails can wait to be sent,
+ * {@link #send(Email, Callback)} blocks until there is room in the queue. With no threads, emails are sent right away on the calling thread.
+ */
+public class AsyncEmailSender {
+	private static AtomicInteger sSenderId = new AtomicInteger(0);
+	private ExecutorService iExecutor = null;
+	private int iMaxPending = 0;
+	private Semaphore iPending = null;
+	private AtomicInteger iSent = new AtomicInteger(0), iFailed = new AtomicInteger(0);
+	private volatile long iStartTime = -1;
+
+	public AsyncEmailSender(int nrThreads, int queueSize) {
+		if (nrThreads > 0) {
+			final int senderId = sSenderId.incrementAndGet();
+			iExecutor = Executors.newFixedThreadPool(nrThreads, new ThreadFactory() {
+				private AtomicInteger iThreadId = new AtomicInteger(0);
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "EmailSender-" + senderId + "-" + iThreadId.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			iMaxPending = Math.max(nrThreads, queueSize);
+			iPending = new Semaphore(iMaxPending);
+		}
+	}
+
+	/**
+	 * Send the given email, the callback is called (from one of the sender threads) when done
+	 */
+	public void send(final Email email, final Callback callback) throws InterruptedException {
+		if (iStartTime < 0) iStartTime = System.currentTimeMillis();
+		if (iExecutor == null) {
+			doSend(email, callback);
+			return;
+		}
+		iPending.acquire();
+		iExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					doSend(email, callback);
+				} finally {
+					iPending.release();
+				}
+			}
+		});
+	}
+
+	protected void doSend(Email email, Callback callback) {
+		try {
+			email.send();
+			iSent.incrementAndGet();
+		} catch (Throwable t) {
+			iFailed.incrementAndGet();
+			if (callback != null) callback.onFailure(t);
+			return;
+		}
+		if (callback != null) callback.onSuccess();
+	}
+
+	/**
+	 * Wait until all the emails are sent
+	 */
+	public void flush() throws InterruptedException {
+		if (iExecutor == null) return;
+		iPending.acquire(iMaxPending);
+		iPending.release(iMaxPending);
+	}
+
+	/**
+	 * Stop the sender threads (emails that are waiting are still sent)
+	 */
+	public void shutdown() {
+		if (iExecutor != null) iExecutor.shutdown();
+	}
+
+	public int getSent() { return iSent.get(); }
+	public int getFailed() { return iFailed.get(); }
+
+	/**
+	 * Number of emails sent per second
+	 */
+	public double getThroughput() {
+		if (iStartTime < 0) return 0.0;
+		long time = System.currentTimeMillis() - iStartTime;
+		return (time <= 0 ? 0.0 : 1000.0 * iSent.get() / time);
+	}
+
+	public static interface Callback {
+		public void onSuccess();
+		public void onFailure(Throwable t);
+	}
+}
@@ -54,6 +54,7 @@ import org.unitime.timetable.model.dao.ExamDAO;
 import org.unitime.timetable.model.dao.ExamTypeDAO;
 import org.unitime.timetable.model.dao.SessionDAO;
 import org.unitime.timetable.model.dao.SubjectAreaDAO;
+import org.unitime.timetable.reports.ReportWriterPool;
 import org.unitime.timetable.reports.exam.InstructorExamReport;
 import org.unitime.timetable.reports.exam.PdfLegacyExamReport;
 import org.unitime.timetable.reports.exam.StudentExamReport;
@@ -79,8 +80,9 @@ public class PdfExamReportQueueItem extends QueueItem {
 	private String iUrl = null;
 	private transient ExamSolverProxy iExamSolver;
 	private String iName = null;
-	private double iProgress = 0;
+	private volatile double iProgress = 0;
 	private boolean iSubjectIndependent = false;
+	private static Formats.Format<Number> sThroughputFormat = Formats.getNumberFormat("0.0");
 	
 	public PdfExamReportQueueItem(Session session, UserContext owner, ExamPdfReportForm form, HttpServletRequest request, ExamSolverProxy examSolver) {
 		super(session, owner);
@@ -316,9 +318,9 @@ public class PdfExamReportQueueItem extends QueueItem {
                     report.close();
                     output.put(reportName+"."+(iForm.getModeIdx()==PdfLegacyExamReport.sModeText?"txt":"pdf"),file);
                     if (report instanceof InstructorExamReport && iForm.getEmailInstructors()) {
-                        ireports = ((InstructorExamReport)report).printInstructorReports(iForm.getModeIdx(), name, new FileGenerator(name));
+                        ireports = printInstructorReports((InstructorExamReport)report, name, 0.8 / iForm.getReports().length);
                     } else if (report instanceof StudentExamReport && iForm.getEmailStudents()) {
-                        sreports = ((StudentExamReport)report).printStudentReports(iForm.getModeIdx(), name, new FileGenerator(name));
+                        sreports = printStudentReports((StudentExamReport)report, name, 0.8 / iForm.getReports().length);
                     }
                 } else {
                     for (int j=0;j<iForm.getSubjects().length;j++) {
@@ -356,9 +358,9 @@ public class PdfExamReportQueueItem extends QueueItem {
                         }
                         files.put(subject.getSubjectAreaAbbreviation()+"_"+reportName+"."+(iForm.getModeIdx()==PdfLegacyExamReport.sModeText?"txt":"pdf"),file);
                         if (report instanceof InstructorExamReport && iForm.getEmailInstructors()) {
-                            ireports = ((InstructorExamReport)report).printInstructorReports(iForm.getModeIdx(), name, new FileGenerator(name));
+                            ireports = printInstructorReports((InstructorExamReport)report, name, 0.8 / iForm.getReports().length / iForm.getSubjects().length);
                         } else if (report instanceof StudentExamReport && iForm.getEmailStudents()) {
-                            sreports = ((StudentExamReport)report).printStudentReports(iForm.getModeIdx(), name, new FileGenerator(name));
+                            sreports = printStudentReports((StudentExamReport)report, name, 0.8 / iForm.getReports().length / iForm.getSubjects().length);
                         }
                     }
                 }
@@ -467,72 +469,7 @@ public class PdfExamReportQueueItem extends QueueItem {
                         setError(e);
                     }
                 }
-                if (iForm.getEmailInstructors() && ireports!=null && !ireports.isEmpty()) {
-                    setStatus("Emailing instructors...");
-                    for (ExamInstructorInfo instructor : new TreeSet<ExamInstructorInfo>(ireports.keySet())) {
-                        File report = ireports.get(instructor);
-                        String email = instructor.getInstructor().getEmail();
-                        if (email==null || email.length()==0) {
-                            log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+instructor.getName()+"</a> -- instructor has no email address.</font>");
-                            continue;
-                        }
-                        try {
-                        	Email mail = Email.createEmail();
-                            mail.setSubject(iForm.getSubject()==null?"Examination Report":iForm.getSubject());
-                            mail.setText((iForm.getMessage()==null?"":iForm.getMessage()+"\r\n\r\n")+
-                                    "For an up-to-date examination report, please visit "+
-                                    iUrl+"/exams.do\r\n\r\n"+
-                                    "This email was automatically generated by "+
-                                    "UniTime "+Constants.getVersion()+
-                                    " (Univesity Timetabling Application, http://www.unitime.org).");
-                            mail.addRecipient(email, null);
-                            if (iForm.getCc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getCc(),";,\n\r ");s.hasMoreTokens();) 
-                                mail.addRecipientCC(s.nextToken(), null);
-                            if (iForm.getBcc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getBcc(),";,\n\r ");s.hasMoreTokens();) 
-                                mail.addRecipientBCC(s.nextToken(), null);
-                            mail.addAttachment(report, session.getAcademicTerm()+session.getSessionStartYear()+ExamTypeDAO.getInstance().get(iForm.getExamType()).getReference()+(iForm.getModeIdx()==PdfLegacyExamReport.sModeText?".txt":".pdf"));
-                            mail.send();
-                            log("&nbsp;&nbsp;An email was sent to <a href='temp/"+report.getName()+"'>"+instructor.getName()+"</a>.");
-                        } catch (Exception e) {
-                            log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+instructor.getName()+"</a> -- "+e.getMessage()+".</font>");
-                            setError(e);
-                        }
-                    }
-                    log("Emails sent.");
-                }
-                if (iForm.getEmailStudents() && sreports!=null && !sreports.isEmpty()) {
-                    setStatus("Emailing students...");
-                    for (Student student : new TreeSet<Student>(sreports.keySet())) {
-                        File report = sreports.get(student);
-                        String email = student.getEmail();
-                        if (email==null || email.length()==0) {
-                            log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+student.getName(DepartmentalInstructor.sNameFormatLastFist)+"</a> -- student has no email address.</font>");
-                            continue;
-                        }
-                        try {
-                            Email mail = Email.createEmail();
-                            mail.setSubject(iForm.getSubject()==null?"Examination Report":iForm.getSubject());
-                            mail.setText((iForm.getMessage()==null?"":iForm.getMessage()+"\r\n\r\n")+
-                                    "For an up-to-date examination report, please visit "+
-                                    iUrl+"/exams.do\r\n\r\n"+
-                                    "This email was automatically generated by "+
-                                    "UniTime "+Constants.getVersion()+
-                                    " (Univesity Timetabling Application, http://www.unitime.org).");
-                            mail.addRecipient(email, null);
-                            if (iForm.getCc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getCc(),";,\n\r ");s.hasMoreTokens();) 
-                                mail.addRecipientCC(s.nextToken(), null);
-                            if (iForm.getBcc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getBcc(),";,\n\r ");s.hasMoreTokens();) 
-                                mail.addRecipientBCC(s.nextToken(), null);
-                            mail.addAttachment(report, session.getAcademicTerm()+session.getSessionStartYear()+ExamTypeDAO.getInstance().get(iForm.getExamType()).getReference()+(iForm.getModeIdx()==PdfLegacyExamReport.sModeText?".txt":".pdf"));
-                            mail.send();
-                            log("&nbsp;&nbsp;An email was sent to <a href='temp/"+report.getName()+"'>"+student.getName(DepartmentalInstructor.sNameFormatLastFist)+"</a>.");
-                        } catch (Exception e) {
-                            log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+student.getName(DepartmentalInstructor.sNameFormatLastFist)+"</a> -- "+e.getMessage()+".</font>");
-                            setError(e);
-                        }
-                    }
-                    log("Emails sent.");
-                }
+                emailIndividualReports(session, ireports, sreports);
             }
             if (output.isEmpty()) {
                 throw new Exception("Nothing generated.");
@@ -591,5 +528,142 @@ public class PdfExamReportQueueItem extends QueueItem {
             return ApplicationProperties.getTempFile(iName+"_"+prefix, ext);
         }
     }
+	
+	/**
+	 * Email the individual instructor and student reports, the emails are sent by a bounded pool of sender threads
+	 */
+	protected void emailIndividualReports(Session session, Hashtable<ExamInstructorInfo,File> ireports, Hashtable<Student,File> sreports) throws InterruptedException {
+		AsyncEmailSender sender = new AsyncEmailSender(ApplicationProperty.ExaminationPdfReportsEmailThreads.intValue(), ApplicationProperty.ExaminationPdfReportsEmailQueueSize.intValue());
+		try {
+			int nrEmails = (iForm.getEmailInstructors() && ireports!=null ? ireports.size() : 0) + (iForm.getEmailStudents() && sreports!=null ? sreports.size() : 0);
+			String attachmentName = session.getAcademicTerm()+session.getSessionStartYear()+ExamTypeDAO.getInstance().get(iForm.getExamType()).getReference()+(iForm.getModeIdx()==PdfLegacyExamReport.sModeText?".txt":".pdf");
+			if (iForm.getEmailInstructors() && ireports!=null && !ireports.isEmpty()) {
+				setStatus("Emailing instructors...");
+				for (ExamInstructorInfo instructor : new TreeSet<ExamInstructorInfo>(ireports.keySet()))
+					emailIndividualReport(sender, ireports.get(instructor), attachmentName, instructor.getName(), instructor.getInstructor().getEmail(), "instructor", nrEmails);
+				sender.flush();
+				log("Emails sent.");
+			}
+			if (iForm.getEmailStudents() && sreports!=null && !sreports.isEmpty()) {
+				setStatus("Emailing students...");
+				for (Student student : new TreeSet<Student>(sreports.keySet()))
+					emailIndividualReport(sender, sreports.get(student), attachmentName, student.getName(DepartmentalInstructor.sNameFormatLastFist), student.getEmail(), "student", nrEmails);
+				sender.flush();
+				log("Emails sent.");
+			}
+			if (nrEmails > 0)
+				log("&nbsp;&nbsp;" + sender.getSent() + " of " + nrEmails + " individual emails sent" + (sender.getFailed() > 0 ? ", " + sender.getFailed() + " failed" : "") +
+						" (" + sThroughputFormat.format(sender.getThroughput()) + " emails/s).");
+		} finally {
+			sender.shutdown();
+		}
+	}
+	
+	/**
+	 * Email an individual report to the given instructor or student
+	 * @param recipient recipient type (instructor or student), used in the log
+	 */
+	protected void emailIndividualReport(AsyncEmailSender sender, File report, String attachmentName, String name, String email, String recipient, int nrEmails) {
+		if (email==null || email.length()==0) {
+			log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+name+"</a> -- "+recipient+" has no email address.</font>");
+			return;
+		}
+		try {
+			Email mail = Email.createEmail();
+			mail.setSubject(iForm.getSubject()==null?"Examination Report":iForm.getSubject());
+			mail.setText((iForm.getMessage()==null?"":iForm.getMessage()+"\r\n\r\n")+
+					"For an up-to-date examination report, please visit "+
+					iUrl+"/exams.do\r\n\r\n"+
+					"This email was automatically generated by "+
+					"UniTime "+Constants.getVersion()+
+					" (Univesity Timetabling Application, http://www.unitime.org).");
+			mail.addRecipient(email, null);
+			if (iForm.getCc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getCc(),";,\n\r ");s.hasMoreTokens();) 
+				mail.addRecipientCC(s.nextToken(), null);
+			if (iForm.getBcc()!=null) for (StringTokenizer s=new StringTokenizer(iForm.getBcc(),";,\n\r ");s.hasMoreTokens();) 
+				mail.addRecipientBCC(s.nextToken(), null);
+			mail.addAttachment(report, attachmentName);
+			sender.send(mail, new EmailCallback(sender, report, name, nrEmails));
+		} catch (Exception e) {
+			log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+report.getName()+"'>"+name+"</a> -- "+e.getMessage()+".</font>");
+			setError(e);
+		}
+	}
+	
+	protected ReportWriterPool createWriters(final double progressStep) {
+		int nrWorkers = ApplicationProperty.ExaminationPdfReportsWorkers.intValue();
+		if (nrWorkers <= 0) return null;
+		final double progressBase = iProgress;
+		return new ReportWriterPool(nrWorkers, new ReportWriterPool.Listener() {
+			@Override
+			public void progress(int done, int total, int written, double throughput) {
+				if (total > 0) iProgress = progressBase + progressStep * done / total;
+				if (done % 1000 == 0)
+					log("&nbsp;&nbsp;&nbsp;&nbsp;" + done + " of " + total + " individual reports done (" + sThroughputFormat.format(throughput) + " reports/s)");
+			}
+		});
+	}
+	
+	protected Hashtable<ExamInstructorInfo,File> printInstructorReports(InstructorExamReport report, String name, double progressStep) throws Exception {
+		ReportWriterPool writers = createWriters(progressStep);
+		try {
+			Hashtable<ExamInstructorInfo,File> files = report.printInstructorReports(iForm.getModeIdx(), name, new FileGenerator(name), writers);
+			if (writers != null) {
+				writers.flush();
+				log("&nbsp;&nbsp;&nbsp;&nbsp;" + writers.getWritten() + " individual instructor reports written (" + sThroughputFormat.format(writers.getThroughput()) + " reports/s)");
+			}
+			return files;
+		} finally {
+			if (writers != null) writers.shutdown();
+		}
+	}
+	
+	protected Hashtable<Student,File> printStudentReports(StudentExamReport report, String name, double progressStep) throws Exception {
+		ReportWriterPool writers = createWriters(progressStep);
+		try {
+			Hashtable<Student,File> files = report.printStudentReports(iForm.getModeIdx(), name, new FileGenerator(name), writers);
+			if (writers != null) {
+				writers.flush();
+				log("&nbsp;&nbsp;&nbsp;&nbsp;" + writers.getWritten() + " individual student reports written (" + sThroughputFormat.format(writers.getThroughput()) + " reports/s)");
+			}
+			return files;
+		} finally {
+			if (writers != null) writers.shutdown();
+		}
+	}
+	
+	/**
+	 * Logs the outcome of an individual email, updates the progress
+	 */
+	protected class EmailCallback implements AsyncEmailSender.Callback {
+		private AsyncEmailSender iSender;
+		private File iReport;
+		private String iName;
+		private int iTotal;
+		
+		public EmailCallback(AsyncEmailSender sender, File report, String name, int total) {
+			iSender = sender; iReport = report; iName = name; iTotal = total;
+		}
+
+		@Override
+		public void onSuccess() {
+			log("&nbsp;&nbsp;An email was sent to <a href='temp/"+iReport.getName()+"'>"+iName+"</a>.");
+			progress();
+		}
+
+		@Override
+		public void onFailure(Throwable t) {
+			log("&nbsp;&nbsp;<font color='orange'>Unable to email <a href='temp/"+iReport.getName()+"'>"+iName+"</a> -- "+t.getMessage()+".</font>");
+			setError(t);
+			progress();
+		}
+		
+		protected void progress() {
+			int done = iSender.getSent() + iSender.getFailed();
+			if (iTotal > 0) iProgress = 0.9 + 0.1 * done / iTotal;
+			if (done % 1000 == 0)
+				log("&nbsp;&nbsp;&nbsp;&nbsp;" + done + " of " + iTotal + " individual emails done (" + sThroughputFormat.format(iSender.getThroughput()) + " emails/s)");
+		}
+	}
 
 }
@@ -107,7 +107,7 @@ public class WebClassAssignmentReportListTableBuilder extends WebClassListTableB
         	if (context.hasPermission(Right.ClassAssignments) && classAssignment != null) {
         		try {
                 	if (classAssignment instanceof CachedClassAssignmentProxy) {
-                		((CachedClassAssignmentProxy)classAssignment).setCache(classes);
+                		((CachedClassAssignmentProxy)classAssignment).prefetch(classes);
                 	}
         			for (Iterator i=classes.iterator();i.hasNext();) {
         				Object[] o = (Object[])i.next(); Class_ clazz = (Class_)o[0];
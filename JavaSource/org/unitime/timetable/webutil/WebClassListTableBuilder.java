@@ -106,7 +106,7 @@ public class WebClassListTableBuilder extends
     		if (context.hasPermission(Right.ClassAssignments) && classAssignment != null) {
     			try {
                 	if (classAssignment instanceof CachedClassAssignmentProxy) {
-                		((CachedClassAssignmentProxy)classAssignment).setCache(classes);
+                		((CachedClassAssignmentProxy)classAssignment).prefetch(classes);
                 	}
     				for (Iterator i=classes.iterator();i.hasNext();) {
     					Object[] o = (Object[])i.next(); Class_ clazz = (Class_)o[0];
@@ -224,7 +224,7 @@ public class WebClassListTableBuilder extends
         	if (context.hasPermission(Right.ClassAssignments) && classAssignment != null) {
         		try {
                 	if (classAssignment instanceof CachedClassAssignmentProxy) {
-                		((CachedClassAssignmentProxy)classAssignment).setCache(classes);
+                		((CachedClassAssignmentProxy)classAssignment).prefetch(classes);
                 	}
         			for (Iterator i=classes.iterator();i.hasNext();) {
         				Class_ clazz = (Class_)i.next();
@@ -167,7 +167,7 @@ public class WebInstrOfferingConfigTableBuilder extends
 		        					allClasses.add(clazz);
 		        				}
 		        			}
-	                		((CachedClassAssignmentProxy)classAssignment).setCache(allClasses);
+	                		((CachedClassAssignmentProxy)classAssignment).prefetch(allClasses);
 	                		hasTimetable = !classAssignment.getAssignmentTable(allClasses).isEmpty();
 	                	} else {
 		        			for (Iterator k=ioc.getSchedulingSubparts().iterator();!hasTimetable && k.hasNext();) {
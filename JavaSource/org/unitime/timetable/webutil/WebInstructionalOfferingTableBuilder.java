@@ -2140,7 +2140,7 @@ public class WebInstructionalOfferingTableBuilder {
         						}
         					}
         				}
-                		((CachedClassAssignmentProxy)classAssignment).setCache(allClasses);
+                		((CachedClassAssignmentProxy)classAssignment).prefetch(allClasses);
                 		hasTimetable = !classAssignment.getAssignmentTable(allClasses).isEmpty();
                 	} else {
         				for (Iterator i=insructionalOfferings.iterator();!hasTimetable && i.hasNext();) {
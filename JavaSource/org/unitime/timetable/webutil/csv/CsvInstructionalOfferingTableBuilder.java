@@ -1390,7 +1390,7 @@ public class CsvInstructionalOfferingTableBuilder extends WebInstructionalOfferi
     						}
     					}
     				}
-            		((CachedClassAssignmentProxy)classAssignment).setCache(allClasses);
+            		((CachedClassAssignmentProxy)classAssignment).prefetch(allClasses);
             		hasTimetable = !classAssignment.getAssignmentTable(allClasses).isEmpty();
             	} else {
     				for (Iterator i=insructionalOfferings.iterator();!hasTimetable && i.hasNext();) {
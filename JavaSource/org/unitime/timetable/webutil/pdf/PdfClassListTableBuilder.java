@@ -86,7 +86,7 @@ public class PdfClassListTableBuilder extends PdfInstructionalOfferingTableBuild
 			boolean hasTimetable = false;
 			if (context.hasPermission(Right.ClassAssignments) && classAssignment != null) {
             	if (classAssignment instanceof CachedClassAssignmentProxy) {
-            		((CachedClassAssignmentProxy)classAssignment).setCache(classes);
+            		((CachedClassAssignmentProxy)classAssignment).prefetch(classes);
             	}
 				for (Iterator i=classes.iterator();i.hasNext();) {
 					Object[] o = (Object[])i.next(); Class_ clazz = (Class_)o[0];
@@ -1757,7 +1757,7 @@ public class PdfInstructionalOfferingTableBuilder extends WebInstructionalOfferi
     						}
     					}
     				}
-            		((CachedClassAssignmentProxy)classAssignment).setCache(allClasses);
+            		((CachedClassAssignmentProxy)classAssignment).prefetch(allClasses);
             		hasTimetable = !classAssignment.getAssignmentTable(allClasses).isEmpty();
             	} else {
     				for (Iterator i=insructionalOfferings.iterator();!hasTimetable && i.hasNext();) {
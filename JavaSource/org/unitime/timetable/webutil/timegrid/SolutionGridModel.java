@@ -26,9 +26,11 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -82,40 +84,33 @@ public class SolutionGridModel extends TimetableGridModel {
     
 	public SolutionGridModel(String solutionIdsStr, Location room, org.hibernate.Session hibSession, TimetableGridContext context) {
 		super(sResourceTypeRoom, room.getUniqueId().intValue());
-		setName(room.getLabel());
-		setSize(room.getCapacity().intValue());
-		setFirstDay(context.getFirstDay());
-		iRoomId = room.getUniqueId();
-		Solution firstSolution = null;
-		String ownerIds = "";
-		HashSet deptIds = new HashSet();
-		for (StringTokenizer s=new StringTokenizer(solutionIdsStr,",");s.hasMoreTokens();) {
-			Long solutionId = Long.valueOf(s.nextToken());
-			Solution solution = (new SolutionDAO()).get(solutionId, hibSession);
-			if (solution==null) continue;
-			if (firstSolution==null) firstSolution = solution;
-			if (ownerIds.length()>0) ownerIds += ",";
-			ownerIds += solution.getOwner().getUniqueId();
-			for (Iterator i=solution.getOwner().getDepartments().iterator();i.hasNext();) {
-				Department d = (Department)i.next();
-				deptIds.add(d.getUniqueId());
-			}
-		}
 		Query q = hibSession.createQuery("select distinct a from Assignment as a inner join a.rooms as r where a.solution.uniqueId in ("+solutionIdsStr+") and r.uniqueId=:resourceId");
 		q.setLong("resourceId", room.getUniqueId());
 		q.setCacheable(true);
-		init(q.list(),hibSession,context);
+		List assignments = q.list();
 		
 		q = hibSession.createQuery("select distinct a from Room r inner join r.assignments as a "+
-		"where r.uniqueId=:roomId and a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+ownerIds+")");
+		"where r.uniqueId=:roomId and a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+getOwnerIds(solutionIdsStr, hibSession)+")");
 		q.setLong("roomId",room.getUniqueId());
         q.setLong("sessionId", room.getSession().getUniqueId().longValue());
 		q.setCacheable(true);
 		List commitedAssignments = q.list();
-		for (Iterator x=commitedAssignments.iterator();x.hasNext();) {
-			Assignment a = (Assignment)x.next();
+		initRoom(room, assignments, commitedAssignments, getDepartmentIds(solutionIdsStr, hibSession), hibSession, context);
+	}
+	
+	protected SolutionGridModel(Location room, Collection<Assignment> assignments, Collection<Assignment> commitedAssignments, Set<Long> deptIds, org.hibernate.Session hibSession, TimetableGridContext context) {
+		super(sResourceTypeRoom, room.getUniqueId().intValue());
+		initRoom(room, assignments, commitedAssignments, deptIds, hibSession, context);
+	}
+	
+	private void initRoom(Location room, Collection<Assignment> assignments, Collection<Assignment> commitedAssignments, Set<Long> deptIds, org.hibernate.Session hibSession, TimetableGridContext context) {
+		setName(room.getLabel());
+		setSize(room.getCapacity().intValue());
+		setFirstDay(context.getFirstDay());
+		iRoomId = room.getUniqueId();
+		init(assignments,hibSession,context);
+		for (Assignment a: commitedAssignments)
 			init(a,hibSession,context.getFirstDay(),sBgModeNotAvailable);
-		}
 		setUtilization(getUtilization() + countUtilization(context, commitedAssignments));
 		RoomSharingModel sharing = room.getRoomSharingModel();
 		if (sharing!=null) {
@@ -212,19 +207,8 @@ public class SolutionGridModel extends TimetableGridModel {
 	
 	public SolutionGridModel(String solutionIdsStr, DepartmentalInstructor instructor, org.hibernate.Session hibSession, TimetableGridContext context) {
 		super(sResourceTypeInstructor, instructor.getUniqueId().intValue());
-		setName(instructor.getLastName()+", "+instructor.getFirstName()+(instructor.getMiddleName()==null?"":" "+instructor.getMiddleName()));
-		setFirstDay(context.getFirstDay());
-		Solution firstSolution = null;
-		String ownerIds = "";
-		for (StringTokenizer s=new StringTokenizer(solutionIdsStr,",");s.hasMoreTokens();) {
-			Long solutionId = Long.valueOf(s.nextToken());
-			Solution solution = (new SolutionDAO()).get(solutionId, hibSession);
-			if (solution==null) continue;
-			if (firstSolution==null) firstSolution = solution;
-			if (ownerIds.length()>0) ownerIds += ",";
-			ownerIds += solution.getOwner().getUniqueId();
-		}
-		List commitedAssignments = null;
+		String ownerIds = getOwnerIds(solutionIdsStr, hibSession);
+		List assignments = null, commitedAssignments = null;
 		
 		if (ApplicationProperty.TimetableGridUseClassInstructors.isTrue()) {
 			String check = "";
@@ -236,7 +220,7 @@ public class SolutionGridModel extends TimetableGridModel {
 				Query q = hibSession.createQuery("select distinct a from Assignment as a inner join a.clazz.classInstructors as i where a.solution.uniqueId in (" + solutionIdsStr + ") and i.instructor.externalUniqueId = :extId" + check);
 				q.setString("extId", instructor.getExternalUniqueId());
 				q.setCacheable(true);
-				init(q.list(), hibSession, context);
+				assignments = q.list();
 				q = hibSession.createQuery("select distinct a from ClassInstructor i inner join i.classInstructing.assignments as a "+
 						"where i.instructor.externalUniqueId = :extId and a.solution.commited = true and a.solution.owner.session.uniqueId = :sessionId and a.solution.owner.uniqueId not in (" + ownerIds + ")" + check);
 				q.setString("extId",instructor.getExternalUniqueId());
@@ -247,7 +231,7 @@ public class SolutionGridModel extends TimetableGridModel {
 				Query q = hibSession.createQuery("select distinct a from Assignment as a inner join a.clazz.classInstructors as i where a.solution.uniqueId in (" + solutionIdsStr + ") and i.instructor.uniqueId = :instructorId" + check);
 				q.setLong("instructorId", instructor.getUniqueId());
 				q.setCacheable(true);
-				init(q.list(),hibSession,context);
+				assignments = q.list();
 				q = hibSession.createQuery("select distinct a from ClassInstructor i inner join i.classInstructing.assignments as a "+
 						"where i.instructor.uniqueId = :instructorId and a.solution.commited = true and a.solution.owner.session.uniqueId = :sessionId and a.solution.owner.uniqueId not in (" + ownerIds + ")" + check);
 				q.setLong("instructorId",instructor.getUniqueId());
@@ -260,7 +244,7 @@ public class SolutionGridModel extends TimetableGridModel {
 				Query q = hibSession.createQuery("select distinct a from Assignment as a inner join a.instructors as i where a.solution.uniqueId in ("+solutionIdsStr+") and i.externalUniqueId=:puid");
 				q.setString("puid", instructor.getExternalUniqueId());
 				q.setCacheable(true);
-				init(q.list(),hibSession,context);
+				assignments = q.list();
 				q = hibSession.createQuery("select distinct a from DepartmentalInstructor i inner join i.assignments as a "+
 						"where i.externalUniqueId=:puid and a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+ownerIds+")");
 				q.setString("puid",instructor.getExternalUniqueId());
@@ -271,7 +255,7 @@ public class SolutionGridModel extends TimetableGridModel {
 				Query q = hibSession.createQuery("select distinct a from Assignment as a inner join a.instructors as i where a.solution.uniqueId in ("+solutionIdsStr+") and i.uniqueId=:resourceId");
 				q.setLong("resourceId", instructor.getUniqueId());
 				q.setCacheable(true);
-				init(q.list(),hibSession,context);
+				assignments = q.list();
 				q = hibSession.createQuery("select distinct a from DepartmentalInstructor i inner join i.assignments as a "+
 						"where i.uniqueId=:instructorId and a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+ownerIds+")");
 				q.setLong("instructorId",instructor.getUniqueId());
@@ -280,10 +264,20 @@ public class SolutionGridModel extends TimetableGridModel {
 				commitedAssignments = q.list();
 			}
 		}
-		
+		initInstructor(instructor, assignments, commitedAssignments, hibSession, context);
+	}
+	
+	protected SolutionGridModel(DepartmentalInstructor instructor, Collection<Assignment> assignments, Collection<Assignment> commitedAssignments, org.hibernate.Session hibSession, TimetableGridContext context) {
+		super(sResourceTypeInstructor, instructor.getUniqueId().intValue());
+		initInstructor(instructor, assignments, commitedAssignments, hibSession, context);
+	}
+	
+	private void initInstructor(DepartmentalInstructor instructor, Collection<Assignment> assignments, Collection<Assignment> commitedAssignments, org.hibernate.Session hibSession, TimetableGridContext context) {
+		setName(instructor.getLastName()+", "+instructor.getFirstName()+(instructor.getMiddleName()==null?"":" "+instructor.getMiddleName()));
+		setFirstDay(context.getFirstDay());
+		init(assignments,hibSession,context);
 		setUtilization(getUtilization() + countUtilization(context, commitedAssignments));
-		for (Iterator x=commitedAssignments.iterator();x.hasNext();) {
-			Assignment a = (Assignment)x.next();
+		for (Assignment a: commitedAssignments) {
 			init(a,hibSession,context.getFirstDay(),sBgModeNotAvailable);
 			/*
 			int days = a.getDays().intValue();
@@ -534,7 +528,144 @@ public class SolutionGridModel extends TimetableGridModel {
 		setUtilization(g.getGroupValue());
 	}
 	
-	private void init(List assignments, org.hibernate.Session hibSession, TimetableGridContext context) {
+	protected static String getOwnerIds(String solutionIdsStr, org.hibernate.Session hibSession) {
+		String ownerIds = "";
+		for (StringTokenizer s=new StringTokenizer(solutionIdsStr,",");s.hasMoreTokens();) {
+			Solution solution = (new SolutionDAO()).get(Long.valueOf(s.nextToken()), hibSession);
+			if (solution==null) continue;
+			if (ownerIds.length()>0) ownerIds += ",";
+			ownerIds += solution.getOwner().getUniqueId();
+		}
+		return ownerIds;
+	}
+	
+	protected static Set<Long> getDepartmentIds(String solutionIdsStr, org.hibernate.Session hibSession) {
+		Set<Long> deptIds = new HashSet<Long>();
+		for (StringTokenizer s=new StringTokenizer(solutionIdsStr,",");s.hasMoreTokens();) {
+			Solution solution = (new SolutionDAO()).get(Long.valueOf(s.nextToken()), hibSession);
+			if (solution==null) continue;
+			for (Department d: solution.getOwner().getDepartments())
+				deptIds.add(d.getUniqueId());
+		}
+		return deptIds;
+	}
+	
+	/**
+	 * Load all the assignments of the given solutions together with their assignment infos and classes, so that
+	 * the grid cells can be created without further queries.
+	 */
+	protected static void prefetchAssignments(String solutionIdsStr, org.hibernate.Session hibSession) {
+		hibSession.createQuery(
+				"select distinct a from Assignment a inner join fetch a.clazz left join fetch a.assignmentInfo i left join fetch i.definition " +
+				"where a.solution.uniqueId in ("+solutionIdsStr+")").list();
+	}
+	
+	private static <T> void add(Map<T, List<Assignment>> table, T key, Assignment assignment) {
+		List<Assignment> assignments = table.get(key);
+		if (assignments == null) {
+			assignments = new ArrayList<Assignment>();
+			table.put(key, assignments);
+		}
+		assignments.add(assignment);
+	}
+	
+	private static <T> List<Assignment> get(Map<T, List<Assignment>> table, T key) {
+		List<Assignment> assignments = table.get(key);
+		return (assignments == null ? new ArrayList<Assignment>() : assignments);
+	}
+	
+	/**
+	 * Bulk version of {@link #SolutionGridModel(String, Location, org.hibernate.Session, TimetableGridContext)}: all the assignments
+	 * of the given solutions and the committed assignments of the given rooms are loaded using a few queries and split by room in memory.
+	 */
+	public static List<SolutionGridModel> createRoomModels(String solutionIdsStr, Collection<Location> rooms, org.hibernate.Session hibSession, TimetableGridContext context) {
+		List<SolutionGridModel> models = new ArrayList<SolutionGridModel>();
+		if (rooms.isEmpty()) return models;
+		Long sessionId = rooms.iterator().next().getSession().getUniqueId();
+		prefetchAssignments(solutionIdsStr, hibSession);
+		
+		Map<Long, List<Assignment>> assignments = new HashMap<Long, List<Assignment>>();
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select a, r.uniqueId from Assignment as a inner join a.rooms as r where a.solution.uniqueId in ("+solutionIdsStr+")")
+				.setCacheable(true).list())
+			add(assignments, (Long)o[1], (Assignment)o[0]);
+		
+		Map<Long, List<Assignment>> commitedAssignments = new HashMap<Long, List<Assignment>>();
+		for (Object[] o: (List<Object[]>)hibSession.createQuery(
+				"select a, r.uniqueId from Room r inner join r.assignments as a where " +
+				"a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+getOwnerIds(solutionIdsStr, hibSession)+") and " +
+				"r.uniqueId in (select x.uniqueId from Location x inner join x.assignments as xa where xa.solution.uniqueId in ("+solutionIdsStr+"))")
+				.setLong("sessionId", sessionId).setCacheable(true).list())
+			add(commitedAssignments, (Long)o[1], (Assignment)o[0]);
+		
+		Set<Long> deptIds = getDepartmentIds(solutionIdsStr, hibSession);
+		for (Location room: rooms)
+			models.add(new SolutionGridModel(room, get(assignments, room.getUniqueId()), get(commitedAssignments, room.getUniqueId()), deptIds, hibSession, context));
+		return models;
+	}
+	
+	private static String getInstructorKey(Long instructorId, String externalId) {
+		return (externalId != null && !externalId.isEmpty() ? "E" + externalId : "I" + instructorId);
+	}
+	
+	/**
+	 * Bulk version of {@link #SolutionGridModel(String, DepartmentalInstructor, org.hibernate.Session, TimetableGridContext)}: all the assignments
+	 * of the given solutions and the committed assignments of the given instructors are loaded using a few queries and split by instructor
+	 * (or by external id, when set) in memory.
+	 */
+	public static List<SolutionGridModel> createInstructorModels(String solutionIdsStr, Collection<DepartmentalInstructor> instructors, org.hibernate.Session hibSession, TimetableGridContext context) {
+		List<SolutionGridModel> models = new ArrayList<SolutionGridModel>();
+		if (instructors.isEmpty()) return models;
+		Long sessionId = instructors.iterator().next().getDepartment().getSession().getUniqueId();
+		String ownerIds = getOwnerIds(solutionIdsStr, hibSession);
+		prefetchAssignments(solutionIdsStr, hibSession);
+		
+		Map<String, List<Assignment>> assignments = new HashMap<String, List<Assignment>>();
+		Map<String, List<Assignment>> commitedAssignments = new HashMap<String, List<Assignment>>();
+		List<Object[]> solutionRows = null, commitedRows = null;
+		if (ApplicationProperty.TimetableGridUseClassInstructors.isTrue()) {
+			String check = "";
+			if (ApplicationProperty.TimetableGridUseClassInstructorsCheckLead.isTrue())
+				check += " and i.lead = true";
+			if (ApplicationProperty.TimetableGridUseClassInstructorsCheckClassDisplayInstructors.isTrue())
+				check += " and i.classInstructing.displayInstructor = true";
+			solutionRows = hibSession.createQuery(
+					"select distinct a, i.instructor.uniqueId, i.instructor.externalUniqueId from Assignment as a inner join a.clazz.classInstructors as i where a.solution.uniqueId in (" + solutionIdsStr + ")" + check)
+					.setCacheable(true).list();
+			commitedRows = hibSession.createQuery(
+					"select distinct a, i.instructor.uniqueId, i.instructor.externalUniqueId from ClassInstructor i inner join i.classInstructing.assignments as a "+
+					"where a.solution.commited = true and a.solution.owner.session.uniqueId = :sessionId and a.solution.owner.uniqueId not in (" + ownerIds + ")" + check + " and (" +
+					"i.instructor.uniqueId in (select x.instructor.uniqueId from ClassInstructor x inner join x.classInstructing.assignments as xa where xa.solution.uniqueId in (" + solutionIdsStr + ")) or " +
+					"i.instructor.externalUniqueId in (select x.instructor.externalUniqueId from ClassInstructor x inner join x.classInstructing.assignments as xa where xa.solution.uniqueId in (" + solutionIdsStr + ")))")
+					.setLong("sessionId", sessionId).setCacheable(true).list();
+		} else {
+			solutionRows = hibSession.createQuery(
+					"select distinct a, i.uniqueId, i.externalUniqueId from Assignment as a inner join a.instructors as i where a.solution.uniqueId in ("+solutionIdsStr+")")
+					.setCacheable(true).list();
+			commitedRows = hibSession.createQuery(
+					"select distinct a, i.uniqueId, i.externalUniqueId from DepartmentalInstructor i inner join i.assignments as a "+
+					"where a.solution.commited=true and a.solution.owner.session.uniqueId=:sessionId and a.solution.owner.uniqueId not in ("+ownerIds+") and (" +
+					"i.uniqueId in (select x.uniqueId from DepartmentalInstructor x inner join x.assignments as xa where xa.solution.uniqueId in ("+solutionIdsStr+")) or " +
+					"i.externalUniqueId in (select x.externalUniqueId from DepartmentalInstructor x inner join x.assignments as xa where xa.solution.uniqueId in ("+solutionIdsStr+")))")
+					.setLong("sessionId", sessionId).setCacheable(true).list();
+		}
+		for (Object[] o: solutionRows)
+			add(assignments, getInstructorKey((Long)o[1], (String)o[2]), (Assignment)o[0]);
+		for (Object[] o: commitedRows)
+			add(commitedAssignments, getInstructorKey((Long)o[1], (String)o[2]), (Assignment)o[0]);
+		
+		for (DepartmentalInstructor instructor: instructors) {
+			String key = getInstructorKey(instructor.getUniqueId(), instructor.getExternalUniqueId());
+			models.add(new SolutionGridModel(instructor, distinct(get(assignments, key)), distinct(get(commitedAssignments, key)), hibSession, context));
+		}
+		return models;
+	}
+	
+	private static Collection<Assignment> distinct(List<Assignment> assignments) {
+		return (assignments.size() <= 1 ? assignments : new LinkedHashSet<Assignment>(assignments));
+	}
+	
+	private void init(Collection assignments, org.hibernate.Session hibSession, TimetableGridContext context) {
 		for (Iterator i=assignments.iterator();i.hasNext();) {
 			Assignment assignment = (Assignment)i.next();
 			init(assignment, hibSession, context.getFirstDay(), context.getBgMode());
@@ -770,7 +901,7 @@ public class SolutionGridModel extends TimetableGridModel {
 				time);
 	}
 	
-    private double countUtilization(TimetableGridContext context, List assignments) {
+    private double countUtilization(TimetableGridContext context, Collection assignments) {
     	Set<Integer> slots = new HashSet<Integer>();
         for (Iterator i = assignments.iterator(); i.hasNext(); ) {
         	Assignment assignment = (Assignment) i.next();
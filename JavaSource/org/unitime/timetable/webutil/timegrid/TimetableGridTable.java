@@ -20,6 +20,7 @@
 package org.unitime.timetable.webutil.timegrid;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
@@ -27,6 +28,7 @@ import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
 import java.util.Vector;
@@ -929,11 +931,13 @@ public class TimetableGridTable {
 						"Location as r inner join r.assignments as a where "+
 						"a.solution.uniqueId in ("+solutionIdsStr+")");
 				q.setCacheable(true);
+				List<Location> rooms = new ArrayList<Location>();
 				for (Iterator i=q.list().iterator();i.hasNext();) {
 					Location room = (Location)i.next();
 					if (!match(room)) continue;
-					iModels.add(new SolutionGridModel(solutionIdsStr, room, hibSession, cx));
+					rooms.add(room);
 				}
+				iModels.addAll(SolutionGridModel.createRoomModels(solutionIdsStr, rooms, hibSession, cx));
 			} else if (getResourceType()==TimetableGridModel.sResourceTypeInstructor) {
 				if (RoomAvailability.getInstance() != null && getShowEvents()) {
 			        Calendar startDateCal = Calendar.getInstance(Locale.US);
@@ -964,15 +968,19 @@ public class TimetableGridTable {
 				}
 				q.setCacheable(true);
 				HashSet puids = new HashSet();
+				List<DepartmentalInstructor> instructors = new ArrayList<DepartmentalInstructor>();
 				for (Iterator i=q.list().iterator();i.hasNext();) {
 					DepartmentalInstructor instructor = (DepartmentalInstructor)i.next();
 					String name = (instructor.getLastName()+", "+instructor.getFirstName()+" "+instructor.getMiddleName()).trim();
 					if (!match(name)) continue;
-					if (instructor.getExternalUniqueId()==null || instructor.getExternalUniqueId().length()<=0 || puids.add(instructor.getExternalUniqueId())) {
-                        SolutionGridModel m = new SolutionGridModel(solutionIdsStr, instructor, hibSession, cx);
-                        m.setName(instructor.getName(instructorNameFormat));
-						iModels.add(m);
-                    }
+					if (instructor.getExternalUniqueId()==null || instructor.getExternalUniqueId().length()<=0 || puids.add(instructor.getExternalUniqueId()))
+						instructors.add(instructor);
+				}
+				List<SolutionGridModel> models = SolutionGridModel.createInstructorModels(solutionIdsStr, instructors, hibSession, cx);
+				for (int i = 0; i < models.size(); i++) {
+					SolutionGridModel m = models.get(i);
+					m.setName(instructors.get(i).getName(instructorNameFormat));
+					iModels.add(m);
 				}
 			} else if (getResourceType()==TimetableGridModel.sResourceTypeDepartment) {
 				Query q = hibSession.createQuery(